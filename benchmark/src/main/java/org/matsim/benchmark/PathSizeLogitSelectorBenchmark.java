@@ -0,0 +1,264 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PathSizeLogitSelectorBenchmark.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.gbl.MatsimRandom;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.replanning.selectors.AbstractPlanSelector;
+import org.matsim.core.replanning.selectors.PathSizeLogitSelector;
+
+/**
+ * Measures the time {@link PathSizeLogitSelector} needs to select a plan, on a synthetic grid network with persons
+ * whose plans share long parts of their routes.  For comparison, the same persons are handled by a copy of the
+ * former implementation, which rescanned all departure times of a link for every use of the link.
+ * <p></p>
+ * Everything is generated from fixed seeds, so runs are reproducible.  Optional arguments: number of persons,
+ * plans per person, legs per plan, links per route, rounds.
+ */
+public class PathSizeLogitSelectorBenchmark {
+
+	private static final int GRID_SIZE = 100;
+	private static final double LINK_LENGTH = 100.0;
+
+	public static void main(String[] args) {
+		int numberOfPersons = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+		int plansPerPerson = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int legsPerPlan = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+		int linksPerRoute = args.length > 3 ? Integer.parseInt(args[3]) : 60;
+		int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+		Network network = createGridNetwork();
+		List<Person> persons = createPersons(network, numberOfPersons, plansPerPerson, legsPerPlan, linksPerRoute);
+
+		AbstractPlanSelector current = new PathSizeLogitSelector(1.0, 2.0, network);
+		AbstractPlanSelector former = new FormerPathSizeLogitSelector(1.0, 2.0, network);
+
+		// warm up both, and check that they select the same plans
+		Plan[] selectedByCurrent = run(current, persons, 3);
+		Plan[] selectedByFormer = run(former, persons, 3);
+		int differences = 0;
+		for (int i = 0; i < selectedByCurrent.length; i++) {
+			if (selectedByCurrent[i] != selectedByFormer[i]) {
+				differences++;
+			}
+		}
+		System.out.println("persons: " + numberOfPersons + ", plans per person: " + plansPerPerson + ", legs per plan: "
+				+ legsPerPlan + ", links per route: " + linksPerRoute);
+		System.out.println("selections differing from the former implementation: " + differences + " of " + numberOfPersons);
+
+		double formerTime = measure("former", former, persons, rounds);
+		double currentTime = measure("current", current, persons, rounds);
+		System.out.println(String.format("speed-up: %.2f", formerTime / currentTime));
+	}
+
+	private static double measure(final String name, final AbstractPlanSelector selector, final List<Person> persons, final int rounds) {
+		long start = System.nanoTime();
+		run(selector, persons, rounds);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format("%s: %.3f s for %d selections, %.0f selections/s", name, seconds,
+				rounds * persons.size(), rounds * persons.size() / seconds));
+		return seconds;
+	}
+
+	private static Plan[] run(final AbstractPlanSelector selector, final List<Person> persons, final int rounds) {
+		Plan[] selected = new Plan[persons.size()];
+		MatsimRandom.reset(4711);
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < persons.size(); i++) {
+				selected[i] = selector.selectPlan(persons.get(i));
+			}
+		}
+		return selected;
+	}
+
+	/**
+	 * A grid of nodes, connected by links in both directions.
+	 */
+	private static Network createGridNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		Node[][] nodes = new Node[GRID_SIZE][GRID_SIZE];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				nodes[x][y] = NetworkUtils.createAndAddNode(network, Id.createNodeId(x + "_" + y), new Coord(x * LINK_LENGTH, y * LINK_LENGTH));
+			}
+		}
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int y = 0; y < GRID_SIZE; y++) {
+				if (x + 1 < GRID_SIZE) {
+					addLink(network, nodes[x][y], nodes[x + 1][y]);
+					addLink(network, nodes[x + 1][y], nodes[x][y]);
+				}
+				if (y + 1 < GRID_SIZE) {
+					addLink(network, nodes[x][y], nodes[x][y + 1]);
+					addLink(network, nodes[x][y + 1], nodes[x][y]);
+				}
+			}
+		}
+		return network;
+	}
+
+	private static void addLink(final Network network, final Node from, final Node to) {
+		NetworkUtils.createAndAddLink(network, Id.createLinkId(from.getId() + "-" + to.getId()), from, to, LINK_LENGTH, 13.9, 1800, 1);
+	}
+
+	/**
+	 * Every leg of a person connects the same two nodes in all plans, with routes that go right or up at random, so the
+	 * routes of the plans overlap partially.  The departure times of the plans vary by up to two hours.
+	 */
+	private static List<Person> createPersons(final Network network, final int numberOfPersons, final int plansPerPerson,
+			final int legsPerPlan, final int linksPerRoute) {
+		Random random = new Random(4711);
+		List<Person> persons = new ArrayList<>(numberOfPersons);
+		for (int p = 0; p < numberOfPersons; p++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.createPersonId(p));
+			int[][] origins = new int[legsPerPlan][];
+			for (int l = 0; l < legsPerPlan; l++) {
+				origins[l] = new int[] { random.nextInt(GRID_SIZE / 2), random.nextInt(GRID_SIZE / 2) };
+			}
+			int steps = Math.min(linksPerRoute, GRID_SIZE - 1);
+			for (int n = 0; n < plansPerPerson; n++) {
+				Plan plan = PopulationUtils.createPlan(person);
+				for (int l = 0; l < legsPerPlan; l++) {
+					Leg leg = PopulationUtils.createLeg(TransportMode.car);
+					leg.setDepartureTime(6 * 3600 + l * 3 * 3600 + random.nextDouble() * 7200);
+					leg.setRoute(createRoute(network, origins[l][0], origins[l][1], steps, random));
+					plan.addLeg(leg);
+				}
+				plan.setScore(100 + random.nextDouble() * 10);
+				person.addPlan(plan);
+			}
+			persons.add(person);
+		}
+		return persons;
+	}
+
+	private static NetworkRoute createRoute(final Network network, int x, int y, final int steps, final Random random) {
+		int right = steps / 2;
+		int up = steps - right;
+		List<Id<Link>> linkIds = new ArrayList<>(steps);
+		while (right + up > 0) {
+			String from = x + "_" + y;
+			if (up == 0 || (right > 0 && random.nextBoolean())) {
+				x++;
+				right--;
+			} else {
+				y++;
+				up--;
+			}
+			linkIds.add(Id.createLinkId(from + "-" + x + "_" + y));
+		}
+		return RouteUtils.createLinkNetworkRouteImpl(linkIds.get(0), linkIds.subList(1, linkIds.size() - 1), linkIds.get(linkIds.size() - 1));
+	}
+
+	/**
+	 * The weights of {@link PathSizeLogitSelector} as they were computed before the overlaps were counted by sorting.
+	 */
+	private static final class FormerPathSizeLogitSelector extends AbstractPlanSelector {
+
+		private final double pathSizeLogitExponent;
+		private final double logitScaleFactor;
+		private final Network network;
+
+		FormerPathSizeLogitSelector(final double pathSizeLogitExponent, final double logitScaleFactor, final Network network) {
+			this.pathSizeLogitExponent = pathSizeLogitExponent;
+			this.logitScaleFactor = logitScaleFactor;
+			this.network = network;
+		}
+
+		@Override
+		protected Map<Plan, Double> calcWeights(final List<? extends Plan> plans) {
+			Map<Plan, Double> weights = new HashMap<>();
+			double maxScore = Double.NEGATIVE_INFINITY;
+			HashMap<Id<Link>, ArrayList<Double>> linksInTime = new HashMap<>();
+			HashMap<Integer, Double> planLength = new HashMap<>();
+
+			for (Plan plan : plans) {
+				if (plan.getScore() > maxScore) maxScore = plan.getScore();
+				double pathSize = 0;
+				for (PlanElement pe : plan.getPlanElements()) {
+					if (pe instanceof Leg) {
+						Leg leg = (Leg) pe;
+						NetworkRoute r = (NetworkRoute) leg.getRoute();
+						pathSize += RouteUtils.calcDistanceExcludingStartEndLink(r, this.network);
+						for (Id<Link> linkId : r.getLinkIds()) {
+							ArrayList<Double> lit = linksInTime.get(linkId);
+							if (lit == null) {
+								lit = new ArrayList<>();
+								linksInTime.put(linkId, lit);
+							}
+							lit.add(leg.getDepartureTime());
+						}
+					}
+				}
+				planLength.put(plan.hashCode(), pathSize);
+			}
+
+			for (Plan plan : plans) {
+				double tmp = 0;
+				for (PlanElement pe : plan.getPlanElements()) {
+					if (pe instanceof Leg) {
+						Leg leg = (Leg) pe;
+						double currentTime = leg.getDepartureTime();
+						NetworkRoute route = (NetworkRoute) leg.getRoute();
+						for (Id<Link> linkId : route.getLinkIds()) {
+							double denominator = 0;
+							for (double dbl : linksInTime.get(linkId)) {
+								if (Math.abs(dbl - currentTime) <= 3600)
+									denominator++;
+							}
+							tmp += this.network.getLinks().get(linkId).getLength() / denominator;
+						}
+					}
+				}
+				double PSi = Math.pow(tmp / planLength.get(plan.hashCode()), this.pathSizeLogitExponent);
+				double weight;
+				if (Double.isInfinite(maxScore)) {
+					weight = PSi;
+				} else {
+					weight = Math.exp(this.logitScaleFactor * (plan.getScore() - maxScore)) * PSi;
+				}
+				if (weight <= 0.0) weight = 0;
+				weights.put(plan, weight);
+			}
+			return weights;
+		}
+	}
+
+}
@@ -86,6 +86,33 @@ public class CalcLinkStats {
 		this.volScaleFactor = vol_scale_factor;
 	}
 
+	private CalcLinkStats(final CalcLinkStats original) {
+		this.network = original.network;
+		this.nofHours = original.nofHours;
+		this.count = original.count;
+		this.volScaleFactor = original.volScaleFactor;
+		this.linkData = new TreeMap<>();
+		for (Map.Entry<Id<Link>, LinkData> e : original.linkData.entrySet()) {
+			LinkData data = e.getValue();
+			this.linkData.put(e.getKey(), new LinkData(deepCopy(data.volumes), deepCopy(data.ttimes)));
+		}
+	}
+
+	/**
+	 * @return a copy of the collected data, e.g. to write it while further data is added.
+	 */
+	public CalcLinkStats createSnapshot() {
+		return new CalcLinkStats(this);
+	}
+
+	private static double[][] deepCopy(final double[][] values) {
+		double[][] copy = new double[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			copy[i] = values[i].clone();
+		}
+		return copy;
+	}
+
 	public void addData(final VolumesAnalyzer analyzer, final TravelTime ttimes) {
 		this.count++;
 		// TODO verify ttimes has hourly timeBin-Settings
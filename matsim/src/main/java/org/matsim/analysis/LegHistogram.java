@@ -27,7 +27,7 @@ import org.matsim.api.core.v01.events.handler.PersonArrivalEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
 import org.matsim.api.core.v01.population.Population;
-import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.PartitionableEventHandler;
 import org.matsim.core.utils.io.IOUtils;
 import org.matsim.core.utils.misc.Time;
 
@@ -48,8 +48,12 @@ import java.util.TreeMap;
  * The chart plotting was moved to its own class.
  * This class could be moved to trafficmonitoring.
  *
+ * The counts of different persons are independent, so the events can be
+ * processed on several threads, partitioned by person.
+ *
  */
-public class LegHistogram implements PersonDepartureEventHandler, PersonArrivalEventHandler, PersonStuckEventHandler {
+public class LegHistogram implements PersonDepartureEventHandler, PersonArrivalEventHandler, PersonStuckEventHandler,
+		PartitionableEventHandler<LegHistogram> {
 
 	private Population population;
 	private int iteration = 0;
@@ -58,10 +62,9 @@ public class LegHistogram implements PersonDepartureEventHandler, PersonArrivalE
 	private final Map<String, DataFrame> data = new TreeMap<>();
 
 	@Inject
-	LegHistogram(Population population, EventsManager eventsManager) {
+	LegHistogram(Population population) {
 		this(300);
 		this.population = population;
-		eventsManager.addHandler(this);
 	}
 
 	/**
@@ -121,6 +124,32 @@ public class LegHistogram implements PersonDepartureEventHandler, PersonArrivalE
 		this.data.clear();
 	}
 
+	@Override
+	public Partitioning getPartitioning() {
+		return Partitioning.PERSON;
+	}
+
+	@Override
+	public LegHistogram createShard() {
+		LegHistogram shard = new LegHistogram(this.binSize, this.nofBins);
+		shard.population = this.population;
+		shard.iteration = this.iteration;
+		return shard;
+	}
+
+	@Override
+	public void combine(final LegHistogram shard) {
+		for (Map.Entry<String, DataFrame> e : shard.data.entrySet()) {
+			DataFrame dataFrame = getDataForMode(e.getKey());
+			DataFrame shardData = e.getValue();
+			for (int i = 0; i < dataFrame.countsDep.length; i++) {
+				dataFrame.countsDep[i] += shardData.countsDep[i];
+				dataFrame.countsArr[i] += shardData.countsArr[i];
+				dataFrame.countsStuck[i] += shardData.countsStuck[i];
+			}
+		}
+	}
+
 	/**
 	 * Writes the gathered data tab-separated into a text file.
 	 *
@@ -0,0 +1,376 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkStatsCollector.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.inject.Inject;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.api.experimental.events.EventsManager;
+
+/**
+ * Counts the volumes of all links, per time bin and per mode, in one pass over the link events.  The data is kept in
+ * primitive arrays indexed by {@link Id#index()} of the links and vehicles, so no hash lookups are needed per event.
+ * {@link VolumesAnalyzer} as bound by {@link VolumesAnalyzerModule} is a view on this data.  Travel times are not
+ * collected here, they are still observed by the {@link org.matsim.core.trafficmonitoring.TravelTimeCalculator}.
+ * <p></p>
+ * Volumes are counted in the time bin of the link leave event, like in {@link VolumesAnalyzer}.  The mode of a vehicle
+ * is the network mode of its last {@link VehicleEntersTrafficEvent}; vehicles without one are counted without a mode,
+ * i.e. only in the totals.
+ * <p></p>
+ * The counters are updated atomically, and the arrays are only ever added to, never replaced, while an iteration
+ * runs.  So the collector can be fed from several threads of a parallel events manager without locks, as long as
+ * the events of one vehicle are handled in their order by one thread.
+ */
+public final class LinkStatsCollector implements LinkLeaveEventHandler, VehicleEntersTrafficEventHandler {
+
+	private static final int CHUNK_BITS = 10;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	/** the mode code of vehicles without a known mode */
+	private static final int NO_MODE = 0;
+
+	private final int timeBinSize;
+	private final int maxTime;
+	private final int maxSlotIndex;
+	private final int numberOfBins;
+
+	/** mode codes are kept over iterations, code {@link #NO_MODE} stands for no mode */
+	private final Map<String, Integer> modeCodes = new ConcurrentHashMap<>();
+	private volatile String[] modes = new String[] { null };
+
+	private volatile ModeData[] modeData;
+	private volatile int[][] vehicleModes;
+	/** the indices of the links with volumes, added to when the first vehicle of a mode leaves a link in a time bin */
+	private volatile Set<Integer> linksWithVolumes;
+
+	@Inject
+	LinkStatsCollector(EventsManager eventsManager) {
+		this(3600, 24 * 3600 - 1);
+		eventsManager.addHandler(this);
+	}
+
+	/**
+	 * @param timeBinSize the size of the time bins in seconds
+	 * @param maxTime events after this time are all counted in the last time bin
+	 */
+	public LinkStatsCollector(final int timeBinSize, final int maxTime) {
+		this.timeBinSize = timeBinSize;
+		this.maxTime = maxTime;
+		this.maxSlotIndex = (this.maxTime / this.timeBinSize) + 1;
+		this.numberOfBins = this.maxSlotIndex + 1;
+		reset(0);
+	}
+
+	@Override
+	public void reset(final int iteration) {
+		this.modeData = new ModeData[this.modes.length];
+		this.vehicleModes = new int[0][];
+		this.linksWithVolumes = ConcurrentHashMap.newKeySet();
+	}
+
+	// event handling:
+
+	@Override
+	public void handleEvent(final VehicleEntersTrafficEvent event) {
+		int vehicleIndex = event.getVehicleId().index();
+		getVehicleModes(vehicleIndex)[vehicleIndex & CHUNK_MASK] = getModeCode(event.getNetworkMode());
+	}
+
+	@Override
+	public void handleEvent(final LinkLeaveEvent event) {
+		int vehicleIndex = event.getVehicleId().index();
+		int mode = getVehicleModes(vehicleIndex)[vehicleIndex & CHUNK_MASK];
+		int linkIndex = event.getLinkId().index();
+		LinkChunk chunk = getModeData(mode).getChunk(linkIndex, true);
+		int offset = (linkIndex & CHUNK_MASK) * this.numberOfBins;
+		if (chunk.volumes.incrementAndGet(offset + getTimeSlotIndex(event.getTime())) == 1) {
+			this.linksWithVolumes.add(linkIndex);
+		}
+	}
+
+	private int getTimeSlotIndex(final double time) {
+		if (time > this.maxTime) {
+			return this.maxSlotIndex;
+		}
+		return ((int) time / this.timeBinSize);
+	}
+
+	// access to the data:
+
+	public int getTimeBinSize() {
+		return this.timeBinSize;
+	}
+
+	public int getMaxTime() {
+		return this.maxTime;
+	}
+
+	/**
+	 * @return the number of time bins, the last one containing all events after the maximum time.
+	 */
+	public int getNumberOfTimeBins() {
+		return this.numberOfBins;
+	}
+
+	/**
+	 * @return the index of the time bin containing the given time.
+	 */
+	public int getTimeBin(final double time) {
+		return getTimeSlotIndex(time);
+	}
+
+	/**
+	 * @return the modes for which volumes were counted in this iteration.
+	 */
+	public Set<String> getModes() {
+		Set<String> result = new TreeSet<>();
+		ModeData[] data = this.modeData;
+		String[] modes = this.modes;
+		for (int mode = NO_MODE + 1; mode < data.length; mode++) {
+			if (data[mode] != null) {
+				result.add(modes[mode]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the ids of all links with volumes in this iteration, in the order of their indices.
+	 */
+	public Set<Id<Link>> getLinkIds() {
+		Set<Id<Link>> linkIds = new LinkedHashSet<>();
+		for (int linkIndex : new TreeSet<>(this.linksWithVolumes)) {
+			linkIds.add(Id.get(linkIndex, Link.class));
+		}
+		return linkIds;
+	}
+
+	/**
+	 * @return the number of vehicles leaving the link in the time bin, of all modes.
+	 */
+	public int getVolume(final Id<Link> linkId, final int timeBin) {
+		int volume = 0;
+		for (ModeData data : this.modeData) {
+			if (data != null) {
+				LinkChunk chunk = data.getChunk(linkId.index(), false);
+				if (chunk != null) {
+					volume += chunk.volumes.get(getIndex(linkId, timeBin));
+				}
+			}
+		}
+		return volume;
+	}
+
+	/**
+	 * @return the number of vehicles of the mode leaving the link in the time bin.
+	 */
+	public int getVolume(final Id<Link> linkId, final int timeBin, final String mode) {
+		LinkChunk chunk = getChunk(linkId, mode);
+		return chunk == null ? 0 : chunk.volumes.get(getIndex(linkId, timeBin));
+	}
+
+	/**
+	 * @return the number of vehicles leaving the link per time bin, or <code>null</code> if no vehicle left the link.
+	 */
+	public int[] getVolumes(final Id<Link> linkId) {
+		int[] volumes = null;
+		for (ModeData data : this.modeData) {
+			LinkChunk chunk = data == null ? null : data.getChunk(linkId.index(), false);
+			if (chunk != null) {
+				if (volumes == null) {
+					volumes = new int[this.numberOfBins];
+				}
+				addVolumes(chunk, linkId, volumes);
+			}
+		}
+		return volumes == null || isZero(volumes) ? null : volumes;
+	}
+
+	/**
+	 * @return the number of vehicles of the mode leaving the link per time bin, or <code>null</code> if no vehicle of
+	 * this mode left the link.
+	 */
+	public int[] getVolumes(final Id<Link> linkId, final String mode) {
+		LinkChunk chunk = getChunk(linkId, mode);
+		if (chunk == null) {
+			return null;
+		}
+		int[] volumes = new int[this.numberOfBins];
+		addVolumes(chunk, linkId, volumes);
+		return isZero(volumes) ? null : volumes;
+	}
+
+	private static boolean isZero(final int[] volumes) {
+		for (int volume : volumes) {
+			if (volume != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int getIndex(final Id<Link> linkId, final int timeBin) {
+		return (linkId.index() & CHUNK_MASK) * this.numberOfBins + timeBin;
+	}
+
+	private LinkChunk getChunk(final Id<Link> linkId, final String mode) {
+		Integer code = mode == null ? null : this.modeCodes.get(mode);
+		if (code == null) {
+			return null;
+		}
+		ModeData[] data = this.modeData;
+		if (code >= data.length || data[code] == null) {
+			return null;
+		}
+		return data[code].getChunk(linkId.index(), false);
+	}
+
+	private void addVolumes(final LinkChunk chunk, final Id<Link> linkId, final int[] volumes) {
+		if (chunk == null) {
+			return;
+		}
+		int offset = getIndex(linkId, 0);
+		for (int bin = 0; bin < this.numberOfBins; bin++) {
+			volumes[bin] += chunk.volumes.get(offset + bin);
+		}
+	}
+
+	// growing the arrays, only ever locking when new modes, links or vehicles are seen:
+
+	private int getModeCode(final String mode) {
+		if (mode == null) {
+			return NO_MODE;
+		}
+		Integer code = this.modeCodes.get(mode);
+		if (code != null) {
+			return code;
+		}
+		synchronized (this) {
+			code = this.modeCodes.get(mode);
+			if (code == null) {
+				String[] modes = Arrays.copyOf(this.modes, this.modes.length + 1);
+				code = modes.length - 1;
+				modes[code] = mode;
+				this.modes = modes;
+				this.modeCodes.put(mode, code);
+			}
+			return code;
+		}
+	}
+
+	private ModeData getModeData(final int mode) {
+		ModeData[] data = this.modeData;
+		if (mode < data.length && data[mode] != null) {
+			return data[mode];
+		}
+		synchronized (this) {
+			data = this.modeData;
+			if (mode >= data.length) {
+				data = Arrays.copyOf(data, this.modes.length);
+			}
+			if (data[mode] == null) {
+				data[mode] = new ModeData(this.numberOfBins);
+			}
+			this.modeData = data;
+			return data[mode];
+		}
+	}
+
+	private int[] getVehicleModes(final int vehicleIndex) {
+		int c = vehicleIndex >>> CHUNK_BITS;
+		int[][] chunks = this.vehicleModes;
+		if (c < chunks.length && chunks[c] != null) {
+			return chunks[c];
+		}
+		synchronized (this) {
+			chunks = this.vehicleModes;
+			if (c >= chunks.length) {
+				chunks = Arrays.copyOf(chunks, Math.max(c + 1, 2 * chunks.length));
+			}
+			if (chunks[c] == null) {
+				chunks[c] = new int[CHUNK_SIZE];
+			}
+			this.vehicleModes = chunks;
+			return chunks[c];
+		}
+	}
+
+	/**
+	 * The data of one mode, in chunks of {@link #CHUNK_SIZE} links.  The chunks are created when the first vehicle
+	 * of the mode leaves one of their links, and never move afterwards.
+	 */
+	private static final class ModeData {
+		private final int numberOfBins;
+		private volatile LinkChunk[] chunks = new LinkChunk[0];
+
+		ModeData(final int numberOfBins) {
+			this.numberOfBins = numberOfBins;
+		}
+
+		LinkChunk getChunk(final int linkIndex, final boolean create) {
+			int c = linkIndex >>> CHUNK_BITS;
+			LinkChunk[] chunks = this.chunks;
+			if (c < chunks.length && chunks[c] != null) {
+				return chunks[c];
+			}
+			if (!create) {
+				return null;
+			}
+			synchronized (this) {
+				chunks = this.chunks;
+				if (c >= chunks.length) {
+					chunks = Arrays.copyOf(chunks, Math.max(c + 1, 2 * chunks.length));
+				}
+				if (chunks[c] == null) {
+					chunks[c] = new LinkChunk(CHUNK_SIZE * this.numberOfBins);
+				}
+				this.chunks = chunks;
+				return chunks[c];
+			}
+		}
+	}
+
+	/**
+	 * The volumes of {@link #CHUNK_SIZE} links, as <code>[link][bin]</code> in a flat array.
+	 */
+	private static final class LinkChunk {
+		final AtomicIntegerArray volumes;
+
+		LinkChunk(final int size) {
+			this.volumes = new AtomicIntegerArray(size);
+		}
+	}
+
+}
@@ -22,6 +22,7 @@ package org.matsim.analysis;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.LinkStatsConfigGroup;
+import org.matsim.core.controler.AsyncOutputWriter;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
@@ -45,6 +46,7 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 	@Inject private VolumesAnalyzer volumes;
 	@Inject private OutputDirectoryHierarchy controlerIO;
 	@Inject private Map<String, TravelTime> travelTime;
+	@Inject private AsyncOutputWriter outputWriter;
     private int iterationsUsed = 0;
 	private boolean doReset = false;
 
@@ -54,11 +56,20 @@ final class LinkStatsControlerListener implements IterationEndsListener, Iterati
 		
 		if (useVolumesOfIteration(iteration, controlerConfigGroup.getFirstIteration())) {
 			this.iterationsUsed++;
+			// asks the volumes analyzer once per link, which copies the volumes of the link on every call
             linkStats.addData(volumes, travelTime.get(TransportMode.car));
 		}
 
 		if (createLinkStatsInIteration(iteration)) {
-			linkStats.writeFile(this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS));
+			final String filename = this.controlerIO.getIterationFilename(iteration, Controler.FILENAME_LINKSTATS);
+			// the data is reset at the start of the next iteration, possibly before it is written in the background
+			final CalcLinkStats stats = this.outputWriter.isAsync() ? this.linkStats.createSnapshot() : this.linkStats;
+			this.outputWriter.submit(filename, new Runnable() {
+				@Override
+				public void run() {
+					stats.writeFile(filename);
+				}
+			});
 			this.doReset = true;
 		}
 	}
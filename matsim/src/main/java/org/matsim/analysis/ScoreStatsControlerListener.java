@@ -21,6 +21,8 @@
 package org.matsim.analysis;
 
 import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,6 +43,7 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.IterationEndsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
@@ -73,7 +76,7 @@ import org.matsim.core.utils.io.UncheckedIOException;
  *
  * @author mrieser
  */
-public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats {
+public class ScoreStatsControlerListener implements StartupListener, IterationEndsListener, ShutdownListener, ScoreStats, Checkpointable {
 
 	public static final String FILENAME_SCORESTATS = "scorestats";
 
@@ -113,7 +116,8 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 		//		int iterations = maxIter - this.minIteration;
 		//		if (iterations > 5000) iterations = 5000; // limit the history size
 		for ( ScoreItem item : ScoreItem.values() ) {
-			scoreHistory.put( item, new TreeMap<Integer,Double>() ) ;
+			// a history restored from a checkpoint is kept
+			scoreHistory.putIfAbsent( item, new TreeMap<Integer,Double>() ) ;
 		}
 	}
 
@@ -234,6 +238,41 @@ public class ScoreStatsControlerListener implements StartupListener, IterationEn
 
 	}
 
+	@Override
+	public void writeCheckpoint(final DataOutput out) throws IOException {
+		Map<Integer, Double> executed = this.scoreHistory.get(ScoreItem.executed);
+		out.writeInt(executed.size());
+		for (Integer iteration : executed.keySet()) {
+			out.writeInt(iteration);
+			for (ScoreItem item : ScoreItem.values()) {
+				out.writeDouble(this.scoreHistory.get(item).get(iteration));
+			}
+		}
+	}
+
+	/**
+	 * Restores the history and writes it to the text file again, so it is complete after a restart.  Does not depend on
+	 * {@link #notifyStartup(StartupEvent)} having run before: the text file is opened by the constructor, and the
+	 * history is created here if necessary.
+	 */
+	@Override
+	public void readCheckpoint(final DataInput in) throws IOException {
+		for (ScoreItem item : ScoreItem.values()) {
+			this.scoreHistory.putIfAbsent(item, new TreeMap<Integer,Double>());
+		}
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int iteration = in.readInt();
+			for (ScoreItem item : ScoreItem.values()) {
+				this.scoreHistory.get(item).put(iteration, in.readDouble());
+			}
+			this.out.write(iteration + "\t" + this.scoreHistory.get(ScoreItem.executed).get(iteration) + "\t" +
+					this.scoreHistory.get(ScoreItem.worst).get(iteration) + "\t" + this.scoreHistory.get(ScoreItem.average).get(iteration) + "\t" +
+					this.scoreHistory.get(ScoreItem.best).get(iteration) + "\n");
+		}
+		this.out.flush();
+	}
+
 	@Override
 	public Map<ScoreItem, Map<Integer, Double>> getScoreHistory() {
 		return Collections.unmodifiableMap( this.scoreHistory ) ;
@@ -1,25 +1,70 @@
 package org.matsim.analysis;
 
 
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.events.ShutdownEvent;
 import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.controler.listener.ShutdownListener;
-import org.matsim.core.scoring.ExperiencedPlansService;
+import org.matsim.core.scoring.EventsToLegs;
+import org.matsim.core.scoring.ExperiencedLegRecord;
 
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
 
-class TravelDistanceStatsControlerListener implements IterationEndsListener, ShutdownListener {
+/**
+ * Feeds the distances of the legs experienced in the mobsim to the {@link TravelDistanceStats}.  Only the sum and the
+ * number of the distances per person are kept, so no experienced plans need to be created for this.
+ */
+class TravelDistanceStatsControlerListener implements IterationStartsListener, IterationEndsListener, ShutdownListener,
+		EventsToLegs.LegRecordHandler {
 
 	@Inject
-	private ExperiencedPlansService experiencedPlansService;
+	private Population population;
 
 	@Inject
 	private TravelDistanceStats travelDistanceStats;
 
+	/** per person the sum of the leg distances and the number of legs */
+	private final Map<Id<Person>, double[]> legDistances = new HashMap<>();
+
+	@Inject
+	TravelDistanceStatsControlerListener(EventsToLegs eventsToLegs) {
+		eventsToLegs.addLegRecordHandler(this);
+	}
+
+	@Override
+	public void notifyIterationStarts(IterationStartsEvent event) {
+		this.legDistances.clear();
+		for (Person person : this.population.getPersons().values()) {
+			this.legDistances.put(person.getId(), new double[2]);
+		}
+	}
+
+	@Override
+	public void handleLegRecord(ExperiencedLegRecord leg) {
+		double[] distances = this.legDistances.get(leg.getPersonId());
+		if (distances != null && !Double.isNaN(leg.getDistance())) {
+			distances[0] += leg.getDistance();
+			distances[1]++;
+		}
+	}
+
 	@Override
 	public void notifyIterationEnds(IterationEndsEvent event) {
-		travelDistanceStats.addIteration(event.getIteration(), experiencedPlansService.getExperiencedPlans());
+		// the same average of the average leg distance per plan as TravelDistanceStats computes from the experienced plans
+		double sumAvgPlanLegTravelDistance = 0.0;
+		for (double[] distances : this.legDistances.values()) {
+			if (distances[1] > 0) {
+				sumAvgPlanLegTravelDistance += distances[0] / distances[1];
+			}
+		}
+		travelDistanceStats.addIteration(event.getIteration(), sumAvgPlanLegTravelDistance / this.legDistances.size());
 	}
 
 	@Override
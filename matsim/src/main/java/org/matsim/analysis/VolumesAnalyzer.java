@@ -34,12 +34,15 @@ import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.vehicles.Vehicle;
-import org.matsim.core.api.experimental.events.EventsManager;
 
 import javax.inject.Inject;
 
 /**
  * Counts the number of vehicles leaving a link, aggregated into time bins of a specified size.
+ * <p></p>
+ * The instance bound by {@link VolumesAnalyzerModule} does not handle events itself, but is a view on the
+ * {@link LinkStatsCollector}, which counts the volumes of all modes in one pass.  The arrays returned by
+ * such a view are copies.
  *
  * @author mrieser
  */
@@ -56,10 +59,18 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	private final Map<Id<Vehicle>, String> enRouteModes;
 	private final Map<Id<Link>, Map<String, int[]>> linksPerMode;
 
+	private final LinkStatsCollector collector;
+
 	@Inject
-	VolumesAnalyzer(Network network, EventsManager eventsManager) {
-		this(3600, 24 * 3600 - 1, network);
-		eventsManager.addHandler(this);
+	VolumesAnalyzer(LinkStatsCollector collector) {
+		this.timeBinSize = collector.getTimeBinSize();
+		this.maxTime = collector.getMaxTime();
+		this.maxSlotIndex = (this.maxTime/this.timeBinSize) + 1;
+		this.links = null;
+		this.observeModes = true;
+		this.enRouteModes = null;
+		this.linksPerMode = null;
+		this.collector = collector;
 	}
 
 	public VolumesAnalyzer(final int timeBinSize, final int maxTime, final Network network) {
@@ -71,6 +82,7 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 		this.maxTime = maxTime;
 		this.maxSlotIndex = (this.maxTime/this.timeBinSize) + 1;
 		this.links = new HashMap<>((int) (network.getLinks().size() * 1.1), 0.95f);
+		this.collector = null;
 		
 		this.observeModes = observeModes;
 		if (this.observeModes) {
@@ -84,6 +96,10 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
+		if (this.collector != null) {
+			// counted by the collector
+			return;
+		}
 		if (observeModes) {
 			enRouteModes.put(event.getVehicleId(), event.getNetworkMode());
 		}
@@ -91,6 +107,10 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	
 	@Override
 	public void handleEvent(final LinkLeaveEvent event) {
+		if (this.collector != null) {
+			// counted by the collector
+			return;
+		}
 		int[] volumes = this.links.get(event.getLinkId());
 		if (volumes == null) {
 			volumes = new int[this.maxSlotIndex + 1]; // initialized to 0 by default, according to JVM specs
@@ -125,9 +145,14 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	/**
 	 * @param linkId
 	 * @return Array containing the number of vehicles leaving the link <code>linkId</code> per time bin,
-	 * 		starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
+	 * 		starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.  For the view on the
+	 * 		{@link LinkStatsCollector}, every call sums up the modes into a new array, so callers that need the
+	 * 		volumes of a link more than once should keep the result.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId) {
+		if (this.collector != null) {
+			return this.collector.getVolumes(linkId);
+		}
 		return this.links.get(linkId);
 	}
 	
@@ -138,6 +163,9 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 *  	<code>linkId</code> per time bin, starting with time bin 0 from 0 seconds to (timeBinSize-1)seconds.
 	 */
 	public int[] getVolumesForLink(final Id<Link> linkId, String mode) {
+		if (this.collector != null) {
+			return this.collector.getVolumes(linkId, mode);
+		}
 		if (observeModes) {
 			Map<String, int[]> modeVolumes = this.linksPerMode.get(linkId);
 			if (modeVolumes != null) return modeVolumes.get(mode);
@@ -222,6 +250,9 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 * @return Set of Strings containing all modes for which counting-values are available.
 	 */
 	public Set<String> getModes() {
+		if (this.collector != null) {
+			return this.collector.getModes();
+		}
 		Set<String> modes = new TreeSet<>();
 		
 		for (Map<String, int[]> map : this.linksPerMode.values()) {
@@ -235,11 +266,18 @@ public class VolumesAnalyzer implements LinkLeaveEventHandler, VehicleEntersTraf
 	 * @return Set of Strings containing all link ids for which counting-values are available.
 	 */
 	public Set<Id<Link>> getLinkIds() {
+		if (this.collector != null) {
+			return this.collector.getLinkIds();
+		}
 		return this.links.keySet();
 	}
 
 	@Override
 	public void reset(final int iteration) {
+		if (this.collector != null) {
+			// reset by the collector
+			return;
+		}
 		this.links.clear();
 		if (observeModes) {
 			this.linksPerMode.clear();
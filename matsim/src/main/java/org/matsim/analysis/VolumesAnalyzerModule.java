@@ -28,6 +28,7 @@ import org.matsim.core.controler.AbstractModule;
 public class VolumesAnalyzerModule extends AbstractModule {
     @Override
     public void install() {
+        bind(LinkStatsCollector.class).asEagerSingleton();
         bind(VolumesAnalyzer.class).asEagerSingleton();
     }
 
@@ -20,6 +20,7 @@
 
 package org.matsim.api.core.v01;
 
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -36,11 +37,15 @@ import org.matsim.vehicles.Vehicle;
  * Note that Ids should not contain any whitespace characters (spaces, tabs, newlines, ...), 
  * as this may lead to problems when Ids are written to file and read back in.
  * 
+ * Every Id gets a dense, non-negative index per type on creation, see {@link #index()}. This allows
+ * to store data per Id in plain arrays instead of maps.
+ * 
  *  @author mrieser / Senozon AG
  */
 public abstract class Id<T> implements Comparable<Id<T>> {
 
 	private final static Map<Class<?>, Map<String, Id<?>>> cache = new ConcurrentHashMap<Class<?>, Map<String, Id<?>>>();
+	private final static Map<Class<?>, IdsByIndex> cacheByIndex = new ConcurrentHashMap<Class<?>, IdsByIndex>();
 	
 	
 	public static <T> Id<T> create(final long key, final Class<T> type) {
@@ -60,18 +65,47 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	public static <T> Id<T> create(final String key, final Class<T> type) {
 		Map<String, Id<?>> map = cache.get(type);
 		if (map == null) {
-			map = new ConcurrentHashMap<String, Id<?>>();
-			cache.put(type, map);
+			map = cache.computeIfAbsent(type, k -> new ConcurrentHashMap<String, Id<?>>());
 		}
 		Gbl.assertNotNull(key);
 		Id<?> id = map.get(key);
 		if (id == null) {
-			id = new IdImpl<T>(key);
-			map.put(key, id);
+			// synchronize on the type's map, so that every key gets exactly one index
+			synchronized (map) {
+				id = map.get(key);
+				if (id == null) {
+					IdsByIndex ids = cacheByIndex.computeIfAbsent(type, k -> new IdsByIndex());
+					id = new IdImpl<T>(key, ids.size);
+					ids.add(id);
+					map.put(key, id);
+				}
+			}
 		}
 		
 		return (Id<T>) id;
 	}
+
+	/**
+	 * @return the Id of the given type that was assigned the given index, or <code>null</code> if there is none.
+	 * @see #index()
+	 */
+	public static <T> Id<T> get(final int index, final Class<T> type) {
+		IdsByIndex ids = cacheByIndex.get(type);
+		return ids == null ? null : (Id<T>) ids.get(index);
+	}
+
+	/**
+	 * @return the number of Ids created so far for the given type. All indices of this type are smaller than this number.
+	 */
+	public static <T> int getNumberOfIds(final Class<T> type) {
+		IdsByIndex ids = cacheByIndex.get(type);
+		return ids == null ? 0 : ids.size;
+	}
+
+	/**
+	 * @return a dense index, unique among all Ids of the same type, starting at 0 in the order of creation of the Ids.
+	 */
+	public abstract int index();
 	
 	/**
 	 * @return <code>0</code> when the two objects being compared are the same objects, other values according to their ids being compared to each other.
@@ -101,6 +135,34 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	}
 
 	
+	/**
+	 * The Ids of one type by their index. Ids are only added while holding the lock on the type's map in
+	 * {@link Id#create(String, Class)}, but can be read without any lock: an Id is stored in the array before
+	 * the size is increased, and a grown array contains all Ids of the previous one before it is published.
+	 */
+	private static class IdsByIndex {
+
+		private volatile Id<?>[] ids = new Id<?>[16];
+		private volatile int size = 0;
+
+		/*package*/ void add(final Id<?> id) {
+			Id<?>[] array = this.ids;
+			if (this.size == array.length) {
+				array = Arrays.copyOf(array, array.length * 2);
+				this.ids = array;
+			}
+			array[this.size] = id;
+			this.size = this.size + 1;
+		}
+
+		/*package*/ Id<?> get(final int index) {
+			if (index < 0 || index >= this.size) {
+				return null;
+			}
+			return this.ids[index];
+		}
+	}
+
 	/**
 	 * The default implementation to be used for Ids.
 	 * Have this as a separate class instead of integrated into the Id class
@@ -113,9 +175,16 @@ public abstract class Id<T> implements Comparable<Id<T>> {
 	private static class IdImpl<T> extends Id<T> {
 
 		private final String id; 
+		private final int index;
 		
-		/*package*/ IdImpl(final String id) {
+		/*package*/ IdImpl(final String id, final int index) {
 			this.id = id;
+			this.index = index;
+		}
+
+		@Override
+		public int index() {
+			return this.index;
 		}
 
 		@Override
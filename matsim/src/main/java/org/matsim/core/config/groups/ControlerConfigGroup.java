@@ -61,6 +61,9 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	public enum MobsimType {qsim, JDEQSim}
 
 	private static final String WRITE_SNAPSHOTS_INTERVAL = "writeSnapshotsInterval";
+	private static final String WRITE_CHECKPOINTS_INTERVAL = "writeCheckpointsInterval";
+	private static final String RESTART_FROM_CHECKPOINT = "restartFromCheckpoint";
+	private static final String NUMBER_OF_OUTPUT_WRITER_THREADS = "numberOfOutputWriterThreads";
 
 
 	private String outputDirectory = "./output";
@@ -79,6 +82,9 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 	private Set<String> snapshotFormat = Collections.emptySet();
 	private String mobsim = MobsimType.qsim.toString();
 	private int writeSnapshotsInterval = 1;
+	private int writeCheckpointsInterval = 0;
+	private String restartFromCheckpoint = null;
+	private int numberOfOutputWriterThreads = 0;
 	private boolean createGraphs = true;
 	private boolean dumpDataAtEnd = true;
 	private OverwriteFileSetting overwriteFileSetting = OverwriteFileSetting.failIfDirectoryExists;
@@ -119,6 +125,13 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		map.put(SNAPSHOT_FORMAT, "Comma-separated list of visualizer output file formats. `transims', `googleearth', and `otfvis'.");
 		map.put(WRITE_SNAPSHOTS_INTERVAL, "iterationNumber % " + WRITE_SNAPSHOTS_INTERVAL + " == 0 defines in which iterations snapshots are written " +
 				"to a file. `0' disables snapshots writing completely");
+		map.put(WRITE_CHECKPOINTS_INTERVAL, "iterationNumber % " + WRITE_CHECKPOINTS_INTERVAL + " == 0 defines in which iterations a checkpoint " +
+				"is written, from which the run can be restarted.  `0' disables checkpoints completely.");
+		map.put(RESTART_FROM_CHECKPOINT, "If set, the run continues after the iteration of this checkpoint file, written by an earlier run " +
+				"with the same config.  The population of that iteration replaces the one from the plans file.  Mind that the output " +
+				"directory must either be a new one or " + OVERWRITE_FILE + " must allow to write into the existing one.");
+		map.put(NUMBER_OF_OUTPUT_WRITER_THREADS, "Default=0; the number of threads writing plans, link stats and the output at the end of the run " +
+				"in the background, while the iterations continue.  `0' writes them before the iteration continues.");
 		map.put(DUMP_DATA_AT_END, "true if at the end of a run, plans, network, config etc should be dumped to a file");
 		return map;
 	}
@@ -304,6 +317,36 @@ public final class ControlerConfigGroup extends ReflectiveConfigGroup {
 		this.writeSnapshotsInterval = writeSnapshotsInterval;
 	}
 
+	@StringGetter( WRITE_CHECKPOINTS_INTERVAL )
+	public int getWriteCheckpointsInterval() {
+		return this.writeCheckpointsInterval;
+	}
+
+	@StringSetter( WRITE_CHECKPOINTS_INTERVAL )
+	public void setWriteCheckpointsInterval(final int writeCheckpointsInterval) {
+		this.writeCheckpointsInterval = writeCheckpointsInterval;
+	}
+
+	@StringGetter( RESTART_FROM_CHECKPOINT )
+	public String getRestartFromCheckpoint() {
+		return this.restartFromCheckpoint;
+	}
+
+	@StringSetter( RESTART_FROM_CHECKPOINT )
+	public void setRestartFromCheckpoint(final String restartFromCheckpoint) {
+		this.restartFromCheckpoint = restartFromCheckpoint;
+	}
+
+	@StringGetter( NUMBER_OF_OUTPUT_WRITER_THREADS )
+	public int getNumberOfOutputWriterThreads() {
+		return this.numberOfOutputWriterThreads;
+	}
+
+	@StringSetter( NUMBER_OF_OUTPUT_WRITER_THREADS )
+	public void setNumberOfOutputWriterThreads(final int numberOfOutputWriterThreads) {
+		this.numberOfOutputWriterThreads = numberOfOutputWriterThreads;
+	}
+
 	@StringGetter( CREATE_GRAPHS )
 	public boolean isCreateGraphs() {
 		return createGraphs;
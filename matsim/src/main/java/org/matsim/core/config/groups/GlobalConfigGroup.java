@@ -38,10 +38,14 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 	private static final String RANDOM_SEED = "randomSeed";
 	private static final String NUMBER_OF_THREADS = "numberOfThreads";
 	private static final String COORDINATE_SYSTEM = "coordinateSystem";
+	private static final String SCENARIO_SNAPSHOT_FILE = "scenarioSnapshotFile";
+	private static final String VALIDATE_XML = "validateXml";
 
 	private long randomSeed = 4711L;
 	private int numberOfThreads = 2;
 	private String coordinateSystem = "Atlantis";
+	private String scenarioSnapshotFile = null;
+	private boolean validateXml = true;
 	
 	@Override
 	public Map<String, String> getComments() {
@@ -49,6 +53,11 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		map.put(NUMBER_OF_THREADS, "\"global\" number of threads.  "
 				+ "This number is used, e.g., for replanning, but NOT in the mobsim.  "
 				+ "This can typically be set to as many cores as you have available, or possibly even slightly more.") ;
+		map.put(SCENARIO_SNAPSHOT_FILE, "If set, network and population are read from this binary file instead of the xml files, "
+				+ "as long as the snapshot was created from the same input files.  Otherwise, the xml files are read and the snapshot "
+				+ "is (re-)written.  All other input files are always read.") ;
+		map.put(VALIDATE_XML, "If false, network, population, facilities, transit schedule and counts are read without validating "
+				+ "them against their DTD or schema, which is much faster.  Only recommended for files written by MATSim.") ;
 		return map ;
 	}
 
@@ -82,6 +91,24 @@ public final class GlobalConfigGroup extends ReflectiveConfigGroup {
 		this.coordinateSystem = coordinateSystem;
 	}
 	
+	@StringGetter( SCENARIO_SNAPSHOT_FILE )
+	public String getScenarioSnapshotFile() {
+		return this.scenarioSnapshotFile;
+	}
+	@StringSetter( SCENARIO_SNAPSHOT_FILE )
+	public void setScenarioSnapshotFile(final String scenarioSnapshotFile) {
+		this.scenarioSnapshotFile = scenarioSnapshotFile;
+	}
+	
+	@StringGetter( VALIDATE_XML )
+	public boolean isValidateXml() {
+		return this.validateXml;
+	}
+	@StringSetter( VALIDATE_XML )
+	public void setValidateXml(final boolean validateXml) {
+		this.validateXml = validateXml;
+	}
+	
 	private static final String INSITING_ON_DEPRECATED_CONFIG_VERSION = "insistingOnDeprecatedConfigVersion" ;
 	@StringGetter( INSITING_ON_DEPRECATED_CONFIG_VERSION )
 	public final boolean isInsistingOnDeprecatedConfigVersion() { return this.insistingOnDeprecatedConfigVersion ; }
@@ -35,6 +35,7 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 
 	private static final String TIME_VARIANT_NETWORK = "timeVariantNetwork";
 	private static final String CHANGE_EVENTS_INPUT_FILE = "inputChangeEventsFile";
+	private static final String USING_COLUMNAR_TIME_VARIANT_ATTRIBUTES = "usingColumnarTimeVariantAttributes";
 
 	private static final String LANEDEFINITIONSINPUTFILE = "laneDefinitionsFile";
 	private static final String INPUT_CRS = "inputCRS";
@@ -47,6 +48,8 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 
 	private boolean timeVariantNetwork = false;
 
+	private boolean usingColumnarTimeVariantAttributes = false;
+
 	private String laneDefinitionsFile = null;
 
 	public NetworkConfigGroup() {
@@ -60,6 +63,9 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
+		comments.put( USING_COLUMNAR_TIME_VARIANT_ATTRIBUTES, "Only used with a time variant network.  If true, the network change events " +
+				"are stored for all links together in a few arrays, instead of per link.  Saves memory and startup time with many " +
+				"change events.  Default: false." );
 
 		return comments;
 	}
@@ -104,6 +110,16 @@ public final class NetworkConfigGroup extends ReflectiveConfigGroup {
 		return this.timeVariantNetwork;
 	}
 
+	@StringSetter( USING_COLUMNAR_TIME_VARIANT_ATTRIBUTES )
+	public void setUsingColumnarTimeVariantAttributes(final boolean usingColumnarTimeVariantAttributes) {
+		testForLocked();
+		this.usingColumnarTimeVariantAttributes = usingColumnarTimeVariantAttributes;
+	}
+	@StringGetter( USING_COLUMNAR_TIME_VARIANT_ATTRIBUTES )
+	public boolean isUsingColumnarTimeVariantAttributes() {
+		return this.usingColumnarTimeVariantAttributes;
+	}
+
 	@StringSetter( LANEDEFINITIONSINPUTFILE )
 	public void setLaneDefinitionsFile(final String laneDefinitions) {
 		this.laneDefinitionsFile = laneDefinitions;
@@ -34,6 +34,7 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	public abstract static class NetworkRouteType {
 		public static final String LinkNetworkRoute = "LinkNetworkRoute";
 		public static final String CompressedNetworkRoute = "CompressedNetworkRoute";
+		public static final String IndexedNetworkRoute = "IndexedNetworkRoute";
 	}
 
 	public enum ActivityDurationInterpretation { minOfDurationAndEndTime, tryEndTimeThenDuration, @Deprecated endTimeOnly }
@@ -67,7 +68,10 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 				NETWORK_ROUTE_TYPE,
 				"Defines how routes are stored in memory. Currently supported: " +
 				NetworkRouteType.LinkNetworkRoute + ", " +
-				NetworkRouteType.CompressedNetworkRoute + ".");
+				NetworkRouteType.CompressedNetworkRoute + ", " +
+				NetworkRouteType.IndexedNetworkRoute + ". " +
+				NetworkRouteType.IndexedNetworkRoute + " stores the links of a route as array of indices, which copies of " +
+				"plans share; it needs the least memory if many plans are kept.");
 		comments.put(
 				INPUT_PERSON_ATTRIBUTES_FILE,
 				"Path to a file containing person attributes (required file format: ObjectAttributes).");
@@ -87,6 +91,12 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 		comments.put(REMOVING_UNNECESSARY_PLAN_ATTRIBUTES, "(not tested) will remove plan attributes that are presumably not used, such as " +
 		"activityStartTime. default=false") ;
 
+		comments.put(COMPACTING_NON_SELECTED_PLANS, "If true, the non-selected plans are stored in a compact binary encoding " +
+				"after each replanning, and only decoded when they are accessed again. Saves memory with large choice sets. default=false") ;
+
+		comments.put(COLUMNAR_PERSON_ATTRIBUTES, "If true, the person attributes are stored in one array per attribute instead of " +
+				"one map per person. Saves memory and speeds up lookups with many persons. default=false") ;
+
 		comments.put( INPUT_CRS , "The Coordinates Reference System in which the coordinates are expressed in the input file." +
 				" At import, the coordinates will be converted to the coordinate system defined in \"global\", and will" +
 				"be converted back at export. If not specified, no conversion happens." );
@@ -178,6 +188,30 @@ public final class PlansConfigGroup extends ReflectiveConfigGroup {
 	}
 
 
+	private static final String COMPACTING_NON_SELECTED_PLANS = "compactingNonSelectedPlans";
+	private boolean compactingNonSelectedPlans = false;
+	@StringGetter(COMPACTING_NON_SELECTED_PLANS)
+	public boolean isCompactingNonSelectedPlans() {
+		return this.compactingNonSelectedPlans;
+	}
+	@StringSetter(COMPACTING_NON_SELECTED_PLANS)
+	public void setCompactingNonSelectedPlans(final boolean compactingNonSelectedPlans) {
+		this.compactingNonSelectedPlans = compactingNonSelectedPlans;
+	}
+
+
+	private static final String COLUMNAR_PERSON_ATTRIBUTES = "columnarPersonAttributes";
+	private boolean columnarPersonAttributes = false;
+	@StringGetter(COLUMNAR_PERSON_ATTRIBUTES)
+	public boolean isColumnarPersonAttributes() {
+		return this.columnarPersonAttributes;
+	}
+	@StringSetter(COLUMNAR_PERSON_ATTRIBUTES)
+	public void setColumnarPersonAttributes(final boolean columnarPersonAttributes) {
+		this.columnarPersonAttributes = columnarPersonAttributes;
+	}
+
+
 	@StringGetter( INPUT_CRS )
 	public String getInputCRS() {
 		return inputCRS;
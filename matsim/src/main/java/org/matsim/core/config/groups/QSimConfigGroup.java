@@ -261,6 +261,11 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 			map.put(LINK_DYNAMICS, "default: FIFO; options:" + stb ) ;
 		}
 		map.put(USE_PERSON_ID_FOR_MISSING_VEHICLE_ID, "If a route does not reference a vehicle, agents will use the vehicle with the same id as their own.");
+		map.put(USING_COMPACT_AGENTS, "If true, the agents of the population keep their plans in a flat, array-based form instead of copying "
+				+ "them at mobsim start.  Saves memory for large populations.  Agents still copy their plan when it is modified "
+				+ "during the mobsim (within-day replanning).  Not used with transit.  Default: false.");
+		map.put(USING_PARALLEL_AGENT_CREATION, "If true and numberOfThreads > 1, the agents of the population and their vehicles are created "
+				+ "in parallel at the start of the mobsim.  Requires a thread-safe AgentFactory.  Default: false.");
 		map.put(USING_THREADPOOL, "if the qsim should use as many runners as there are threads (Christoph's dissertation version)"
 				+ " or more of them, together with a thread pool (seems to be faster in some situations, but is not tested).") ;
 		map.put(FAST_CAPACITY_UPDATE, "If false, the qsim accumulates fractional flows up to one flow unit in every time step.  If true, "
@@ -598,4 +603,32 @@ public final class QSimConfigGroup extends ReflectiveConfigGroup {
 	public void setCreatingVehiclesForAllNetworkModes(boolean creatingVehiclesForAllNetworkModes) {
 		this.creatingVehiclesForAllNetworkModes = creatingVehiclesForAllNetworkModes;
 	}
+
+	// ---
+	private static final String USING_COMPACT_AGENTS = "usingCompactAgents";
+	private boolean usingCompactAgents = false;
+
+	@StringGetter(USING_COMPACT_AGENTS)
+	public boolean isUsingCompactAgents() {
+		return this.usingCompactAgents;
+	}
+
+	@StringSetter(USING_COMPACT_AGENTS)
+	public void setUsingCompactAgents(boolean usingCompactAgents) {
+		this.usingCompactAgents = usingCompactAgents;
+	}
+
+	// ---
+	private static final String USING_PARALLEL_AGENT_CREATION = "usingParallelAgentCreation";
+	private boolean usingParallelAgentCreation = false;
+
+	@StringGetter(USING_PARALLEL_AGENT_CREATION)
+	public boolean isUsingParallelAgentCreation() {
+		return this.usingParallelAgentCreation;
+	}
+
+	@StringSetter(USING_PARALLEL_AGENT_CREATION)
+	public void setUsingParallelAgentCreation(boolean usingParallelAgentCreation) {
+		this.usingParallelAgentCreation = usingParallelAgentCreation;
+	}
 }
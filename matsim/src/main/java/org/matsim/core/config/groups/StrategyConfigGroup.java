@@ -274,6 +274,10 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TMP_FILE_ROOT_DIR, "root directory for temporary files generated by the external executable. Provided as a service; "
 				+ "I don't think this is used by MATSim.") ;
 		map.put(ReflectiveDelegate.EXTERNAL_EXE_TIME_OUT, "time out value (in seconds) after which matsim will consider the external strategy as failed") ;
+		map.put(ReflectiveDelegate.NUMBER_OF_REPLANNING_THREADS, "number of threads removing plans, choosing strategies and selecting and copying "
+				+ "plans before the plans are handed to the strategy modules.  ``0'' (the default) does this on the controler thread.  "
+				+ "With more threads, the random numbers are drawn from streams per block of persons, so the results do not depend "
+				+ "on the number of threads but differ from the ones of the serial version.");
 		return map ;
 	}
 
@@ -386,6 +390,14 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		delegate.setFractionOfIterationsToDisableInnovation(fraction);
 	}
 
+	public int getNumberOfReplanningThreads() {
+		return delegate.getNumberOfReplanningThreads();
+	}
+
+	public void setNumberOfReplanningThreads(int numberOfReplanningThreads) {
+		delegate.setNumberOfReplanningThreads(numberOfReplanningThreads);
+	}
+
 	@Override
 	public final Map<String, String> getParams() {
 		return delegate.getParams();
@@ -398,6 +410,7 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		 static final String EXTERNAL_EXE_TIME_OUT = "ExternalExeTimeOut";
 		 static final String ITERATION_FRACTION_TO_DISABLE_INNOVATION = "fractionOfIterationsToDisableInnovation" ;
 		 static final String PLAN_SELECTOR_FOR_REMOVAL = "planSelectorForRemoval" ;
+		 static final String NUMBER_OF_REPLANNING_THREADS = "numberOfReplanningThreads" ;
 
 		private int maxAgentPlanMemorySize = 5;
 		private String externalExeConfigTemplate = null;
@@ -409,6 +422,7 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		//---
 		private double fraction = Double.POSITIVE_INFINITY ;
 		//---
+		private int numberOfReplanningThreads = 0 ;
 
 		public ReflectiveDelegate() {
 			super( StrategyConfigGroup.GROUP_NAME );
@@ -474,6 +488,16 @@ public final class StrategyConfigGroup extends ConfigGroup {
 		public void setFractionOfIterationsToDisableInnovation(double fraction) {
 			this.fraction = fraction;
 		}
+
+		@StringGetter( NUMBER_OF_REPLANNING_THREADS )
+		public int getNumberOfReplanningThreads() {
+			return numberOfReplanningThreads;
+		}
+
+		@StringSetter( NUMBER_OF_REPLANNING_THREADS )
+		public void setNumberOfReplanningThreads(int numberOfReplanningThreads) {
+			this.numberOfReplanningThreads = numberOfReplanningThreads;
+		}
 	}
 }
 
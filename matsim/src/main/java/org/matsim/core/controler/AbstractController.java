@@ -105,8 +105,16 @@ import org.matsim.core.gbl.MatsimRandom;
      */
     protected abstract boolean continueIterations(int iteration);
 
+    /**
+     * The iteration the loop starts with.  This is the first iteration, unless the run was restarted from a checkpoint;
+     * so, in contrast to the first iteration, it may include replanning.
+     */
+    int getStartIteration(Config config) {
+        return config.controler().getFirstIteration();
+    }
+
     private void doIterations(Config config) throws MatsimRuntimeModifications.UnexpectedShutdownException {
-        for (int iteration = config.controler().getFirstIteration(); continueIterations(iteration); iteration++) {
+        for (int iteration = getStartIteration(config); continueIterations(iteration); iteration++) {
             iteration(config, iteration);
         }
     }
@@ -0,0 +1,158 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsyncOutputWriter.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.controler.events.ShutdownEvent;
+import org.matsim.core.controler.listener.ShutdownListener;
+import org.matsim.core.utils.misc.DaemonThreadFactory;
+
+/**
+ * Writes output files in the background, so the iterations do not have to wait for them.  Listeners hand over the
+ * writing of a file as a task, see {@link #submit(String, Runnable)}; the task must only use data that is not
+ * modified afterwards, i.e. a snapshot or data that is no longer used by the simulation.
+ * <p></p>
+ * With {@link ControlerConfigGroup#getNumberOfOutputWriterThreads()} being 0 (the default), the tasks run right away
+ * on the calling thread.  Otherwise at most twice as many tasks as there are threads are pending, further tasks wait
+ * until one of them is done.  At shutdown, all tasks are waited for.
+ */
+@Singleton
+public final class AsyncOutputWriter implements ShutdownListener {
+
+	private static final Logger log = Logger.getLogger(AsyncOutputWriter.class);
+
+	private final ExecutorService executor;
+	private final Semaphore pendingTasks;
+	private final int maxPendingTasks;
+	private volatile Throwable failure = null;
+
+	@Inject
+	AsyncOutputWriter(final ControlerConfigGroup controlerConfigGroup) {
+		this(controlerConfigGroup.getNumberOfOutputWriterThreads());
+	}
+
+	/**
+	 * @param numberOfThreads the number of threads writing the files, 0 to write them on the calling thread
+	 */
+	public AsyncOutputWriter(final int numberOfThreads) {
+		if (numberOfThreads > 0) {
+			this.executor = Executors.newFixedThreadPool(numberOfThreads, new DaemonThreadFactory("OutputWriter"));
+			this.maxPendingTasks = 2 * numberOfThreads;
+			this.pendingTasks = new Semaphore(this.maxPendingTasks);
+		} else {
+			this.executor = null;
+			this.maxPendingTasks = 0;
+			this.pendingTasks = null;
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the tasks run in the background, i.e. the data they use needs to be copied.
+	 */
+	public boolean isAsync() {
+		return this.executor != null;
+	}
+
+	/**
+	 * Runs the task in the background, blocking while too many tasks are pending.  A failure of the task is
+	 * rethrown by the next call to {@link #awaitCompletion()}.
+	 *
+	 * @param description describes the task in log messages, e.g. the file written
+	 */
+	public void submit(final String description, final Runnable task) {
+		if (this.executor == null) {
+			task.run();
+			return;
+		}
+		this.pendingTasks.acquireUninterruptibly();
+		try {
+			this.executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						task.run();
+					} catch (Throwable e) {
+						log.error("writing " + description + " failed.", e);
+						if (AsyncOutputWriter.this.failure == null) {
+							AsyncOutputWriter.this.failure = e;
+						}
+					} finally {
+						AsyncOutputWriter.this.pendingTasks.release();
+					}
+				}
+			});
+		} catch (RuntimeException e) {
+			this.pendingTasks.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Waits until all submitted tasks are done.
+	 *
+	 * @throws RuntimeException if one of the tasks failed
+	 */
+	public void awaitCompletion() {
+		if (this.executor != null) {
+			this.pendingTasks.acquireUninterruptibly(this.maxPendingTasks);
+			this.pendingTasks.release(this.maxPendingTasks);
+		}
+		Throwable e = this.failure;
+		if (e != null) {
+			this.failure = null;
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void notifyShutdown(final ShutdownEvent event) {
+		if (this.executor == null) {
+			return;
+		}
+		log.info("waiting for the output writers to finish...");
+		try {
+			awaitCompletion();
+		} finally {
+			this.executor.shutdown();
+			try {
+				this.executor.awaitTermination(1, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+}
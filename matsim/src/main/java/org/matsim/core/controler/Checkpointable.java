@@ -0,0 +1,41 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * Checkpointable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * State that is carried over from one iteration to the next and therefore has to be part of the iteration
+ * checkpoints, see {@link org.matsim.core.config.groups.ControlerConfigGroup#getWriteCheckpointsInterval()}.
+ * <p></p>
+ * Every {@link org.matsim.core.controler.listener.ControlerListener} implementing this interface is included
+ * automatically.  The state is written at the end of an iteration, after all listeners were called, and read after
+ * the startup listeners were called.
+ */
+public interface Checkpointable {
+
+	void writeCheckpoint(DataOutput out) throws IOException;
+
+	void readCheckpoint(DataInput in) throws IOException;
+
+}
@@ -27,6 +27,9 @@ import org.matsim.core.utils.misc.ClassUtils;
 
 import javax.swing.event.EventListenerList;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Class encapsulating all behavior concerning the ControlerEvents/Listeners
  *
@@ -92,6 +95,27 @@ public final class ControlerListenerManagerImpl implements ControlerListenerMana
         }
 	}
 
+	/**
+	 * @return all core and other ControlerListeners, each only once, in the order they were added.
+	 */
+	/*package*/ List<ControlerListener> getAllControlerListeners() {
+		List<ControlerListener> listeners = new ArrayList<>();
+		for (EventListenerList list : new EventListenerList[] { this.coreListenerList, this.listenerList }) {
+			Object[] pairs = list.getListenerList();
+			for (int i = 1; i < pairs.length; i += 2) {
+				ControlerListener l = (ControlerListener) pairs[i];
+				boolean known = false;
+				for (ControlerListener other : listeners) {
+					known |= other == l;
+				}
+				if (!known) {
+					listeners.add(l);
+				}
+			}
+		}
+		return listeners;
+	}
+
 	/**
 	 * Notifies all ControlerListeners
 	 */
@@ -0,0 +1,209 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IterationCheckpoints.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.listener.ControlerListener;
+import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+import com.google.inject.Binding;
+import com.google.inject.Key;
+import com.google.inject.Scopes;
+
+/**
+ * Writes the state of the iterations at the end of every {@link ControlerConfigGroup#getWriteCheckpointsInterval()}-th
+ * iteration, and restores it if {@link ControlerConfigGroup#getRestartFromCheckpoint()} is set.
+ * <p></p>
+ * A checkpoint consists of the population in binary form (see {@link ScenarioUtils#writeBinaryPopulation}) and a
+ * second file with the state of all {@link Checkpointable}s: the singletons bound in the injector, e.g. the
+ * {@link org.matsim.core.trafficmonitoring.TravelTimeCalculator}, and all ControlerListeners.  The random numbers need
+ * not be stored, as they are reset from the seed and the iteration number at the start of every iteration.
+ * <p></p>
+ * The state file is written last and moved into place when complete, so a run that crashes while writing a checkpoint
+ * does not leave a damaged checkpoint behind.
+ */
+/*package*/ final class IterationCheckpoints implements IterationEndsListener {
+
+	private static final Logger log = Logger.getLogger(IterationCheckpoints.class);
+
+	private static final int MAGIC = 0x4d534350; // "MSCP"
+	private static final int VERSION = 1;
+
+	private static final String FILENAME = "checkpoint.bin";
+	private static final String POPULATION_FILENAME = "checkpoint_population.bin";
+
+	private final ControlerConfigGroup controlerConfigGroup;
+	private final Population population;
+	private final OutputDirectoryHierarchy controlerIO;
+	private final ControlerListenerManagerImpl controlerListenerManager;
+	private final com.google.inject.Injector injector;
+
+	@Inject
+	IterationCheckpoints(ControlerConfigGroup controlerConfigGroup, Population population, OutputDirectoryHierarchy controlerIO,
+			ControlerListenerManagerImpl controlerListenerManager, com.google.inject.Injector injector) {
+		this.controlerConfigGroup = controlerConfigGroup;
+		this.population = population;
+		this.controlerIO = controlerIO;
+		this.controlerListenerManager = controlerListenerManager;
+		this.injector = injector;
+	}
+
+	@Override
+	public void notifyIterationEnds(final IterationEndsEvent event) {
+		int interval = this.controlerConfigGroup.getWriteCheckpointsInterval();
+		if (interval > 0 && event.getIteration() % interval == 0) {
+			write(event.getIteration());
+		}
+	}
+
+	/**
+	 * Restores the state from the configured checkpoint, if any.  Must be called after the startup listeners, so the
+	 * restored state is not overwritten by their initialization.
+	 *
+	 * @return the iteration of the checkpoint, or <code>null</code> if the run is not restarted.
+	 */
+	/*package*/ Integer restore() {
+		String filename = this.controlerConfigGroup.getRestartFromCheckpoint();
+		if (filename == null) {
+			return null;
+		}
+		File file = new File(filename);
+		log.info("restarting from checkpoint " + file);
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new RuntimeException(file + " is not a checkpoint written by this version of MATSim.");
+			}
+			int iteration = in.readInt();
+			if (iteration < this.controlerConfigGroup.getFirstIteration()) {
+				throw new RuntimeException("checkpoint " + file + " is of iteration " + iteration + ", which is before the first iteration "
+						+ this.controlerConfigGroup.getFirstIteration());
+			}
+
+			File populationFile = new File(file.getParentFile(), in.readUTF());
+			for (Id<Person> personId : new ArrayList<>(this.population.getPersons().keySet())) {
+				this.population.removePerson(personId);
+			}
+			ScenarioUtils.readBinaryPopulation(this.population, populationFile.getPath());
+
+			Map<String, Checkpointable> checkpointables = getCheckpointables();
+			int numberOfStates = in.readInt();
+			for (int i = 0; i < numberOfStates; i++) {
+				String name = in.readUTF();
+				Checkpointable checkpointable = checkpointables.remove(name);
+				if (checkpointable == null) {
+					// the states are not delimited, so one cannot be skipped
+					throw new RuntimeException("checkpoint " + file + " contains the state of " + name + ", which is not part of this run. "
+							+ "A run can only be restarted with the same config and modules.");
+				}
+				checkpointable.readCheckpoint(in);
+			}
+			for (String name : checkpointables.keySet()) {
+				log.warn("checkpoint " + file + " contains no state of " + name + ", it starts with its initial state.");
+			}
+			log.info("restored checkpoint of iteration " + iteration + ", continuing with iteration " + (iteration + 1));
+			return iteration;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private void write(final int iteration) {
+		File file = new File(this.controlerIO.getIterationFilename(iteration, FILENAME));
+		File populationFile = new File(this.controlerIO.getIterationFilename(iteration, POPULATION_FILENAME));
+		File tmpFile = new File(file.getPath() + ".tmp");
+		log.info("writing checkpoint of iteration " + iteration + " to " + file);
+		ScenarioUtils.writeBinaryPopulation(this.population, populationFile.getPath());
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(iteration);
+				out.writeUTF(populationFile.getName());
+				Map<String, Checkpointable> checkpointables = getCheckpointables();
+				out.writeInt(checkpointables.size());
+				for (Map.Entry<String, Checkpointable> e : checkpointables.entrySet()) {
+					out.writeUTF(e.getKey());
+					e.getValue().writeCheckpoint(out);
+				}
+			}
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		log.info("finished writing checkpoint.");
+	}
+
+	/**
+	 * @return all Checkpointables by a name that is the same in every run with the same config and modules.
+	 */
+	private Map<String, Checkpointable> getCheckpointables() {
+		Map<String, Checkpointable> checkpointables = new LinkedHashMap<>();
+		for (Binding<?> binding : this.injector.getBindings().values()) {
+			Key<?> key = binding.getKey();
+			if (Checkpointable.class.isAssignableFrom(key.getTypeLiteral().getRawType()) && Scopes.isSingleton(binding)) {
+				addCheckpointable(checkpointables, key.toString(), (Checkpointable) this.injector.getInstance(key));
+			}
+		}
+		for (ControlerListener listener : this.controlerListenerManager.getAllControlerListeners()) {
+			if (listener instanceof Checkpointable) {
+				addCheckpointable(checkpointables, listener.getClass().getName(), (Checkpointable) listener);
+			}
+		}
+		return checkpointables;
+	}
+
+	private static void addCheckpointable(final Map<String, Checkpointable> checkpointables, final String name, final Checkpointable checkpointable) {
+		for (Checkpointable known : checkpointables.values()) {
+			if (known == checkpointable) {
+				return;
+			}
+		}
+		String uniqueName = name;
+		for (int i = 2; checkpointables.containsKey(uniqueName); i++) {
+			uniqueName = name + "#" + i;
+		}
+		checkpointables.put(uniqueName, checkpointable);
+	}
+
+}
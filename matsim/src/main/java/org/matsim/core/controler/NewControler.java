@@ -50,9 +50,13 @@ class NewControler extends AbstractController implements ControlerI {
 	private final Set<ControlerListener> controlerListenersDeclaredByModules;
 	private final ControlerConfigGroup controlerConfigGroup;
 	private final OutputDirectoryHierarchy outputDirectoryHierarchy;
+	private final IterationCheckpoints iterationCheckpoints;
+	private final AsyncOutputWriter asyncOutputWriter;
+
+	private Integer checkpointIteration = null;
 
 	@Inject
-	NewControler(Config config, ControlerListenerManagerImpl controlerListenerManager, MatsimServices matsimServices, IterationStopWatch stopWatch, PrepareForSim prepareForSim, EventsHandling eventsHandling, PlansDumping plansDumping, PlansReplanning plansReplanning, Provider<Mobsim> mobsimProvider, PlansScoring plansScoring, TerminationCriterion terminationCriterion, DumpDataAtEnd dumpDataAtEnd, Set<ControlerListener> controlerListenersDeclaredByModules, ControlerConfigGroup controlerConfigGroup, OutputDirectoryHierarchy outputDirectoryHierarchy) {
+	NewControler(Config config, ControlerListenerManagerImpl controlerListenerManager, MatsimServices matsimServices, IterationStopWatch stopWatch, PrepareForSim prepareForSim, EventsHandling eventsHandling, PlansDumping plansDumping, PlansReplanning plansReplanning, Provider<Mobsim> mobsimProvider, PlansScoring plansScoring, TerminationCriterion terminationCriterion, DumpDataAtEnd dumpDataAtEnd, Set<ControlerListener> controlerListenersDeclaredByModules, ControlerConfigGroup controlerConfigGroup, OutputDirectoryHierarchy outputDirectoryHierarchy, IterationCheckpoints iterationCheckpoints, AsyncOutputWriter asyncOutputWriter) {
 		super(controlerListenerManager, stopWatch, matsimServices);
 		this.config = config;
 		this.config.addConfigConsistencyChecker(new ConfigConsistencyCheckerImpl());
@@ -67,6 +71,8 @@ class NewControler extends AbstractController implements ControlerI {
 		this.controlerListenersDeclaredByModules = controlerListenersDeclaredByModules;
 		this.controlerConfigGroup = controlerConfigGroup;
 		this.outputDirectoryHierarchy = outputDirectoryHierarchy;
+		this.iterationCheckpoints = iterationCheckpoints;
+		this.asyncOutputWriter = asyncOutputWriter;
 	}
 
 	@Override
@@ -96,6 +102,11 @@ class NewControler extends AbstractController implements ControlerI {
 		this.addCoreControlerListener(this.eventsHandling);
 		// must be last being added (=first being executed)
 
+		// the first of the other listeners, thus the last being executed at shutdown, so all files handed over are written
+		this.addControlerListener(this.asyncOutputWriter);
+		// the last being executed at iteration end, so the checkpoints contain the state of the other listeners
+		this.addControlerListener(this.iterationCheckpoints);
+
 		for (ControlerListener controlerListener : this.controlerListenersDeclaredByModules) {
 			this.addControlerListener(controlerListener);
 		}
@@ -103,9 +114,19 @@ class NewControler extends AbstractController implements ControlerI {
 
 	@Override
 	protected final void prepareForSim() {
+		// the restored population needs to be prepared as well, e.g. the vehicles of the persons are created there
+		this.checkpointIteration = this.iterationCheckpoints.restore();
 		this.prepareForSim.run();
 	}
 
+	@Override
+	final int getStartIteration(Config config) {
+		if (this.checkpointIteration != null) {
+			return this.checkpointIteration + 1;
+		}
+		return super.getStartIteration(config);
+	}
+
 	@Override
 	protected final void runMobSim() {
 		this.mobsimProvider.get().run();
@@ -27,6 +27,9 @@ import org.matsim.core.config.Config;
 import org.matsim.core.controler.events.*;
 import org.matsim.core.controler.listener.*;
 import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.ShardedEventsProcessor;
+import org.matsim.core.events.handler.EventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler;
 
 import javax.inject.Inject;
 import java.util.Set;
@@ -35,6 +38,10 @@ import java.util.Set;
  *
  * An attempt at making analysis modules reusable by emulating parts of the ControlerListener
  * protocol while reading an events file.
+ * <p></p>
+ * With {@link #setNumberOfThreads(int)} larger than 1, the event handlers declared by modules which are
+ * {@link PartitionableEventHandler}s run sharded on that many threads, see {@link ShardedEventsProcessor}.
+ * Their results are combined before the {@link AfterMobsimListener}s are notified.
  *
  * @author michaz
  */
@@ -53,7 +60,16 @@ public final class ReplayEvents {
     @Inject
     EventsManager eventsManager;
 
+    @Inject
+    Set<EventHandler> eventHandlersDeclaredByModules;
+
+    private int numberOfThreads = 1;
+
     public static Results run(final Config config, final String eventsFilename, final AbstractModule... modules) {
+        return run(config, eventsFilename, 1, modules);
+    }
+
+    public static Results run(final Config config, final String eventsFilename, final int numberOfThreads, final AbstractModule... modules) {
         final com.google.inject.Injector injector = Injector.createInjector(
                 config,
                 new Module(),
@@ -66,6 +82,7 @@ public final class ReplayEvents {
                     }
                 });
         ReplayEvents instance = injector.getInstance(ReplayEvents.class);
+        instance.setNumberOfThreads(numberOfThreads);
         instance.playEventsFile(eventsFilename, 1);
 
         return new Results() {
@@ -76,6 +93,13 @@ public final class ReplayEvents {
         };
     }
 
+    /**
+     * @param numberOfThreads the number of threads running the partitionable event handlers, 1 to run them like all others
+     */
+    public void setNumberOfThreads(final int numberOfThreads) {
+        this.numberOfThreads = numberOfThreads;
+    }
+
     public void playEventsFile(String eventsFilename, int iterationNumber) {
         ((ControlerListenerManagerImpl) controlerListenerManager).fireControlerStartupEvent();
         for (ControlerListener controlerListener : controlerListenersDeclaredByModules) {
@@ -95,7 +119,7 @@ public final class ReplayEvents {
                 ((BeforeMobsimListener) controlerListener).notifyBeforeMobsim(new BeforeMobsimEvent(null, iterationNumber));
             }
         }
-        new MatsimEventsReader(eventsManager).readFile(eventsFilename);
+        readEventsFile(eventsFilename);
         ((ControlerListenerManagerImpl) controlerListenerManager).fireControlerAfterMobsimEvent(iterationNumber);
         for (ControlerListener controlerListener : controlerListenersDeclaredByModules) {
             if (controlerListener instanceof AfterMobsimListener) {
@@ -116,6 +140,32 @@ public final class ReplayEvents {
         }
     }
 
+    private void readEventsFile(String eventsFilename) {
+        if (numberOfThreads <= 1) {
+            new MatsimEventsReader(eventsManager).readFile(eventsFilename);
+            return;
+        }
+        ShardedEventsProcessor sharded = new ShardedEventsProcessor(numberOfThreads);
+        for (EventHandler eventHandler : eventHandlersDeclaredByModules) {
+            if (eventHandler instanceof PartitionableEventHandler) {
+                eventsManager.removeHandler(eventHandler);
+                sharded.addHandler((PartitionableEventHandler<?>) eventHandler);
+            }
+        }
+        eventsManager.addHandler(sharded);
+        try {
+            new MatsimEventsReader(eventsManager).readFile(eventsFilename);
+            sharded.finish();
+        } finally {
+            // after a failure, the threads would otherwise wait for further events forever
+            sharded.abort();
+            eventsManager.removeHandler(sharded);
+            for (PartitionableEventHandler<?> eventHandler : sharded.getHandlers()) {
+                eventsManager.addHandler(eventHandler);
+            }
+        }
+    }
+
     public static class Module extends AbstractModule {
         @Override
 		public void install() {
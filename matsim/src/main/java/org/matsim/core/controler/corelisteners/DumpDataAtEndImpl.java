@@ -31,6 +31,7 @@ import org.matsim.core.config.Config;
 import org.matsim.core.config.ConfigWriter;
 import org.matsim.core.config.groups.ControlerConfigGroup;
 import org.matsim.core.config.groups.VspExperimentalConfigGroup;
+import org.matsim.core.controler.AsyncOutputWriter;
 import org.matsim.core.controler.Controler;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.ShutdownEvent;
@@ -38,6 +39,7 @@ import org.matsim.core.controler.listener.ShutdownListener;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.network.io.NetworkChangeEventsWriter;
 import org.matsim.core.network.io.NetworkWriter;
+import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.TransformationFactory;
 import org.matsim.core.utils.io.UncheckedIOException;
@@ -109,6 +111,9 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 	@Inject
 	private OutputDirectoryHierarchy controlerIO;
 
+	@Inject
+	private AsyncOutputWriter outputWriter;
+
 	@Inject
 	private Map<Class<?>,AttributeConverter<?>> attributeConverters = Collections.emptyMap();
 
@@ -117,24 +122,56 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 		if ( event.isUnexpected() ) {
 			return ;
 		}
-		dumpPlans();
-		dumpNetwork();
-		dumpConfig();
-		dumpFacilities();
-		dumpNetworkChangeEvents();
-
-		dumpTransitSchedule();
-		dumpTransitVehicles();
-		dumpVehicles();
-		dumpHouseholds();
-		dumpLanes();
-		dumpCounts();
+		// the files are written in parallel; other shutdown listeners may still modify the population, so the plans are
+		// written from a snapshot, and all files are complete before this method returns
+		final Population plans = outputWriter.isAsync() ? PopulationUtils.createSnapshot(population) : population;
+		outputWriter.submit("output plans", new Runnable() {
+			@Override public void run() { dumpPlans(plans); }
+		});
+		outputWriter.submit("output network", new Runnable() {
+			@Override public void run() { dumpNetwork(); }
+		});
+		outputWriter.submit("output config", new Runnable() {
+			@Override public void run() { dumpConfig(); }
+		});
+		outputWriter.submit("output facilities", new Runnable() {
+			@Override public void run() { dumpFacilities(); }
+		});
+		outputWriter.submit("output network change events", new Runnable() {
+			@Override public void run() { dumpNetworkChangeEvents(); }
+		});
+
+		outputWriter.submit("output transit schedule", new Runnable() {
+			@Override public void run() { dumpTransitSchedule(); }
+		});
+		outputWriter.submit("output transit vehicles", new Runnable() {
+			@Override public void run() { dumpTransitVehicles(); }
+		});
+		outputWriter.submit("output vehicles", new Runnable() {
+			@Override public void run() { dumpVehicles(); }
+		});
+		outputWriter.submit("output households", new Runnable() {
+			@Override public void run() { dumpHouseholds(); }
+		});
+		outputWriter.submit("output lanes", new Runnable() {
+			@Override public void run() { dumpLanes(); }
+		});
+		outputWriter.submit("output counts", new Runnable() {
+			@Override public void run() { dumpCounts(); }
+		});
 
 		if (!event.isUnexpected() && vspConfig.isWritingOutputEvents() && (controlerConfigGroup.getWriteEventsInterval()!=0)) {
-			dumpOutputEvents();
+			outputWriter.submit("output events", new Runnable() {
+				@Override public void run() { dumpOutputEvents(); }
+			});
 		}
 		
-		dumpExperiencedPlans() ;
+		outputWriter.submit("output experienced plans", new Runnable() {
+			@Override public void run() { dumpExperiencedPlans(); }
+		});
+
+		log.info("waiting for the output files to be written...");
+		outputWriter.awaitCompletion();
 	}
 
 	private void dumpOutputEvents() {
@@ -305,7 +342,7 @@ final class DumpDataAtEndImpl implements DumpDataAtEnd, ShutdownListener {
 		}
 	}
 
-	private void dumpPlans() {
+	private void dumpPlans(final Population population) {
 		// dump plans
 
 		final String inputCRS = config.plans().getInputCRS();
@@ -27,9 +27,11 @@ import org.matsim.api.core.v01.population.Population;
 import org.matsim.api.core.v01.population.PopulationWriter;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.ControlerConfigGroup;
+import org.matsim.core.controler.AsyncOutputWriter;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.events.BeforeMobsimEvent;
 import org.matsim.core.controler.listener.BeforeMobsimListener;
+import org.matsim.core.population.PopulationUtils;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -55,6 +57,7 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 	@Inject private Population population;
 	@Inject private IterationStopWatch stopwatch;
 	@Inject private OutputDirectoryHierarchy controlerIO;
+	@Inject private AsyncOutputWriter outputWriter;
 	private int writePlansInterval ;
 
 	private int writeMoreUntilIteration;
@@ -75,21 +78,29 @@ final class PlansDumpingImpl implements PlansDumping, BeforeMobsimListener {
 			log.info("dumping plans...");
 			final String inputCRS = config.plans().getInputCRS();
 			final String internalCRS = config.global().getCoordinateSystem();
+			final String filename = controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz");
+			// replanning modifies the plans while they are written in the background
+			final Population plans = outputWriter.isAsync() ? PopulationUtils.createSnapshot(population) : population;
 
-			if ( inputCRS == null ) {
-				new PopulationWriter(population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
-			}
-			else {
-				log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
+			outputWriter.submit(filename, new Runnable() {
+				@Override
+				public void run() {
+					if ( inputCRS == null ) {
+						new PopulationWriter(plans, network).write(filename);
+					}
+					else {
+						log.info( "re-projecting population from "+internalCRS+" back to "+inputCRS+" for export" );
 
-				final CoordinateTransformation transformation =
-						TransformationFactory.getCoordinateTransformation(
-								internalCRS,
-								inputCRS );
+						final CoordinateTransformation transformation =
+								TransformationFactory.getCoordinateTransformation(
+										internalCRS,
+										inputCRS );
 
-				new PopulationWriter(transformation, population, network).write(controlerIO.getIterationFilename(event.getIteration(), "plans.xml.gz"));
-			}
-			log.info("finished plans dump.");
+						new PopulationWriter(transformation, plans, network).write(filename);
+					}
+					log.info("finished plans dump.");
+				}
+			});
 			stopwatch.endOperation("dump all plans");
 		}
 	}
@@ -20,15 +20,23 @@
 
 package org.matsim.core.controler.corelisteners;
 
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
+import org.matsim.core.config.Config;
 import org.matsim.core.controler.events.ReplanningEvent;
 import org.matsim.core.controler.listener.ReplanningListener;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.algorithms.ParallelPersonAlgorithmUtils;
+import org.matsim.core.population.algorithms.PersonAlgorithm;
 import org.matsim.core.replanning.ReplanningContext;
 import org.matsim.core.replanning.StrategyManager;
 
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.inject.Provider;
 
 /**
@@ -36,26 +44,51 @@ import javax.inject.Provider;
  * replanning of plans in every iteration. Basically it integrates the
  * {@link org.matsim.core.replanning.StrategyManager} with the
  * {@link org.matsim.core.controler.Controler}.
+ * <p></p>
+ * If configured, the non-selected plans are stored in a compact encoding after the replanning, see
+ * {@link PopulationUtils#compactNonSelectedPlans(Person)}.
  *
  * @author mrieser
  */
 @Singleton
 final class PlansReplanningImpl implements PlansReplanning, ReplanningListener {
 
+	private static final Logger log = Logger.getLogger(PlansReplanningImpl.class);
+
 	private final Provider<ReplanningContext> replanningContextProvider;
 	private Population population;
 	private StrategyManager strategyManager;
+	private final Config config;
 	
 	@Inject
-	PlansReplanningImpl(StrategyManager strategyManager, Population pop, Provider<ReplanningContext> replanningContextProvider) {
+	PlansReplanningImpl(StrategyManager strategyManager, Population pop, Provider<ReplanningContext> replanningContextProvider, Config config) {
 		this.population = pop;
 		this.strategyManager = strategyManager;
 		this.replanningContextProvider = replanningContextProvider;
+		this.config = config;
 	}
 
 	@Override
 	public void notifyReplanning(final ReplanningEvent event) {
 		strategyManager.run(population, event.getIteration(), replanningContextProvider.get());
+		if (config.plans().isCompactingNonSelectedPlans()) {
+			compactNonSelectedPlans();
+		}
+	}
+
+	private void compactNonSelectedPlans() {
+		CompactNonSelectedPlans algorithm = new CompactNonSelectedPlans();
+		ParallelPersonAlgorithmUtils.run(population, config.global().getNumberOfThreads(), algorithm);
+		log.info("stored " + algorithm.cnt.get() + " non-selected plans in compact form.");
+	}
+
+	private static final class CompactNonSelectedPlans implements PersonAlgorithm {
+		final AtomicInteger cnt = new AtomicInteger();
+
+		@Override
+		public void run(final Person person) {
+			cnt.addAndGet(PopulationUtils.compactNonSelectedPlans(person));
+		}
 	}
 
 }
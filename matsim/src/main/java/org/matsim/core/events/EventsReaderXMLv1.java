@@ -20,9 +20,20 @@
 
 package org.matsim.core.events;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.apache.log4j.Logger;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
@@ -50,6 +61,7 @@ import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.misc.DaemonThreadFactory;
 import org.matsim.facilities.ActivityFacility;
 import org.matsim.pt.transitSchedule.api.Departure;
 import org.matsim.pt.transitSchedule.api.TransitLine;
@@ -58,31 +70,73 @@ import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 import org.matsim.vehicles.Vehicle;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
 
+/**
+ * Reads events files.
+ * <p></p>
+ * With {@link #setNumberOfThreads(int)} above 1, reading is split into a pipeline: the calling thread decompresses and
+ * parses the file and only copies the attributes of the event tags, in chunks of {@link #EVENTS_PER_CHUNK} events.  A
+ * thread pool creates the events of the chunks, and one more thread hands them to the {@link EventsManager}.  By
+ * default, the events are handed over in the order of the file.  With {@link #setOrdered(boolean)} <code>false</code>,
+ * each chunk is handed over as soon as its events are created, which only suits handlers that do not depend on the
+ * order of the events, e.g. ones summing up.  The events of one chunk always stay in order.  All events are handed
+ * over when reading returns.  If reading fails, the threads are stopped and the events not handed over yet are dropped.
+ */
 public final class EventsReaderXMLv1 extends MatsimXmlParser {
 
+	private static final Logger log = Logger.getLogger(EventsReaderXMLv1.class);
+
 	public interface CustomEventMapper<T extends Event> /* extends Function<GenericEvent, T> */ {
 		T apply(GenericEvent event);
 	}
 
 	static public final String EVENT = "event";
+	static private final String EVENTS = "events";
+
+	/*package*/ static final int EVENTS_PER_CHUNK = 10000;
 
 	private final EventsManager events;
 	private final Map<String, CustomEventMapper> customEventMappers = new HashMap<>();
 
+	private int numberOfThreads = 1;
+	private boolean ordered = true;
+	private Pipeline pipeline = null;
+
 	public EventsReaderXMLv1(final EventsManager events) {
 		this.events = events;
 		this.setValidating(false);// events-files have no DTD, thus they cannot validate
 	}
 
+	/**
+	 * With more than one thread, the mapper is called by several threads at once.
+	 */
 	public void addCustomEventMapper(String eventType, CustomEventMapper cem) {
 		customEventMappers.put(eventType, cem);
 	}
 
+	/**
+	 * @param numberOfThreads the number of threads creating the events, 1 (the default) to create and handle them on
+	 * the calling thread
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * @param ordered whether the events are handed over in the order of the file (the default) if more than one
+	 * thread is used
+	 */
+	public void setOrdered(final boolean ordered) {
+		this.ordered = ordered;
+	}
+
 	@Override
 	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
 		if (EVENT.equals(name)) {
 			startEvent(atts);
+		} else if (EVENTS.equals(name) && this.numberOfThreads > 1) {
+			this.pipeline = new Pipeline(this.numberOfThreads, this.ordered);
 		}
 	}
 
@@ -98,35 +152,62 @@ public final class EventsReaderXMLv1 extends MatsimXmlParser {
 
 	@Override
 	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (EVENTS.equals(name) && this.pipeline != null) {
+			Pipeline pipeline = this.pipeline;
+			this.pipeline = null;
+			pipeline.finish();
+		}
+	}
+
+	@Override
+	protected void parsingAborted() {
+		if (this.pipeline != null) {
+			Pipeline pipeline = this.pipeline;
+			this.pipeline = null;
+			pipeline.abort();
+		}
 	}
 
 	private void startEvent(final Attributes atts) {
+		if (this.pipeline != null) {
+			// copy the attributes, the object is re-used by the parser
+			this.pipeline.add(new AttributesImpl(atts));
+		} else {
+			this.events.processEvent(createEvent(atts));
+		}
+	}
+
+	/**
+	 * Creates the event described by the attributes of an event tag.  Only reads the custom event mappers, so it may be
+	 * called by several threads at once if the custom event mappers allow this.
+	 */
+	/*package*/ Event createEvent(final Attributes atts) {
 		double time = Double.parseDouble(atts.getValue("time"));
 		String eventType = atts.getValue("type");
 
 		// === material related to wait2link below here ===
 		if (LinkLeaveEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new LinkLeaveEvent(time, 
+			return new LinkLeaveEvent(time, 
 					Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_VEHICLE), Vehicle.class), 
 					Id.create(atts.getValue(LinkLeaveEvent.ATTRIBUTE_LINK), Link.class)
 					// had driver id in previous version
-					));
+					);
 		} else if (LinkEnterEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new LinkEnterEvent(time, 
+			return new LinkEnterEvent(time, 
 					Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_VEHICLE), Vehicle.class), 
 					Id.create(atts.getValue(LinkEnterEvent.ATTRIBUTE_LINK), Link.class)
 					// had driver id in previous version
-					));
+					);
 		} else if (VehicleEntersTrafficEvent.EVENT_TYPE.equals(eventType) ) {
 			// (this is the new version, marked by the new events name)
 
-			this.events.processEvent(new VehicleEntersTrafficEvent(time, 
+			return new VehicleEntersTrafficEvent(time, 
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_DRIVER), Person.class), 
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_LINK), Link.class), 
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class),
 					atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE), 
 					Double.parseDouble( atts.getValue( VehicleEntersTrafficEvent.ATTRIBUTE_POSITION) )
-					));
+					);
 		} else if ( "wait2link".equals(eventType) ) {
 			// (this is the old version, marked by the old events name)
 
@@ -145,82 +226,82 @@ public final class EventsReaderXMLv1 extends MatsimXmlParser {
 			} else {
 				position = 1.0 ;
 			}
-			this.events.processEvent(new VehicleEntersTrafficEvent(time, 
+			return new VehicleEntersTrafficEvent(time, 
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_DRIVER), Person.class), 
 					Id.create(atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_LINK), Link.class), 
 					vehicleId,
 					atts.getValue(VehicleEntersTrafficEvent.ATTRIBUTE_NETWORKMODE), 
 					position
-					));
+					);
 		} else if (VehicleLeavesTrafficEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new VehicleLeavesTrafficEvent(time, 
+			return new VehicleLeavesTrafficEvent(time, 
 					Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_DRIVER), Person.class), 
 					Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_LINK), Link.class), 
 					atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE) == null ? null : Id.create(atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_VEHICLE), Vehicle.class), 
 					atts.getValue(VehicleLeavesTrafficEvent.ATTRIBUTE_NETWORKMODE), 
 					Double.parseDouble( atts.getValue( VehicleLeavesTrafficEvent.ATTRIBUTE_POSITION) )
-					));
+					);
 		}
 		// === material related to wait2link above here
 		else if (ActivityEndEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new ActivityEndEvent(
+			return new ActivityEndEvent(
 					time, 
 					Id.create(atts.getValue(ActivityEndEvent.ATTRIBUTE_PERSON), Person.class), 
 					Id.create(atts.getValue(ActivityEndEvent.ATTRIBUTE_LINK), Link.class), 
 					atts.getValue(ActivityEndEvent.ATTRIBUTE_FACILITY) == null ? null : Id.create(atts.getValue(ActivityEndEvent.ATTRIBUTE_FACILITY), ActivityFacility.class), 
-					atts.getValue(ActivityEndEvent.ATTRIBUTE_ACTTYPE)));
+					atts.getValue(ActivityEndEvent.ATTRIBUTE_ACTTYPE));
 		} else if (ActivityStartEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new ActivityStartEvent(time, Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_LINK), Link.class), atts.getValue(ActivityStartEvent.ATTRIBUTE_FACILITY) == null ? null : Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_FACILITY), ActivityFacility.class), atts.getValue(ActivityStartEvent.ATTRIBUTE_ACTTYPE)));
+			return new ActivityStartEvent(time, Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_LINK), Link.class), atts.getValue(ActivityStartEvent.ATTRIBUTE_FACILITY) == null ? null : Id.create(atts.getValue(ActivityStartEvent.ATTRIBUTE_FACILITY), ActivityFacility.class), atts.getValue(ActivityStartEvent.ATTRIBUTE_ACTTYPE));
 		} else if (PersonArrivalEvent.EVENT_TYPE.equals(eventType)) {
 			String legMode = atts.getValue(PersonArrivalEvent.ATTRIBUTE_LEGMODE);
 			String mode = legMode == null ? null : legMode.intern();
-			this.events.processEvent(new PersonArrivalEvent(time, Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_LINK), Link.class), mode));
+			return new PersonArrivalEvent(time, Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonArrivalEvent.ATTRIBUTE_LINK), Link.class), mode);
 		} else if (PersonDepartureEvent.EVENT_TYPE.equals(eventType)) {
 			String legMode = atts.getValue(PersonDepartureEvent.ATTRIBUTE_LEGMODE);
 			String mode = legMode == null ? null : legMode.intern();
-			this.events.processEvent(new PersonDepartureEvent(time, Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_LINK), Link.class), mode));
+			return new PersonDepartureEvent(time, Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_PERSON), Person.class), Id.create(atts.getValue(PersonDepartureEvent.ATTRIBUTE_LINK), Link.class), mode);
 		} else if (PersonStuckEvent.EVENT_TYPE.equals(eventType)) {
 			String legMode = atts.getValue(PersonStuckEvent.ATTRIBUTE_LEGMODE);
 			String mode = legMode == null ? null : legMode.intern();
 			String linkIdString = atts.getValue(PersonStuckEvent.ATTRIBUTE_LINK);
 			Id<Link> linkId = linkIdString == null ? null : Id.create(linkIdString, Link.class); // linkId is optional
-			this.events.processEvent(new PersonStuckEvent(time, Id.create(atts.getValue(PersonStuckEvent.ATTRIBUTE_PERSON), Person.class), linkId, mode));
+			return new PersonStuckEvent(time, Id.create(atts.getValue(PersonStuckEvent.ATTRIBUTE_PERSON), Person.class), linkId, mode);
 		} else if (VehicleAbortsEvent.EVENT_TYPE.equals(eventType)) {
 			String linkIdString = atts.getValue(VehicleAbortsEvent.ATTRIBUTE_LINK);
 			Id<Link> linkId = linkIdString == null ? null : Id.create(linkIdString, Link.class);
-			this.events.processEvent(new VehicleAbortsEvent(time, Id.create(atts.getValue(VehicleAbortsEvent.ATTRIBUTE_VEHICLE), Vehicle.class), linkId));
+			return new VehicleAbortsEvent(time, Id.create(atts.getValue(VehicleAbortsEvent.ATTRIBUTE_VEHICLE), Vehicle.class), linkId);
 		}else if (PersonMoneyEvent.EVENT_TYPE.equals(eventType) || "agentMoney".equals(eventType)) {
-			this.events.processEvent(new PersonMoneyEvent(time, Id.create(atts.getValue(PersonMoneyEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonMoneyEvent.ATTRIBUTE_AMOUNT))));
+			return new PersonMoneyEvent(time, Id.create(atts.getValue(PersonMoneyEvent.ATTRIBUTE_PERSON), Person.class), Double.parseDouble(atts.getValue(PersonMoneyEvent.ATTRIBUTE_AMOUNT)));
 		} else if (PersonEntersVehicleEvent.EVENT_TYPE.equals(eventType)) {
 			String personString = atts.getValue(PersonEntersVehicleEvent.ATTRIBUTE_PERSON);
 			String vehicleString = atts.getValue(PersonEntersVehicleEvent.ATTRIBUTE_VEHICLE);
-			this.events.processEvent(new PersonEntersVehicleEvent(time, Id.create(personString, Person.class), Id.create(vehicleString, Vehicle.class)));
+			return new PersonEntersVehicleEvent(time, Id.create(personString, Person.class), Id.create(vehicleString, Vehicle.class));
 		} else if (PersonLeavesVehicleEvent.EVENT_TYPE.equals(eventType)) {
 			Id<Person> pId = Id.create(atts.getValue(PersonLeavesVehicleEvent.ATTRIBUTE_PERSON), Person.class);
 			Id<Vehicle> vId = Id.create(atts.getValue(PersonLeavesVehicleEvent.ATTRIBUTE_VEHICLE), Vehicle.class);
-			this.events.processEvent(new PersonLeavesVehicleEvent(time, pId, vId));
+			return new PersonLeavesVehicleEvent(time, pId, vId);
 		} else if (TeleportationArrivalEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new TeleportationArrivalEvent(
+			return new TeleportationArrivalEvent(
 					time, 
 					Id.create(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_PERSON), Person.class), 
-					Double.parseDouble(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_DISTANCE))));
+					Double.parseDouble(atts.getValue(TeleportationArrivalEvent.ATTRIBUTE_DISTANCE)));
 		} else if (VehicleArrivesAtFacilityEvent.EVENT_TYPE.equals(eventType)) {
 			String delay = atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_DELAY);
-			this.events.processEvent(new VehicleArrivesAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay)));
+			return new VehicleArrivesAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay));
 		} else if (VehicleDepartsAtFacilityEvent.EVENT_TYPE.equals(eventType)) {
 			String delay = atts.getValue(VehicleDepartsAtFacilityEvent.ATTRIBUTE_DELAY);
-			this.events.processEvent(new VehicleDepartsAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay)));
+			return new VehicleDepartsAtFacilityEvent(time, Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_VEHICLE), Vehicle.class), Id.create(atts.getValue(VehicleArrivesAtFacilityEvent.ATTRIBUTE_FACILITY), TransitStopFacility.class), delay == null ? 0.0 : Double.parseDouble(delay));
 		} else if (TransitDriverStartsEvent.EVENT_TYPE.equals(eventType)) {
-			this.events.processEvent(new TransitDriverStartsEvent(time, Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DRIVER_ID), Person.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_LINE_ID), TransitLine.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_ROUTE_ID), TransitRoute.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DEPARTURE_ID), Departure.class)));
+			return new TransitDriverStartsEvent(time, Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DRIVER_ID), Person.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_LINE_ID), TransitLine.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_TRANSIT_ROUTE_ID), TransitRoute.class), Id.create(atts.getValue(TransitDriverStartsEvent.ATTRIBUTE_DEPARTURE_ID), Departure.class));
 		} else if (BoardingDeniedEvent.EVENT_TYPE.equals(eventType)){
 			Id<Person> personId = Id.create(atts.getValue(BoardingDeniedEvent.ATTRIBUTE_PERSON_ID), Person.class);
 			Id<Vehicle> vehicleId = Id.create(atts.getValue(BoardingDeniedEvent.ATTRIBUTE_VEHICLE_ID), Vehicle.class);
-			this.events.processEvent(new BoardingDeniedEvent(time, personId, vehicleId));
+			return new BoardingDeniedEvent(time, personId, vehicleId);
 		} else if (AgentWaitingForPtEvent.EVENT_TYPE.equals(eventType)){
 			Id<Person> agentId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_AGENT), Person.class);
 			Id<TransitStopFacility> waitStopId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_WAITSTOP), TransitStopFacility.class);
 			Id<TransitStopFacility> destinationStopId = Id.create(atts.getValue(AgentWaitingForPtEvent.ATTRIBUTE_DESTINATIONSTOP), TransitStopFacility.class);
-			this.events.processEvent(new AgentWaitingForPtEvent(time, agentId, waitStopId, destinationStopId));
+			return new AgentWaitingForPtEvent(time, agentId, waitStopId, destinationStopId);
 		} else {
 			GenericEvent event = new GenericEvent(eventType, time);
 			for ( int ii=0; ii<atts.getLength(); ii++ ) {
@@ -233,11 +314,159 @@ public final class EventsReaderXMLv1 extends MatsimXmlParser {
 			}
 			CustomEventMapper cem = customEventMappers.get(eventType);
 			if (cem != null) {
-				this.events.processEvent(cem.apply(event));
+				return cem.apply(event);
+			} else {
+				return event;
+			}
+		}
+	}
+
+	/**
+	 * Creates the events of chunks of event tags on a thread pool and hands them to the events manager on one more
+	 * thread.  At most {@link #maxPendingChunks} chunks are parsed but not yet handed over, to keep the memory bounded.
+	 */
+	private final class Pipeline {
+		private final ExecutorService creators;
+		private final ExecutorService deliverer;
+		private final boolean ordered;
+		private final int maxPendingChunks;
+		private final Semaphore pendingChunks;
+		private volatile Throwable failure = null;
+		private List<Attributes> chunk = new ArrayList<>(EVENTS_PER_CHUNK);
+
+		Pipeline(final int numberOfThreads, final boolean ordered) {
+			log.info("reading events with " + numberOfThreads + " threads" + (ordered ? "" : ", unordered") + "...");
+			this.creators = Executors.newFixedThreadPool(numberOfThreads, new DaemonThreadFactory("EventsReader"));
+			this.deliverer = Executors.newSingleThreadExecutor(new DaemonThreadFactory("EventsDelivery"));
+			this.ordered = ordered;
+			this.maxPendingChunks = 4 * numberOfThreads;
+			this.pendingChunks = new Semaphore(this.maxPendingChunks);
+		}
+
+		void add(final Attributes atts) {
+			this.chunk.add(atts);
+			if (this.chunk.size() >= EVENTS_PER_CHUNK) {
+				submitChunk();
+			}
+		}
+
+		private void submitChunk() {
+			checkFailure();
+			this.pendingChunks.acquireUninterruptibly();
+			final List<Attributes> tags = this.chunk;
+			this.chunk = new ArrayList<>(EVENTS_PER_CHUNK);
+			if (this.ordered) {
+				// the deliverer works in the order of submission, waiting for each chunk to be created
+				final Future<List<Event>> created = this.creators.submit(new Callable<List<Event>>() {
+					@Override
+					public List<Event> call() {
+						return createEvents(tags);
+					}
+				});
+				this.deliverer.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							deliver(created.get());
+						} catch (ExecutionException e) {
+							fail(e.getCause());
+						} catch (Throwable e) {
+							fail(e);
+						} finally {
+							Pipeline.this.pendingChunks.release();
+						}
+					}
+				});
 			} else {
-				this.events.processEvent(event);
+				// the creator hands the chunk to the deliverer when done
+				this.creators.execute(new Runnable() {
+					@Override
+					public void run() {
+						final List<Event> created;
+						try {
+							created = createEvents(tags);
+						} catch (Throwable e) {
+							fail(e);
+							Pipeline.this.pendingChunks.release();
+							return;
+						}
+						Pipeline.this.deliverer.execute(new Runnable() {
+							@Override
+							public void run() {
+								try {
+									deliver(created);
+								} catch (Throwable e) {
+									fail(e);
+								} finally {
+									Pipeline.this.pendingChunks.release();
+								}
+							}
+						});
+					}
+				});
+			}
+		}
+
+		private List<Event> createEvents(final List<Attributes> tags) {
+			List<Event> created = new ArrayList<>(tags.size());
+			for (Attributes atts : tags) {
+				created.add(createEvent(atts));
+			}
+			return created;
+		}
+
+		private void deliver(final List<Event> created) {
+			if (this.failure != null) {
+				return;
+			}
+			for (Event event : created) {
+				EventsReaderXMLv1.this.events.processEvent(event);
+			}
+		}
+
+		private void fail(final Throwable e) {
+			if (this.failure == null) {
+				this.failure = e;
 			}
 		}
+
+		private void checkFailure() {
+			Throwable e = this.failure;
+			if (e != null) {
+				this.creators.shutdownNow();
+				this.deliverer.shutdownNow();
+				if (e instanceof RuntimeException) {
+					throw (RuntimeException) e;
+				}
+				if (e instanceof Error) {
+					throw (Error) e;
+				}
+				throw new RuntimeException(e);
+			}
+		}
+
+		/**
+		 * Hands over the last chunk and waits until all events are handed over.
+		 */
+		void finish() {
+			if (!this.chunk.isEmpty()) {
+				submitChunk();
+			}
+			this.pendingChunks.acquireUninterruptibly(this.maxPendingChunks);
+			this.pendingChunks.release(this.maxPendingChunks);
+			this.creators.shutdown();
+			this.deliverer.shutdown();
+			checkFailure();
+		}
+
+		/**
+		 * Stops the threads without handing over the remaining events, if the file cannot be read to the end.
+		 */
+		void abort() {
+			fail(new CancellationException("reading the events was aborted"));
+			this.creators.shutdownNow();
+			this.deliverer.shutdownNow();
+		}
 	}
 
 }
@@ -21,7 +21,9 @@
 package org.matsim.core.events;
 
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Stack;
 
 import org.apache.log4j.Logger;
@@ -41,6 +43,9 @@ public final class MatsimEventsReader implements MatsimReader {
 
 	private final static Logger log = Logger.getLogger(MatsimEventsReader.class);
 	private final EventsManager events;
+	private final Map<String, EventsReaderXMLv1.CustomEventMapper> customEventMappers = new HashMap<>();
+	private int numberOfThreads = 1;
+	private boolean ordered = true;
 
 	/**
 	 * Creates a new reader for MATSim events files.
@@ -51,6 +56,27 @@ public final class MatsimEventsReader implements MatsimReader {
 		this.events = events;
 	}
 
+	/**
+	 * @see EventsReaderXMLv1#addCustomEventMapper(String, EventsReaderXMLv1.CustomEventMapper)
+	 */
+	public void addCustomEventMapper(final String eventType, final EventsReaderXMLv1.CustomEventMapper cem) {
+		this.customEventMappers.put(eventType, cem);
+	}
+
+	/**
+	 * @see EventsReaderXMLv1#setNumberOfThreads(int)
+	 */
+	public void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
+	/**
+	 * @see EventsReaderXMLv1#setOrdered(boolean)
+	 */
+	public void setOrdered(final boolean ordered) {
+		this.ordered = ordered;
+	}
+
 	/**
 	 * Parses the specified events file.
 	 *
@@ -72,7 +98,7 @@ public final class MatsimEventsReader implements MatsimReader {
 		new XmlEventsReader(this.events).parse(stream);
 	}
 
-	private static class XmlEventsReader extends MatsimXmlParser {
+	private class XmlEventsReader extends MatsimXmlParser {
 
 		final EventsManager events;
 		private final static String EVENTS_V1 = "events_v1.dtd";
@@ -104,7 +130,13 @@ public final class MatsimEventsReader implements MatsimReader {
 			super.setDoctype(doctype);
 			// Currently the only events-type is v1
 			if (EVENTS_V1.equals(doctype)) {
-				this.delegate = new EventsReaderXMLv1(this.events);
+				EventsReaderXMLv1 reader = new EventsReaderXMLv1(this.events);
+				for (Map.Entry<String, EventsReaderXMLv1.CustomEventMapper> e : MatsimEventsReader.this.customEventMappers.entrySet()) {
+					reader.addCustomEventMapper(e.getKey(), e.getValue());
+				}
+				reader.setNumberOfThreads(MatsimEventsReader.this.numberOfThreads);
+				reader.setOrdered(MatsimEventsReader.this.ordered);
+				this.delegate = reader;
 				log.info("using events_v1-reader.");
 			} else {
 				throw new IllegalArgumentException("Doctype \"" + doctype + "\" not known.");
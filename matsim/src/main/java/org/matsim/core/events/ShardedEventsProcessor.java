@@ -0,0 +1,394 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ShardedEventsProcessor.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.HasLinkId;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.PersonLeavesVehicleEvent;
+import org.matsim.api.core.v01.events.TransitDriverStartsEvent;
+import org.matsim.api.core.v01.events.VehicleAbortsEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.core.api.experimental.events.BoardingDeniedEvent;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
+import org.matsim.core.api.experimental.events.VehicleDepartsAtFacilityEvent;
+import org.matsim.core.api.internal.HasPersonId;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler;
+import org.matsim.core.events.handler.PartitionableEventHandler.Partitioning;
+
+/**
+ * Runs {@link PartitionableEventHandler}s on several threads. Every thread owns one shard of every
+ * handler and gets the events of the persons, vehicles or links whose index modulo the number of
+ * threads is its own. Events are handed over in chunks, so the thread feeding this handler (e.g. an
+ * events reader) only sorts them. Events of a type that no handler of a partitioning handles are not
+ * handed to the shards of that partitioning, so events without an id only reach all shards if needed.
+ * <p></p>
+ * Add it to an {@link EventsManager} like any other handler, and call {@link #finish()} after the
+ * last event: it waits for the threads and combines the shards into the original handlers. If the
+ * events cannot be processed to the end, {@link #abort()} stops the threads.
+ */
+public final class ShardedEventsProcessor implements BasicEventHandler {
+
+	private static final Logger log = Logger.getLogger(ShardedEventsProcessor.class);
+
+	static final int EVENTS_PER_CHUNK = 1000;
+	private static final int CHUNKS_IN_FLIGHT = 4;
+	private static final Partitioning[] PARTITIONINGS = Partitioning.values();
+
+	private final int numberOfThreads;
+	private final List<PartitionableEventHandler<?>> handlers = new ArrayList<>();
+	/* the handlers wrapped to look up which event types they handle, only used by the feeding thread */
+	private final List<SingleHandlerEventsManager> eventTypeFilters = new ArrayList<>();
+	/* per event class, the bit mask of the partitionings with at least one handler for it */
+	private final Map<Class<? extends Event>, Integer> handledPartitionings = new HashMap<>();
+	private final int[] shardMasks;
+	private Shard[] shards = null;
+	private volatile Throwable failure = null;
+
+	public ShardedEventsProcessor(final int numberOfThreads) {
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads must be at least 1, but is " + numberOfThreads);
+		}
+		this.numberOfThreads = numberOfThreads;
+		this.shardMasks = new int[numberOfThreads];
+	}
+
+	/**
+	 * Must be called before the first event.
+	 */
+	public void addHandler(final PartitionableEventHandler<?> handler) {
+		if (this.shards != null) {
+			throw new IllegalStateException("handlers must be added before the first event.");
+		}
+		this.handlers.add(handler);
+		this.eventTypeFilters.add(new SingleHandlerEventsManager(handler));
+		this.handledPartitionings.clear();
+	}
+
+	public List<PartitionableEventHandler<?>> getHandlers() {
+		return this.handlers;
+	}
+
+	@Override
+	public void handleEvent(final Event event) {
+		if (this.shards == null) {
+			start();
+		}
+		checkFailure();
+		int handled = getHandledPartitionings(event.getClass());
+		if (handled == 0) {
+			return;
+		}
+		int[] masks = this.shardMasks;
+		for (int p = 0; p < PARTITIONINGS.length; p++) {
+			if ((handled & (1 << p)) == 0) {
+				continue;
+			}
+			Id<?> id = getPartitionId(event, PARTITIONINGS[p]);
+			if (id == null) {
+				for (int i = 0; i < masks.length; i++) {
+					masks[i] |= 1 << p;
+				}
+			} else {
+				masks[id.index() % this.numberOfThreads] |= 1 << p;
+			}
+		}
+		for (int i = 0; i < masks.length; i++) {
+			if (masks[i] != 0) {
+				this.shards[i].add(event, masks[i]);
+				masks[i] = 0;
+			}
+		}
+	}
+
+	@Override
+	public void reset(final int iteration) {
+		for (PartitionableEventHandler<?> handler : this.handlers) {
+			handler.reset(iteration);
+		}
+	}
+
+	/**
+	 * Waits until all events are processed and combines the shards into the original handlers.
+	 * Afterwards, this processor is ready for the next pass with new shards.
+	 *
+	 * @throws RuntimeException if one of the shards failed
+	 */
+	public void finish() {
+		if (this.shards == null) {
+			start();
+		}
+		Shard[] shards = this.shards;
+		this.shards = null;
+		for (Shard shard : shards) {
+			shard.flush();
+			shard.put(Chunk.END);
+		}
+		for (Shard shard : shards) {
+			try {
+				shard.thread.join();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		checkFailure();
+		for (int h = 0; h < this.handlers.size(); h++) {
+			for (Shard shard : shards) {
+				combine(this.handlers.get(h), shard.handlerShards.get(h));
+			}
+		}
+	}
+
+	/**
+	 * Stops the threads without combining the shards and drops the events not processed yet, e.g.
+	 * after reading the events failed. Does nothing if no events are being processed, in particular
+	 * after {@link #finish()}, so it can be called in a <code>finally</code> block.
+	 */
+	public void abort() {
+		Shard[] shards = this.shards;
+		if (shards == null) {
+			return;
+		}
+		this.shards = null;
+		for (Shard shard : shards) {
+			shard.chunk = null;
+			shard.queue.clear();
+			shard.put(Chunk.END);
+		}
+		for (Shard shard : shards) {
+			try {
+				shard.thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		this.failure = null;
+	}
+
+	/**
+	 * @return the bit mask of the partitionings (by ordinal) with at least one handler for events of the given class
+	 */
+	int getHandledPartitionings(final Class<? extends Event> eventClass) {
+		Integer handled = this.handledPartitionings.get(eventClass);
+		if (handled == null) {
+			int mask = 0;
+			for (int h = 0; h < this.handlers.size(); h++) {
+				if (this.eventTypeFilters.get(h).handles(eventClass)) {
+					mask |= 1 << this.handlers.get(h).getPartitioning().ordinal();
+				}
+			}
+			handled = mask;
+			this.handledPartitionings.put(eventClass, handled);
+		}
+		return handled;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends PartitionableEventHandler<T>> void combine(final PartitionableEventHandler<T> handler, final Object shard) {
+		handler.combine((T) shard);
+	}
+
+	private void start() {
+		this.shards = new Shard[this.numberOfThreads];
+		for (int i = 0; i < this.numberOfThreads; i++) {
+			this.shards[i] = new Shard(i);
+		}
+		for (Shard shard : this.shards) {
+			shard.thread.start();
+		}
+	}
+
+	private void checkFailure() {
+		Throwable e = this.failure;
+		if (e != null) {
+			this.failure = null;
+			if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			}
+			if (e instanceof Error) {
+				throw (Error) e;
+			}
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * @return the id the event belongs to in the given partitioning, or <code>null</code> if it carries none
+	 */
+	static Id<?> getPartitionId(final Event event, final Partitioning partitioning) {
+		switch (partitioning) {
+		case PERSON:
+			return event instanceof HasPersonId ? ((HasPersonId) event).getPersonId() : null;
+		case LINK:
+			return event instanceof HasLinkId ? ((HasLinkId) event).getLinkId() : null;
+		case VEHICLE:
+			return getVehicleId(event);
+		default:
+			throw new IllegalArgumentException("unknown partitioning " + partitioning);
+		}
+	}
+
+	private static Id<?> getVehicleId(final Event event) {
+		if (event instanceof LinkEnterEvent) {
+			return ((LinkEnterEvent) event).getVehicleId();
+		} else if (event instanceof LinkLeaveEvent) {
+			return ((LinkLeaveEvent) event).getVehicleId();
+		} else if (event instanceof VehicleEntersTrafficEvent) {
+			return ((VehicleEntersTrafficEvent) event).getVehicleId();
+		} else if (event instanceof VehicleLeavesTrafficEvent) {
+			return ((VehicleLeavesTrafficEvent) event).getVehicleId();
+		} else if (event instanceof PersonEntersVehicleEvent) {
+			return ((PersonEntersVehicleEvent) event).getVehicleId();
+		} else if (event instanceof PersonLeavesVehicleEvent) {
+			return ((PersonLeavesVehicleEvent) event).getVehicleId();
+		} else if (event instanceof VehicleAbortsEvent) {
+			return ((VehicleAbortsEvent) event).getVehicleId();
+		} else if (event instanceof TransitDriverStartsEvent) {
+			return ((TransitDriverStartsEvent) event).getVehicleId();
+		} else if (event instanceof VehicleArrivesAtFacilityEvent) {
+			return ((VehicleArrivesAtFacilityEvent) event).getVehicleId();
+		} else if (event instanceof VehicleDepartsAtFacilityEvent) {
+			return ((VehicleDepartsAtFacilityEvent) event).getVehicleId();
+		} else if (event instanceof BoardingDeniedEvent) {
+			return ((BoardingDeniedEvent) event).getVehicleId();
+		}
+		return null;
+	}
+
+	private static final class Chunk {
+		static final Chunk END = new Chunk();
+
+		final Event[] events = new Event[EVENTS_PER_CHUNK];
+		final int[] masks = new int[EVENTS_PER_CHUNK];
+		int size = 0;
+	}
+
+	private final class Shard implements Runnable {
+		final Thread thread;
+		final List<Object> handlerShards = new ArrayList<>();
+		final EventsManager[][] managers = new EventsManager[PARTITIONINGS.length][];
+		final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(CHUNKS_IN_FLIGHT);
+		Chunk chunk = new Chunk();
+
+		Shard(final int index) {
+			List<List<EventsManager>> managers = new ArrayList<>();
+			for (int p = 0; p < PARTITIONINGS.length; p++) {
+				managers.add(new ArrayList<EventsManager>());
+			}
+			for (PartitionableEventHandler<?> handler : ShardedEventsProcessor.this.handlers) {
+				PartitionableEventHandler<?> handlerShard = handler.createShard();
+				this.handlerShards.add(handlerShard);
+				managers.get(handler.getPartitioning().ordinal()).add(new SingleHandlerEventsManager(handlerShard));
+			}
+			for (int p = 0; p < PARTITIONINGS.length; p++) {
+				this.managers[p] = managers.get(p).toArray(new EventsManager[0]);
+			}
+			this.thread = new Thread(this, "ShardedEventsProcessor." + index);
+			this.thread.setDaemon(true);
+		}
+
+		void add(final Event event, final int mask) {
+			Chunk chunk = this.chunk;
+			chunk.events[chunk.size] = event;
+			chunk.masks[chunk.size] = mask;
+			chunk.size++;
+			if (chunk.size == EVENTS_PER_CHUNK) {
+				put(chunk);
+				this.chunk = new Chunk();
+			}
+		}
+
+		void flush() {
+			if (this.chunk.size > 0) {
+				put(this.chunk);
+			}
+			this.chunk = null;
+		}
+
+		void put(final Chunk chunk) {
+			try {
+				this.queue.put(chunk);
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			boolean failed = false;
+			while (true) {
+				Chunk chunk;
+				try {
+					chunk = this.queue.take();
+				} catch (InterruptedException e) {
+					ShardedEventsProcessor.this.failure = e;
+					return;
+				}
+				if (chunk == Chunk.END) {
+					return;
+				}
+				if (failed) {
+					// keep taking chunks, so the feeding thread does not block before it notices the failure
+					continue;
+				}
+				try {
+					process(chunk);
+				} catch (Throwable e) {
+					log.error("processing events in " + this.thread.getName() + " failed.", e);
+					if (ShardedEventsProcessor.this.failure == null) {
+						ShardedEventsProcessor.this.failure = e;
+					}
+					failed = true;
+				}
+			}
+		}
+
+		private void process(final Chunk chunk) {
+			for (int i = 0; i < chunk.size; i++) {
+				Event event = chunk.events[i];
+				int mask = chunk.masks[i];
+				for (int p = 0; p < PARTITIONINGS.length; p++) {
+					if ((mask & (1 << p)) != 0) {
+						for (EventsManager manager : this.managers[p]) {
+							manager.processEvent(event);
+						}
+					}
+				}
+			}
+		}
+	}
+
+}
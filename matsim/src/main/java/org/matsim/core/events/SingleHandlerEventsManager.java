@@ -249,6 +249,14 @@ public final class SingleHandlerEventsManager implements EventsManager {
 		// nothing to do in this implementation
 	}
 
+	/**
+	 * @return whether the handler has a <code>handleEvent</code> method for events of the given class, i.e. whether
+	 * {@link #processEvent(Event)} passes them on
+	 */
+	public boolean handles(final Class<? extends Event> eventClass) {
+		return getHandlersForClass(eventClass) != null;
+	}
+
 	public EventHandler getEventHandler() {
 		return this.eventHandler;
 	}
@@ -0,0 +1,53 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PartitionableEventHandler.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events.handler;
+
+/**
+ * An event handler whose state splits into independent parts per person, vehicle or link, so that
+ * it can be run on several threads, see {@link org.matsim.core.events.ShardedEventsProcessor}.
+ * <p></p>
+ * Every thread gets its own shard of the handler created by {@link #createShard()} and only sees
+ * the events of its persons, vehicles or links, in their original order. Events that carry no id of
+ * the partitioning, e.g. a {@link org.matsim.api.core.v01.events.LinkEnterEvent} for a handler
+ * partitioned by person, are passed to every shard, so that a shard can keep lookups it needs,
+ * but must not account for them as if they were its own. At the end, every shard is passed to
+ * {@link #combine(PartitionableEventHandler)} of the original handler.
+ *
+ * @param <T> the type of the shards, usually the implementing class itself
+ */
+public interface PartitionableEventHandler<T extends PartitionableEventHandler<T>> extends EventHandler {
+
+	enum Partitioning { PERSON, VEHICLE, LINK }
+
+	Partitioning getPartitioning();
+
+	/**
+	 * @return a new, empty handler with the same settings as this one
+	 */
+	T createShard();
+
+	/**
+	 * Adds the results of a shard to this handler. Called once per shard after all events were
+	 * processed, always from the same thread.
+	 */
+	void combine(T shard);
+
+}
@@ -58,6 +58,9 @@ public abstract class MatsimRandom {
 	private static final Random random = new Random(DEFAULT_RANDOM_SEED);
 //	private static final Random random = new InstrumentedRandom(DEFAULT_RANDOM_SEED);
 
+	/** random number generators bound to single threads, see {@link #setThreadRandom(Random)} */
+	private static final ThreadLocal<Random> threadRandom = new ThreadLocal<>();
+
 	/** Resets the random number generator with a default random seed. */
 	public static void reset() {
 		reset(DEFAULT_RANDOM_SEED);
@@ -70,11 +73,31 @@ public abstract class MatsimRandom {
 	public static void reset(final long seed) {
 		lastUsedSeed = seed;
 		internalCounter = 0;
-		getRandom().setSeed(seed);
+		random.setSeed(seed);
 //		prepareRNG(random);
 	}
+	/**
+	 * @return the random number generator bound to the calling thread by {@link #setThreadRandom(Random)}, or the
+	 * global one if there is none.
+	 */
 	public static Random getRandom() {
-		return random;
+		Random r = threadRandom.get();
+		return r == null ? random : r;
+	}
+
+	/**
+	 * Binds a random number generator to the calling thread, so that {@link #getRandom()} returns it instead of the
+	 * global one when called from this thread.  This allows to run code drawing from {@link #getRandom()}, e.g. plan
+	 * selectors, in several threads and still get deterministic results.
+	 *
+	 * @param rng the random number generator to use on this thread, <code>null</code> to use the global one again
+	 */
+	public static void setThreadRandom(final Random rng) {
+		if (rng == null) {
+			threadRandom.remove();
+		} else {
+			threadRandom.set(rng);
+		}
 	}
 
 	/** Returns an instance of a random number generator, which can be used
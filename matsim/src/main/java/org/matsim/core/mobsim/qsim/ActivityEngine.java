@@ -19,8 +19,11 @@
 
 package org.matsim.core.mobsim.qsim;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.PriorityBlockingQueue;
 
@@ -76,7 +79,16 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	 * This list needs to be a "blocking" queue since this is needed for
 	 * thread-safety in the parallel qsim. cdobler, oct'10
 	 */
-	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, new Comparator<AgentEntry>() {
+	private final Queue<AgentEntry> activityEndsList = new PriorityBlockingQueue<>(500, AGENT_ENTRY_COMPARATOR);
+
+	/**
+	 * Agents starting their first ("overnight") activity are only collected here, and added to the activityEndsList
+	 * in one pass before they are needed, see {@link #flushInitialActivityEnds()}.  Adding them one by one to the
+	 * priority queue is rather slow for large populations.
+	 */
+	private List<AgentEntry> initialActivityEnds = new ArrayList<>();
+
+	private static final Comparator<AgentEntry> AGENT_ENTRY_COMPARATOR = new Comparator<AgentEntry>() {
 
 		@Override
 		public int compare(AgentEntry arg0, AgentEntry arg1) {
@@ -96,7 +108,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 			return cmp;
 		}
 
-	});
+	};
 	
 	// See handleActivity for the reason for this.
 	private boolean beforeFirstSimStep = true;
@@ -109,6 +121,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	@Override
 	public void doSimStep(double time) {
 		beforeFirstSimStep = false;
+		flushInitialActivityEnds();
 		while (activityEndsList.peek() != null) {
 			if (activityEndsList.peek().activityEndTime <= time) {
 				MobsimAgent agent = activityEndsList.poll().agent;
@@ -124,6 +137,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	@Override
 	public void afterSim() {
 		double now = this.internalInterface.getMobsim().getSimTimer().getTimeOfDay();
+		flushInitialActivityEnds();
 		for (AgentEntry entry : activityEndsList) {
 			if (entry.activityEndTime!=Double.POSITIVE_INFINITY && entry.activityEndTime!=Time.UNDEFINED_TIME) {
 				// since we are at an activity, it is not plausible to assume that the agents know mode or destination
@@ -164,7 +178,11 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 		} else {
 			// The agent commences an activity on this link.
 			final AgentEntry agentEntry = new AgentEntry(agent, agent.getActivityEndTime());
-			activityEndsList.add(agentEntry);
+			if (beforeFirstSimStep) {
+				initialActivityEnds.add(agentEntry);
+			} else {
+				activityEndsList.add(agentEntry);
+			}
 			internalInterface.registerAdditionalAgentOnLink(agent);
 		}
 		// Why beforeFirstSimStep matters:
@@ -225,6 +243,7 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 	}
 
 	private AgentEntry removeAgentFromQueue(MobsimAgent agent) {
+		flushInitialActivityEnds();
 		Iterator<AgentEntry> iterator = activityEndsList.iterator();
 		while (iterator.hasNext()) {
 			AgentEntry entry = iterator.next();
@@ -236,6 +255,23 @@ public class ActivityEngine implements MobsimEngine, ActivityHandler {
 		return null;
 	}
 
+	/**
+	 * Sorts the collected entries (in parallel for large populations) and adds them to the activityEndsList in that
+	 * order.  Adding entries in sorted order to the heap-based queue needs no reordering, so this is linear after the sort.
+	 * Since the comparator also compares the agent ids, the resulting order is the same as when adding the entries one by one.
+	 */
+	private void flushInitialActivityEnds() {
+		if (initialActivityEnds.isEmpty()) {
+			return;
+		}
+		AgentEntry[] entries = initialActivityEnds.toArray(new AgentEntry[initialActivityEnds.size()]);
+		initialActivityEnds = new ArrayList<>();
+		Arrays.parallelSort(entries, AGENT_ENTRY_COMPARATOR);
+		for (AgentEntry entry : entries) {
+			activityEndsList.add(entry);
+		}
+	}
+
 	private void unregisterAgentAtActivityLocation(final MobsimAgent agent) {
 		Id<Person> agentId = agent.getId();
 		Id<Link> linkId = agent.getCurrentLinkId();
@@ -6,6 +6,7 @@ import java.util.Collections;
 import org.matsim.core.config.Config;
 import org.matsim.core.mobsim.framework.AgentSource;
 import org.matsim.core.mobsim.qsim.agents.AgentFactory;
+import org.matsim.core.mobsim.qsim.agents.CompactAgentFactory;
 import org.matsim.core.mobsim.qsim.agents.DefaultAgentFactory;
 import org.matsim.core.mobsim.qsim.agents.PopulationAgentSource;
 import org.matsim.core.mobsim.qsim.agents.TransitAgentFactory;
@@ -26,6 +27,8 @@ public class PopulationPlugin extends AbstractQSimPlugin {
 				bind(PopulationAgentSource.class).asEagerSingleton();
 				if (getConfig().transit().isUseTransit()) {
 					bind(AgentFactory.class).to(TransitAgentFactory.class).asEagerSingleton();
+				} else if (getConfig().qsim().isUsingCompactAgents()) {
+					bind(AgentFactory.class).to(CompactAgentFactory.class).asEagerSingleton();
 				} else {
 					bind(AgentFactory.class).to(DefaultAgentFactory.class).asEagerSingleton();
 				}
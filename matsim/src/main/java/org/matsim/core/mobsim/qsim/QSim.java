@@ -127,9 +127,19 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	private long startTime = 0;
 	private long qSimInternalTime = 0;
 	private final Map<MobsimEngine, AtomicLong> mobsimEngineRunTimes;
+	private final Map<MobsimEngine, String> mobsimEngineNames;
+	private final QSimRunTimeStatistics runTimeStatistics;
+	private String runTimeStatisticsFilename = null;
 	{
-		if (analyzeRunTimes) this.mobsimEngineRunTimes = new HashMap<>();
-		else this.mobsimEngineRunTimes = null;
+		if (analyzeRunTimes) {
+			this.mobsimEngineRunTimes = new HashMap<>();
+			this.mobsimEngineNames = new HashMap<>();
+			this.runTimeStatistics = new QSimRunTimeStatistics();
+		} else {
+			this.mobsimEngineRunTimes = null;
+			this.mobsimEngineNames = null;
+			this.runTimeStatistics = null;
+		}
 	}
 
 	/*package (for tests)*/ final InternalInterface internalInterface = new InternalInterface() {
@@ -252,6 +262,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 	 * Prepare the simulation and get all the settings from the configuration.
 	 */
 	/*package*/ void prepareSim() {
+		if (analyzeRunTimes) events.addHandler(this.runTimeStatistics.getEventCounter());
 		events.initProcessing();
 
 		createAgents();
@@ -318,6 +329,10 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		if (gotException) throw new RuntimeException( "got exception while cleaning up the QSim. Please check the error messages above for details.");
 		events.finishProcessing();
 		if (analyzeRunTimes) {
+			events.removeHandler(this.runTimeStatistics.getEventCounter());
+			if (this.runTimeStatisticsFilename != null) {
+				this.runTimeStatistics.writeCsv(this.runTimeStatisticsFilename);
+			}
 			log.info("qsim internal cpu time (nanos): " + qSimInternalTime);
 			for (Entry<MobsimEngine, AtomicLong> entry : this.mobsimEngineRunTimes.entrySet()) {
 				log.info(entry.getKey().getClass().toString() + " cpu time (nanos): " + entry.getValue().get());				
@@ -342,7 +357,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 		this.listenerManager.fireQueueSimulationBeforeSimStepEvent(now);
 		
-		if (analyzeRunTimes) this.qSimInternalTime += System.nanoTime() - this.startTime;
+		if (analyzeRunTimes) addInternalTime(now, System.nanoTime() - this.startTime);
 		
 		/*
 		 * The WithinDayEngine has to perform its replannings before
@@ -351,7 +366,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		if (this.withindayEngine != null) {
 			if (analyzeRunTimes) startTime = System.nanoTime();
 			this.withindayEngine.doSimStep(now);
-			if (analyzeRunTimes) this.mobsimEngineRunTimes.get(this.withindayEngine).addAndGet(System.nanoTime() - this.startTime);
+			if (analyzeRunTimes) addEngineTime(this.withindayEngine, now, System.nanoTime() - this.startTime);
 		}
 
 		// "added" engines
@@ -363,7 +378,7 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 
 			mobsimEngine.doSimStep(now);
 			
-			if (analyzeRunTimes) this.mobsimEngineRunTimes.get(mobsimEngine).addAndGet(System.nanoTime() - this.startTime);
+			if (analyzeRunTimes) addEngineTime(mobsimEngine, now, System.nanoTime() - this.startTime);
 		}
 
 		if (analyzeRunTimes) this.startTime = System.nanoTime();
@@ -387,11 +402,41 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 			this.simTimer.incrementTime();
 		}
 		
-		if (analyzeRunTimes) this.qSimInternalTime += System.nanoTime() - this.startTime;
+		if (analyzeRunTimes) {
+			addInternalTime(now, System.nanoTime() - this.startTime);
+			this.runTimeStatistics.setLivingAgents(now, this.agentCounter.getLiving());
+			if (this.netEngine instanceof QNetsimEngine) {
+				((QNetsimEngine) this.netEngine).collectRunTimeStatistics(this.runTimeStatistics, now);
+			}
+		}
 
 		return doContinue;
 	}
 
+	private void addInternalTime(final double now, final long nanos) {
+		this.qSimInternalTime += nanos;
+		this.runTimeStatistics.addInternalTime(now, nanos);
+	}
+
+	private void addEngineTime(final MobsimEngine mobsimEngine, final double now, final long nanos) {
+		this.mobsimEngineRunTimes.get(mobsimEngine).addAndGet(nanos);
+		this.runTimeStatistics.addEngineTime(this.mobsimEngineNames.get(mobsimEngine), now, nanos);
+	}
+
+	/**
+	 * @return the run time statistics collected per simulated hour, or <code>null</code> if {@link #analyzeRunTimes} is not set.
+	 */
+	public QSimRunTimeStatistics getRunTimeStatistics() {
+		return this.runTimeStatistics;
+	}
+
+	/**
+	 * Sets the file the run time statistics are written to after the simulation, if {@link #analyzeRunTimes} is set.
+	 */
+	public void setRunTimeStatisticsFilename(final String filename) {
+		this.runTimeStatisticsFilename = filename;
+	}
+
 	public void insertAgentIntoMobsim(final MobsimAgent agent) {
 		if (this.agents.containsKey(agent.getId())) {
 			throw new RuntimeException("Agent with same Id (" + agent.getId().toString() + ") already in mobsim; aborting ... ") ;
@@ -571,7 +616,10 @@ public final class QSim extends Thread implements VisMobsim, Netsim, ActivityEnd
 		mobsimEngine.setInternalInterface(this.internalInterface);
 		this.mobsimEngines.add(mobsimEngine);
 		
-		if (analyzeRunTimes) this.mobsimEngineRunTimes.put(mobsimEngine, new AtomicLong());
+		if (analyzeRunTimes) {
+			this.mobsimEngineRunTimes.put(mobsimEngine, new AtomicLong());
+			this.mobsimEngineNames.put(mobsimEngine, this.runTimeStatistics.registerEngine(mobsimEngine.getClass().getSimpleName()));
+		}
 	}
 
 	@Override
@@ -27,14 +27,17 @@ import java.util.Collection;
 import javax.inject.Inject;
 
 import org.apache.log4j.Logger;
+import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.mobsim.framework.AgentSource;
 import org.matsim.core.mobsim.framework.listeners.MobsimListener;
 import org.matsim.core.mobsim.qsim.interfaces.ActivityHandler;
 import org.matsim.core.mobsim.qsim.interfaces.DepartureHandler;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.Netsim;
+import org.matsim.core.replanning.ReplanningContext;
 
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.Provider;
 
@@ -91,6 +94,11 @@ public class QSimProvider implements Provider<QSim> {
 				qSim.addAgentSource(qSimLocalInjector.getInstance(agentSource));
 			}
 		}
+        if (QSim.analyzeRunTimes && injector.getExistingBinding(Key.get(OutputDirectoryHierarchy.class)) != null
+        		&& injector.getExistingBinding(Key.get(ReplanningContext.class)) != null) {
+        	int iteration = injector.getInstance(ReplanningContext.class).getIteration();
+        	qSim.setRunTimeStatisticsFilename(injector.getInstance(OutputDirectoryHierarchy.class).getIterationFilename(iteration, "qsimRunTimes.csv"));
+        }
         return qSim;
     }
 
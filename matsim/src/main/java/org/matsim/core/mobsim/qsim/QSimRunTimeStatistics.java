@@ -0,0 +1,229 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * QSimRunTimeStatistics.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.core.utils.io.UncheckedIOException;
+
+/**
+ * Collects run time statistics of the {@link QSim}, aggregated per simulated hour. This is filled when
+ * {@link QSim#analyzeRunTimes} is switched on, and contains:
+ * <ul>
+ * <li>the time spent in each {@link org.matsim.core.mobsim.qsim.interfaces.MobsimEngine} and in the QSim itself (listeners, bookkeeping),</li>
+ * <li>the number of events and the number of living agents at the end of each hour,</li>
+ * <li>for each runner (thread) of the QNetsimEngine, the number of nodes and links moved and the time spent waiting at the barriers.</li>
+ * </ul>
+ * The statistics can be written as CSV file, see {@link #writeCsv(String)}.
+ */
+public final class QSimRunTimeStatistics {
+
+	private static final String SEP = ";";
+	private static final int SECONDS_PER_BIN = 3600;
+
+	private final Map<String, LongArray> engineTimes = new LinkedHashMap<>();
+	private final LongArray internalTimes = new LongArray();
+	private final LongArray livingAgents = new LongArray();
+	private final List<RunnerStatistics> runners = new ArrayList<>();
+	private final EventCounter eventCounter = new EventCounter();
+
+	/*package*/ QSimRunTimeStatistics() {
+	}
+
+	/**
+	 * Registers an engine under the given name. Engines must be registered before the simulation starts,
+	 * so that the columns of the output are known.
+	 */
+	/*package*/ String registerEngine(final String name) {
+		String uniqueName = name.isEmpty() ? "anonymousEngine" : name;
+		int cnt = 1;
+		while (this.engineTimes.containsKey(uniqueName)) {
+			cnt++;
+			uniqueName = (name.isEmpty() ? "anonymousEngine" : name) + "_" + cnt;
+		}
+		this.engineTimes.put(uniqueName, new LongArray());
+		return uniqueName;
+	}
+
+	/*package*/ void addEngineTime(final String engineName, final double now, final long nanos) {
+		this.engineTimes.get(engineName).add(getBin(now), nanos);
+	}
+
+	/*package*/ void addInternalTime(final double now, final long nanos) {
+		this.internalTimes.add(getBin(now), nanos);
+	}
+
+	/*package*/ void setLivingAgents(final double now, final long living) {
+		this.livingAgents.set(getBin(now), living);
+	}
+
+	/*package*/ BasicEventHandler getEventCounter() {
+		return this.eventCounter;
+	}
+
+	/**
+	 * Adds the work done by one runner of the network engine in the given time step.
+	 *
+	 * @param runnerIndex the index of the runner, i.e. thread
+	 * @param movedNodes the number of nodes moved
+	 * @param movedLinks the number of links moved
+	 * @param waitNanos the time the runner spent waiting for the other runners at the barriers
+	 */
+	public void addNetsimRunnerStatistics(final int runnerIndex, final double now, final long movedNodes, final long movedLinks, final long waitNanos) {
+		while (this.runners.size() <= runnerIndex) {
+			this.runners.add(new RunnerStatistics());
+		}
+		RunnerStatistics runner = this.runners.get(runnerIndex);
+		int bin = getBin(now);
+		runner.nodes.add(bin, movedNodes);
+		runner.links.add(bin, movedLinks);
+		runner.waitTimes.add(bin, waitNanos);
+	}
+
+	public long getEngineTime(final String engineName, final int hour) {
+		LongArray times = this.engineTimes.get(engineName);
+		return times == null ? 0 : times.get(hour);
+	}
+
+	public long getEventCount(final int hour) {
+		return this.eventCounter.counts.get(hour);
+	}
+
+	public int getNumberOfHours() {
+		int hours = Math.max(this.internalTimes.size(), this.livingAgents.size());
+		hours = Math.max(hours, this.eventCounter.counts.size());
+		for (LongArray times : this.engineTimes.values()) {
+			hours = Math.max(hours, times.size());
+		}
+		for (RunnerStatistics runner : this.runners) {
+			hours = Math.max(hours, runner.nodes.size());
+		}
+		return hours;
+	}
+
+	/**
+	 * Writes the statistics with one line per simulated hour. Times are given in milliseconds.
+	 */
+	public void writeCsv(final String filename) {
+		try (BufferedWriter writer = IOUtils.getBufferedWriter(filename)) {
+			writer.write("hour" + SEP + "qsim_ms");
+			for (String engineName : this.engineTimes.keySet()) {
+				writer.write(SEP + engineName + "_ms");
+			}
+			writer.write(SEP + "events" + SEP + "livingAgents");
+			for (int i = 0; i < this.runners.size(); i++) {
+				writer.write(SEP + "runner" + i + "_nodes" + SEP + "runner" + i + "_links" + SEP + "runner" + i + "_wait_ms");
+			}
+			writer.newLine();
+
+			int hours = getNumberOfHours();
+			for (int hour = 0; hour < hours; hour++) {
+				writer.write(Integer.toString(hour));
+				writer.write(SEP + toMillis(this.internalTimes.get(hour)));
+				for (LongArray times : this.engineTimes.values()) {
+					writer.write(SEP + toMillis(times.get(hour)));
+				}
+				writer.write(SEP + this.eventCounter.counts.get(hour));
+				writer.write(SEP + this.livingAgents.get(hour));
+				for (RunnerStatistics runner : this.runners) {
+					writer.write(SEP + runner.nodes.get(hour));
+					writer.write(SEP + runner.links.get(hour));
+					writer.write(SEP + toMillis(runner.waitTimes.get(hour)));
+				}
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static int getBin(final double time) {
+		return Math.max(0, (int) (time / SECONDS_PER_BIN));
+	}
+
+	private static long toMillis(final long nanos) {
+		return nanos / 1000000;
+	}
+
+	private static final class RunnerStatistics {
+		final LongArray nodes = new LongArray();
+		final LongArray links = new LongArray();
+		final LongArray waitTimes = new LongArray();
+	}
+
+	/**
+	 * Counts the events per hour by their time stamp. Event handlers are called sequentially by all
+	 * events manager implementations, so no synchronization is needed here.
+	 */
+	private static final class EventCounter implements BasicEventHandler {
+		final LongArray counts = new LongArray();
+
+		@Override
+		public void handleEvent(final Event event) {
+			this.counts.add(getBin(event.getTime()), 1);
+		}
+	}
+
+	/**
+	 * A growable array of longs, indexed by hour.
+	 */
+	private static final class LongArray {
+		private long[] values = new long[30];
+		private int size = 0;
+
+		void add(final int index, final long value) {
+			ensureCapacity(index);
+			this.values[index] += value;
+		}
+
+		void set(final int index, final long value) {
+			ensureCapacity(index);
+			this.values[index] = value;
+		}
+
+		long get(final int index) {
+			return index < this.size ? this.values[index] : 0;
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		private void ensureCapacity(final int index) {
+			if (index >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, Math.max(index + 1, this.values.length * 2));
+			}
+			if (index >= this.size) {
+				this.size = index + 1;
+			}
+		}
+	}
+
+}
@@ -38,31 +38,39 @@ public class ActivityDurationUtils {
 	 */
 	
 	public static double calculateDepartureTime(Activity act, double now, PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation) {
-		if ( act.getMaximumDuration() == Time.UNDEFINED_TIME && (act.getEndTime() == Time.UNDEFINED_TIME)) {
+		return calculateDepartureTime(act.getEndTime(), act.getMaximumDuration(), now, activityDurationInterpretation);
+	}
+
+	/**
+	 * Same as {@link #calculateDepartureTime(Activity, double, ActivityDurationInterpretation)}, but for callers that
+	 * store the end time and maximum duration of the activity without an Activity object.
+	 */
+	public static double calculateDepartureTime(double endTime, double maxDuration, double now, PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation) {
+		if ( maxDuration == Time.UNDEFINED_TIME && (endTime == Time.UNDEFINED_TIME)) {
 			return Double.POSITIVE_INFINITY ;
 		} else {
 			double departure = 0;
 			if (activityDurationInterpretation.equals(PlansConfigGroup.ActivityDurationInterpretation.minOfDurationAndEndTime)) {
 				// person stays at the activity either until its duration is over or until its end time, whatever comes first
-				if (act.getMaximumDuration() == Time.UNDEFINED_TIME) {
-					departure = act.getEndTime();
-				} else if (act.getEndTime() == Time.UNDEFINED_TIME) {
-					departure = now + act.getMaximumDuration();
+				if (maxDuration == Time.UNDEFINED_TIME) {
+					departure = endTime;
+				} else if (endTime == Time.UNDEFINED_TIME) {
+					departure = now + maxDuration;
 				} else {
-					departure = Math.min(act.getEndTime(), now + act.getMaximumDuration());
+					departure = Math.min(endTime, now + maxDuration);
 				}
 			} else if (activityDurationInterpretation.equals(PlansConfigGroup.ActivityDurationInterpretation.endTimeOnly )) {
-				if (act.getEndTime() != Time.UNDEFINED_TIME) {
-					departure = act.getEndTime();
+				if (endTime != Time.UNDEFINED_TIME) {
+					departure = endTime;
 				} else {
 					throw new IllegalStateException("activity end time not set and using something else not allowed.");
 				}
 			} else if (activityDurationInterpretation.equals(PlansConfigGroup.ActivityDurationInterpretation.tryEndTimeThenDuration )) {
 				// In fact, as of now I think that _this_ should be the default behavior.  kai, aug'10
-				if ( act.getEndTime() != Time.UNDEFINED_TIME ) {
-					departure = act.getEndTime();
-				} else if ( act.getMaximumDuration() != Time.UNDEFINED_TIME ) {
-					departure = now + act.getMaximumDuration() ;
+				if ( endTime != Time.UNDEFINED_TIME ) {
+					departure = endTime;
+				} else if ( maxDuration != Time.UNDEFINED_TIME ) {
+					departure = now + maxDuration ;
 				} else {
 					throw new IllegalStateException("neither activity end time nor activity duration defined; don't know what to do.");
 				}
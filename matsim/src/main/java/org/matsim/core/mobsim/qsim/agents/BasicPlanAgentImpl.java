@@ -80,6 +80,20 @@ public final class BasicPlanAgentImpl implements MobsimAgent, PlanAgent, HasPers
 		}
 }
 	
+	/**
+	 * Sets the internal state of this agent, for agents that were simulated by some other (compact) representation
+	 * up to now, see {@link CompactPersonDriverAgentImpl}.
+	 */
+	/* package */ final void restoreState(final int planElementIndex, final int linkIndex, final MobsimAgent.State state1,
+			final double activityEndTime1, final Id<Link> currentLinkId1, final MobsimVehicle vehicle1) {
+		this.currentPlanElementIndex = planElementIndex;
+		this.currentLinkIndex = linkIndex;
+		this.state = state1;
+		this.activityEndTime = activityEndTime1;
+		this.currentLinkId = currentLinkId1;
+		this.vehicle = vehicle1;
+	}
+
 	@Override
 	public final void endLegAndComputeNextState(final double now) {
 		this.getEvents().processEvent(new PersonArrivalEvent( now, this.getId(), this.getDestinationLinkId(), getCurrentLeg().getMode()));
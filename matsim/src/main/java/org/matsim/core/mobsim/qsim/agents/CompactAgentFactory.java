@@ -0,0 +1,71 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactAgentFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.agents;
+
+import java.util.Collection;
+
+import javax.inject.Inject;
+
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.qsim.interfaces.Netsim;
+
+/**
+ * Creates {@link CompactPersonDriverAgentImpl}s. The selected plans of the whole population are converted
+ * into one {@link FlatPlanStore} by {@link PopulationAgentSource} before it creates the agents; persons that are not
+ * part of the population of the scenario get a regular {@link PersonDriverAgentImpl}.
+ *
+ * @see org.matsim.core.config.groups.QSimConfigGroup#isUsingCompactAgents()
+ */
+public final class CompactAgentFactory implements AgentFactory {
+
+	private final Netsim simulation;
+	private FlatPlanStore store = null;
+
+	@Inject
+	public CompactAgentFactory(final Netsim simulation) {
+		this.simulation = simulation;
+	}
+
+	@Override
+	public MobsimAgent createMobsimAgentFromPerson(final Person p) {
+		FlatPlanStore flatPlanStore = this.store;
+		if (flatPlanStore == null) {
+			throw new IllegalStateException("The plans of the population were not stored yet, onPrepareSim() has to be called before creating agents.");
+		}
+		int agentIndex = flatPlanStore.getAgentIndex(p);
+		if (agentIndex < 0) {
+			return new PersonDriverAgentImpl(p.getSelectedPlan(), this.simulation);
+		}
+		return new CompactPersonDriverAgentImpl(flatPlanStore, agentIndex);
+	}
+
+	/**
+	 * Stores the selected plans of the population. Called once before the agents are created, which may then be
+	 * done in parallel without any locking, see QSimConfigGroup#isUsingParallelAgentCreation().
+	 */
+	/*package*/ void onPrepareSim() {
+		Collection<? extends Person> persons = this.simulation.getScenario().getPopulation().getPersons().values();
+		this.store = new FlatPlanStore(persons, persons.size(), this.simulation.getScenario(),
+				this.simulation.getEventsManager(), this.simulation.getSimTimer());
+	}
+
+}
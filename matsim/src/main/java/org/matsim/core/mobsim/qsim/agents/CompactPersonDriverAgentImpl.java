@@ -0,0 +1,483 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPersonDriverAgentImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.agents;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.ActivityEndEvent;
+import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.gbl.Gbl;
+import org.matsim.core.mobsim.framework.HasPerson;
+import org.matsim.core.mobsim.framework.MobsimAgent;
+import org.matsim.core.mobsim.framework.MobsimDriverAgent;
+import org.matsim.core.mobsim.framework.MobsimPassengerAgent;
+import org.matsim.core.mobsim.framework.PlanAgent;
+import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.router.ActivityWrapperFacility;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.facilities.Facility;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A memory-saving alternative to {@link PersonDriverAgentImpl}. Instead of wrapping (and, at the first
+ * activity start, copying) the selected plan, the agent only keeps an index into a {@link FlatPlanStore}
+ * and its position in the plan.
+ * <p></p>
+ * As soon as the modifiable plan is requested (i.e. by within-day replanning), the agent creates a
+ * copy of its plan and from then on behaves exactly like a {@link PersonDriverAgentImpl}, by delegating to
+ * the same delegates.
+ * <p></p>
+ * The behavior is the same as the one of {@link BasicPlanAgentImpl} and {@link PlanBasedDriverAgentImpl};
+ * if you change something there, please check if it needs to be changed here as well.
+ */
+public final class CompactPersonDriverAgentImpl implements MobsimDriverAgent, MobsimPassengerAgent, HasPerson, PlanAgent, HasModifiablePlan {
+
+	private static final Logger log = Logger.getLogger(CompactPersonDriverAgentImpl.class);
+	private static int finalActHasDpTimeWrnCnt = 0;
+	private static int noRouteWrnCnt = 0;
+	private static int expectedLinkWarnCount = 0;
+
+	private final FlatPlanStore store;
+	private final int agentIndex;
+	private final int numberOfElements;
+
+	private int currentPlanElementIndex = 0;
+	private int currentLinkIndex = 0;
+	private MobsimAgent.State state = MobsimAgent.State.ABORT;
+	private double activityEndTime = Time.UNDEFINED_TIME;
+	private Id<Link> currentLinkId = null;
+	private Id<Link> cachedNextLinkId = null;
+	private MobsimVehicle vehicle = null;
+
+	/** only set once a modifiable plan was requested; the agent delegates everything to them from then on. */
+	private BasicPlanAgentImpl basicAgentDelegate = null;
+	private PlanBasedDriverAgentImpl driverAgentDelegate = null;
+
+	public CompactPersonDriverAgentImpl(final FlatPlanStore store, final int agentIndex) {
+		this.store = store;
+		this.agentIndex = agentIndex;
+		this.numberOfElements = store.getNumberOfElements(agentIndex);
+		if (this.numberOfElements > 0) {
+			int element = store.getElement(agentIndex, 0);
+			Id<Link> linkId = store.getLinkId(element);
+			Gbl.assertIf(linkId != null);
+			this.currentLinkId = linkId;
+			this.state = MobsimAgent.State.ACTIVITY;
+			calculateAndSetDepartureTime();
+		}
+	}
+
+	private boolean isMaterialized() {
+		return this.basicAgentDelegate != null;
+	}
+
+	private int currentElement() {
+		return this.store.getElement(this.agentIndex, this.currentPlanElementIndex);
+	}
+
+	private boolean isOnLeg() {
+		return this.store.getKind(currentElement()) != FlatPlanStore.ACTIVITY;
+	}
+
+	// ============================================================================================================================
+	// state changes
+
+	@Override
+	public void endActivityAndComputeNextState(final double now) {
+		if (isMaterialized()) {
+			this.basicAgentDelegate.endActivityAndComputeNextState(now);
+			return;
+		}
+		int element = currentElement();
+		this.store.getEvents().processEvent(new ActivityEndEvent(now, getId(), this.currentLinkId,
+				this.store.getFacilityId(element), this.store.getActivityTypeOrMode(element)));
+		advancePlan(now);
+	}
+
+	@Override
+	public void endLegAndComputeNextState(final double now) {
+		if (isMaterialized()) {
+			this.basicAgentDelegate.endLegAndComputeNextState(now);
+			return;
+		}
+		Id<Link> destinationLinkId = getDestinationLinkId();
+		this.store.getEvents().processEvent(new PersonArrivalEvent(now, getId(), destinationLinkId, getMode()));
+		if ((!(this.currentLinkId == null && destinationLinkId == null)) && !this.currentLinkId.equals(destinationLinkId)) {
+			log.error("The agent " + getId() + " has destination link " + destinationLinkId
+					+ ", but arrived on link " + this.currentLinkId + ". Setting agent state to ABORT.");
+			this.state = MobsimAgent.State.ABORT;
+		} else {
+			advancePlan(now);
+		}
+		this.currentLinkIndex = 0;
+	}
+
+	@Override
+	public void setStateToAbort(final double now) {
+		if (isMaterialized()) {
+			this.basicAgentDelegate.setStateToAbort(now);
+			return;
+		}
+		this.state = MobsimAgent.State.ABORT;
+	}
+
+	@Override
+	public void notifyArrivalOnLinkByNonNetworkMode(final Id<Link> linkId) {
+		if (isMaterialized()) {
+			this.basicAgentDelegate.notifyArrivalOnLinkByNonNetworkMode(linkId);
+			return;
+		}
+		Gbl.assertNotNull(linkId);
+		this.currentLinkId = linkId;
+	}
+
+	private void advancePlan(final double now) {
+		this.currentPlanElementIndex++;
+		if (this.currentPlanElementIndex >= this.numberOfElements) {
+			log.error("plan of agent with id = " + getId() + " has run empty.  Setting agent state to ABORT (but continuing the mobsim).");
+			this.state = MobsimAgent.State.ABORT;
+			return;
+		}
+		int element = currentElement();
+		byte kind = this.store.getKind(element);
+		if (kind == FlatPlanStore.ACTIVITY) {
+			this.state = MobsimAgent.State.ACTIVITY;
+			this.store.getEvents().processEvent(new ActivityStartEvent(now, getId(), this.currentLinkId,
+					this.store.getFacilityId(element), this.store.getActivityTypeOrMode(element)));
+			calculateAndSetDepartureTime();
+			this.store.setActivityStartTime(element, now);
+		} else {
+			this.state = MobsimAgent.State.LEG;
+			this.currentLinkIndex = 0;
+			if (kind == FlatPlanStore.LEG_WITHOUT_ROUTE) {
+				log.error("The agent " + getId() + " has no route in its leg.  Setting agent state to ABORT.");
+				if (noRouteWrnCnt < 1) {
+					log.info("(Route is needed inside Leg even if you want teleportation since Route carries the start/endLinkId info.)");
+					noRouteWrnCnt++;
+				}
+				this.state = MobsimAgent.State.ABORT;
+			}
+		}
+	}
+
+	private void calculateAndSetDepartureTime() {
+		double now = this.store.getSimTimer().getTimeOfDay();
+		double departure = this.store.calculateDepartureTime(currentElement(), now);
+		if (this.currentPlanElementIndex == this.numberOfElements - 1) {
+			if (finalActHasDpTimeWrnCnt < 1 && departure != Double.POSITIVE_INFINITY) {
+				log.error("last activity of person driver agent id " + getId() + " has end time < infty; setting it to infty");
+				log.error(Gbl.ONLYONCE);
+				finalActHasDpTimeWrnCnt++;
+			}
+			departure = Double.POSITIVE_INFINITY;
+		}
+		this.activityEndTime = departure;
+	}
+
+	@Override
+	public void resetCaches() {
+		if (isMaterialized()) {
+			this.driverAgentDelegate.resetCaches();
+			return;
+		}
+		this.cachedNextLinkId = null;
+		if (!isOnLeg()) {
+			calculateAndSetDepartureTime();
+		}
+	}
+
+	/**
+	 * Copies the plan of the agent and switches to the same delegates as used by {@link PersonDriverAgentImpl}.
+	 * This agent forgets about the flat plan store afterwards.
+	 */
+	@Override
+	public Plan getModifiablePlan() {
+		if (!isMaterialized()) {
+			BasicPlanAgentImpl basicAgent = new BasicPlanAgentImpl(this.store.getPlan(this.agentIndex), this.store.getScenario(),
+					this.store.getEvents(), this.store.getSimTimer());
+			basicAgent.restoreState(this.currentPlanElementIndex, this.currentLinkIndex, this.state, this.activityEndTime,
+					this.currentLinkId, this.vehicle);
+			List<PlanElement> planElements = basicAgent.getModifiablePlan().getPlanElements();
+			// the start times of the activities so far were only recorded in the store:
+			for (int i = 0; i <= this.currentPlanElementIndex && i < planElements.size(); i++) {
+				double startTime = this.store.getActivityStartTime(this.store.getElement(this.agentIndex, i));
+				if (startTime != Time.UNDEFINED_TIME && planElements.get(i) instanceof Activity) {
+					((Activity) planElements.get(i)).setStartTime(startTime);
+				}
+			}
+			this.driverAgentDelegate = new PlanBasedDriverAgentImpl(basicAgent);
+			this.basicAgentDelegate = basicAgent;
+		}
+		return this.basicAgentDelegate.getModifiablePlan();
+	}
+
+	// ============================================================================================================================
+	// driver logic
+
+	@Override
+	public Id<Link> chooseNextLinkId() {
+		if (isMaterialized()) {
+			return this.driverAgentDelegate.chooseNextLinkId();
+		}
+		if (this.cachedNextLinkId != null && !this.cachedNextLinkId.equals(this.currentLinkId)) {
+			return this.cachedNextLinkId;
+		}
+		int element = currentElement();
+		if (this.store.getKind(element) != FlatPlanStore.LEG_NETWORK_ROUTE) {
+			return null;
+		}
+		int routeLength = this.store.getRouteLength(element);
+		if (this.currentLinkIndex >= routeLength) {
+			if (this.currentLinkId.equals(getDestinationLinkId()) && this.currentLinkIndex > routeLength) {
+				// see PlanBasedDriverAgentImpl: last link in a route is a loop link
+				return null;
+			}
+			this.cachedNextLinkId = getDestinationLinkId();
+			return this.cachedNextLinkId;
+		}
+		this.cachedNextLinkId = this.store.getRouteLinkId(element, this.currentLinkIndex);
+		return this.cachedNextLinkId;
+	}
+
+	@Override
+	public void notifyMoveOverNode(final Id<Link> newLinkId) {
+		if (isMaterialized()) {
+			this.driverAgentDelegate.notifyMoveOverNode(newLinkId);
+			return;
+		}
+		if (expectedLinkWarnCount < 10 && !newLinkId.equals(this.cachedNextLinkId)) {
+			log.warn("Agent did not end up on expected link. Ok for within-day replanning agent, otherwise not.  Continuing " +
+					"anyway ... This warning is suppressed after the first 10 warnings.");
+			expectedLinkWarnCount++;
+		}
+		Gbl.assertNotNull(newLinkId);
+		this.currentLinkId = newLinkId;
+		this.currentLinkIndex++;
+		this.cachedNextLinkId = null;
+	}
+
+	@Override
+	public boolean isWantingToArriveOnCurrentLink() {
+		if (isMaterialized()) {
+			return this.driverAgentDelegate.isWantingToArriveOnCurrentLink();
+		}
+		int element = currentElement();
+		if (this.store.getKind(element) != FlatPlanStore.LEG_NETWORK_ROUTE) {
+			return true;
+		}
+		return this.currentLinkIndex >= this.store.getRouteLength(element) && this.currentLinkId.equals(getDestinationLinkId());
+	}
+
+	// ============================================================================================================================
+	// (nearly) pure getters and setters
+
+	@Override
+	public State getState() {
+		return isMaterialized() ? this.basicAgentDelegate.getState() : this.state;
+	}
+
+	@Override
+	public double getActivityEndTime() {
+		return isMaterialized() ? this.basicAgentDelegate.getActivityEndTime() : this.activityEndTime;
+	}
+
+	@Override
+	public Id<Link> getCurrentLinkId() {
+		return isMaterialized() ? this.basicAgentDelegate.getCurrentLinkId() : this.currentLinkId;
+	}
+
+	@Override
+	public Id<Link> getDestinationLinkId() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getDestinationLinkId();
+		}
+		return this.store.getLinkId(currentElement());
+	}
+
+	@Override
+	public String getMode() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getMode();
+		}
+		if (this.currentPlanElementIndex >= this.numberOfElements || !isOnLeg()) {
+			return null;
+		}
+		return this.store.getActivityTypeOrMode(currentElement());
+	}
+
+	@Override
+	public Double getExpectedTravelTime() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getExpectedTravelTime();
+		}
+		if (!isOnLeg()) {
+			return null;
+		}
+		double travelTime = this.store.getExpectedTravelTime(currentElement());
+		return travelTime == Time.UNDEFINED_TIME ? null : travelTime;
+	}
+
+	@Override
+	public Double getExpectedTravelDistance() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getExpectedTravelDistance();
+		}
+		if (!isOnLeg()) {
+			return null;
+		}
+		return this.store.getDistance(currentElement());
+	}
+
+	@Override
+	public Id<Vehicle> getPlannedVehicleId() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getPlannedVehicleId();
+		}
+		// vehicle ids may be set by the agent source after the agent was created, so take them from the plan:
+		NetworkRoute route = (NetworkRoute) ((Leg) getCurrentPlanElement()).getRoute(); // if casts fail: illegal state.
+		if (route.getVehicleId() != null) {
+			return route.getVehicleId();
+		}
+		if (!this.store.getScenario().getConfig().qsim().getUsePersonIdForMissingVehicleId()) {
+			throw new IllegalStateException("NetworkRoute without a specified vehicle id.");
+		}
+		return Id.create(getId(), Vehicle.class);
+	}
+
+	@Override
+	public MobsimVehicle getVehicle() {
+		return isMaterialized() ? this.basicAgentDelegate.getVehicle() : this.vehicle;
+	}
+
+	@Override
+	public void setVehicle(final MobsimVehicle veh) {
+		if (isMaterialized()) {
+			this.basicAgentDelegate.setVehicle(veh);
+			return;
+		}
+		this.vehicle = veh;
+	}
+
+	@Override
+	public int getCurrentLinkIndex() {
+		return isMaterialized() ? this.basicAgentDelegate.getCurrentLinkIndex() : this.currentLinkIndex;
+	}
+
+	@Override
+	public Id<Person> getId() {
+		return this.store.getPersonId(this.agentIndex);
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.store.getPerson(this.agentIndex);
+	}
+
+	@Override
+	public Plan getCurrentPlan() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getCurrentPlan();
+		}
+		return PopulationUtils.unmodifiablePlan(this.store.getPlan(this.agentIndex));
+	}
+
+	@Override
+	public PlanElement getCurrentPlanElement() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getCurrentPlanElement();
+		}
+		return this.store.getPlan(this.agentIndex).getPlanElements().get(this.currentPlanElementIndex);
+	}
+
+	@Override
+	public PlanElement getNextPlanElement() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getNextPlanElement();
+		}
+		if (this.currentPlanElementIndex < this.numberOfElements - 1) {
+			return this.store.getPlan(this.agentIndex).getPlanElements().get(this.currentPlanElementIndex + 1);
+		}
+		return null;
+	}
+
+	@Override
+	public PlanElement getPreviousPlanElement() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getPreviousPlanElement();
+		}
+		if (this.currentPlanElementIndex >= 1) {
+			return this.store.getPlan(this.agentIndex).getPlanElements().get(this.currentPlanElementIndex - 1);
+		}
+		return null;
+	}
+
+	@Override
+	public Facility<? extends Facility<?>> getCurrentFacility() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getCurrentFacility();
+		}
+		List<PlanElement> planElements = this.store.getPlan(this.agentIndex).getPlanElements();
+		for (int idx = this.currentPlanElementIndex; idx >= 0; idx--) {
+			if (planElements.get(idx) instanceof Activity) {
+				return getFacility((Activity) planElements.get(idx));
+			}
+		}
+		throw new RuntimeException("unexpected type of PlanElement");
+	}
+
+	@Override
+	public Facility<? extends Facility<?>> getDestinationFacility() {
+		if (isMaterialized()) {
+			return this.basicAgentDelegate.getDestinationFacility();
+		}
+		if (!isOnLeg()) {
+			return null;
+		}
+		List<PlanElement> planElements = this.store.getPlan(this.agentIndex).getPlanElements();
+		for (int idx = this.currentPlanElementIndex + 1; idx < planElements.size(); idx++) {
+			if (planElements.get(idx) instanceof Activity) {
+				return getFacility((Activity) planElements.get(idx));
+			}
+		}
+		return null;
+	}
+
+	private Facility<? extends Facility<?>> getFacility(final Activity activity) {
+		ActivityFacility fac = this.store.getScenario().getActivityFacilities().getFacilities().get(activity.getFacilityId());
+		if (fac != null) {
+			return fac;
+		}
+		return new ActivityWrapperFacility(activity);
+	}
+
+}
@@ -0,0 +1,327 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * FlatPlanStore.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.agents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+
+/**
+ * Stores the selected plans of all persons of one mobsim run in a few flat, primitive arrays, so that
+ * the {@link CompactPersonDriverAgentImpl}s only need to keep an index into this store instead of a
+ * (copied) plan object graph.
+ * <p></p>
+ * The plan elements of agent <code>i</code> are stored at the positions <code>elementOffsets[i]</code>
+ * (inclusive) to <code>elementOffsets[i+1]</code> (exclusive). Link ids and facility ids are stored by
+ * their {@link Id#index()}, activity types and modes as indices into a table of interned strings.
+ * <p></p>
+ * The store does not keep references to the persons or their plans, but only their ids; the rare requests for
+ * the person or its plan are answered from the population of the scenario.
+ * <p></p>
+ * The store is only valid for one mobsim run, as the plans may change during replanning.
+ */
+public final class FlatPlanStore {
+
+	/*package*/ static final byte ACTIVITY = 0;
+	/*package*/ static final byte LEG_WITHOUT_ROUTE = 1;
+	/*package*/ static final byte LEG_GENERIC_ROUTE = 2;
+	/*package*/ static final byte LEG_NETWORK_ROUTE = 3;
+
+	private final Scenario scenario;
+	private final EventsManager events;
+	private final MobsimTimer simTimer;
+	private final PlansConfigGroup.ActivityDurationInterpretation activityDurationInterpretation;
+
+	private final Id<Person>[] personIds;
+	/** the agent index by {@link Id#index()} of the person, or <code>-1</code> */
+	private final int[] agentIndices;
+	private final int[] elementOffsets;
+
+	private final byte[] kinds;
+	private final int[] strings;
+	private final int[] linkIndices;
+	private final int[] facilityIndices;
+	/** activities: end time; legs: expected travel time */
+	private final double[] times;
+	/** activities: maximum duration; legs: route distance */
+	private final double[] durationsOrDistances;
+	private final int[] routeStarts;
+	private final int[] routeLinks;
+	/** the time the agent started the activity in the mobsim, filled during the simulation */
+	private final double[] activityStartTimes;
+
+	private final String[] stringTable;
+	private final Id<Link>[] linkIdsByIndex;
+	private final Id<ActivityFacility>[] facilityIdsByIndex;
+
+	@SuppressWarnings("unchecked")
+	public FlatPlanStore(final Iterable<? extends Person> persons, final int numberOfPersons, final Scenario scenario,
+			final EventsManager events, final MobsimTimer simTimer) {
+		this.scenario = scenario;
+		this.events = events;
+		this.simTimer = simTimer;
+		this.activityDurationInterpretation = scenario.getConfig().plans().getActivityDurationInterpretation();
+
+		Person[] personArray = new Person[numberOfPersons];
+		this.personIds = new Id[numberOfPersons];
+		this.elementOffsets = new int[numberOfPersons + 1];
+
+		int numberOfElements = 0;
+		int numberOfRouteLinks = 0;
+		int agentIndex = 0;
+		for (Person person : persons) {
+			personArray[agentIndex] = person;
+			this.personIds[agentIndex] = person.getId();
+			agentIndex++;
+			for (PlanElement pe : person.getSelectedPlan().getPlanElements()) {
+				numberOfElements++;
+				if (pe instanceof Leg && ((Leg) pe).getRoute() instanceof NetworkRoute) {
+					numberOfRouteLinks += ((NetworkRoute) ((Leg) pe).getRoute()).getLinkIds().size();
+				}
+			}
+		}
+
+		this.agentIndices = new int[Id.getNumberOfIds(Person.class)];
+		Arrays.fill(this.agentIndices, -1);
+		for (int i = 0; i < numberOfPersons; i++) {
+			this.agentIndices[this.personIds[i].index()] = i;
+		}
+
+		this.kinds = new byte[numberOfElements];
+		this.strings = new int[numberOfElements];
+		this.linkIndices = new int[numberOfElements];
+		this.facilityIndices = new int[numberOfElements];
+		this.times = new double[numberOfElements];
+		this.durationsOrDistances = new double[numberOfElements];
+		this.routeStarts = new int[numberOfElements + 1];
+		this.routeLinks = new int[numberOfRouteLinks];
+		this.activityStartTimes = new double[numberOfElements];
+		Arrays.fill(this.activityStartTimes, Time.UNDEFINED_TIME);
+
+		Map<String, Integer> stringIndices = new HashMap<>();
+		List<String> stringList = new ArrayList<>();
+		Map<Integer, Id<Link>> linkIds = new HashMap<>();
+		Map<Integer, Id<ActivityFacility>> facilityIds = new HashMap<>();
+		int element = 0;
+		int routeLink = 0;
+		for (int i = 0; i < numberOfPersons; i++) {
+			this.elementOffsets[i] = element;
+			for (PlanElement pe : personArray[i].getSelectedPlan().getPlanElements()) {
+				this.routeStarts[element] = routeLink;
+				if (pe instanceof Activity) {
+					Activity act = (Activity) pe;
+					Id<Link> linkId = PopulationUtils.computeLinkIdFromActivity(act, scenario.getActivityFacilities(), scenario.getConfig());
+					this.kinds[element] = ACTIVITY;
+					this.strings[element] = intern(act.getType(), stringIndices, stringList);
+					this.linkIndices[element] = index(linkId, linkIds);
+					this.facilityIndices[element] = index(act.getFacilityId(), facilityIds);
+					this.times[element] = act.getEndTime();
+					this.durationsOrDistances[element] = act.getMaximumDuration();
+				} else {
+					Leg leg = (Leg) pe;
+					Route route = leg.getRoute();
+					this.strings[element] = intern(leg.getMode(), stringIndices, stringList);
+					this.facilityIndices[element] = -1;
+					if (route == null) {
+						this.kinds[element] = LEG_WITHOUT_ROUTE;
+						this.linkIndices[element] = -1;
+						this.times[element] = leg.getTravelTime();
+						this.durationsOrDistances[element] = Double.NaN;
+					} else {
+						this.kinds[element] = route instanceof NetworkRoute ? LEG_NETWORK_ROUTE : LEG_GENERIC_ROUTE;
+						this.linkIndices[element] = index(route.getEndLinkId(), linkIds);
+						this.times[element] = route.getTravelTime() != Time.UNDEFINED_TIME ? route.getTravelTime() : leg.getTravelTime();
+						this.durationsOrDistances[element] = route.getDistance();
+						if (route instanceof NetworkRoute) {
+							for (Id<Link> linkId : ((NetworkRoute) route).getLinkIds()) {
+								this.routeLinks[routeLink] = index(linkId, linkIds);
+								routeLink++;
+							}
+						}
+					}
+				}
+				element++;
+			}
+		}
+		this.elementOffsets[numberOfPersons] = element;
+		this.routeStarts[element] = routeLink;
+
+		this.stringTable = stringList.toArray(new String[stringList.size()]);
+		this.linkIdsByIndex = toArray(linkIds, Id.getNumberOfIds(Link.class));
+		this.facilityIdsByIndex = toArray(facilityIds, Id.getNumberOfIds(ActivityFacility.class));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Id<T>[] toArray(final Map<Integer, Id<T>> ids, final int size) {
+		Id<T>[] array = new Id[size];
+		for (Map.Entry<Integer, Id<T>> e : ids.entrySet()) {
+			array[e.getKey()] = e.getValue();
+		}
+		return array;
+	}
+
+	private static int intern(final String string, final Map<String, Integer> indices, final List<String> list) {
+		if (string == null) {
+			return -1;
+		}
+		Integer index = indices.get(string);
+		if (index == null) {
+			index = list.size();
+			list.add(string);
+			indices.put(string, index);
+		}
+		return index;
+	}
+
+	private static <T> int index(final Id<T> id, final Map<Integer, Id<T>> ids) {
+		if (id == null) {
+			return -1;
+		}
+		ids.put(id.index(), id);
+		return id.index();
+	}
+
+	// ------------------------------------------------------------------------------------------
+	// accessors for the agents
+
+	public int getNumberOfAgents() {
+		return this.personIds.length;
+	}
+
+	/**
+	 * @return the index of the agent for the given person, or <code>-1</code> if the person is not contained in this store.
+	 */
+	public int getAgentIndex(final Person person) {
+		int personIndex = person.getId().index();
+		if (personIndex >= this.agentIndices.length) {
+			return -1;
+		}
+		int agentIndex = this.agentIndices[personIndex];
+		// another person object with the same id is not part of this store
+		return agentIndex < 0 || getPerson(agentIndex) != person ? -1 : agentIndex;
+	}
+
+	/*package*/ Id<Person> getPersonId(final int agentIndex) {
+		return this.personIds[agentIndex];
+	}
+
+	/*package*/ Person getPerson(final int agentIndex) {
+		return this.scenario.getPopulation().getPersons().get(this.personIds[agentIndex]);
+	}
+
+	/*package*/ Plan getPlan(final int agentIndex) {
+		return getPerson(agentIndex).getSelectedPlan();
+	}
+
+	/*package*/ int getNumberOfElements(final int agentIndex) {
+		return this.elementOffsets[agentIndex + 1] - this.elementOffsets[agentIndex];
+	}
+
+	/*package*/ int getElement(final int agentIndex, final int planElementIndex) {
+		return this.elementOffsets[agentIndex] + planElementIndex;
+	}
+
+	/*package*/ byte getKind(final int element) {
+		return this.kinds[element];
+	}
+
+	/*package*/ String getActivityTypeOrMode(final int element) {
+		int index = this.strings[element];
+		return index < 0 ? null : this.stringTable[index];
+	}
+
+	/**
+	 * @return for activities the link of the activity, for legs the end link of the route
+	 */
+	/*package*/ Id<Link> getLinkId(final int element) {
+		int index = this.linkIndices[element];
+		return index < 0 ? null : this.linkIdsByIndex[index];
+	}
+
+	/*package*/ Id<ActivityFacility> getFacilityId(final int element) {
+		int index = this.facilityIndices[element];
+		return index < 0 ? null : this.facilityIdsByIndex[index];
+	}
+
+	/*package*/ double getExpectedTravelTime(final int element) {
+		return this.times[element];
+	}
+
+	/*package*/ double getDistance(final int element) {
+		return this.durationsOrDistances[element];
+	}
+
+	/*package*/ int getRouteLength(final int element) {
+		return this.routeStarts[element + 1] - this.routeStarts[element];
+	}
+
+	/*package*/ Id<Link> getRouteLinkId(final int element, final int routeIndex) {
+		return this.linkIdsByIndex[this.routeLinks[this.routeStarts[element] + routeIndex]];
+	}
+
+	/*package*/ void setActivityStartTime(final int element, final double time) {
+		this.activityStartTimes[element] = time;
+	}
+
+	/*package*/ double getActivityStartTime(final int element) {
+		return this.activityStartTimes[element];
+	}
+
+	/**
+	 * @see ActivityDurationUtils#calculateDepartureTime(double, double, double, PlansConfigGroup.ActivityDurationInterpretation)
+	 */
+	/*package*/ double calculateDepartureTime(final int element, final double now) {
+		return ActivityDurationUtils.calculateDepartureTime(this.times[element], this.durationsOrDistances[element], now,
+				this.activityDurationInterpretation);
+	}
+
+	/*package*/ Scenario getScenario() {
+		return this.scenario;
+	}
+
+	/*package*/ EventsManager getEvents() {
+		return this.events;
+	}
+
+	/*package*/ MobsimTimer getSimTimer() {
+		return this.simTimer;
+	}
+
+}
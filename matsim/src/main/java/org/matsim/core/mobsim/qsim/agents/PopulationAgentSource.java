@@ -20,6 +20,11 @@
 package org.matsim.core.mobsim.qsim.agents;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.inject.Inject;
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -42,6 +47,7 @@ import org.matsim.vehicles.Vehicles;
 
 public final class PopulationAgentSource implements AgentSource {
 	private static final Logger log = Logger.getLogger( PopulationAgentSource.class );
+	private static final int MIN_CHUNK_SIZE = 1000;
 
 	private final Population population;
 	private final AgentFactory agentFactory;
@@ -59,18 +65,88 @@ public final class PopulationAgentSource implements AgentSource {
 
 	@Override
 	public void insertAgentsIntoMobsim() {
+		if (this.agentFactory instanceof CompactAgentFactory) {
+			((CompactAgentFactory) this.agentFactory).onPrepareSim();
+		}
+		QSimConfigGroup qsimConfig = qsim.getScenario().getConfig().qsim();
+		if (qsimConfig.isUsingParallelAgentCreation() && qsimConfig.getNumberOfThreads() > 1) {
+			insertAgentsIntoMobsimInParallel(qsimConfig.getNumberOfThreads());
+			return;
+		}
 		for (Person p : population.getPersons().values()) {
 			MobsimAgent agent = this.agentFactory.createMobsimAgentFromPerson(p);
 			qsim.insertAgentIntoMobsim(agent);
 		}
 		for (Person p : population.getPersons().values()) {
-			insertVehicles(p);
+			for (VehiclePlacement placement : prepareVehicles(p)) {
+				placeVehicle(placement);
+			}
+		}
+	}
+
+	/**
+	 * Creates the agents and looks up their vehicles in chunks on a thread pool.  Only inserting the agents into the
+	 * mobsim and parking the vehicles is done afterwards on the calling thread, in the order of the population, so that
+	 * the result is the same as with the sequential version.  The agent factory needs to be thread-safe for this.
+	 */
+	private void insertAgentsIntoMobsimInParallel(final int numberOfThreads) {
+		final List<Person> persons = new ArrayList<>(population.getPersons().values());
+		final MobsimAgent[] agents = new MobsimAgent[persons.size()];
+		@SuppressWarnings("unchecked")
+		final List<VehiclePlacement>[] placements = new List[persons.size()];
+
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, persons.size() / (numberOfThreads * 4) + 1);
+		List<Callable<Object>> tasks = new ArrayList<>();
+		for (int start = 0; start < persons.size(); start += chunkSize) {
+			final int from = start;
+			final int to = Math.min(start + chunkSize, persons.size());
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					for (int i = from; i < to; i++) {
+						Person p = persons.get(i);
+						agents[i] = agentFactory.createMobsimAgentFromPerson(p);
+						placements[i] = prepareVehicles(p);
+					}
+					return null;
+				}
+			});
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads);
+		try {
+			for (Future<Object> future : pool.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+
+		for (MobsimAgent agent : agents) {
+			qsim.insertAgentIntoMobsim(agent);
+		}
+		for (List<VehiclePlacement> list : placements) {
+			for (VehiclePlacement placement : list) {
+				placeVehicle(placement);
+			}
 		}
 	}
 
-	private void insertVehicles(Person p) {
+	/**
+	 * Determines the vehicles of the given person and where to put them, setting the vehicle ids in the routes where
+	 * they are missing.  Only touches the plan of the person, so this can be called for different persons in parallel.
+	 */
+	private List<VehiclePlacement> prepareVehicles(Person p) {
 		Plan plan = p.getSelectedPlan();
 		Map<String,Id<Vehicle>> seenModes = new HashMap<>();
+		List<VehiclePlacement> placements = new ArrayList<>(2);
 		for (PlanElement planElement : plan.getPlanElements()) {
 			if (planElement instanceof Leg) {
 				Leg leg = (Leg) planElement;
@@ -96,19 +172,7 @@ public final class PopulationAgentSource implements AgentSource {
 						// place the vehicle:
 						Id<Link> vehicleLinkId = findVehicleLink(p);
 						
-						// Checking if the vehicle has been seen before:
-						Id<Link> result = this.seenVehicleIds.get( vehicleId ) ;
-						if ( result != null ) {
-							// if seen before, but placed on same link, then it is ok:
-							log.info( "have seen vehicle with id " + vehicleId + " before; not placing it again." );
-							if ( result != vehicleLinkId ) {
-								throw new RuntimeException("vehicle placement error: vehicleId=" + vehicleId + 
-										"; previous placement link=" + vehicleLinkId + "; current placement link=" + result ) ; 
-							}
-						} else {
-							this.seenVehicleIds.put( vehicleId, vehicleLinkId ) ;
-							qsim.createAndParkVehicleOnLink(vehicle, vehicleLinkId);
-						}
+						placements.add(new VehiclePlacement(vehicleId, vehicle, vehicleLinkId));
 						seenModes.put(leg.getMode(),vehicleId);
 					} else {
 						if (vehicleId==null && route!=null) {
@@ -119,6 +183,37 @@ public final class PopulationAgentSource implements AgentSource {
 				}
 			}
 		}
+		return placements;
+	}
+
+	private void placeVehicle(VehiclePlacement placement) {
+		Id<Vehicle> vehicleId = placement.vehicleId;
+		Id<Link> vehicleLinkId = placement.linkId;
+		// Checking if the vehicle has been seen before:
+		Id<Link> result = this.seenVehicleIds.get( vehicleId ) ;
+		if ( result != null ) {
+			// if seen before, but placed on same link, then it is ok:
+			log.info( "have seen vehicle with id " + vehicleId + " before; not placing it again." );
+			if ( result != vehicleLinkId ) {
+				throw new RuntimeException("vehicle placement error: vehicleId=" + vehicleId + 
+						"; previous placement link=" + vehicleLinkId + "; current placement link=" + result ) ; 
+			}
+		} else {
+			this.seenVehicleIds.put( vehicleId, vehicleLinkId ) ;
+			qsim.createAndParkVehicleOnLink(placement.vehicle, vehicleLinkId);
+		}
+	}
+
+	private static final class VehiclePlacement {
+		final Id<Vehicle> vehicleId;
+		final Vehicle vehicle;
+		final Id<Link> linkId;
+
+		VehiclePlacement(Id<Vehicle> vehicleId, Vehicle vehicle, Id<Link> linkId) {
+			this.vehicleId = vehicleId;
+			this.vehicle = vehicle;
+			this.linkId = linkId;
+		}
 	}
 
 	/**
@@ -25,6 +25,7 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
 import org.matsim.core.mobsim.qsim.pt.PTPassengerAgent;
 import org.matsim.core.mobsim.qsim.pt.TransitVehicle;
@@ -103,6 +104,16 @@ public final class TransitAgentImpl implements PTPassengerAgent {
 		ExperimentalTransitRoute route = (ExperimentalTransitRoute) basicAgentDelegate.getCurrentLeg().getRoute();
 		return route.getEgressStopId();
 	}
+
+	@Override
+	public final Id<TransitLine> getDesiredTransitLineId() {
+		PlanElement pe = basicAgentDelegate.getCurrentPlanElement();
+		if (!(pe instanceof Leg) || !(((Leg) pe).getRoute() instanceof ExperimentalTransitRoute)) {
+			return null;
+		}
+		return ((ExperimentalTransitRoute) ((Leg) pe).getRoute()).getLineId();
+	}
+
 	@Override
 	public Id<Link> getCurrentLinkId() {
 		return basicAgentDelegate.getCurrentLinkId() ;
@@ -32,8 +32,11 @@ import org.matsim.core.mobsim.qsim.interfaces.TimeVariantLink;
 import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkUtils;
 
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.Set;
 
 /**
  * @author dgrether
@@ -41,7 +44,11 @@ import java.util.Queue;
 public final class NetworkChangeEventsEngine implements NetworkChangeEventsEngineI {
 	private static final Logger log = Logger.getLogger(NetworkChangeEventsEngine.class) ;
 	
-	private Queue<NetworkChangeEvent> networkChangeEventsQueue = null;
+	/** the change events of the network, sorted by start time, and the position of the next one to be applied. */
+	private NetworkChangeEvent[] networkChangeEvents = null;
+	private int nextNetworkChangeEvent = 0;
+	/** change events that are added during the simulation. */
+	private Queue<NetworkChangeEvent> additionalNetworkChangeEventsQueue = null;
 	private Netsim mobsim;
 	
 	private NetworkChangeEventsEngine() {}
@@ -64,41 +71,60 @@ public final class NetworkChangeEventsEngine implements NetworkChangeEventsEngin
 	public void onPrepareSim() {
 		Queue<NetworkChangeEvent> changeEvents = NetworkUtils.getNetworkChangeEvents(this.mobsim.getScenario().getNetwork());
 		if ((changeEvents != null) && (changeEvents.size() > 0)) {
-			this.networkChangeEventsQueue = new PriorityQueue<>(changeEvents.size(), new NetworkChangeEvent.StartTimeComparator());
-			this.networkChangeEventsQueue.addAll(changeEvents);
+			this.networkChangeEvents = changeEvents.toArray(new NetworkChangeEvent[changeEvents.size()]);
+			Arrays.sort(this.networkChangeEvents, new NetworkChangeEvent.StartTimeComparator());
+			this.nextNetworkChangeEvent = 0;
 		}
 
-		// one could replace the above lines by
-//		this.networkChangeEventsQueue = NetworkUtils.getNetworkChangeEvents(this.mobsim.getScenario().getNetwork()) ;
-		// This also passes at least the core tests.  However, the code below "consumes" the network change events queue.
-		// It seems that we should rather not do this.
+		// The code below does not "consume" the network change events queue of the network, since this is also used
+		// to look up the current values of the links.
 
 	}
 
 	@Override
 	public void doSimStep(double time) {
-		if ((this.networkChangeEventsQueue != null) && (this.networkChangeEventsQueue.size() > 0)) {
-			handleNetworkChangeEvents(time);
+		// Collect the links of all change events that are due, and recalculate every link only once per time step, even
+		// if several change events refer to it.
+		Set<Link> changedLinks = null;
+		if (this.networkChangeEvents != null) {
+			while (this.nextNetworkChangeEvent < this.networkChangeEvents.length
+					&& this.networkChangeEvents[this.nextNetworkChangeEvent].getStartTime() <= time) {
+				changedLinks = addLinks(changedLinks, this.networkChangeEvents[this.nextNetworkChangeEvent]);
+				this.nextNetworkChangeEvent++;
+			}
+		}
+		if (this.additionalNetworkChangeEventsQueue != null) {
+			while ((this.additionalNetworkChangeEventsQueue.size() > 0) && (this.additionalNetworkChangeEventsQueue.peek().getStartTime() <= time)) {
+				changedLinks = addLinks(changedLinks, this.additionalNetworkChangeEventsQueue.poll());
+			}
+		}
+		if (changedLinks != null) {
+			for (Link link : changedLinks) {
+				recalcTimeVariantAttributes(link);
+			}
 		}
 	}
 
-	private void handleNetworkChangeEvents(final double time) {
-		while ((this.networkChangeEventsQueue.size() > 0) && (this.networkChangeEventsQueue.peek().getStartTime() <= time)) {
-			NetworkChangeEvent event = this.networkChangeEventsQueue.poll();
-			handleNetworkChangeEvent(event);
-		}
+	private static Set<Link> addLinks(Set<Link> changedLinks, NetworkChangeEvent event) {
+		Set<Link> links = changedLinks == null ? new LinkedHashSet<Link>() : changedLinks;
+		links.addAll(event.getLinks());
+		return links;
 	}
 	
 	public final void addNetworkChangeEvent( NetworkChangeEvent event ) {
 		// used (and thus implicitly tested) by bdi-abm-integration project.  A separate core test would be good. kai, feb'18
 		
 		log.warn("add change event coming from external (i.e. not in network change events data structure):" + event);
-		this.networkChangeEventsQueue.add(event);
+		if (this.additionalNetworkChangeEventsQueue == null) {
+			this.additionalNetworkChangeEventsQueue = new PriorityQueue<>(11, new NetworkChangeEvent.StartTimeComparator());
+		}
+		this.additionalNetworkChangeEventsQueue.add(event);
 		final Queue<NetworkChangeEvent> centralNetworkChangeEvents = NetworkUtils.getNetworkChangeEvents(this.mobsim.getScenario().getNetwork());
 		if ( !centralNetworkChangeEvents.contains( event ) ) {
-			centralNetworkChangeEvents.add( event ) ;
+			NetworkUtils.addNetworkChangeEvent(this.mobsim.getScenario().getNetwork(), event);
 			// need to add this here since otherwise speed lookup in mobsim does not work. And need to hedge against
 			// code that may already have added it by itself.  kai, feb'18
+			// (Added through the network, not only to its queue, so that the links learn about the change as well.)
 		}
 
 		handleNetworkChangeEvent(event);
@@ -106,12 +132,16 @@ public final class NetworkChangeEventsEngine implements NetworkChangeEventsEngin
 	
 	private void handleNetworkChangeEvent(NetworkChangeEvent event) {
 		for (Link link : event.getLinks()) {
-			final NetsimLink netsimLink = this.mobsim.getNetsimNetwork().getNetsimLink(link.getId());
-			if ( netsimLink instanceof TimeVariantLink) {
-				((TimeVariantLink) netsimLink).recalcTimeVariantAttributes();
-			} else {
-				throw new RuntimeException("link not time variant") ;
-			}
+			recalcTimeVariantAttributes(link);
+		}
+	}
+
+	private void recalcTimeVariantAttributes(Link link) {
+		final NetsimLink netsimLink = this.mobsim.getNetsimNetwork().getNetsimLink(link.getId());
+		if ( netsimLink instanceof TimeVariantLink) {
+			((TimeVariantLink) netsimLink).recalcTimeVariantAttributes();
+		} else {
+			throw new RuntimeException("link not time variant") ;
 		}
 	}
 	
@@ -67,6 +67,22 @@ public interface PTPassengerAgent extends PassengerAgent {
 	
 	public Id<TransitStopFacility> getDesiredDestinationStopId();
 
+	/**
+	 * Asks a passenger waiting at a stop which transit line it intends to board. This is only used as a hint
+	 * by the {@link TransitStopAgentTracker} to index waiting passengers, so that arriving vehicles do not
+	 * have to ask every waiting passenger. The final decision is still taken in
+	 * {@link #getEnterTransitRoute(TransitLine, TransitRoute, List, TransitVehicle)}.
+	 * <p></p>
+	 * The line is asked for when the passenger arrives at the stop. If it changes while the passenger waits, the
+	 * tracker must be told by {@link TransitStopAgentTracker#updateDesiredTransitLine(PTPassengerAgent, Id)}.
+	 *
+	 * @return the id of the line the passenger wants to board, or <code>null</code> if the passenger
+	 * may board any line (or does not know yet).
+	 */
+	public default Id<TransitLine> getDesiredTransitLineId() {
+		return null;
+	}
+
 	/**
 	 * @return a statistical weight, how many "real" agents this agent represents, e.g. "5.0" if you simulate a 20%-sample.
 	 */
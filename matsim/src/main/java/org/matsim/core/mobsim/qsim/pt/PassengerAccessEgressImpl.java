@@ -106,10 +106,11 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 	private List<PTPassengerAgent> findPassengersEntering(TransitRoute transitRoute, TransitLine transitLine, TransitVehicle vehicle, 
 			final TransitStopFacility stop, List<TransitRouteStop> stopsToCome, int freeCapacity, double now) {
 		ArrayList<PTPassengerAgent> passengersEntering = new ArrayList<>();
+		Id<TransitLine> lineId = transitLine == null ? null : transitLine.getId();
 		
 		if (this.isGeneratingDeniedBoardingEvents) {
 			
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
+			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacilityForLine(stop.getId(), lineId)) {
 				if (agent.getEnterTransitRoute(transitLine, transitRoute, stopsToCome, vehicle)) {
 					if (freeCapacity >= 1) {
 						passengersEntering.add(agent);
@@ -122,7 +123,7 @@ class PassengerAccessEgressImpl implements PassengerAccessEgress {
 
 		} else {
 		
-			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacility(stop.getId())) {
+			for (PTPassengerAgent agent : this.agentTracker.getAgentsAtFacilityForLine(stop.getId(), lineId)) {
 				if (freeCapacity == 0) {
 					break;
 				}
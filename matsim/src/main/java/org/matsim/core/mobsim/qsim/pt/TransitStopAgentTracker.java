@@ -20,11 +20,16 @@
 
 package org.matsim.core.mobsim.qsim.pt;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Id;
@@ -32,9 +37,24 @@ import org.matsim.core.api.experimental.events.AgentWaitingForPtEvent;
 import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.mobsim.qsim.AgentTracker;
 import org.matsim.facilities.Facility;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
 /**
+ * Keeps track of the passengers waiting at transit stops.
+ * <p></p>
+ * Waiting passengers are kept per stop, and within a stop additionally indexed by the transit line they
+ * want to board (see {@link PTPassengerAgent#getDesiredTransitLineId()}). Adding and removing a passenger
+ * is O(log n), and an arriving vehicle only needs to ask the passengers waiting for its line plus those that
+ * did not tell which line they want whether they enter (see {@link #getAgentsAtFacilityForLine(Id, Id)}).
+ * The line of a passenger is looked up when it is added to the stop; a passenger that changes its line while
+ * waiting must be re-indexed with {@link #updateDesiredTransitLine(PTPassengerAgent, Id)}. The order of arrival
+ * at the stop is retained in all cases. The returned lists are kept until the passengers waiting at the stop
+ * change, so vehicles arriving at a stop where nothing changed do not copy them again.
+ * <p></p>
+ * The stop queues are synchronized individually, so that the tracker can be used from the threads of the
+ * multi-threaded netsim.
+ *
  * @author mrieser
  */
 public class TransitStopAgentTracker implements AgentTracker {
@@ -42,7 +62,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 	private final static Logger log = Logger.getLogger(TransitStopAgentTracker.class);
 	
 	private final EventsManager events;
-	private final Map<Id<TransitStopFacility>, List<PTPassengerAgent>> agentsAtStops = new ConcurrentHashMap<>();
+	private final Map<Id<TransitStopFacility>, StopQueue> agentsAtStops = new ConcurrentHashMap<>();
 
 	public TransitStopAgentTracker(final EventsManager events) {
 		this.events = events;
@@ -52,11 +72,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stop must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
-		if (agents == null) {
-			agents = new CopyOnWriteArrayList<>();// TODO check again. this might turn out to be slow, but we likely need something thread safe here. marcel/oct2014 
-			this.agentsAtStops.put(stopId, agents);
-		}
+		StopQueue agents = this.agentsAtStops.computeIfAbsent(stopId, k -> new StopQueue());
 		if ( !agents.add(agent) ) {
 			log.error("did NOT add agent " + agent.getId() + " since it was already there.");
 		}
@@ -68,7 +84,7 @@ public class TransitStopAgentTracker implements AgentTracker {
 		if (stopId == null) {
 			throw new NullPointerException("stopId must not be null.");
 		}
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
+		StopQueue agents = this.agentsAtStops.get(stopId);
 		if (agents != null) {
 			if (!agents.remove(agent)) {
 				log.error("Agent " + agent.getId() + " could not be removed from waiting at stop " + stopId);
@@ -78,16 +94,190 @@ public class TransitStopAgentTracker implements AgentTracker {
 		}
 	}
 
+	/**
+	 * Re-indexes a waiting agent after its {@link PTPassengerAgent#getDesiredTransitLineId() desired line} has changed,
+	 * e.g. by within-day replanning. Without this, the agent is only asked by vehicles of the line it wanted when it
+	 * arrived at the stop (and by all vehicles if that was <code>null</code>).
+	 */
+	public void updateDesiredTransitLine(final PTPassengerAgent agent, final Id<TransitStopFacility> stopId) {
+		StopQueue agents = this.agentsAtStops.get(stopId);
+		if (agents == null || !agents.updateLine(agent)) {
+			log.error("Agent " + agent.getId() + " is not waiting at stop " + stopId + ", its line could not be updated.");
+		}
+	}
+
+	/**
+	 * @return an immutable snapshot of all agents waiting at the given stop, in the order of their arrival.
+	 */
 	@Override
 	public List<PTPassengerAgent> getAgentsAtFacility(final Id<? extends Facility> stopId) {
-		List<PTPassengerAgent> agents = this.agentsAtStops.get(stopId);
+		StopQueue agents = this.agentsAtStops.get(stopId);
 		if (agents == null) {
 			return Collections.emptyList();
 		}
-		return Collections.unmodifiableList(agents);
+		return agents.getAll();
 	}
 
+	/**
+	 * @return an immutable snapshot of the agents waiting at the given stop which either want to board the given line,
+	 * or did not specify a line at all, in the order of their arrival. These are the only agents that need to be
+	 * asked when a vehicle serving the line arrives at the stop. If <code>lineId</code> is <code>null</code>, all
+	 * waiting agents are returned.
+	 */
+	public List<PTPassengerAgent> getAgentsAtFacilityForLine(final Id<? extends Facility> stopId, final Id<TransitLine> lineId) {
+		StopQueue agents = this.agentsAtStops.get(stopId);
+		if (agents == null) {
+			return Collections.emptyList();
+		}
+		return agents.getForLine(lineId);
+	}
+
+	/**
+	 * @return a snapshot of all waiting agents per stop. Stops without waiting agents may or may not be contained.
+	 */
 	public Map<Id<TransitStopFacility>, List<PTPassengerAgent>> getAgentsAtStop() {
-		return this.agentsAtStops;
+		Map<Id<TransitStopFacility>, List<PTPassengerAgent>> result = new LinkedHashMap<>();
+		for (Map.Entry<Id<TransitStopFacility>, StopQueue> e : this.agentsAtStops.entrySet()) {
+			result.put(e.getKey(), e.getValue().getAll());
+		}
+		return result;
+	}
+
+	/**
+	 * The passengers waiting at one stop. Every passenger gets a sequence number on arrival, which keeps the
+	 * line-specific and the line-independent waiting passengers in arrival order.
+	 * <p></p>
+	 * The lists handed out are cached per line until a passenger of that line (or one without a line) is added,
+	 * removed or re-indexed.
+	 */
+	private static final class StopQueue {
+
+		private long nextSequence = 0;
+		private final LinkedHashMap<PTPassengerAgent, Waiting> all = new LinkedHashMap<>();
+		private final TreeMap<Long, PTPassengerAgent> anyLine = new TreeMap<>();
+		private final Map<Id<TransitLine>, TreeMap<Long, PTPassengerAgent>> byLine = new HashMap<>();
+		private List<PTPassengerAgent> allSnapshot = null;
+		private final Map<Id<TransitLine>, List<PTPassengerAgent>> lineSnapshots = new HashMap<>();
+
+		synchronized boolean add(final PTPassengerAgent agent) {
+			if (this.all.containsKey(agent)) {
+				return false;
+			}
+			Waiting waiting = new Waiting(this.nextSequence++, agent.getDesiredTransitLineId());
+			this.all.put(agent, waiting);
+			index(agent, waiting);
+			return true;
+		}
+
+		synchronized boolean remove(final PTPassengerAgent agent) {
+			Waiting waiting = this.all.remove(agent);
+			if (waiting == null) {
+				return false;
+			}
+			unindex(waiting);
+			return true;
+		}
+
+		synchronized boolean updateLine(final PTPassengerAgent agent) {
+			Waiting waiting = this.all.get(agent);
+			if (waiting == null) {
+				return false;
+			}
+			Id<TransitLine> lineId = agent.getDesiredTransitLineId();
+			if (!Objects.equals(lineId, waiting.lineId)) {
+				unindex(waiting);
+				waiting.lineId = lineId;
+				index(agent, waiting);
+			}
+			return true;
+		}
+
+		private void index(final PTPassengerAgent agent, final Waiting waiting) {
+			if (waiting.lineId == null) {
+				this.anyLine.put(waiting.sequence, agent);
+			} else {
+				this.byLine.computeIfAbsent(waiting.lineId, k -> new TreeMap<>()).put(waiting.sequence, agent);
+			}
+			invalidate(waiting.lineId);
+		}
+
+		private void unindex(final Waiting waiting) {
+			if (waiting.lineId == null) {
+				this.anyLine.remove(waiting.sequence);
+			} else {
+				TreeMap<Long, PTPassengerAgent> lineAgents = this.byLine.get(waiting.lineId);
+				lineAgents.remove(waiting.sequence);
+				if (lineAgents.isEmpty()) {
+					this.byLine.remove(waiting.lineId);
+				}
+			}
+			invalidate(waiting.lineId);
+		}
+
+		private void invalidate(final Id<TransitLine> lineId) {
+			this.allSnapshot = null;
+			if (lineId == null) {
+				// the passengers without a line are part of every line's list
+				this.lineSnapshots.clear();
+			} else {
+				this.lineSnapshots.remove(lineId);
+			}
+		}
+
+		synchronized List<PTPassengerAgent> getAll() {
+			if (this.allSnapshot == null) {
+				this.allSnapshot = Collections.unmodifiableList(new ArrayList<>(this.all.keySet()));
+			}
+			return this.allSnapshot;
+		}
+
+		synchronized List<PTPassengerAgent> getForLine(final Id<TransitLine> lineId) {
+			if (lineId == null) {
+				return getAll();
+			}
+			List<PTPassengerAgent> snapshot = this.lineSnapshots.get(lineId);
+			if (snapshot == null) {
+				snapshot = Collections.unmodifiableList(mergeForLine(lineId));
+				this.lineSnapshots.put(lineId, snapshot);
+			}
+			return snapshot;
+		}
+
+		private List<PTPassengerAgent> mergeForLine(final Id<TransitLine> lineId) {
+			TreeMap<Long, PTPassengerAgent> lineAgents = this.byLine.get(lineId);
+			if (lineAgents == null) {
+				return new ArrayList<>(this.anyLine.values());
+			}
+			if (this.anyLine.isEmpty()) {
+				return new ArrayList<>(lineAgents.values());
+			}
+			// merge both in order of arrival
+			List<PTPassengerAgent> result = new ArrayList<>(lineAgents.size() + this.anyLine.size());
+			Iterator<Map.Entry<Long, PTPassengerAgent>> iterLine = lineAgents.entrySet().iterator();
+			Iterator<Map.Entry<Long, PTPassengerAgent>> iterAny = this.anyLine.entrySet().iterator();
+			Map.Entry<Long, PTPassengerAgent> nextLine = iterLine.next();
+			Map.Entry<Long, PTPassengerAgent> nextAny = iterAny.next();
+			while (nextLine != null || nextAny != null) {
+				if (nextAny == null || (nextLine != null && nextLine.getKey() < nextAny.getKey())) {
+					result.add(nextLine.getValue());
+					nextLine = iterLine.hasNext() ? iterLine.next() : null;
+				} else {
+					result.add(nextAny.getValue());
+					nextAny = iterAny.hasNext() ? iterAny.next() : null;
+				}
+			}
+			return result;
+		}
+	}
+
+	private static final class Waiting {
+		final long sequence;
+		Id<TransitLine> lineId;
+
+		Waiting(final long sequence, final Id<TransitLine> lineId) {
+			this.sequence = sequence;
+			this.lineId = lineId;
+		}
 	}
+
 }
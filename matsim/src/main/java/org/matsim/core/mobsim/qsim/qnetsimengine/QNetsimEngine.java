@@ -55,6 +55,7 @@ import org.matsim.core.mobsim.framework.MobsimDriverAgent;
 import org.matsim.core.mobsim.framework.MobsimTimer;
 import org.matsim.core.mobsim.qsim.InternalInterface;
 import org.matsim.core.mobsim.qsim.QSim;
+import org.matsim.core.mobsim.qsim.QSimRunTimeStatistics;
 import org.matsim.core.mobsim.qsim.interfaces.AgentCounter;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimEngine;
 import org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle;
@@ -124,6 +125,9 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 	// for detailed run time analysis - used in combination with QSim.analyzeRunTimes
 	public static int numObservedTimeSteps = 24*3600;
 	public static boolean printRunTimesPerTimeStep = false;
+	private long[] lastMovedNodes = null;
+	private long[] lastMovedLinks = null;
+	private long[] lastBarrierWaitTimes = null;
 	
 	@Override
 	public void setInternalInterface( InternalInterface internalInterface) {
@@ -510,6 +514,26 @@ public class QNetsimEngine implements MobsimEngine, NetsimEngine {
 		this.linksToActivateInitially.clear();
 	}
 
+	/**
+	 * Adds the work done by the runners since the last call to the statistics. Must only be called
+	 * between time steps, i.e. while the runners are idle.
+	 */
+	public void collectRunTimeStatistics(final QSimRunTimeStatistics statistics, final double now) {
+		if (this.lastMovedNodes == null) {
+			this.lastMovedNodes = new long[this.engines.size()];
+			this.lastMovedLinks = new long[this.engines.size()];
+			this.lastBarrierWaitTimes = new long[this.engines.size()];
+		}
+		for (int i = 0; i < this.engines.size(); i++) {
+			QNetsimEngineRunner runner = this.engines.get(i);
+			statistics.addNetsimRunnerStatistics(i, now, runner.movedNodes - this.lastMovedNodes[i],
+					runner.movedLinks - this.lastMovedLinks[i], runner.barrierWaitTime - this.lastBarrierWaitTimes[i]);
+			this.lastMovedNodes[i] = runner.movedNodes;
+			this.lastMovedLinks[i] = runner.movedLinks;
+			this.lastBarrierWaitTimes[i] = runner.barrierWaitTime;
+		}
+	}
+
 	public void printEngineRunTimes() {
 		if (!QSim.analyzeRunTimes) return;
 		
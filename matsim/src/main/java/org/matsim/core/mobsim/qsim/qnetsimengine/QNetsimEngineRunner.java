@@ -78,6 +78,11 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 
 	/*package*/ long[] runTimes;
 	private long startTime = 0;
+
+	// cumulative counters for QSimRunTimeStatistics; only read between time steps
+	/*package*/ long movedNodes = 0;
+	/*package*/ long movedLinks = 0;
+	/*package*/ long barrierWaitTime = 0;
 	{	
 		if (QSim.analyzeRunTimes) runTimes = new long[QNetsimEngine.numObservedTimeSteps];
 		else runTimes = null;
@@ -147,7 +152,13 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			moveNodes();
 
 			// After moving the QNodes all we use a Phaser to synchronize the threads.
-			this.separationBarrier.arriveAndAwaitAdvance();
+			if (QSim.analyzeRunTimes) {
+				long waitStart = System.nanoTime();
+				this.separationBarrier.arriveAndAwaitAdvance();
+				this.barrierWaitTime += System.nanoTime() - waitStart;
+			} else {
+				this.separationBarrier.arriveAndAwaitAdvance();
+			}
 
 			moveLinks();
 
@@ -161,7 +172,13 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 			 * The end of moving is synchronized with the endBarrier. If all threads 
 			 * reach this barrier the main thread can go on.
 			 */
-			this.endBarrier.arriveAndAwaitAdvance();
+			if (QSim.analyzeRunTimes) {
+				long waitStart = System.nanoTime();
+				this.endBarrier.arriveAndAwaitAdvance();
+				this.barrierWaitTime += System.nanoTime() - waitStart;
+			} else {
+				this.endBarrier.arriveAndAwaitAdvance();
+			}
 		}
 	}
 	private void moveNodes() {
@@ -171,6 +188,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		Iterator<QNodeImpl> simNodes = this.nodesQueue.iterator();
 		while (simNodes.hasNext()) {
 			node = simNodes.next();
+			this.movedNodes++;
 			remainsActive = node.doSimStep(time);
 			if (!remainsActive) simNodes.remove();
 		}
@@ -183,6 +201,7 @@ class QNetsimEngineRunner extends NetElementActivationRegistry implements Runnab
 		ListIterator<QLinkI> simLinks = this.linksList.listIterator();
 		while (simLinks.hasNext()) {
 			link = simLinks.next();
+			this.movedLinks++;
 
 			remainsActive = link.doSimStep();
 
@@ -0,0 +1,277 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarTimeVariantAttributes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+
+/**
+ * The time-variant attributes of all {@link ColumnarTimeVariantLinkImpl}s of a network, stored in a few primitive
+ * arrays instead of one {@link java.util.TreeMap} and three {@link TimeVariantAttribute}s per link.
+ * <p></p>
+ * For each link (addressed by {@link Id#index()}), the times of its changes are stored in ascending order in one
+ * segment of {@link #times}; the values of freespeed, flow capacity and number of lanes that are valid from these
+ * times on are stored at the same positions in the value arrays.  The values valid before the first change are the
+ * base values of the link.  Lookups are done by binary search within the segment of the link.
+ * <p></p>
+ * The store is built in one pass from all change events of the network.  Later changes only update the segments of
+ * the affected links: a change after the last one of a link is appended, everything else rebuilds the segment of the
+ * link from its change events.  A segment that runs out of space is moved to the end of the arrays.  Like the changes
+ * of {@link TimeVariantLinkImpl}, updates must not run concurrently with lookups.
+ *
+ * @see ColumnarTimeVariantLinkFactory
+ */
+final class ColumnarTimeVariantAttributes {
+
+	private final double capacityPeriod;
+	private int[] offsets;
+	private int[] capacities;
+	private int[] lengths;
+	private int size;
+	private double[] times;
+	private double[] freespeeds;
+	private double[] flowCapacitiesPerSec;
+	private double[] lanes;
+
+	/**
+	 * @param changeEvents the change events of the network, in any order.  Events with the same start time are applied
+	 * in the order of the collection.
+	 */
+	ColumnarTimeVariantAttributes(final Collection<NetworkChangeEvent> changeEvents, final double capacityPeriod) {
+		this.capacityPeriod = capacityPeriod;
+		NetworkChangeEvent[] events = sortedByStartTime(changeEvents);
+
+		// first pass: count the changes per link to find the segments.
+		int numberOfLinks = Id.getNumberOfIds(Link.class);
+		this.offsets = new int[numberOfLinks];
+		this.capacities = new int[numberOfLinks];
+		this.lengths = new int[numberOfLinks];
+		for (NetworkChangeEvent event : events) {
+			for (Link link : event.getLinks()) {
+				this.capacities[link.getId().index()]++;
+			}
+		}
+		for (int i = 0; i < numberOfLinks; i++) {
+			this.offsets[i] = this.size;
+			this.size += this.capacities[i];
+		}
+		this.times = new double[this.size];
+		this.freespeeds = new double[this.size];
+		this.flowCapacitiesPerSec = new double[this.size];
+		this.lanes = new double[this.size];
+
+		// second pass: apply the changes in chronological order.  Several changes of a link at the same time are merged
+		// into one entry, so the segments may have some unused space at the end.
+		for (NetworkChangeEvent event : events) {
+			for (Link link : event.getLinks()) {
+				applyChange(link, event);
+			}
+		}
+	}
+
+	private static NetworkChangeEvent[] sortedByStartTime(final Collection<NetworkChangeEvent> changeEvents) {
+		NetworkChangeEvent[] events = changeEvents.toArray(new NetworkChangeEvent[changeEvents.size()]);
+		Arrays.sort(events, new NetworkChangeEvent.StartTimeComparator()); // stable
+		return events;
+	}
+
+	/**
+	 * Updates the link for a change event that was added after the store was built.
+	 *
+	 * @param changeEvents all change events of the network, including the new one
+	 */
+	void addChange(final Link link, final NetworkChangeEvent event, final Collection<NetworkChangeEvent> changeEvents) {
+		int index = link.getId().index();
+		ensureLink(index);
+		int length = this.lengths[index];
+		double lastTime = length > 0 ? this.times[this.offsets[index] + length - 1] : Double.NEGATIVE_INFINITY;
+		if (lastTime > event.getStartTime()) {
+			// the change is not the last one of the link, so the later values have to be computed again
+			updateLink(link, changeEvents);
+			return;
+		}
+		if (lastTime < event.getStartTime()) {
+			ensureCapacity(index, length + 1);
+		} // else it is merged into the last change
+		applyChange(link, event);
+	}
+
+	/**
+	 * Computes the segment of the link again from its change events, e.g. after its base values changed.
+	 *
+	 * @param changeEvents all change events of the network
+	 */
+	void updateLink(final Link link, final Collection<NetworkChangeEvent> changeEvents) {
+		List<NetworkChangeEvent> linkEvents = new ArrayList<>();
+		int count = 0;
+		for (NetworkChangeEvent event : changeEvents) {
+			int occurrences = 0;
+			for (Link eventLink : event.getLinks()) {
+				if (eventLink == link) {
+					occurrences++;
+				}
+			}
+			if (occurrences > 0) {
+				linkEvents.add(event);
+				count += occurrences;
+			}
+		}
+		int index = link.getId().index();
+		ensureLink(index);
+		this.lengths[index] = 0;
+		ensureCapacity(index, count);
+		for (NetworkChangeEvent event : sortedByStartTime(linkEvents)) {
+			for (Link eventLink : event.getLinks()) {
+				if (eventLink == link) {
+					applyChange(link, event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies the change to the values of the link valid at its start time.  The change must not be earlier than the
+	 * last change of the link, and there must be space for one more entry in the segment of the link.
+	 */
+	private void applyChange(final Link link, final NetworkChangeEvent event) {
+		int index = link.getId().index();
+		int position = this.offsets[index] + this.lengths[index];
+		double freespeed;
+		double flowCapacity;
+		double numberOfLanes;
+		if (this.lengths[index] == 0) {
+			freespeed = link.getFreespeed();
+			flowCapacity = link.getCapacity() / this.capacityPeriod;
+			numberOfLanes = link.getNumberOfLanes();
+		} else {
+			freespeed = this.freespeeds[position - 1];
+			flowCapacity = this.flowCapacitiesPerSec[position - 1];
+			numberOfLanes = this.lanes[position - 1];
+			if (this.times[position - 1] == event.getStartTime()) {
+				position--;
+			}
+		}
+		if (position == this.offsets[index] + this.lengths[index]) {
+			this.lengths[index]++;
+		}
+		this.times[position] = event.getStartTime();
+		this.freespeeds[position] = applyChange(event.getFreespeedChange(), freespeed);
+		this.flowCapacitiesPerSec[position] = applyChange(event.getFlowCapacityChange(), flowCapacity);
+		this.lanes[position] = applyChange(event.getLanesChange(), numberOfLanes);
+	}
+
+	/**
+	 * Makes room for links created after the store was built.
+	 */
+	private void ensureLink(final int index) {
+		if (index >= this.lengths.length) {
+			int numberOfLinks = Math.max(index + 1, Id.getNumberOfIds(Link.class));
+			this.offsets = Arrays.copyOf(this.offsets, numberOfLinks);
+			this.capacities = Arrays.copyOf(this.capacities, numberOfLinks);
+			this.lengths = Arrays.copyOf(this.lengths, numberOfLinks);
+		}
+	}
+
+	/**
+	 * Moves the segment of the link to the end of the arrays if it has less space than needed.  The old space is not
+	 * reused.
+	 */
+	private void ensureCapacity(final int index, final int capacity) {
+		if (this.capacities[index] >= capacity) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, 2 * this.capacities[index]);
+		int newOffset = this.size;
+		this.size += newCapacity;
+		if (this.size > this.times.length) {
+			int arrayLength = Math.max(this.size, 2 * this.times.length);
+			this.times = Arrays.copyOf(this.times, arrayLength);
+			this.freespeeds = Arrays.copyOf(this.freespeeds, arrayLength);
+			this.flowCapacitiesPerSec = Arrays.copyOf(this.flowCapacitiesPerSec, arrayLength);
+			this.lanes = Arrays.copyOf(this.lanes, arrayLength);
+		}
+		int offset = this.offsets[index];
+		int length = this.lengths[index];
+		System.arraycopy(this.times, offset, this.times, newOffset, length);
+		System.arraycopy(this.freespeeds, offset, this.freespeeds, newOffset, length);
+		System.arraycopy(this.flowCapacitiesPerSec, offset, this.flowCapacitiesPerSec, newOffset, length);
+		System.arraycopy(this.lanes, offset, this.lanes, newOffset, length);
+		this.offsets[index] = newOffset;
+		this.capacities[index] = newCapacity;
+	}
+
+	private static double applyChange(final ChangeValue change, final double currentValue) {
+		if (change == null) {
+			return currentValue;
+		}
+		switch (change.getType()) {
+		case ABSOLUTE_IN_SI_UNITS:
+			return change.getValue();
+		case FACTOR:
+			return currentValue * change.getValue();
+		case OFFSET_IN_SI_UNITS:
+			return currentValue + change.getValue();
+		default:
+			throw new RuntimeException("unknown ChangeType");
+		}
+	}
+
+	/**
+	 * @return the position of the change valid at the given time, or <code>-1</code> if there is none and the base value applies.
+	 */
+	private int findPosition(final Id<Link> linkId, final double time) {
+		int index = linkId.index();
+		if (index >= this.lengths.length || this.lengths[index] == 0) {
+			return -1;
+		}
+		int from = this.offsets[index];
+		int key = Arrays.binarySearch(this.times, from, from + this.lengths[index], time);
+		key = key >= 0 ? key : -key - 2;
+		return key < from ? -1 : key;
+	}
+
+	double getFreespeed(final Link link, final double time) {
+		int position = findPosition(link.getId(), time);
+		return position < 0 ? link.getFreespeed() : this.freespeeds[position];
+	}
+
+	double getFlowCapacityPerSec(final Link link, final double time, final double capacityPeriod) {
+		int position = findPosition(link.getId(), time);
+		return position < 0 ? link.getCapacity() / capacityPeriod : this.flowCapacitiesPerSec[position];
+	}
+
+	double getNumberOfLanes(final Link link, final double time) {
+		int position = findPosition(link.getId(), time);
+		return position < 0 ? link.getNumberOfLanes() : this.lanes[position];
+	}
+
+	int getNumberOfChanges(final Id<Link> linkId) {
+		int index = linkId.index();
+		return index < this.lengths.length ? this.lengths[index] : 0;
+	}
+
+}
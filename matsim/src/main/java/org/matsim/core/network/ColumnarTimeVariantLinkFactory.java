@@ -0,0 +1,43 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarTimeVariantLinkFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * Creates time-variant links whose changes are kept in one columnar store per network instead of per link.  This
+ * saves a lot of memory for networks with many change events (e.g. a capacity change every 15 minutes on all links),
+ * and the change events are applied in bulk instead of one by one.
+ *
+ * @see org.matsim.core.config.groups.NetworkConfigGroup#isUsingColumnarTimeVariantAttributes()
+ */
+public final class ColumnarTimeVariantLinkFactory implements LinkFactory {
+
+	@Override
+	public Link createLink(Id<Link> id, Node from, Node to, Network network, double length,
+			double freespeed, double capacity, double nOfLanes) {
+		return new ColumnarTimeVariantLinkImpl(id, from, to, network, length, freespeed, capacity, nOfLanes);
+	}
+
+}
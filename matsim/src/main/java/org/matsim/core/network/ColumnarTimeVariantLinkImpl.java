@@ -0,0 +1,87 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarTimeVariantLinkImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+
+/**
+ * A time-variant link that keeps no state about its changes itself, but looks them up in the
+ * {@link ColumnarTimeVariantAttributes} of its network.  Behaves like a {@link TimeVariantLinkImpl} with variable
+ * intervals.
+ */
+final class ColumnarTimeVariantLinkImpl extends LinkImpl {
+
+	private final NetworkImpl network;
+
+	ColumnarTimeVariantLinkImpl(final Id<Link> id, final Node from, final Node to, final Network network,
+			final double length, final double freespeed, final double capacity, final double lanes) {
+		super(id, from, to, network, length, freespeed, capacity, lanes);
+		if (!(network instanceof NetworkImpl)) {
+			throw new IllegalArgumentException("columnar time-variant links are only supported by " + NetworkImpl.class.getName());
+		}
+		this.network = (NetworkImpl) network;
+	}
+
+	@Override
+	public double getFreespeed(final double time) {
+		return this.network.getColumnarTimeVariantAttributes().getFreespeed(this, time);
+	}
+
+	@Override
+	public void setFreespeed(double freespeed) {
+		super.setFreespeed(freespeed);
+		this.network.updateColumnarTimeVariantAttributes(this);
+	}
+
+	@Override
+	public double getFlowCapacityPerSec(final double time) {
+		return this.network.getColumnarTimeVariantAttributes().getFlowCapacityPerSec(this, time, getCapacityPeriod());
+	}
+
+	/**
+	 * @see TimeVariantLinkImpl#getCapacity(double)
+	 */
+	@Override
+	public double getCapacity(final double time) {
+		return getFlowCapacityPerSec(time) * getCapacityPeriod();
+	}
+
+	@Override
+	public void setCapacity(double capacityPerNetworkCapcityPeriod) {
+		super.setCapacity(capacityPerNetworkCapcityPeriod);
+		this.network.updateColumnarTimeVariantAttributes(this);
+	}
+
+	@Override
+	public double getNumberOfLanes(final double time) {
+		return this.network.getColumnarTimeVariantAttributes().getNumberOfLanes(this, time);
+	}
+
+	@Override
+	public void setNumberOfLanes(double lanes) {
+		super.setNumberOfLanes(lanes);
+		this.network.updateColumnarTimeVariantAttributes(this);
+	}
+
+}
@@ -0,0 +1,919 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MappedNetwork.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Identifiable;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.utils.collections.QuadTree;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+
+/**
+ * A read-only {@link Network} backed by a memory-mapped file, see {@link NetworkUtils#writeMappedNetwork(Network, String)}.
+ * <p></p>
+ * The coordinates of the nodes and the lengths, capacities, freespeeds, lanes, modes and types of the links are kept
+ * in primitive columns of the file, as well as the in- and out-links of the nodes.  They are read from the file on
+ * every access, so they are not on the heap; the operating system keeps the file in its page cache and shares it
+ * between all processes that map it.  On the heap, there are only the ids, one small object per node and link, and
+ * the modes and types of links.
+ * <p></p>
+ * The network cannot be modified.  Attributes of nodes and links other than the type of links are not stored in the
+ * file; they can be set, but live on the heap of this process only.  The links are not time-variant.
+ */
+/*deliberately package*/ final class MappedNetwork implements Network, SearchableNetwork {
+
+	private final static Logger log = Logger.getLogger(MappedNetwork.class);
+
+	private static final int MAGIC = 0x4d534e57; // "MSNW"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 6 * 4 + 3 * 8;
+
+	private static final int NO_STRING = -1;
+
+	private final ByteBuffer buffer;
+	private final int nodeCount;
+	private final int linkCount;
+
+	// offsets of the columns in the file
+	private final int nodeXOffset;
+	private final int nodeYOffset;
+	private final int nodeZOffset;
+	private final int linkLengthOffset;
+	private final int linkFreespeedOffset;
+	private final int linkCapacityOffset;
+	private final int linkLanesOffset;
+	private final int linkFromOffset;
+	private final int linkToOffset;
+	private final int linkModesOffset;
+	private final int linkTypeOffset;
+	private final int outLinkStartOffset;
+	private final int outLinksOffset;
+	private final int inLinkStartOffset;
+	private final int inLinksOffset;
+
+	private final double capacityPeriod;
+	private final double effectiveCellSize;
+	private final double effectiveLaneWidth;
+	private String name;
+
+	private final MappedNode[] nodes;
+	private final MappedLink[] links;
+	private final Map<Id<Node>, Node> nodeMap;
+	private final Map<Id<Link>, Link> linkMap;
+	private final Set<String>[] modeSets;
+	private final String[] types;
+	private final Attributes attributes = new Attributes();
+
+	private QuadTree<Node> nodeQuadTree = null;
+	private LinkQuadTree linkQuadTree = null;
+
+	@SuppressWarnings("unchecked")
+	private MappedNetwork(final ByteBuffer buffer) {
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC) {
+			throw new IllegalArgumentException("not a mapped network file.");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IllegalArgumentException("unsupported version of mapped network file: " + buffer.getInt(4));
+		}
+		this.nodeCount = buffer.getInt(8);
+		this.linkCount = buffer.getInt(12);
+		int modeSetCount = buffer.getInt(16);
+		int typeCount = buffer.getInt(20);
+		this.capacityPeriod = buffer.getDouble(24);
+		this.effectiveCellSize = buffer.getDouble(32);
+		this.effectiveLaneWidth = buffer.getDouble(40);
+
+		int offset = HEADER_SIZE;
+		this.nodeXOffset = offset;
+		offset += 8 * this.nodeCount;
+		this.nodeYOffset = offset;
+		offset += 8 * this.nodeCount;
+		this.nodeZOffset = offset;
+		offset += 8 * this.nodeCount;
+		this.linkLengthOffset = offset;
+		offset += 8 * this.linkCount;
+		this.linkFreespeedOffset = offset;
+		offset += 8 * this.linkCount;
+		this.linkCapacityOffset = offset;
+		offset += 8 * this.linkCount;
+		this.linkLanesOffset = offset;
+		offset += 8 * this.linkCount;
+		this.linkFromOffset = offset;
+		offset += 4 * this.linkCount;
+		this.linkToOffset = offset;
+		offset += 4 * this.linkCount;
+		this.linkModesOffset = offset;
+		offset += 4 * this.linkCount;
+		this.linkTypeOffset = offset;
+		offset += 4 * this.linkCount;
+		this.outLinkStartOffset = offset;
+		offset += 4 * (this.nodeCount + 1);
+		this.outLinksOffset = offset;
+		offset += 4 * this.linkCount;
+		this.inLinkStartOffset = offset;
+		offset += 4 * (this.nodeCount + 1);
+		this.inLinksOffset = offset;
+		offset += 4 * this.linkCount;
+
+		// the strings are kept on the heap anyway, so they are read right away
+		StringReader strings = new StringReader(buffer, offset);
+		this.name = strings.read();
+		Id<Node>[] nodeIds = new Id[this.nodeCount];
+		for (int i = 0; i < this.nodeCount; i++) {
+			nodeIds[i] = Id.create(strings.read(), Node.class);
+		}
+		Id<Link>[] linkIds = new Id[this.linkCount];
+		for (int i = 0; i < this.linkCount; i++) {
+			linkIds[i] = Id.create(strings.read(), Link.class);
+		}
+		this.modeSets = new Set[modeSetCount];
+		for (int i = 0; i < modeSetCount; i++) {
+			int size = strings.readInt();
+			Set<String> modes = new LinkedHashSet<>();
+			for (int j = 0; j < size; j++) {
+				modes.add(strings.read().intern());
+			}
+			this.modeSets[i] = Collections.unmodifiableSet(modes);
+		}
+		this.types = new String[typeCount];
+		for (int i = 0; i < typeCount; i++) {
+			this.types[i] = strings.read().intern();
+		}
+
+		this.nodes = new MappedNode[this.nodeCount];
+		for (int i = 0; i < this.nodeCount; i++) {
+			this.nodes[i] = new MappedNode(this, i, nodeIds[i]);
+		}
+		this.links = new MappedLink[this.linkCount];
+		for (int i = 0; i < this.linkCount; i++) {
+			this.links[i] = new MappedLink(this, i, linkIds[i]);
+		}
+		this.nodeMap = new ElementMap<Node>(this.nodes);
+		this.linkMap = new ElementMap<Link>(this.links);
+	}
+
+	/**
+	 * Maps the file into memory.  The file must not be modified while the network is in use.
+	 */
+	static MappedNetwork open(final File file) {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("mapped network file is too large: " + file);
+			}
+			// the mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			MappedNetwork network = new MappedNetwork(buffer);
+			log.info("mapped network with " + network.nodeCount + " nodes and " + network.linkCount + " links from " + file);
+			return network;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes the network in the format read by {@link #open(File)}.  Only the attributes listed in
+	 * {@link MappedNetwork} are written.
+	 */
+	static void write(final Network network, final File file) {
+		List<Node> nodes = new ArrayList<>(network.getNodes().values());
+		List<Link> links = new ArrayList<>(network.getLinks().values());
+		Map<Id<Node>, Integer> nodeIndices = new HashMap<>();
+		for (Node node : nodes) {
+			nodeIndices.put(node.getId(), nodeIndices.size());
+		}
+		Map<Id<Link>, Integer> linkIndices = new HashMap<>();
+		for (Link link : links) {
+			linkIndices.put(link.getId(), linkIndices.size());
+		}
+		Map<Set<String>, Integer> modeSetIndices = new LinkedHashMap<>();
+		Map<String, Integer> typeIndices = new LinkedHashMap<>();
+		for (Link link : links) {
+			if (!modeSetIndices.containsKey(link.getAllowedModes())) {
+				modeSetIndices.put(link.getAllowedModes(), modeSetIndices.size());
+			}
+			String type = NetworkUtils.getType(link);
+			if (type != null && !typeIndices.containsKey(type)) {
+				typeIndices.put(type, typeIndices.size());
+			}
+		}
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(nodes.size());
+			out.writeInt(links.size());
+			out.writeInt(modeSetIndices.size());
+			out.writeInt(typeIndices.size());
+			out.writeDouble(network.getCapacityPeriod());
+			out.writeDouble(network.getEffectiveCellSize());
+			out.writeDouble(network.getEffectiveLaneWidth());
+
+			for (Node node : nodes) {
+				out.writeDouble(node.getCoord().getX());
+			}
+			for (Node node : nodes) {
+				out.writeDouble(node.getCoord().getY());
+			}
+			for (Node node : nodes) {
+				out.writeDouble(node.getCoord().hasZ() ? node.getCoord().getZ() : Double.NaN);
+			}
+			for (Link link : links) {
+				out.writeDouble(link.getLength());
+			}
+			for (Link link : links) {
+				out.writeDouble(link.getFreespeed());
+			}
+			for (Link link : links) {
+				out.writeDouble(link.getCapacity());
+			}
+			for (Link link : links) {
+				out.writeDouble(link.getNumberOfLanes());
+			}
+			for (Link link : links) {
+				out.writeInt(nodeIndices.get(link.getFromNode().getId()));
+			}
+			for (Link link : links) {
+				out.writeInt(nodeIndices.get(link.getToNode().getId()));
+			}
+			for (Link link : links) {
+				out.writeInt(modeSetIndices.get(link.getAllowedModes()));
+			}
+			for (Link link : links) {
+				String type = NetworkUtils.getType(link);
+				out.writeInt(type == null ? NO_STRING : typeIndices.get(type));
+			}
+			// the in- and out-links in the order of the network, as routers may depend on it in case of ties
+			writeAdjacency(out, nodes, linkIndices, true);
+			writeAdjacency(out, nodes, linkIndices, false);
+
+			writeString(out, network.getName());
+			for (Node node : nodes) {
+				writeString(out, node.getId().toString());
+			}
+			for (Link link : links) {
+				writeString(out, link.getId().toString());
+			}
+			for (Set<String> modes : modeSetIndices.keySet()) {
+				out.writeInt(modes.size());
+				for (String mode : modes) {
+					writeString(out, mode);
+				}
+			}
+			for (String type : typeIndices.keySet()) {
+				writeString(out, type);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static void writeAdjacency(final DataOutputStream out, final List<Node> nodes, final Map<Id<Link>, Integer> linkIndices,
+			final boolean outLinks) throws IOException {
+		int start = 0;
+		for (Node node : nodes) {
+			out.writeInt(start);
+			start += (outLinks ? node.getOutLinks() : node.getInLinks()).size();
+		}
+		out.writeInt(start);
+		for (Node node : nodes) {
+			for (Id<Link> linkId : (outLinks ? node.getOutLinks() : node.getInLinks()).keySet()) {
+				out.writeInt(linkIndices.get(linkId));
+			}
+		}
+	}
+
+	private static void writeString(final DataOutputStream out, final String value) throws IOException {
+		if (value == null) {
+			out.writeInt(NO_STRING);
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	@Override
+	public NetworkFactory getFactory() {
+		throw new UnsupportedOperationException("a mapped network cannot be modified; create a new network instead.");
+	}
+
+	@Override
+	public Map<Id<Node>, ? extends Node> getNodes() {
+		return this.nodeMap;
+	}
+
+	@Override
+	public Map<Id<Link>, ? extends Link> getLinks() {
+		return this.linkMap;
+	}
+
+	@Override
+	public double getCapacityPeriod() {
+		return this.capacityPeriod;
+	}
+
+	@Override
+	public double getEffectiveLaneWidth() {
+		return this.effectiveLaneWidth;
+	}
+
+	@Override
+	public double getEffectiveCellSize() {
+		return this.effectiveCellSize;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+
+	@Override
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		return this.attributes;
+	}
+
+	@Override
+	public void addNode(final Node nn) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public void addLink(final Link ll) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public Node removeNode(final Id<Node> nodeId) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public Link removeLink(final Id<Link> linkId) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public void setCapacityPeriod(final double capPeriod) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public void setEffectiveCellSize(final double effectiveCellSize) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public void setEffectiveLaneWidth(final double effectiveLaneWidth) {
+		throw new UnsupportedOperationException("a mapped network cannot be modified.");
+	}
+
+	@Override
+	public Link getNearestLinkExactly(final Coord coord) {
+		return getLinkQuadTree().getNearest(coord.getX(), coord.getY());
+	}
+
+	@Override
+	public Node getNearestNode(final Coord coord) {
+		return getNodeQuadTree().getClosest(coord.getX(), coord.getY());
+	}
+
+	@Override
+	public Collection<Node> getNearestNodes(final Coord coord, final double distance) {
+		return getNodeQuadTree().getDisk(coord.getX(), coord.getY(), distance);
+	}
+
+	/**
+	 * Built when first needed; unlike the columns, the quad trees are on the heap.
+	 */
+	@Override
+	public synchronized QuadTree<Node> getNodeQuadTree() {
+		if (this.nodeQuadTree == null) {
+			double[] bounds = getBounds();
+			QuadTree<Node> quadTree = new QuadTree<>(bounds[0], bounds[1], bounds[2], bounds[3]);
+			for (MappedNode node : this.nodes) {
+				quadTree.put(getX(node.index), getY(node.index), node);
+			}
+			this.nodeQuadTree = quadTree;
+		}
+		return this.nodeQuadTree;
+	}
+
+	@Override
+	public synchronized LinkQuadTree getLinkQuadTree() {
+		if (this.linkQuadTree == null) {
+			double[] bounds = getBounds();
+			LinkQuadTree quadTree = new LinkQuadTree(bounds[0], bounds[1], bounds[2], bounds[3]);
+			for (MappedLink link : this.links) {
+				quadTree.put(link);
+			}
+			this.linkQuadTree = quadTree;
+		}
+		return this.linkQuadTree;
+	}
+
+	private double[] getBounds() {
+		double minx = Double.POSITIVE_INFINITY;
+		double miny = Double.POSITIVE_INFINITY;
+		double maxx = Double.NEGATIVE_INFINITY;
+		double maxy = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < this.nodeCount; i++) {
+			minx = Math.min(minx, getX(i));
+			miny = Math.min(miny, getY(i));
+			maxx = Math.max(maxx, getX(i));
+			maxy = Math.max(maxy, getY(i));
+		}
+		// same margin as NetworkImpl
+		return new double[] { minx - 1.0, miny - 1.0, maxx + 1.0, maxy + 1.0 };
+	}
+
+	@Override
+	public String toString() {
+		return super.toString() +
+				"[capperiod=" + this.capacityPeriod + "]" +
+				"[nof_nodes=" + this.nodeCount + "]";
+	}
+
+	// column access; absolute reads do not change the buffer, so they are thread-safe
+
+	private double getX(final int node) {
+		return this.buffer.getDouble(this.nodeXOffset + 8 * node);
+	}
+
+	private double getY(final int node) {
+		return this.buffer.getDouble(this.nodeYOffset + 8 * node);
+	}
+
+	private double getZ(final int node) {
+		return this.buffer.getDouble(this.nodeZOffset + 8 * node);
+	}
+
+	private int getInt(final int columnOffset, final int index) {
+		return this.buffer.getInt(columnOffset + 4 * index);
+	}
+
+	private double getDouble(final int columnOffset, final int index) {
+		return this.buffer.getDouble(columnOffset + 8 * index);
+	}
+
+	private static final class MappedNode implements Node {
+
+		private final MappedNetwork network;
+		private final int index;
+		private final Id<Node> id;
+		private Attributes attributes = null;
+
+		MappedNode(final MappedNetwork network, final int index, final Id<Node> id) {
+			this.network = network;
+			this.index = index;
+			this.id = id;
+		}
+
+		@Override
+		public Id<Node> getId() {
+			return this.id;
+		}
+
+		@Override
+		public Coord getCoord() {
+			double z = this.network.getZ(this.index);
+			double x = this.network.getX(this.index);
+			double y = this.network.getY(this.index);
+			return Double.isNaN(z) ? new Coord(x, y) : new Coord(x, y, z);
+		}
+
+		@Override
+		public Map<Id<Link>, ? extends Link> getInLinks() {
+			MappedNetwork n = this.network;
+			return new AdjacencyMap(n, n.inLinksOffset, n.getInt(n.inLinkStartOffset, this.index), n.getInt(n.inLinkStartOffset, this.index + 1));
+		}
+
+		@Override
+		public Map<Id<Link>, ? extends Link> getOutLinks() {
+			MappedNetwork n = this.network;
+			return new AdjacencyMap(n, n.outLinksOffset, n.getInt(n.outLinkStartOffset, this.index), n.getInt(n.outLinkStartOffset, this.index + 1));
+		}
+
+		@Override
+		public synchronized Attributes getAttributes() {
+			if (this.attributes == null) {
+				this.attributes = new Attributes();
+			}
+			return this.attributes;
+		}
+
+		@Override
+		public boolean addInLink(final Link link) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public boolean addOutLink(final Link link) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public Link removeInLink(final Id<Link> linkId) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public Link removeOutLink(final Id<Link> outLinkId) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setCoord(final Coord coord) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public String toString() {
+			return "[id=" + this.id + "]" + "[coord=" + getCoord() + "]";
+		}
+	}
+
+	private static final class MappedLink implements Link {
+
+		private final MappedNetwork network;
+		private final int index;
+		private final Id<Link> id;
+		private Attributes attributes = null;
+
+		MappedLink(final MappedNetwork network, final int index, final Id<Link> id) {
+			this.network = network;
+			this.index = index;
+			this.id = id;
+		}
+
+		@Override
+		public Id<Link> getId() {
+			return this.id;
+		}
+
+		@Override
+		public Node getFromNode() {
+			return this.network.nodes[this.network.getInt(this.network.linkFromOffset, this.index)];
+		}
+
+		@Override
+		public Node getToNode() {
+			return this.network.nodes[this.network.getInt(this.network.linkToOffset, this.index)];
+		}
+
+		@Override
+		public Coord getCoord() {
+			MappedNetwork n = this.network;
+			int from = n.getInt(n.linkFromOffset, this.index);
+			int to = n.getInt(n.linkToOffset, this.index);
+			return new Coord((n.getX(from) + n.getX(to)) / 2.0, (n.getY(from) + n.getY(to)) / 2.0);
+		}
+
+		@Override
+		public double getLength() {
+			return this.network.getDouble(this.network.linkLengthOffset, this.index);
+		}
+
+		@Override
+		public double getNumberOfLanes() {
+			return this.network.getDouble(this.network.linkLanesOffset, this.index);
+		}
+
+		@Override
+		public double getNumberOfLanes(final double time) {
+			return getNumberOfLanes();
+		}
+
+		@Override
+		public double getFreespeed() {
+			return this.network.getDouble(this.network.linkFreespeedOffset, this.index);
+		}
+
+		@Override
+		public double getFreespeed(final double time) {
+			return getFreespeed();
+		}
+
+		@Override
+		public double getCapacity() {
+			return this.network.getDouble(this.network.linkCapacityOffset, this.index);
+		}
+
+		@Override
+		public double getCapacity(final double time) {
+			return getCapacity();
+		}
+
+		@Override
+		public double getFlowCapacityPerSec() {
+			return getCapacity() / this.network.capacityPeriod;
+		}
+
+		@Override
+		public double getFlowCapacityPerSec(final double time) {
+			return getFlowCapacityPerSec();
+		}
+
+		@Override
+		public Set<String> getAllowedModes() {
+			return this.network.modeSets[this.network.getInt(this.network.linkModesOffset, this.index)];
+		}
+
+		/**
+		 * Contains the type of the link from the file, see {@link NetworkUtils#getType(Link)}.
+		 */
+		@Override
+		public synchronized Attributes getAttributes() {
+			if (this.attributes == null) {
+				this.attributes = new Attributes();
+				int type = this.network.getInt(this.network.linkTypeOffset, this.index);
+				if (type != NO_STRING) {
+					this.attributes.putAttribute(NetworkUtils.TYPE, this.network.types[type]);
+				}
+			}
+			return this.attributes;
+		}
+
+		@Override
+		public boolean setFromNode(final Node node) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public boolean setToNode(final Node node) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setFreespeed(final double freespeed) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setLength(final double length) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setNumberOfLanes(final double lanes) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setCapacity(final double capacity) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public void setAllowedModes(final Set<String> modes) {
+			throw new UnsupportedOperationException("a mapped network cannot be modified.");
+		}
+
+		@Override
+		public String toString() {
+			return "[id=" + this.id + "]" +
+					"[from_id=" + getFromNode().getId() + "]" +
+					"[to_id=" + getToNode().getId() + "]" +
+					"[length=" + getLength() + "]" +
+					"[freespeed=" + getFreespeed() + "]" +
+					"[capacity=" + getCapacity() + "]" +
+					"[permlanes=" + getNumberOfLanes() + "]" +
+					"[modes=" + getAllowedModes() + "]";
+		}
+	}
+
+	/**
+	 * All nodes or links of the network, in the order of the file.  Looks them up by the index of their id.
+	 */
+	private static final class ElementMap<T extends Identifiable<T>> extends AbstractMap<Id<T>, T> {
+
+		private final T[] elements;
+		private final int[] indexById;
+
+		ElementMap(final T[] elements) {
+			this.elements = elements;
+			int size = 0;
+			for (T element : elements) {
+				size = Math.max(size, element.getId().index() + 1);
+			}
+			this.indexById = new int[size];
+			Arrays.fill(this.indexById, -1);
+			for (int i = 0; i < elements.length; i++) {
+				this.indexById[elements[i].getId().index()] = i;
+			}
+		}
+
+		@Override
+		public T get(final Object key) {
+			if (!(key instanceof Id)) {
+				return null;
+			}
+			int idIndex = ((Id<?>) key).index();
+			if (idIndex < 0 || idIndex >= this.indexById.length || this.indexById[idIndex] < 0) {
+				return null;
+			}
+			T element = this.elements[this.indexById[idIndex]];
+			// ids of other types may have the same index
+			return element.getId().equals(key) ? element : null;
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return this.elements.length;
+		}
+
+		@Override
+		public Set<Entry<Id<T>, T>> entrySet() {
+			return new AbstractSet<Entry<Id<T>, T>>() {
+				@Override
+				public Iterator<Entry<Id<T>, T>> iterator() {
+					return new Iterator<Entry<Id<T>, T>>() {
+						private int next = 0;
+
+						@Override
+						public boolean hasNext() {
+							return this.next < ElementMap.this.elements.length;
+						}
+
+						@Override
+						public Entry<Id<T>, T> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							T element = ElementMap.this.elements[this.next++];
+							return new SimpleImmutableEntry<>(element.getId(), element);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return ElementMap.this.elements.length;
+				}
+			};
+		}
+	}
+
+	/**
+	 * The in- or out-links of a node, a range of the adjacency column.
+	 */
+	private static final class AdjacencyMap extends AbstractMap<Id<Link>, Link> {
+
+		private final MappedNetwork network;
+		private final int columnOffset;
+		private final int start;
+		private final int end;
+
+		AdjacencyMap(final MappedNetwork network, final int columnOffset, final int start, final int end) {
+			this.network = network;
+			this.columnOffset = columnOffset;
+			this.start = start;
+			this.end = end;
+		}
+
+		private MappedLink getLink(final int i) {
+			return this.network.links[this.network.getInt(this.columnOffset, i)];
+		}
+
+		@Override
+		public Link get(final Object key) {
+			for (int i = this.start; i < this.end; i++) {
+				MappedLink link = getLink(i);
+				if (link.id.equals(key)) {
+					return link;
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			return get(key) != null;
+		}
+
+		@Override
+		public int size() {
+			return this.end - this.start;
+		}
+
+		@Override
+		public Set<Entry<Id<Link>, Link>> entrySet() {
+			return new AbstractSet<Entry<Id<Link>, Link>>() {
+				@Override
+				public Iterator<Entry<Id<Link>, Link>> iterator() {
+					return new Iterator<Entry<Id<Link>, Link>>() {
+						private int next = AdjacencyMap.this.start;
+
+						@Override
+						public boolean hasNext() {
+							return this.next < AdjacencyMap.this.end;
+						}
+
+						@Override
+						public Entry<Id<Link>, Link> next() {
+							if (!hasNext()) {
+								throw new NoSuchElementException();
+							}
+							Link link = getLink(this.next++);
+							return new SimpleImmutableEntry<>(link.getId(), link);
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return AdjacencyMap.this.end - AdjacencyMap.this.start;
+				}
+			};
+		}
+	}
+
+	private static final class StringReader {
+		private final ByteBuffer buffer;
+		private int position;
+
+		StringReader(final ByteBuffer buffer, final int position) {
+			this.buffer = buffer;
+			this.position = position;
+		}
+
+		int readInt() {
+			int value = this.buffer.getInt(this.position);
+			this.position += 4;
+			return value;
+		}
+
+		String read() {
+			int length = readInt();
+			if (length == NO_STRING) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			for (int i = 0; i < length; i++) {
+				bytes[i] = this.buffer.get(this.position + i);
+			}
+			this.position += length;
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -85,6 +85,9 @@ import java.util.Queue;
 //	});
 			= new PriorityQueue<>(11, new NetworkChangeEvent.StartTimeComparator() ) ;
 	
+	/** only used with {@link ColumnarTimeVariantLinkImpl}s; built from the network change events when needed. */
+	private volatile ColumnarTimeVariantAttributes columnarTimeVariantAttributes = null;
+
 	private String name = null;
 
 	private int counter=0;
@@ -256,6 +259,7 @@ import java.util.Queue;
 	public void setCapacityPeriod(final double capPeriod) {
 		testForLocked() ;
 		this.capacityPeriod = (int) capPeriod;
+		this.columnarTimeVariantAttributes = null;
 	}
 	@Override
 	public void setEffectiveCellSize(final double effectiveCellSize) {
@@ -287,6 +291,7 @@ import java.util.Queue;
 	 */
 	@Override public void setNetworkChangeEvents(final List<NetworkChangeEvent> events) {
 		this.networkChangeEvents.clear();
+		this.columnarTimeVariantAttributes = null;
 		for(Link link : getLinks().values()) {
 			if (link instanceof TimeVariantLinkImpl) {
 				((TimeVariantLinkImpl)link).clearEvents();
@@ -313,6 +318,14 @@ import java.util.Queue;
 		for (Link link : event.getLinks()) {
 			if (link instanceof TimeVariantLinkImpl) {
 				((TimeVariantLinkImpl)link).applyEvent(event);
+			} else if (link instanceof ColumnarTimeVariantLinkImpl) {
+				synchronized (this) {
+					// if the attributes are not built yet, the change is applied when they are built
+					ColumnarTimeVariantAttributes attributes = this.columnarTimeVariantAttributes;
+					if (attributes != null) {
+						attributes.addChange(link, event, this.networkChangeEvents);
+					}
+				}
 			} else {
 				throw new IllegalArgumentException("Link " + link.getId().toString() + " is not timeVariant. "
 						+ "Did you make the network factory time variant?  The easiest way to achieve this is "
@@ -325,6 +338,30 @@ import java.util.Queue;
 		}
 	}
 
+	/*package*/ ColumnarTimeVariantAttributes getColumnarTimeVariantAttributes() {
+		ColumnarTimeVariantAttributes attributes = this.columnarTimeVariantAttributes;
+		if (attributes == null) {
+			synchronized (this) {
+				attributes = this.columnarTimeVariantAttributes;
+				if (attributes == null) {
+					attributes = new ColumnarTimeVariantAttributes(this.networkChangeEvents, this.capacityPeriod);
+					this.columnarTimeVariantAttributes = attributes;
+				}
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * Updates the columnar attributes of a link after its base values changed.
+	 */
+	/*package*/ synchronized void updateColumnarTimeVariantAttributes(final Link link) {
+		ColumnarTimeVariantAttributes attributes = this.columnarTimeVariantAttributes;
+		if (attributes != null) {
+			attributes.updateLink(link, this.networkChangeEvents);
+		}
+	}
+
 	@Override
 	public double getCapacityPeriod() {
 		return this.capacityPeriod;
@@ -20,6 +20,7 @@
 
 package org.matsim.core.network;
 
+import java.io.File;
 import java.util.*;
 
 import org.apache.log4j.Logger;
@@ -57,7 +58,11 @@ public final class NetworkUtils {
         Network network = new NetworkImpl();
         
         if (networkConfigGroup.isTimeVariantNetwork()) {
-            network.getFactory().setLinkFactory(new VariableIntervalTimeVariantLinkFactory());
+            if (networkConfigGroup.isUsingColumnarTimeVariantAttributes()) {
+                network.getFactory().setLinkFactory(new ColumnarTimeVariantLinkFactory());
+            } else {
+                network.getFactory().setLinkFactory(new VariableIntervalTimeVariantLinkFactory());
+            }
         }
         
         return network;
@@ -596,22 +601,30 @@ public final class NetworkUtils {
 		}
 	}
 
+	/**
+	 * @return <code>null</code> for nodes of other implementations than the default one, which cannot have one, e.g.
+	 * those of a network read by {@link #readMappedNetwork(String)}
+	 */
 	@Deprecated // use link.getAttributes()... directly.  kai, dec'16
 	public static String getOrigId( Node node ) {
 		if ( node instanceof NodeImpl ) {
 			return ((NodeImpl) node).getOrigId() ;
 		} else {
-			throw new RuntimeException("wrong implementation of interface Node to do this") ;
+			return null ;
 		}
 	}
 
 
+	/**
+	 * @return <code>null</code> for nodes of other implementations than the default one, which cannot have one, e.g.
+	 * those of a network read by {@link #readMappedNetwork(String)}
+	 */
 	@Deprecated // use link.getAttributes()... directly.  kai, dec'16
 	public static String getType( Node node ) {
 		if ( node instanceof NodeImpl ) {
 			return ((NodeImpl) node).getType() ;
 		} else {
-			throw new RuntimeException("wrong implementation of interface Node to do this") ;
+			return null ;
 		}
 	}
 
@@ -786,6 +799,29 @@ public final class NetworkUtils {
 	public static void writeNetwork(Network network, String string) {
 		new NetworkWriter(network).write(string) ;
 	}
+
+	/**
+	 * Extension of files written by {@link #writeMappedNetwork(Network, String)}; such network input files are mapped
+	 * instead of parsed when the scenario is loaded.
+	 */
+	public static final String MAPPED_NETWORK_FILE_EXTENSION = ".mnet";
+
+	/**
+	 * Writes the network in a binary format that can be mapped into memory by {@link #readMappedNetwork(String)}.
+	 * Attributes of nodes and links are not written, except for the type of links.
+	 */
+	public static void writeMappedNetwork(Network network, String filename) {
+		MappedNetwork.write(network, new File(filename));
+	}
+
+	/**
+	 * Maps a network written by {@link #writeMappedNetwork(Network, String)} into memory.  The network is read-only and
+	 * mostly stays off the heap, so that several processes on the same machine share the memory for it.  It cannot be
+	 * time-variant.
+	 */
+	public static Network readMappedNetwork(String filename) {
+		return MappedNetwork.open(new File(filename));
+	}
 	
 	public static Link findLinkInOppositeDirection(Link link) {
 		for ( Link candidateLink : link.getToNode().getOutLinks().values() ) {
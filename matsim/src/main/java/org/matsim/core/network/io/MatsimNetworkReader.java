@@ -29,6 +29,7 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlStreamParser;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 
@@ -38,7 +39,7 @@ import org.xml.sax.Attributes;
  *
  * @author mrieser
  */
-public final class MatsimNetworkReader extends MatsimXmlParser {
+public final class MatsimNetworkReader extends MatsimXmlStreamParser {
 
 	private final static Logger log = Logger.getLogger(MatsimNetworkReader.class);
 	private final static String NETWORK_V1 = "network_v1.dtd";
@@ -54,7 +54,11 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 	private double dur = Time.UNDEFINED_TIME;
 
+	/** the codes of the activity types, see {@link PopulationUtils#getActivityTypeCode(String)} */
+	static final StringTable TYPE_CODES = new StringTable();
+
 	private String type;
+	private int typeCode = 0; // (0 = not yet looked up)
 	private Coord coord = null;
 	private Id<Link> linkId = null;
 	private Id<ActivityFacility> facilityId = null;
@@ -99,6 +103,16 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 	@Override
 	public final void setType(final String type) {
 		this.type = type.intern();
+		this.typeCode = 0;
+	}
+
+	/* package */ int getTypeCode() {
+		int code = this.typeCode;
+		if (code == 0) {
+			code = TYPE_CODES.index(this.type);
+			this.typeCode = code;
+		}
+		return code;
 	}
 
 	@Override
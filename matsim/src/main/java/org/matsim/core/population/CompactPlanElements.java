@@ -0,0 +1,399 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanElements.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.misc.Time;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * Encodes the plan elements of a {@link PlanImpl} into a compact byte array, and back.
+ * <ul>
+ * <li>activity types and modes are interned into a global string table and stored as their index,</li>
+ * <li>link, facility and vehicle ids are stored as their {@link Id#index()},</li>
+ * <li>times of day are stored as difference to the previous time of day of the plan, durations as they are; both
+ * as variable-length integers if they are whole seconds (which they mostly are),</li>
+ * <li>all other numbers are stored as variable-length integers or raw doubles.</li>
+ * </ul>
+ * Only plans consisting of plain {@link ActivityImpl}s and {@link LegImpl}s without attributes, and with routes that
+ * are either {@link NetworkRoute}s or generic routes as created by {@link RouteUtils}, can be encoded.  All other plans
+ * are left alone, so nothing is lost by the encoding.
+ * <p></p>
+ * Network routes of any class are encoded through their interface.  They are decoded into a clone of an empty route of
+ * the same class, so plans keep the type of network route the population was created with.  State that a class keeps
+ * beyond {@link NetworkRoute} is not encoded.
+ */
+final class CompactPlanElements {
+
+	private static final byte ACTIVITY = 0;
+	private static final byte LEG = 1;
+
+	private static final byte NO_ROUTE = 0;
+	private static final byte NETWORK_ROUTE = 1;
+	private static final byte GENERIC_ROUTE = 2;
+
+	private static final int HAS_COORD = 1;
+	private static final int HAS_Z = 2;
+
+	private static final long UNDEFINED_TIME_CODE = 0;
+	private static final long RAW_TIME_CODE = 1;
+
+	private static final Class<?> GENERIC_ROUTE_CLASS = RouteUtils.createGenericRouteImpl(null, null).getClass();
+
+	private static final StringTable strings = new StringTable();
+
+	/* an empty clone of the first encoded network route of each class, cloned again to decode the routes of that class.
+	 * Like the strings, lookups by index do not lock, and new classes are published by replacing the array. */
+	private static final ConcurrentHashMap<Class<?>, Integer> networkRouteClasses = new ConcurrentHashMap<>();
+	private static volatile NetworkRoute[] emptyNetworkRoutes = new NetworkRoute[0];
+
+	private CompactPlanElements() {
+	}
+
+	/**
+	 * @return the encoded plan elements, or <code>null</code> if they cannot be encoded without loss.
+	 */
+	static byte[] encode(final List<PlanElement> planElements) {
+		for (PlanElement pe : planElements) {
+			if (!canEncode(pe)) {
+				return null;
+			}
+		}
+		Output out = new Output(16 * planElements.size() + 8);
+		out.writeVarLong(planElements.size());
+		double lastTime = 0;
+		for (PlanElement pe : planElements) {
+			if (pe instanceof ActivityImpl) {
+				ActivityImpl act = (ActivityImpl) pe;
+				out.writeByte(ACTIVITY);
+				out.writeVarLong(strings.index(act.getType()));
+				Coord coord = act.getCoord();
+				int flags = coord == null ? 0 : (coord.hasZ() ? HAS_COORD | HAS_Z : HAS_COORD);
+				out.writeByte(flags);
+				if (coord != null) {
+					out.writeDouble(coord.getX());
+					out.writeDouble(coord.getY());
+					if (coord.hasZ()) {
+						out.writeDouble(coord.getZ());
+					}
+				}
+				out.writeId(act.getLinkId());
+				out.writeId(act.getFacilityId());
+				out.writeTime(act.getStartTime(), lastTime);
+				lastTime = nextReferenceTime(act.getStartTime(), lastTime);
+				out.writeTime(act.getEndTime(), lastTime);
+				lastTime = nextReferenceTime(act.getEndTime(), lastTime);
+				out.writeTime(act.getMaximumDuration(), 0);
+			} else {
+				LegImpl leg = (LegImpl) pe;
+				out.writeByte(LEG);
+				out.writeVarLong(strings.index(leg.getMode()));
+				out.writeTime(leg.getDepartureTime(), lastTime);
+				lastTime = nextReferenceTime(leg.getDepartureTime(), lastTime);
+				out.writeTime(leg.getTravelTime(), 0);
+				writeRoute(out, leg.getRoute());
+			}
+		}
+		return out.toByteArray();
+	}
+
+	static ArrayList<PlanElement> decode(final byte[] encoded) {
+		Input in = new Input(encoded);
+		int size = (int) in.readVarLong();
+		ArrayList<PlanElement> planElements = new ArrayList<>(size);
+		double lastTime = 0;
+		for (int i = 0; i < size; i++) {
+			byte kind = in.readByte();
+			if (kind == ACTIVITY) {
+				ActivityImpl act = new ActivityImpl(strings.get((int) in.readVarLong()));
+				int flags = in.readByte();
+				if ((flags & HAS_COORD) != 0) {
+					double x = in.readDouble();
+					double y = in.readDouble();
+					act.setCoord((flags & HAS_Z) != 0 ? new Coord(x, y, in.readDouble()) : new Coord(x, y));
+				}
+				act.setLinkId(in.readId(Link.class));
+				act.setFacilityId(in.readId(ActivityFacility.class));
+				double startTime = in.readTime(lastTime);
+				act.setStartTime(startTime);
+				lastTime = nextReferenceTime(startTime, lastTime);
+				double endTime = in.readTime(lastTime);
+				act.setEndTime(endTime);
+				lastTime = nextReferenceTime(endTime, lastTime);
+				act.setMaximumDuration(in.readTime(0));
+				planElements.add(act);
+			} else {
+				LegImpl leg = new LegImpl(strings.get((int) in.readVarLong()));
+				double departureTime = in.readTime(lastTime);
+				leg.setDepartureTime(departureTime);
+				lastTime = nextReferenceTime(departureTime, lastTime);
+				leg.setTravelTime(in.readTime(0));
+				leg.setRoute(readRoute(in));
+				planElements.add(leg);
+			}
+		}
+		return planElements;
+	}
+
+	private static boolean canEncode(final PlanElement pe) {
+		if (pe instanceof ActivityImpl) {
+			return ((ActivityImpl) pe).getAttributes().isEmpty();
+		}
+		if (pe instanceof LegImpl) {
+			LegImpl leg = (LegImpl) pe;
+			Route route = leg.getRoute();
+			return leg.getAttributes().isEmpty()
+					&& (route == null || route instanceof NetworkRoute || route.getClass() == GENERIC_ROUTE_CLASS);
+		}
+		return false;
+	}
+
+	private static double nextReferenceTime(final double time, final double lastTime) {
+		return isWholeSeconds(time) ? time : lastTime;
+	}
+
+	private static boolean isWholeSeconds(final double time) {
+		return Math.abs(time) < 1e15 && time == Math.rint(time);
+	}
+
+	private static void writeRoute(final Output out, final Route route) {
+		if (route == null) {
+			out.writeByte(NO_ROUTE);
+			return;
+		}
+		boolean isNetworkRoute = route instanceof NetworkRoute;
+		out.writeByte(isNetworkRoute ? NETWORK_ROUTE : GENERIC_ROUTE);
+		out.writeId(route.getStartLinkId());
+		out.writeId(route.getEndLinkId());
+		out.writeTime(route.getTravelTime(), 0);
+		out.writeDouble(route.getDistance());
+		if (isNetworkRoute) {
+			NetworkRoute networkRoute = (NetworkRoute) route;
+			out.writeVarLong(emptyNetworkRouteIndex(networkRoute));
+			List<Id<Link>> linkIds = networkRoute.getLinkIds();
+			out.writeVarLong(linkIds.size());
+			for (Id<Link> linkId : linkIds) {
+				out.writeId(linkId);
+			}
+			out.writeDouble(networkRoute.getTravelCost());
+			out.writeId(networkRoute.getVehicleId());
+		} else {
+			out.writeString(route.getRouteDescription());
+		}
+	}
+
+	private static Route readRoute(final Input in) {
+		byte kind = in.readByte();
+		if (kind == NO_ROUTE) {
+			return null;
+		}
+		Id<Link> startLinkId = in.readId(Link.class);
+		Id<Link> endLinkId = in.readId(Link.class);
+		double travelTime = in.readTime(0);
+		double distance = in.readDouble();
+		Route route;
+		if (kind == NETWORK_ROUTE) {
+			NetworkRoute emptyNetworkRoute = emptyNetworkRoutes[(int) in.readVarLong()];
+			int size = (int) in.readVarLong();
+			List<Id<Link>> linkIds = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				linkIds.add(in.readId(Link.class));
+			}
+			NetworkRoute networkRoute = (NetworkRoute) emptyNetworkRoute.clone();
+			networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+			networkRoute.setTravelCost(in.readDouble());
+			networkRoute.setVehicleId(in.readId(Vehicle.class));
+			route = networkRoute;
+		} else {
+			route = RouteUtils.createGenericRouteImpl(startLinkId, endLinkId);
+			route.setRouteDescription(in.readString());
+		}
+		route.setTravelTime(travelTime);
+		route.setDistance(distance);
+		return route;
+	}
+
+	private static int emptyNetworkRouteIndex(final NetworkRoute route) {
+		Integer index = networkRouteClasses.get(route.getClass());
+		if (index != null) {
+			return index;
+		}
+		synchronized (networkRouteClasses) {
+			index = networkRouteClasses.get(route.getClass());
+			if (index == null) {
+				NetworkRoute emptyRoute = (NetworkRoute) route.clone();
+				emptyRoute.setLinkIds(route.getStartLinkId(), Collections.<Id<Link>>emptyList(), route.getEndLinkId());
+				emptyRoute.setVehicleId(null);
+				NetworkRoute[] newEmptyRoutes = Arrays.copyOf(emptyNetworkRoutes, emptyNetworkRoutes.length + 1);
+				index = emptyNetworkRoutes.length;
+				newEmptyRoutes[index] = emptyRoute;
+				emptyNetworkRoutes = newEmptyRoutes;
+				networkRouteClasses.put(route.getClass(), index);
+			}
+			return index;
+		}
+	}
+
+	private static final class Output {
+		private byte[] buffer;
+		private int position = 0;
+
+		Output(final int initialCapacity) {
+			this.buffer = new byte[initialCapacity];
+		}
+
+		void writeByte(final int value) {
+			ensureCapacity(1);
+			this.buffer[this.position++] = (byte) value;
+		}
+
+		void writeVarLong(final long value) {
+			long v = value;
+			while ((v & ~0x7FL) != 0) {
+				writeByte((int) ((v & 0x7F) | 0x80));
+				v >>>= 7;
+			}
+			writeByte((int) v);
+		}
+
+		void writeDouble(final double value) {
+			long bits = Double.doubleToRawLongBits(value);
+			ensureCapacity(8);
+			for (int i = 0; i < 8; i++) {
+				this.buffer[this.position++] = (byte) (bits >>> (8 * i));
+			}
+		}
+
+		void writeId(final Id<?> id) {
+			writeVarLong(id == null ? 0 : id.index() + 1L);
+		}
+
+		void writeTime(final double time, final double referenceTime) {
+			if (time == Time.UNDEFINED_TIME) {
+				writeVarLong(UNDEFINED_TIME_CODE);
+			} else if (isWholeSeconds(time)) {
+				long delta = (long) time - (long) referenceTime;
+				writeVarLong(((delta << 1) ^ (delta >> 63)) + 2);
+			} else {
+				writeVarLong(RAW_TIME_CODE);
+				writeDouble(time);
+			}
+		}
+
+		void writeString(final String value) {
+			if (value == null) {
+				writeVarLong(0);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarLong(bytes.length + 1L);
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+			this.position += bytes.length;
+		}
+
+		private void ensureCapacity(final int additional) {
+			if (this.position + additional > this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, Math.max(this.position + additional, this.buffer.length * 2));
+			}
+		}
+
+		byte[] toByteArray() {
+			return Arrays.copyOf(this.buffer, this.position);
+		}
+	}
+
+	private static final class Input {
+		private final byte[] buffer;
+		private int position = 0;
+
+		Input(final byte[] buffer) {
+			this.buffer = buffer;
+		}
+
+		byte readByte() {
+			return this.buffer[this.position++];
+		}
+
+		long readVarLong() {
+			long value = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = readByte();
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return value;
+		}
+
+		double readDouble() {
+			long bits = 0;
+			for (int i = 0; i < 8; i++) {
+				bits |= (this.buffer[this.position++] & 0xFFL) << (8 * i);
+			}
+			return Double.longBitsToDouble(bits);
+		}
+
+		<T> Id<T> readId(final Class<T> type) {
+			long code = readVarLong();
+			return code == 0 ? null : Id.get((int) (code - 1), type);
+		}
+
+		double readTime(final double referenceTime) {
+			long code = readVarLong();
+			if (code == UNDEFINED_TIME_CODE) {
+				return Time.UNDEFINED_TIME;
+			}
+			if (code == RAW_TIME_CODE) {
+				return readDouble();
+			}
+			long zigzag = code - 2;
+			long delta = (zigzag >>> 1) ^ -(zigzag & 1);
+			return (long) referenceTime + delta;
+		}
+
+		String readString() {
+			int length = (int) readVarLong();
+			if (length == 0) {
+				return null;
+			}
+			String value = new String(this.buffer, this.position, length - 1, StandardCharsets.UTF_8);
+			this.position += length - 1;
+			return value;
+		}
+	}
+
+}
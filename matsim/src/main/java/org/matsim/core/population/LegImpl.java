@@ -32,6 +32,10 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 	private double depTime = Time.UNDEFINED_TIME;
 	private double travTime = Time.UNDEFINED_TIME;
 	private String mode;
+	private int modeCode = 0; // (0 = not yet looked up)
+
+	/** the codes of the modes, see {@link PopulationUtils#getLegModeCode(String)} */
+	static final StringTable MODE_CODES = new StringTable();
 
 	private final Attributes attributes = new Attributes();
 
@@ -47,6 +51,16 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 	@Override
 	public final void setMode(String transportMode) {
 		this.mode = transportMode;
+		this.modeCode = 0;
+	}
+
+	/* package */ int getModeCode() {
+		int code = this.modeCode;
+		if (code == 0) {
+			code = MODE_CODES.index(this.mode);
+			this.modeCode = code;
+		}
+		return code;
 	}
 
 	@Override
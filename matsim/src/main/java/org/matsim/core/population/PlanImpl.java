@@ -20,9 +20,14 @@
 
 package org.matsim.core.population;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Customizable;
@@ -31,12 +36,35 @@ import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.core.router.TripStructureUtils;
 import org.matsim.core.scenario.CustomizableUtils;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 
 /* deliberately package */  final class PlanImpl implements Plan {
 
-	private ArrayList<PlanElement> actsLegs = new ArrayList<>();
+	/**
+	 * The plan elements, or <code>null</code> if they are only held in {@link #encodedActsLegs}.  Volatile, since
+	 * plans of other threads may be read concurrently (e.g. by the agents of the mobsim), which decodes them.
+	 */
+	private volatile ArrayList<PlanElement> actsLegs = new PlanElementList();
+
+	/**
+	 * The plan elements in the encoding of {@link CompactPlanElements}, or <code>null</code> if they are held in
+	 * {@link #actsLegs}.  Exactly one of the two is set, except while decoding, where the list is published first.
+	 * Only changed while holding the lock on this plan.
+	 */
+	private volatile byte[] encodedActsLegs = null;
+
+	/**
+	 * Incremented whenever the list of plan elements changes, see {@link PopulationUtils#getModificationCount(Plan)}.
+	 */
+	private int modificationCount = 0;
+
+	/**
+	 * The trip structure of the plan elements, see {@link PopulationUtils#getCachedTripStructure(Plan)}.  Dropped
+	 * whenever the list of plan elements changes.
+	 */
+	private TripStructureUtils.CachedStructure tripStructure = null;
 
 	private Double score = null;
 	private Person person = null;
@@ -122,17 +150,82 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 
 	@Override
 	public final List<PlanElement> getPlanElements() {
-		return this.actsLegs;
+		return getActsLegs();
 	}
 
 	@Override
 	public final void addLeg(final Leg leg) {
-		this.actsLegs.add(leg);
+		getActsLegs().add(leg);
 	}
 
 	@Override
 	public final void addActivity(final Activity act) {
-		this.actsLegs.add(act);
+		getActsLegs().add(act);
+	}
+
+	private ArrayList<PlanElement> getActsLegs() {
+		ArrayList<PlanElement> list = this.actsLegs;
+		if (list != null) {
+			return list;
+		}
+		// decode only once, even if several threads ask for the plan elements at the same time
+		synchronized (this) {
+			if (this.actsLegs == null) {
+				ArrayList<PlanElement> decoded = new PlanElementList(CompactPlanElements.decode(this.encodedActsLegs));
+				planElementsChanged();
+				this.actsLegs = decoded;
+				this.encodedActsLegs = null;
+			}
+			return this.actsLegs;
+		}
+	}
+
+	private void planElementsChanged() {
+		this.modificationCount++;
+		this.tripStructure = null;
+	}
+
+	/* package */ final int getModificationCount() {
+		return this.modificationCount;
+	}
+
+	/* package */ final TripStructureUtils.CachedStructure getTripStructure() {
+		return this.tripStructure;
+	}
+
+	/* package */ final void setTripStructure(final TripStructureUtils.CachedStructure tripStructure) {
+		this.tripStructure = tripStructure;
+	}
+
+	/**
+	 * Replaces the plan elements by their compact encoding, until they are accessed the next time.  References to the
+	 * plan elements held elsewhere become stale, so only do this with plans that are not in use.
+	 *
+	 * @return <code>true</code> if the plan is compact afterwards, <code>false</code> if its elements cannot be encoded.
+	 */
+	/* package */ final synchronized boolean compact() {
+		if (this.encodedActsLegs == null) {
+			byte[] encoded = CompactPlanElements.encode(this.actsLegs);
+			if (encoded == null) {
+				return false;
+			}
+			this.encodedActsLegs = encoded;
+			this.actsLegs = null;
+			planElementsChanged();
+		}
+		return true;
+	}
+
+	/* package */ final boolean isCompact() {
+		return this.encodedActsLegs != null;
+	}
+
+	/**
+	 * @return the encoded plan elements if the plan is compact, otherwise <code>null</code>.  The array is never
+	 * modified, so it may be shared.
+	 */
+	/* package */ final byte[] getEncodedPlanElements() {
+		return this.encodedActsLegs;
 	}
 
 	@Override
@@ -172,4 +265,162 @@ import org.matsim.utils.objectattributes.attributable.Attributes;
 //		}
 //	}
 
+	/**
+	 * The list of plan elements, counting its modifications.  Also counts the modifications made through sub lists and
+	 * iterators, which either call the overridden methods or are wrapped.
+	 */
+	private final class PlanElementList extends ArrayList<PlanElement> {
+		private static final long serialVersionUID = 1L;
+
+		PlanElementList() {
+		}
+
+		PlanElementList(final Collection<PlanElement> planElements) {
+			super(planElements);
+		}
+
+		@Override
+		public boolean add(final PlanElement e) {
+			planElementsChanged();
+			return super.add(e);
+		}
+
+		@Override
+		public void add(final int index, final PlanElement element) {
+			planElementsChanged();
+			super.add(index, element);
+		}
+
+		@Override
+		public PlanElement set(final int index, final PlanElement element) {
+			planElementsChanged();
+			return super.set(index, element);
+		}
+
+		@Override
+		public PlanElement remove(final int index) {
+			planElementsChanged();
+			return super.remove(index);
+		}
+
+		@Override
+		public boolean remove(final Object o) {
+			planElementsChanged();
+			return super.remove(o);
+		}
+
+		@Override
+		public void clear() {
+			planElementsChanged();
+			super.clear();
+		}
+
+		@Override
+		public boolean addAll(final Collection<? extends PlanElement> c) {
+			planElementsChanged();
+			return super.addAll(c);
+		}
+
+		@Override
+		public boolean addAll(final int index, final Collection<? extends PlanElement> c) {
+			planElementsChanged();
+			return super.addAll(index, c);
+		}
+
+		@Override
+		public boolean removeAll(final Collection<?> c) {
+			planElementsChanged();
+			return super.removeAll(c);
+		}
+
+		@Override
+		public boolean retainAll(final Collection<?> c) {
+			planElementsChanged();
+			return super.retainAll(c);
+		}
+
+		@Override
+		public boolean removeIf(final Predicate<? super PlanElement> filter) {
+			planElementsChanged();
+			return super.removeIf(filter);
+		}
+
+		@Override
+		public void replaceAll(final UnaryOperator<PlanElement> operator) {
+			planElementsChanged();
+			super.replaceAll(operator);
+		}
+
+		@Override
+		public void sort(final Comparator<? super PlanElement> c) {
+			planElementsChanged();
+			super.sort(c);
+		}
+
+		@Override
+		protected void removeRange(final int fromIndex, final int toIndex) {
+			planElementsChanged();
+			super.removeRange(fromIndex, toIndex);
+		}
+
+		@Override
+		public List<PlanElement> subList(final int fromIndex, final int toIndex) {
+			return new SubList(super.subList(fromIndex, toIndex));
+		}
+	}
+
+	/**
+	 * A sub list of the plan elements, counting the modifications made through it.  The sub lists of ArrayList write
+	 * some changes directly into the backing array, bypassing the methods of {@link PlanElementList}.
+	 */
+	private final class SubList extends AbstractList<PlanElement> {
+		private final List<PlanElement> delegate;
+
+		SubList(final List<PlanElement> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public PlanElement get(final int index) {
+			return this.delegate.get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.delegate.size();
+		}
+
+		@Override
+		public PlanElement set(final int index, final PlanElement element) {
+			planElementsChanged();
+			return this.delegate.set(index, element);
+		}
+
+		@Override
+		public void add(final int index, final PlanElement element) {
+			planElementsChanged();
+			this.modCount++;
+			this.delegate.add(index, element);
+		}
+
+		@Override
+		public PlanElement remove(final int index) {
+			planElementsChanged();
+			this.modCount++;
+			return this.delegate.remove(index);
+		}
+
+		@Override
+		protected void removeRange(final int fromIndex, final int toIndex) {
+			planElementsChanged();
+			this.modCount++;
+			this.delegate.subList(fromIndex, toIndex).clear();
+		}
+
+		@Override
+		public List<PlanElement> subList(final int fromIndex, final int toIndex) {
+			return new SubList(this.delegate.subList(fromIndex, toIndex));
+		}
+	}
+
 }
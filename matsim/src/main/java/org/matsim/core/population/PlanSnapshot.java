@@ -0,0 +1,140 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * PlanSnapshot.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.utils.objectattributes.attributable.AttributesUtils;
+
+/**
+ * A read-only copy of a plan, see {@link PopulationUtils#createSnapshot(org.matsim.api.core.v01.population.Population)}.
+ * <p></p>
+ * The plan elements are kept in the encoding of {@link CompactPlanElements} if possible, sharing the array of a
+ * compact {@link PlanImpl}.  They are decoded on every call of {@link #getPlanElements()} and not kept, so writing
+ * the snapshot does not need more memory than the snapshot itself.
+ */
+/* deliberately package */ final class PlanSnapshot implements Plan {
+
+	private final Person person;
+	private final Double score;
+	private final String type;
+	private final byte[] encodedPlanElements;
+	private final List<PlanElement> planElements;
+	private final Attributes attributes = new Attributes();
+
+	PlanSnapshot(final Plan plan, final Person person) {
+		this.person = person;
+		this.score = plan.getScore();
+		this.type = plan.getType();
+		byte[] encoded = null;
+		if (plan instanceof PlanImpl) {
+			encoded = ((PlanImpl) plan).getEncodedPlanElements();
+		}
+		if (encoded == null) {
+			encoded = CompactPlanElements.encode(plan.getPlanElements());
+		}
+		this.encodedPlanElements = encoded;
+		if (encoded == null) {
+			// some elements cannot be encoded, keep a deep copy of them instead
+			Plan copy = new PlanImpl();
+			PopulationUtils.copyFromTo(plan, copy);
+			this.planElements = Collections.unmodifiableList(copy.getPlanElements());
+		} else {
+			this.planElements = null;
+		}
+		AttributesUtils.copyAttributesFromTo(plan, this);
+	}
+
+	@Override
+	public List<PlanElement> getPlanElements() {
+		if (this.encodedPlanElements != null) {
+			return Collections.<PlanElement>unmodifiableList(CompactPlanElements.decode(this.encodedPlanElements));
+		}
+		return this.planElements;
+	}
+
+	@Override
+	public Person getPerson() {
+		return this.person;
+	}
+
+	@Override
+	public Double getScore() {
+		return this.score;
+	}
+
+	@Override
+	public String getType() {
+		return this.type;
+	}
+
+	@Override
+	public Attributes getAttributes() {
+		return this.attributes;
+	}
+
+	@Override
+	public Map<String, Object> getCustomAttributes() {
+		return Collections.emptyMap();
+	}
+
+	@Override
+	public void addLeg(final Leg leg) {
+		throw new UnsupportedOperationException("a plan snapshot cannot be modified.");
+	}
+
+	@Override
+	public void addActivity(final Activity act) {
+		throw new UnsupportedOperationException("a plan snapshot cannot be modified.");
+	}
+
+	@Override
+	public void setType(final String type) {
+		throw new UnsupportedOperationException("a plan snapshot cannot be modified.");
+	}
+
+	@Override
+	public void setPerson(final Person person) {
+		throw new UnsupportedOperationException("a plan snapshot cannot be modified.");
+	}
+
+	@Override
+	public void setScore(final Double score) {
+		throw new UnsupportedOperationException("a plan snapshot cannot be modified.");
+	}
+
+	@Override
+	public String toString() {
+		return "[score=" + (this.score == null ? "undefined" : this.score.toString()) + "]" +
+				"[type=" + this.type + "]" +
+				"[personId=" + this.person.getId() + "]" +
+				"[snapshot]";
+	}
+
+}
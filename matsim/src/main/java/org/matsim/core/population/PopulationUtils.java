@@ -53,6 +53,7 @@ import org.matsim.core.gbl.Gbl;
 import org.matsim.core.population.io.PopulationWriter;
 import org.matsim.core.population.io.StreamingPopulationReader;
 import org.matsim.core.population.routes.CompressedNetworkRouteFactory;
+import org.matsim.core.population.routes.IndexedNetworkRouteFactory;
 import org.matsim.core.population.routes.LinkNetworkRouteFactory;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteFactories;
@@ -66,6 +67,7 @@ import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.facilities.ActivityFacilities;
 import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.ColumnarObjectAttributes;
 import org.matsim.utils.objectattributes.attributable.Attributes;
 import org.matsim.utils.objectattributes.attributable.AttributesUtils;
 
@@ -116,10 +118,15 @@ public final class PopulationUtils {
 			factory = new LinkNetworkRouteFactory();
 		} else if (PlansConfigGroup.NetworkRouteType.CompressedNetworkRoute.equals(networkRouteType) && network != null) {
 			factory = new CompressedNetworkRouteFactory(network);
+		} else if (PlansConfigGroup.NetworkRouteType.IndexedNetworkRoute.equals(networkRouteType)) {
+			factory = new IndexedNetworkRouteFactory(network);
 		} else {
 			throw new IllegalArgumentException("The type \"" + networkRouteType + "\" is not a supported type for network routes.");
 		}
 		routeFactory.setRouteFactory(NetworkRoute.class, factory);
+		if (plansConfigGroup.isColumnarPersonAttributes()) {
+			return new PopulationImpl(new PopulationFactoryImpl(routeFactory), new ColumnarObjectAttributes());
+		}
 		return new PopulationImpl(new PopulationFactoryImpl(routeFactory));
 	}
 
@@ -374,6 +381,34 @@ public final class PopulationUtils {
 		}
 	}
 
+	/**
+	 * Creates a read-only copy of the persons and their plans, which can be written to file while the population
+	 * itself is modified, e.g. on another thread.  The plans are kept compact as far as possible, see
+	 * {@link PlanImpl}.  The attributes of persons, plans and the population are copied, the values themselves are
+	 * shared.  The person attributes of the population are shared as well.
+	 * <p></p>
+	 * This needs to run on the thread that modifies the population.
+	 */
+	public static Population createSnapshot(final Population population) {
+		PopulationImpl snapshot = new PopulationImpl(population.getFactory(), population.getPersonAttributes());
+		snapshot.setName(population.getName());
+		AttributesUtils.copyAttributesFromTo(population, snapshot);
+		for (Person person : population.getPersons().values()) {
+			PersonImpl personSnapshot = new PersonImpl(person.getId());
+			AttributesUtils.copyAttributesFromTo(person, personSnapshot);
+			for (Plan plan : person.getPlans()) {
+				Plan planSnapshot = new PlanSnapshot(plan, personSnapshot);
+				// not with addPlan(), as the snapshot does not allow to set the person
+				personSnapshot.getPlans().add(planSnapshot);
+				if (plan == person.getSelectedPlan()) {
+					personSnapshot.setSelectedPlan(planSnapshot);
+				}
+			}
+			snapshot.addPerson(personSnapshot);
+		}
+		return snapshot;
+	}
+
 	/**
 	 * @return sorted map containing containing the persons as values and their ids as keys.
 	 */
@@ -742,6 +777,80 @@ public final class PopulationUtils {
 		return getFactory().createLeg(transportMode) ;
 	}
 
+	// codes of activity types and modes:
+
+	/**
+	 * @return a small positive number standing for the activity type, the same for all activities of this type within
+	 * the JVM.  Allows to look up per-type data in arrays, see e.g. {@link org.matsim.core.scoring.functions.ScoringParameters}.
+	 */
+	public static int getActivityTypeCode(String type) {
+		return ActivityImpl.TYPE_CODES.index(type) ;
+	}
+
+	/**
+	 * @see #getActivityTypeCode(String)
+	 */
+	public static int getActivityTypeCode(Activity act) {
+		if ( act instanceof ActivityImpl ) {
+			// cached by the activity
+			return ((ActivityImpl) act).getTypeCode() ;
+		}
+		return getActivityTypeCode(act.getType()) ;
+	}
+
+	/**
+	 * @return a small positive number standing for the mode, the same for all legs of this mode within the JVM.
+	 * @see #getActivityTypeCode(String)
+	 */
+	public static int getLegModeCode(String mode) {
+		return LegImpl.MODE_CODES.index(mode) ;
+	}
+
+	/**
+	 * @see #getLegModeCode(String)
+	 */
+	public static int getLegModeCode(Leg leg) {
+		if ( leg instanceof LegImpl ) {
+			// cached by the leg
+			return ((LegImpl) leg).getModeCode() ;
+		}
+		return getLegModeCode(leg.getMode()) ;
+	}
+
+	// caching of derived plan data:
+
+	/**
+	 * @return a number that changes whenever the list of plan elements of the plan changes (elements added, removed or
+	 * replaced), or -1 if the plan does not keep track of this.  Changes of the plan elements themselves, e.g. of the
+	 * type of an activity, are not counted.
+	 */
+	public static int getModificationCount(Plan plan) {
+		if ( plan instanceof PlanImpl ) {
+			return ((PlanImpl) plan).getModificationCount() ;
+		}
+		return -1 ;
+	}
+
+	/**
+	 * @return the trip structure kept with the plan by {@link TripStructureUtils}, or <code>null</code>.  It is dropped
+	 * whenever the list of plan elements changes.  Its contents are only accessible to {@link TripStructureUtils}.
+	 */
+	public static TripStructureUtils.CachedStructure getCachedTripStructure(Plan plan) {
+		if ( plan instanceof PlanImpl ) {
+			return ((PlanImpl) plan).getTripStructure() ;
+		}
+		return null ;
+	}
+
+	/**
+	 * @see #getCachedTripStructure(Plan)
+	 */
+	public static void setCachedTripStructure(Plan plan, TripStructureUtils.CachedStructure tripStructure) {
+		if ( plan instanceof PlanImpl ) {
+			((PlanImpl) plan).setTripStructure(tripStructure) ;
+		}
+	}
+
 	// createAndAdd methods:
 
 	public static Activity createAndAddActivityFromCoord( Plan plan, String type, Coord coord ) {
@@ -980,6 +1089,23 @@ public final class PopulationUtils {
 		plan.getPlanElements().add(pos, leg);
 	}
 
+	/**
+	 * Stores the plan elements of all non-selected plans of the person in a compact binary encoding.  The plans decode
+	 * themselves transparently as soon as their plan elements are accessed.  Plans that are not of the default
+	 * implementation, or contain elements that cannot be encoded without loss, are left as they are.
+	 *
+	 * @return the number of plans that are compact afterwards
+	 */
+	public static int compactNonSelectedPlans( Person person ) {
+		int cnt = 0 ;
+		for ( Plan plan : person.getPlans() ) {
+			if ( plan != person.getSelectedPlan() && plan instanceof PlanImpl && ((PlanImpl) plan).compact() ) {
+				cnt++ ;
+			}
+		}
+		return cnt ;
+	}
+
 	public static void changePersonId( Person person, Id<Person> id ) {
 		if ( person instanceof PersonImpl ) {
 			((PersonImpl) person).changeId(id);
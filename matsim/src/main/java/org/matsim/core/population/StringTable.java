@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * StringTable.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns a stable index to each string, starting at 1; <code>null</code> has the index 0.  Lookups by index do not
+ * lock; new strings are added under a lock and published by replacing the array.
+ */
+/* package */ final class StringTable {
+	private final ConcurrentHashMap<String, Integer> indices = new ConcurrentHashMap<>();
+	private volatile String[] values = new String[16];
+	private int size = 0;
+
+	int index(final String value) {
+		if (value == null) {
+			return 0;
+		}
+		Integer index = this.indices.get(value);
+		if (index != null) {
+			return index;
+		}
+		synchronized (this) {
+			index = this.indices.get(value);
+			if (index == null) {
+				String[] newValues = this.size + 1 < this.values.length ? this.values.clone() : Arrays.copyOf(this.values, this.values.length * 2);
+				this.size++;
+				newValues[this.size] = value;
+				this.values = newValues;
+				index = this.size;
+				this.indices.put(value, index);
+			}
+			return index;
+		}
+	}
+
+	String get(final int index) {
+		return this.values[index];
+	}
+}
@@ -0,0 +1,348 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPopulationReader.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.misc.DaemonThreadFactory;
+import org.matsim.facilities.ActivityFacilities;
+import org.matsim.households.Households;
+import org.matsim.lanes.data.Lanes;
+import org.matsim.pt.transitSchedule.api.TransitSchedule;
+import org.matsim.utils.objectattributes.ObjectAttributes;
+import org.matsim.vehicles.Vehicles;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.AttributesImpl;
+
+/**
+ * Parses the persons of a population file in parallel, using one of the sequential readers per chunk of persons.
+ * <p></p>
+ * The main thread only records the xml tags of the persons, in chunks of {@link #PERSONS_PER_CHUNK} persons, and
+ * hands the chunks to a thread pool.  Each chunk is interpreted by a new instance of the sequential reader, which adds
+ * its persons to a collecting population instead of the real one.  The main thread adds the persons of the finished
+ * chunks to the population in the order of the file, so the result is the same as with the sequential reader.  All
+ * tags outside of persons, e.g. the attributes of the population, are passed directly to a sequential reader working
+ * on the real scenario.
+ * <p></p>
+ * Used by {@link PopulationReader} for the formats v5 and v6 if more than one thread is configured.  Not suitable for
+ * population streaming.
+ */
+/* deliberately package */ final class ParallelPopulationReader extends MatsimXmlParser {
+
+	private static final Logger log = Logger.getLogger(ParallelPopulationReader.class);
+
+	private static final String PERSON = "person";
+	private static final String POPULATION = "population";
+	/*package*/ static final int PERSONS_PER_CHUNK = 200;
+
+	/**
+	 * Creates the sequential readers, both for the tags outside of persons and for each chunk of persons.
+	 */
+	interface ReaderFactory {
+		MatsimXmlParser createReader(Scenario scenario);
+	}
+
+	private final Scenario scenario;
+	private final ReaderFactory readerFactory;
+	private final MatsimXmlParser populationReader;
+	private final int numberOfThreads;
+
+	private ExecutorService pool = null;
+	private final Deque<Future<List<Person>>> pendingChunks = new ArrayDeque<>();
+
+	private Chunk currentChunk = null;
+	private int personDepth = 0;
+
+	ParallelPopulationReader(final Scenario scenario, final int numberOfThreads, final ReaderFactory readerFactory) {
+		this.scenario = scenario;
+		this.readerFactory = readerFactory;
+		this.populationReader = readerFactory.createReader(scenario);
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	@Override
+	public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+		if (this.personDepth == 0 && !PERSON.equals(name)) {
+			this.populationReader.startTag(name, atts, context);
+			return;
+		}
+		if (this.currentChunk == null) {
+			this.currentChunk = new Chunk(context);
+		}
+		// copy the attributes, the object is re-used by the parser
+		this.currentChunk.tags.add(new Tag(name, new AttributesImpl(atts), null));
+		this.personDepth++;
+	}
+
+	@Override
+	public void endTag(final String name, final String content, final Stack<String> context) {
+		if (this.personDepth == 0) {
+			if (POPULATION.equals(name)) {
+				finishPersons();
+			}
+			this.populationReader.endTag(name, content, context);
+			return;
+		}
+		this.currentChunk.tags.add(new Tag(name, null, content));
+		this.personDepth--;
+		if (this.personDepth == 0) {
+			this.currentChunk.numberOfPersons++;
+			if (this.currentChunk.numberOfPersons >= PERSONS_PER_CHUNK) {
+				submitCurrentChunk();
+			}
+		}
+	}
+
+	private void submitCurrentChunk() {
+		if (this.pool == null) {
+			log.info("Start parallel population reading with " + this.numberOfThreads + " threads...");
+			this.pool = Executors.newFixedThreadPool(this.numberOfThreads, new DaemonThreadFactory(ParallelPopulationReader.class.getSimpleName()));
+		}
+		this.pendingChunks.add(this.pool.submit(new ChunkReader(this.currentChunk)));
+		this.currentChunk = null;
+		// limit the number of recorded but not yet interpreted chunks, to keep the memory bounded
+		while (this.pendingChunks.size() > 2 * this.numberOfThreads) {
+			addPersonsOfNextChunk();
+		}
+	}
+
+	private void finishPersons() {
+		if (this.currentChunk != null) {
+			submitCurrentChunk();
+		}
+		while (!this.pendingChunks.isEmpty()) {
+			addPersonsOfNextChunk();
+		}
+		if (this.pool != null) {
+			this.pool.shutdown();
+			this.pool = null;
+			log.info("Finished parallel population reading...");
+		}
+	}
+
+	private void addPersonsOfNextChunk() {
+		List<Person> persons;
+		try {
+			persons = this.pendingChunks.poll().get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			this.pool.shutdownNow();
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		Population population = this.scenario.getPopulation();
+		for (Person person : persons) {
+			population.addPerson(person);
+		}
+	}
+
+	private static final class Tag {
+		final String name;
+		final Attributes atts; // null for end tags
+		final String content;
+
+		Tag(final String name, final Attributes atts, final String content) {
+			this.name = name;
+			this.atts = atts;
+			this.content = content;
+		}
+	}
+
+	private static final class Chunk {
+		final Stack<String> outerContext = new Stack<>();
+		final List<Tag> tags = new ArrayList<>();
+		int numberOfPersons = 0;
+
+		Chunk(final Stack<String> context) {
+			this.outerContext.addAll(context);
+		}
+	}
+
+	/**
+	 * Replays the tags of a chunk to a new sequential reader, maintaining the context the same way as the xml parser.
+	 */
+	private final class ChunkReader implements Callable<List<Person>> {
+		private final Chunk chunk;
+
+		ChunkReader(final Chunk chunk) {
+			this.chunk = chunk;
+		}
+
+		@Override
+		public List<Person> call() {
+			List<Person> persons = new ArrayList<>(this.chunk.numberOfPersons);
+			MatsimXmlParser reader = ParallelPopulationReader.this.readerFactory.createReader(
+					new CollectingScenario(ParallelPopulationReader.this.scenario, persons));
+			Stack<String> context = this.chunk.outerContext;
+			for (Tag tag : this.chunk.tags) {
+				if (tag.atts != null) {
+					reader.startTag(tag.name, tag.atts, context);
+					context.push(tag.name);
+				} else {
+					context.pop();
+					reader.endTag(tag.name, tag.content, context);
+				}
+			}
+			return persons;
+		}
+	}
+
+	/**
+	 * A scenario that gives access to everything of the real scenario, except that persons are added to a list.
+	 */
+	private static final class CollectingScenario implements Scenario {
+		private final Scenario delegate;
+		private final CollectingPopulation population;
+
+		CollectingScenario(final Scenario delegate, final List<Person> persons) {
+			this.delegate = delegate;
+			this.population = new CollectingPopulation(delegate.getPopulation(), persons);
+		}
+
+		@Override
+		public Network getNetwork() {
+			return this.delegate.getNetwork();
+		}
+
+		@Override
+		public Population getPopulation() {
+			return this.population;
+		}
+
+		@Override
+		public ActivityFacilities getActivityFacilities() {
+			return this.delegate.getActivityFacilities();
+		}
+
+		@Override
+		public TransitSchedule getTransitSchedule() {
+			return this.delegate.getTransitSchedule();
+		}
+
+		@Override
+		public Config getConfig() {
+			return this.delegate.getConfig();
+		}
+
+		@Override
+		public void addScenarioElement(final String name, final Object o) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Object getScenarioElement(final String name) {
+			return this.delegate.getScenarioElement(name);
+		}
+
+		@Override
+		public Vehicles getTransitVehicles() {
+			return this.delegate.getTransitVehicles();
+		}
+
+		@Override
+		public Households getHouseholds() {
+			return this.delegate.getHouseholds();
+		}
+
+		@Override
+		public Lanes getLanes() {
+			return this.delegate.getLanes();
+		}
+
+		@Override
+		public Vehicles getVehicles() {
+			return this.delegate.getVehicles();
+		}
+	}
+
+	private static final class CollectingPopulation implements Population {
+		private final Population delegate;
+		private final List<Person> persons;
+
+		CollectingPopulation(final Population delegate, final List<Person> persons) {
+			this.delegate = delegate;
+			this.persons = persons;
+		}
+
+		@Override
+		public PopulationFactory getFactory() {
+			return this.delegate.getFactory();
+		}
+
+		@Override
+		public void addPerson(final Person p) {
+			this.persons.add(p);
+		}
+
+		@Override
+		public ObjectAttributes getPersonAttributes() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public String getName() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public void setName(final String name) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Map<Id<Person>, ? extends Person> getPersons() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public Person removePerson(final Id<Person> personId) {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+
+		@Override
+		public org.matsim.utils.objectattributes.attributable.Attributes getAttributes() {
+			throw new RuntimeException("Calls to this method are not expected to happen...");
+		}
+	}
+
+}
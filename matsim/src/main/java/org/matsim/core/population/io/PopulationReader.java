@@ -30,6 +30,7 @@ import org.matsim.core.population.io.StreamingPopulationReader.StreamingPopulati
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlStreamParser;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
 
@@ -39,7 +40,7 @@ import org.xml.sax.Attributes;
  *
  * @author mrieser
  */
-public final class PopulationReader extends MatsimXmlParser {
+public final class PopulationReader extends MatsimXmlStreamParser {
 
 	private final static String PLANS    = "plans.dtd"; // a special, inofficial case, handle it like plans_v0
 	private final static String PLANS_V0 = "plans_v0.dtd";
@@ -52,6 +53,7 @@ public final class PopulationReader extends MatsimXmlParser {
 
 	private MatsimXmlParser delegate = null;
 	private final Scenario scenario;
+	private final boolean streaming;
 
 	private Map<Class<?>, AttributeConverter<?>> attributeConverters = new HashMap<>();
 
@@ -76,6 +78,7 @@ public final class PopulationReader extends MatsimXmlParser {
 		}
 		this.coordinateTransformation = coordinateTransformation;
 		this.scenario = scenario;
+		this.streaming = streaming;
 	}
 
 	public void putAttributeConverter( final Class<?> clazz , AttributeConverter<?> converter ) {
@@ -101,18 +104,25 @@ public final class PopulationReader extends MatsimXmlParser {
 		super.setDoctype(doctype);
 		switch ( doctype ) {
 			case POPULATION_V6:
-				this.delegate =
-						new PopulationReaderMatsimV6(
-								coordinateTransformation,
-								this.scenario);
-				((PopulationReaderMatsimV6) delegate).putAttributeConverters( attributeConverters );
+				ParallelPopulationReader.ReaderFactory v6Factory = new ParallelPopulationReader.ReaderFactory() {
+					@Override
+					public MatsimXmlParser createReader(Scenario scenario) {
+						PopulationReaderMatsimV6 reader = new PopulationReaderMatsimV6(coordinateTransformation, scenario);
+						reader.putAttributeConverters( attributeConverters );
+						return reader;
+					}
+				};
+				this.delegate = isReadingInParallel() ? createParallelReader( v6Factory ) : v6Factory.createReader( this.scenario );
 				log.info("using population_v6-reader.");
 				break;
 			case POPULATION_V5:
-				this.delegate =
-						new PopulationReaderMatsimV5(
-								coordinateTransformation,
-								this.scenario);
+				ParallelPopulationReader.ReaderFactory v5Factory = new ParallelPopulationReader.ReaderFactory() {
+					@Override
+					public MatsimXmlParser createReader(Scenario scenario) {
+						return new PopulationReaderMatsimV5(coordinateTransformation, scenario);
+					}
+				};
+				this.delegate = isReadingInParallel() ? createParallelReader( v5Factory ) : v5Factory.createReader( this.scenario );
 				log.info("using population_v5-reader.");
 				break;
 			case PLANS_V4:
@@ -143,4 +153,19 @@ public final class PopulationReader extends MatsimXmlParser {
 		}
 	}
 
+	/**
+	 * The persons of the newer formats are parsed in parallel if more than one thread is configured, except when streaming,
+	 * where the persons have to be handed to the algorithms one after the other.
+	 */
+	private boolean isReadingInParallel() {
+		return !this.streaming && !(this.scenario.getPopulation() instanceof StreamingPopulation)
+				&& this.scenario.getConfig().global().getNumberOfThreads() > 1;
+	}
+
+	private MatsimXmlParser createParallelReader( ParallelPopulationReader.ReaderFactory factory ) {
+		int numberOfThreads = this.scenario.getConfig().global().getNumberOfThreads();
+		log.info("using " + numberOfThreads + " threads to parse the persons.");
+		return new ParallelPopulationReader( this.scenario, numberOfThreads, factory );
+	}
+
 }
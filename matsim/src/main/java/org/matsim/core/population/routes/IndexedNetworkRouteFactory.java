@@ -0,0 +1,52 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedNetworkRouteFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Route;
+
+/**
+ * Creates network routes that store their links as indices, see {@link IndexedNetworkRouteImpl}.
+ */
+public final class IndexedNetworkRouteFactory implements RouteFactory {
+
+	private final IndexedNetworkRouteImpl.LinkIdTable linkIdTable;
+
+	/**
+	 * @param network the network the routes refer to, used to look up the link Ids quickly.  May be <code>null</code>.
+	 */
+	public IndexedNetworkRouteFactory(final Network network) {
+		this.linkIdTable = new IndexedNetworkRouteImpl.LinkIdTable(network);
+	}
+
+	@Override
+	public Route createRoute(final Id<Link> startLinkId, final Id<Link> endLinkId) {
+		return new IndexedNetworkRouteImpl(startLinkId, endLinkId, this.linkIdTable);
+	}
+
+	@Override
+	public String getCreatedRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+}
@@ -0,0 +1,282 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedNetworkRouteImpl.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A {@link NetworkRoute} that stores its links as an <code>int[]</code> of their {@link Id#index()} instead of the
+ * list (and its unmodifiable view) of {@link LinkNetworkRouteImpl}.
+ * <p></p>
+ * The array is never modified once it is set, so clones (e.g. in copies of plans) share it until one of them gets new
+ * links.  Copying a plan thus does not copy the links of its routes at all.
+ * <p></p>
+ * {@link #getLinkIds()} returns a read-only view that looks up the Ids only when they are accessed.  Note that this
+ * view does not follow later changes of the route, unlike the one of {@link LinkNetworkRouteImpl}.
+ */
+final class IndexedNetworkRouteImpl extends AbstractRoute implements NetworkRoute {
+
+	private static final int[] NO_LINKS = new int[0];
+
+	private final LinkIdTable linkIdTable;
+	private int[] linkIndices = NO_LINKS;
+	private double travelCost = Double.NaN;
+	private Id<Vehicle> vehicleId = null;
+
+	IndexedNetworkRouteImpl(final Id<Link> startLinkId, final Id<Link> endLinkId, final LinkIdTable linkIdTable) {
+		super(startLinkId, endLinkId);
+		this.linkIdTable = linkIdTable;
+	}
+
+	private IndexedNetworkRouteImpl(final Id<Link> startLinkId, final int[] linkIndices, final Id<Link> endLinkId, final LinkIdTable linkIdTable) {
+		super(startLinkId, endLinkId);
+		this.linkIdTable = linkIdTable;
+		this.linkIndices = linkIndices;
+	}
+
+	@Override
+	public IndexedNetworkRouteImpl clone() {
+		// the link indices are never modified in place, so the clone can share them
+		return (IndexedNetworkRouteImpl) super.clone();
+	}
+
+	@Override
+	public List<Id<Link>> getLinkIds() {
+		return new LinkIdList(this.linkIndices, this.linkIdTable);
+	}
+
+	@Override
+	public NetworkRoute getSubRoute(final Id<Link> fromLinkId, final Id<Link> toLinkId) {
+		int[] route = this.linkIndices;
+		int fromLinkIndex = fromLinkId.index();
+		int toLinkIndex = toLinkId.index();
+		/* the index where the link after fromLinkId can be found in the route,
+		 * 0 if fromLinkId is the start link.  See LinkNetworkRouteImpl. */
+		int fromIndex = -1;
+		/* the index where toLinkId can be found in the route */
+		int toIndex = -1;
+
+		if (fromLinkId.equals(this.getStartLinkId())) {
+			fromIndex = 0;
+		} else {
+			for (int i = 0; (i < route.length) && (fromIndex < 0); i++) {
+				if (route[i] == fromLinkIndex) {
+					fromIndex = i + 1;
+				}
+			}
+			if (fromIndex < 0 && fromLinkId.equals(this.getEndLinkId())) {
+				fromIndex = route.length;
+			}
+			if (fromIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because fromLinkId is not part of the route.");
+			}
+		}
+
+		if (fromLinkId.equals(toLinkId)) {
+			toIndex = fromIndex - 1;
+		} else {
+			for (int i = fromIndex; (i < route.length) && (toIndex < 0); i++) {
+				if (route[i] == fromLinkIndex) {
+					fromIndex = i + 1; // in case of a loop, cut it short
+				}
+				if (route[i] == toLinkIndex) {
+					toIndex = i;
+				}
+			}
+			if (toIndex < 0 && toLinkId.equals(this.getEndLinkId())) {
+				toIndex = route.length;
+			}
+			if (toIndex < 0) {
+				throw new IllegalArgumentException("Cannot create subroute because toLinkId is not part of the route.");
+			}
+		}
+
+		int[] subRoute = toIndex > fromIndex ? Arrays.copyOfRange(route, fromIndex, toIndex) : NO_LINKS;
+		return new IndexedNetworkRouteImpl(fromLinkId, subRoute, toLinkId, this.linkIdTable);
+	}
+
+	@Override
+	public double getTravelCost() {
+		return this.travelCost;
+	}
+
+	@Override
+	public void setTravelCost(final double travelCost) {
+		this.travelCost = travelCost;
+	}
+
+	@Override
+	public void setLinkIds(final Id<Link> startLinkId, final List<Id<Link>> srcRoute, final Id<Link> endLinkId) {
+		setStartLinkId(startLinkId);
+		setEndLinkId(endLinkId);
+		if (srcRoute == null || srcRoute.isEmpty()) {
+			this.linkIndices = NO_LINKS;
+		} else if (srcRoute instanceof LinkIdList) {
+			// the links of another indexed route, share them
+			this.linkIndices = ((LinkIdList) srcRoute).linkIndices;
+		} else {
+			int[] indices = new int[srcRoute.size()];
+			int i = 0;
+			for (Id<Link> linkId : srcRoute) {
+				indices[i++] = linkId == null ? -1 : linkId.index();
+			}
+			this.linkIndices = indices;
+		}
+	}
+
+	@Override
+	public Id<Vehicle> getVehicleId() {
+		return this.vehicleId;
+	}
+
+	@Override
+	public void setVehicleId(final Id<Vehicle> vehicleId) {
+		this.vehicleId = vehicleId;
+	}
+
+	@Override
+	public String getRouteDescription() {
+		StringBuilder desc = new StringBuilder(100);
+		desc.append(this.getStartLinkId().toString());
+		for (Id<Link> linkId : this.getLinkIds()) {
+			desc.append(" ");
+			desc.append(linkId.toString());
+		}
+		// If the start links equals the end link additionally check if its is a round trip.
+		if (!this.getEndLinkId().equals(this.getStartLinkId()) || this.linkIndices.length > 0) {
+			desc.append(" ");
+			desc.append(this.getEndLinkId().toString());
+		}
+		return desc.toString();
+	}
+
+	@Override
+	public void setRouteDescription(final String routeDescription) {
+		List<Id<Link>> linkIds = NetworkUtils.getLinkIds(routeDescription);
+		Id<Link> startLinkId = getStartLinkId();
+		Id<Link> endLinkId = getEndLinkId();
+		if (linkIds.size() > 0) {
+			startLinkId = linkIds.remove(0);
+			setStartLinkId(startLinkId);
+		}
+		if (linkIds.size() > 0) {
+			endLinkId = linkIds.remove(linkIds.size() - 1);
+			setEndLinkId(endLinkId);
+		}
+		this.setLinkIds(startLinkId, linkIds, endLinkId);
+	}
+
+	@Override
+	public String getRouteType() {
+		return LinkNetworkRouteImpl.ROUTE_TYPE;
+	}
+
+	@Override
+	public String toString() {
+		String str = super.toString();
+		str += " linkIds=" + this.getLinkIds() ;
+		str += " travelCost=" + this.getTravelCost() ;
+		return str ;
+	}
+
+	/**
+	 * Maps the indices back to the Ids.  The Ids of the links of a network are kept in an array, as {@link Id#get(int, Class)}
+	 * has to synchronize; all other Ids are looked up there.  Shared by all routes of a factory.
+	 */
+	static final class LinkIdTable {
+
+		private final Network network;
+		private volatile Id<Link>[] idsByIndex = null;
+
+		/**
+		 * @param network the network the routes refer to, may be <code>null</code>
+		 */
+		LinkIdTable(final Network network) {
+			this.network = network;
+		}
+
+		Id<Link> get(final int index) {
+			if (index < 0) {
+				return null;
+			}
+			Id<Link>[] ids = this.idsByIndex;
+			if (ids == null) {
+				ids = buildTable();
+			}
+			if (index < ids.length && ids[index] != null) {
+				return ids[index];
+			}
+			return Id.get(index, Link.class);
+		}
+
+		@SuppressWarnings("unchecked")
+		private synchronized Id<Link>[] buildTable() {
+			Id<Link>[] ids = this.idsByIndex;
+			if (ids == null) {
+				int size = 0;
+				if (this.network != null) {
+					for (Id<Link> linkId : this.network.getLinks().keySet()) {
+						size = Math.max(size, linkId.index() + 1);
+					}
+				}
+				ids = new Id[size];
+				if (this.network != null) {
+					for (Id<Link> linkId : this.network.getLinks().keySet()) {
+						ids[linkId.index()] = linkId;
+					}
+				}
+				this.idsByIndex = ids;
+			}
+			return ids;
+		}
+	}
+
+	private static final class LinkIdList extends AbstractList<Id<Link>> implements RandomAccess {
+
+		/*package*/ final int[] linkIndices;
+		private final LinkIdTable linkIdTable;
+
+		LinkIdList(final int[] linkIndices, final LinkIdTable linkIdTable) {
+			this.linkIndices = linkIndices;
+			this.linkIdTable = linkIdTable;
+		}
+
+		@Override
+		public Id<Link> get(final int index) {
+			return this.linkIdTable.get(this.linkIndices[index]);
+		}
+
+		@Override
+		public int size() {
+			return this.linkIndices.length;
+		}
+	}
+
+}
@@ -66,8 +66,16 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 	
 	@Override
 	public void run(final HasPlansAndId<T, I> person) {
-		this.counter++;
-		
+		handleCopiedPlan(selectAndCopyPlan(person));
+	}
+
+	/**
+	 * The first half of {@link #run(HasPlansAndId)}: selects a plan of the person and, if there is a module, makes a
+	 * copy of it the selected plan.  Only touches the person, so it can be called for different persons in parallel.
+	 *
+	 * @return the copy to be handed to {@link #handleCopiedPlan(BasicPlan)}, or <code>null</code> if there is no module
+	 */
+	/* package */ final T selectAndCopyPlan(final HasPlansAndId<T, I> person) {
 		// if there is at least one unscored plan, find that one:
 		T plan = new RandomUnscoredPlanSelector<T, I>().selectPlan(person) ;
 		
@@ -86,17 +94,27 @@ public class GenericPlanStrategyImpl<T extends BasicPlan, I> implements GenericP
 
 		// if there is a "module" (i.e. "innovation"):
 		if (this.firstModule != null) {
-			
 			// set the working plan to a copy of the selected plan:
-			plan = person.createCopyOfSelectedPlanAndMakeSelected();
-			
+			return person.createCopyOfSelectedPlanAndMakeSelected();
+		}
+		return null;
+	}
+
+	/**
+	 * The second half of {@link #run(HasPlansAndId)}: hands the copy to the modules.  Must be called once per person,
+	 * on the thread that calls {@link #finish()}.
+	 *
+	 * @param plan the result of {@link #selectAndCopyPlan(HasPlansAndId)}
+	 */
+	/* package */ final void handleCopiedPlan(final T plan) {
+		this.counter++;
+		if (plan != null) {
 			// add new plan to container that contains the plans that are handled by this PlanStrategy:
 			this.plans.add(plan);
 
 			// start working on this new plan:
 			this.firstModule.handlePlan(plan);
 		}
-
 	}
 
 	@Override
@@ -25,7 +25,10 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.population.BasicPlan;
@@ -55,6 +58,12 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 	private static final Logger log =
 			Logger.getLogger(GenericStrategyManager.class);
 
+	/**
+	 * the number of persons sharing one stream of random numbers when replanning in parallel.  Fixed, so that the
+	 * results do not depend on the number of threads.
+	 */
+	private static final int PERSONS_PER_BLOCK = 1024;
+
 
 	static class StrategyWeights<T extends BasicPlan, I> {
 		final List<GenericPlanStrategy<T, I>> strategies = new ArrayList<>();
@@ -72,6 +81,8 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 	private PlanSelector<PL, AG> removalPlanSelector = new GenericWorstPlanForRemovalSelector<>();
 
 	private String subpopulationAttributeName = null;
+
+	private int numberOfThreads = 0;
 	
 	public GenericStrategyManager() {
 	}
@@ -193,27 +204,16 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 			strategy.init(replanningContext);
 		}
 
-		// then go through the population and ...
-		for (HasPlansAndId<PL, AG> person : persons ) {
-
-			// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
-			if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
-				removePlans( person, this.maxPlansPerAgent);
-			}
-
-			// ... choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
-			String subpopName = null;
-			if (this.subpopulationAttributeName != null) {
-				subpopName = (String) subPopLookup.getAttribute(person.getId().toString(), this.subpopulationAttributeName);
-			}
-			GenericPlanStrategy<PL, AG> strategy = this.chooseStrategy(person, subpopName);
+		if (this.numberOfThreads > 0) {
+			runParallel(persons, subPopLookup);
+		} else {
+			// then go through the population and ...
+			for (HasPlansAndId<PL, AG> person : persons ) {
+				GenericPlanStrategy<PL, AG> strategy = removePlansAndChooseStrategy(person, subPopLookup);
 
-			if (strategy==null) {
-				throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation?");
+				// ... and run the strategy:
+				strategy.run(person);
 			}
-			
-			// ... and run the strategy:
-			strategy.run(person);
 		}
 
 		// finally make sure all strategies have finished there work
@@ -223,6 +223,123 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 
 	}
 
+	private GenericPlanStrategy<PL, AG> removePlansAndChooseStrategy(final HasPlansAndId<PL, AG> person, final ObjectAttributes subPopLookup) {
+		// ... reduce the number of plans to the allowed maximum (in evol comp lang this is "selection")
+		if ((this.maxPlansPerAgent > 0) && (person.getPlans().size() > this.maxPlansPerAgent)) {
+			removePlans( person, this.maxPlansPerAgent);
+		}
+
+		// ... choose the strategy to be used for this person (in evol comp lang this would be the choice of the mutation operator)
+		String subpopName = null;
+		if (this.subpopulationAttributeName != null) {
+			subpopName = (String) subPopLookup.getAttribute(person.getId().toString(), this.subpopulationAttributeName);
+		}
+		GenericPlanStrategy<PL, AG> strategy = this.chooseStrategy(person, subpopName);
+
+		if (strategy==null) {
+			throw new RuntimeException("No strategy found! Have you defined at least one replanning strategy per subpopulation?");
+		}
+		return strategy;
+	}
+
+	/**
+	 * Removes plans, chooses the strategies and, for {@link GenericPlanStrategyImpl}s, selects and copies the plans in
+	 * {@link #numberOfThreads} threads.  The persons are split into blocks of {@link #PERSONS_PER_BLOCK}, each block
+	 * drawing from its own random number generator bound by {@link MatsimRandom#setThreadRandom(Random)}, so the selectors
+	 * need not be changed.  Afterwards, the copied plans are handed to the strategy modules on this thread, in the
+	 * order of the persons, as are the persons of other strategies.
+	 */
+	private void runParallel(final Iterable<? extends HasPlansAndId<PL, AG>> persons, final ObjectAttributes subPopLookup) {
+		final List<HasPlansAndId<PL, AG>> personList = new ArrayList<>();
+		for (HasPlansAndId<PL, AG> person : persons) {
+			personList.add(person);
+		}
+		final int numberOfBlocks = (personList.size() + PERSONS_PER_BLOCK - 1) / PERSONS_PER_BLOCK;
+		final long[] seeds = new long[numberOfBlocks];
+		for (int i = 0; i < numberOfBlocks; i++) {
+			seeds[i] = MatsimRandom.getRandom().nextLong();
+		}
+		final Map<GenericPlanStrategy<PL, AG>, Boolean> splittable = new HashMap<>();
+		for (GenericPlanStrategy<PL, AG> strategy : distinctStrategies()) {
+			splittable.put(strategy, isSplittable(strategy));
+		}
+
+		final List<GenericPlanStrategy<PL, AG>> chosenStrategies = new ArrayList<>(Collections.<GenericPlanStrategy<PL, AG>>nCopies(personList.size(), null));
+		final List<PL> copiedPlans = new ArrayList<>(Collections.<PL>nCopies(personList.size(), null));
+		final AtomicInteger nextBlock = new AtomicInteger(0);
+		final AtomicBoolean hadException = new AtomicBoolean(false);
+
+		Thread[] threads = new Thread[Math.min(this.numberOfThreads, Math.max(numberOfBlocks, 1))];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					int block;
+					while (!hadException.get() && (block = nextBlock.getAndIncrement()) < numberOfBlocks) {
+						MatsimRandom.setThreadRandom(new Random(seeds[block]));
+						try {
+							int end = Math.min((block + 1) * PERSONS_PER_BLOCK, personList.size());
+							for (int i = block * PERSONS_PER_BLOCK; i < end; i++) {
+								HasPlansAndId<PL, AG> person = personList.get(i);
+								GenericPlanStrategy<PL, AG> strategy = removePlansAndChooseStrategy(person, subPopLookup);
+								chosenStrategies.set(i, strategy);
+								if (splittable.get(strategy)) {
+									copiedPlans.set(i, ((GenericPlanStrategyImpl<PL, AG>) strategy).selectAndCopyPlan(person));
+								}
+							}
+						} finally {
+							MatsimRandom.setThreadRandom(null);
+						}
+					}
+				}
+			}, "Replanning." + t);
+			threads[t].setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+				@Override
+				public void uncaughtException(final Thread thread, final Throwable e) {
+					hadException.set(true);
+					log.error("Thread " + thread.getName() + " died with exception while replanning.", e);
+				}
+			});
+			threads[t].start();
+		}
+		try {
+			for (Thread thread : threads) {
+				thread.join();
+			}
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		}
+		if (hadException.get()) {
+			throw new RuntimeException("Exception while replanning. Cannot guarantee that all persons have been fully processed.");
+		}
+
+		// hand the plans to the strategies, in the same order as the serial version
+		for (int i = 0; i < personList.size(); i++) {
+			GenericPlanStrategy<PL, AG> strategy = chosenStrategies.get(i);
+			if (splittable.get(strategy)) {
+				((GenericPlanStrategyImpl<PL, AG>) strategy).handleCopiedPlan(copiedPlans.get(i));
+			} else {
+				strategy.run(personList.get(i));
+			}
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the strategy is a {@link GenericPlanStrategyImpl} which does not override
+	 * {@link GenericPlanStrategyImpl#run(HasPlansAndId)}, i.e. running it is the same as selecting and handling the
+	 * copied plan.
+	 */
+	private static boolean isSplittable(final GenericPlanStrategy<?, ?> strategy) {
+		if (!(strategy instanceof GenericPlanStrategyImpl)) {
+			return false;
+		}
+		try {
+			return strategy.getClass().getMethod("run", HasPlansAndId.class).getDeclaringClass() == GenericPlanStrategyImpl.class;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
 	private Collection<GenericPlanStrategy<PL, AG>> distinctStrategies() {
 		// Leaving out duplicate strategies in different subpopulations
 		Collection<GenericPlanStrategy<PL, AG>> strategies = new LinkedHashSet<>();
@@ -310,6 +427,16 @@ public class GenericStrategyManager<PL extends BasicPlan, AG extends HasPlansAnd
 		this.maxPlansPerAgent = maxPlansPerAgent;
 	}
 
+	/**
+	 * Sets the number of threads removing plans, choosing strategies and selecting and copying plans before they are
+	 * handed to the strategy modules.  Zero (the default) means that all this is done on the calling thread, with the
+	 * global random number generator.  With more threads, the results do not depend on the number of threads, but
+	 * differ from the ones of the serial version, since the random numbers are drawn from other streams.
+	 */
+	public final void setNumberOfThreads(final int numberOfThreads) {
+		this.numberOfThreads = numberOfThreads;
+	}
+
 	/**
 	 * Schedules a {@link #changeWeightOfStrategy(GenericPlanStrategy, String, double)} command for a later iteration. The
 	 * change will take place before the strategies are applied.
@@ -56,6 +56,7 @@ public class StrategyManager implements MatsimManager {
 
 		this();
 		setMaxPlansPerAgent(strategyConfigGroup.getMaxAgentPlanMemorySize());
+		setNumberOfThreads(strategyConfigGroup.getNumberOfReplanningThreads());
 
 		int globalInnovationDisableAfter = (int) ((controlerConfigGroup.getLastIteration() - controlerConfigGroup.getFirstIteration())
 				* strategyConfigGroup.getFractionOfIterationsToDisableInnovation() + controlerConfigGroup.getFirstIteration());
@@ -99,6 +100,13 @@ public class StrategyManager implements MatsimManager {
 		delegate.setSubpopulationAttributeName(name);
 	}
 
+	/**
+	 * @see GenericStrategyManager#setNumberOfThreads(int)
+	 */
+	public final void setNumberOfThreads(final int numberOfThreads) {
+		delegate.setNumberOfThreads(numberOfThreads);
+	}
+
 	@Deprecated
 	public final void addStrategyForDefaultSubpopulation(
 			final PlanStrategy strategy,
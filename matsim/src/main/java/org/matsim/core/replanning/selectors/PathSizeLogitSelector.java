@@ -20,7 +20,7 @@
 
 package org.matsim.core.replanning.selectors;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +34,6 @@ import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.core.config.Config;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.population.routes.NetworkRoute;
-import org.matsim.core.population.routes.RouteUtils;
 
 import javax.inject.Inject;
 
@@ -70,20 +69,18 @@ public final class PathSizeLogitSelector extends AbstractPlanSelector {
 
 		double maxScore = Double.NEGATIVE_INFINITY;
 
-		HashMap<Id<Link>, ArrayList<Double>> linksInTime = new HashMap<>();
-		// (a data structure that memorizes possible leg start times for link utilization (??))
-		
-		HashMap<Integer,Double> planLength = new HashMap<Integer, Double>();
-		// (a data structure that memorizes the total travel distance of each plan)
-		// (yyyy is it obvious that no two plans can have the same hash code?  what happens if they do?  kai, oct'12)
-		// (why not just <Plan,Double>?????)
+		// Every use of a link by a leg is an "entry", memorizing the link, its length and the departure time of the leg.
+		// The entries are kept in primitive arrays that are reused by the thread, see Scratch.
+		Scratch scratch = SCRATCH.get();
+		scratch.reset(plans.size());
 		
 		//this gets the choice sets C_n
 		//TODO [GL] since the lack of information in Route(),
 		//the very first and the very last link of a path will be ignored - gl
 		//dg, 09-2013: as first and last link are equal for all routes between to activities this is no major issue
 
-		for (Plan plan : plans) {
+		for (int p = 0; p < plans.size(); p++) {
+			Plan plan = plans.get(p);
 
 			if (plan.getScore() > maxScore) maxScore = plan.getScore();
 
@@ -97,52 +94,38 @@ public final class PathSizeLogitSelector extends AbstractPlanSelector {
 					NetworkRoute r = (NetworkRoute) leg.getRoute();
 					// (yyyy this will fail when the route is not a network route.  kai, oct'12)
 
-					pathSize += RouteUtils.calcDistanceExcludingStartEndLink(r, network);
-					// (i.e. pathSize will be the sum over all routes of the plan)
-					
+					double routeDistance = 0;
 					for (Id<Link> linkId : r.getLinkIds()){
-						ArrayList<Double> lit = linksInTime.get(linkId);
-						if (lit == null){
-							lit = new ArrayList<Double>();
-							linksInTime.put(linkId, lit);
-						}
-						lit.add(currentEndTime);
+						double linkLength = network.getLinks().get(linkId).getLength();
+						routeDistance += linkLength;
+						scratch.addEntry(linkId.index(), linkLength, currentEndTime);
 					}
+					// (same as RouteUtils.calcDistanceExcludingStartEndLink(r, network), without looking up the links twice)
+
+					pathSize += routeDistance;
+					// (i.e. pathSize will be the sum over all routes of the plan)
 				}
 			}
-			planLength.put(plan.hashCode(), pathSize);
+			scratch.planLength[p] = pathSize;
+			scratch.planEnd[p] = scratch.size;
 		}
 
-		for (Plan plan : plans) {
+		scratch.countOverlaps();
+		// (the meaning seems to be: for each link that the plan uses, it checks how many other times the
+		// same link is used by a leg that has roughly the same departure time (*))
 
-			double tmp = 0;
-			for (PlanElement pe : plan.getPlanElements()) {
-				if (pe instanceof Leg) {
-					Leg leg = (Leg) pe;
-					double currentTime = leg.getDepartureTime();
-					NetworkRoute route = (NetworkRoute) leg.getRoute();
-					for (Id<Link> linkId : route.getLinkIds()){
-						double denominator = 0;
-						for (double dbl : linksInTime.get(linkId)){
-							//TODO this is just for testing (those legs where the departure time differs more then 3600 seconds will not compared to each other) - need a
-							//little bit to brood on it - gl
-							// An alternative might be to use a kernal, e.g. a Gaussian.  Something like
-							// denominator += exp( (dbl-currentTime)^2 / sigma^2 ) .  kai, oct'12
-							if (Math.abs(dbl - currentTime) <= 3600)
-								denominator++;
-						}
-						// (the meaning seems to be: for each link that the plan uses, it checks how many other times the
-						// same link is used by a leg that has roughly the same departure time (*))
+		int entry = 0;
+		for (int p = 0; p < plans.size(); p++) {
+			Plan plan = plans.get(p);
 
-						Link link = network.getLinks().get(linkId);
-						tmp += link.getLength() / denominator;
-						// (for a plan, the weight of a link is divided by the number of times it is used)
-					}
-				}
+			double tmp = 0;
+			for (; entry < scratch.planEnd[p]; entry++) {
+				tmp += scratch.length[entry] / scratch.overlaps[entry];
+				// (for a plan, the weight of a link is divided by the number of times it is used)
 			}
 			// tmp is now a number that contains the ``reduced'' travel distance of the plan.  Divide it by the full travel distance
 			// of the plan, and take to the power of this.beta:
-			double PSi = Math.pow(tmp/planLength.get(plan.hashCode()), this.pathSizeLogitExponent);
+			double PSi = Math.pow(tmp/scratch.planLength[p], this.pathSizeLogitExponent);
 			
 			double weight;
 			if (Double.isInfinite(maxScore)) {
@@ -171,4 +154,144 @@ public final class PathSizeLogitSelector extends AbstractPlanSelector {
 		return weights ;
 	}
 
+	/**
+	 * The departure times closer than this to the one of a leg count as an overlap with it.
+	 */
+	private static final double OVERLAP_WINDOW = 3600;
+
+	private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	/**
+	 * The link uses of the plans of one person, in primitive arrays which grow as needed and are reused for the next
+	 * person handled by the same thread.
+	 * <p></p>
+	 * The overlaps are counted by sorting the entries by link, and the departure times of every link, so for each entry
+	 * the number of entries of the same link within the {@link #OVERLAP_WINDOW} is found by binary search.  This replaces
+	 * rescanning all departure times of the link for every entry.
+	 */
+	private static final class Scratch {
+		int size = 0;
+		int[] linkIndex = new int[256];
+		double[] length = new double[256];
+		double[] time = new double[256];
+		double[] overlaps = new double[256];
+		long[] sortKeys = new long[256];
+		double[] groupTimes = new double[256];
+		double[] planLength = new double[16];
+		int[] planEnd = new int[16];
+
+		void reset(final int numberOfPlans) {
+			this.size = 0;
+			if (this.planLength.length < numberOfPlans) {
+				this.planLength = new double[numberOfPlans];
+				this.planEnd = new int[numberOfPlans];
+			}
+		}
+
+		void addEntry(final int link, final double linkLength, final double departureTime) {
+			if (this.size == this.linkIndex.length) {
+				int capacity = 2 * this.size;
+				this.linkIndex = Arrays.copyOf(this.linkIndex, capacity);
+				this.length = Arrays.copyOf(this.length, capacity);
+				this.time = Arrays.copyOf(this.time, capacity);
+				this.overlaps = new double[capacity];
+				this.sortKeys = new long[capacity];
+				this.groupTimes = new double[capacity];
+			}
+			this.linkIndex[this.size] = link;
+			this.length[this.size] = linkLength;
+			this.time[this.size] = departureTime;
+			this.size++;
+		}
+
+		/**
+		 * Sets {@link #overlaps} of every entry to the number of entries with the same link (including itself) whose
+		 * departure time differs by at most {@link #OVERLAP_WINDOW}.
+		 */
+		void countOverlaps() {
+			for (int i = 0; i < this.size; i++) {
+				this.sortKeys[i] = ((long) this.linkIndex[i] << 32) | i;
+			}
+			Arrays.sort(this.sortKeys, 0, this.size);
+
+			int groupStart = 0;
+			while (groupStart < this.size) {
+				int link = (int) (this.sortKeys[groupStart] >>> 32);
+				int groupEnd = groupStart + 1;
+				while (groupEnd < this.size && (int) (this.sortKeys[groupEnd] >>> 32) == link) {
+					groupEnd++;
+				}
+				int groupSize = groupEnd - groupStart;
+				boolean allFinite = true;
+				for (int g = 0; g < groupSize; g++) {
+					double t = this.time[(int) this.sortKeys[groupStart + g]];
+					this.groupTimes[g] = t;
+					allFinite &= !Double.isNaN(t) && !Double.isInfinite(t);
+				}
+				Arrays.sort(this.groupTimes, 0, groupSize);
+				for (int g = groupStart; g < groupEnd; g++) {
+					int entry = (int) this.sortKeys[g];
+					double currentTime = this.time[entry];
+					int count;
+					//TODO this is just for testing (those legs where the departure time differs more then 3600 seconds will not compared to each other) - need a
+					//little bit to brood on it - gl
+					// An alternative might be to use a kernal, e.g. a Gaussian.  Something like
+					// denominator += exp( (dbl-currentTime)^2 / sigma^2 ) .  kai, oct'12
+					if (allFinite) {
+						// same as Math.abs(dbl - currentTime) <= OVERLAP_WINDOW, which holds for a contiguous range of sorted times
+						count = firstIndexAbove(currentTime, groupSize) - firstIndexWithin(currentTime, groupSize);
+					} else {
+						count = 0;
+						for (int k = 0; k < groupSize; k++) {
+							if (Math.abs(this.groupTimes[k] - currentTime) <= OVERLAP_WINDOW) {
+								count++;
+							}
+						}
+					}
+					this.overlaps[entry] = count;
+				}
+				groupStart = groupEnd;
+			}
+		}
+
+		/**
+		 * @return the index of the first of the sorted {@link #groupTimes} with <code>dbl - currentTime &gt;= -OVERLAP_WINDOW</code>
+		 */
+		private int firstIndexWithin(final double currentTime, final int groupSize) {
+			int low = 0;
+			int high = groupSize;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.groupTimes[mid] - currentTime >= -OVERLAP_WINDOW) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+
+		/**
+		 * @return the index of the first of the sorted {@link #groupTimes} with <code>dbl - currentTime &gt; OVERLAP_WINDOW</code>
+		 */
+		private int firstIndexAbove(final double currentTime, final int groupSize) {
+			int low = 0;
+			int high = groupSize;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (this.groupTimes[mid] - currentTime > OVERLAP_WINDOW) {
+					high = mid;
+				} else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+	}
+
 }
@@ -25,11 +25,13 @@ import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.population.PopulationUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Helps to work on plans with complex trips.
@@ -44,6 +46,12 @@ import java.util.List;
  * The methods require an instance of {@link StageActivityTypes} as a parameter,
  * which is used to identify the dummy activities pertaining to trips.
  * In almost all use-cases, it should come from {@link TripRouter#getStageActivityTypes()}.
+ * <br>
+ * The versions working on {@link Plan}s keep their result with the plan (if it is
+ * a {@link org.matsim.core.population.PlanImpl}) and return it again as long as
+ * the plan elements, their activity types and, for subtours, their locations did
+ * not change.  So repeated calls on the same plan are cheap.  Like the plan itself,
+ * this is not thread-safe.
  *
  * @author thibautd
  */
@@ -53,7 +61,13 @@ public class TripStructureUtils {
 
 	// also need this for plain old fashioned legs.  kai
 	public static List<Leg> getLegs(final Plan plan) {
-		return getLegs( plan.getPlanElements() );
+		final List<PlanElement> planElements = plan.getPlanElements();
+		final CachedStructure cached = getCachedStructure( plan );
+		if ( cached == null ) return getLegs( planElements );
+		if ( cached.legs == null ) {
+			cached.legs = getLegs( planElements );
+		}
+		return cached.legs;
 	}
 
 	public static List<Leg> getLegs( final List<? extends PlanElement> planElements ) {
@@ -71,9 +85,13 @@ public class TripStructureUtils {
 	public static List<Activity> getActivities(
 			final Plan plan,
 			final StageActivityTypes stageActivities) {
-		return getActivities(
-				plan.getPlanElements(),
-				stageActivities);
+		final List<PlanElement> planElements = plan.getPlanElements();
+		final CachedStageStructure cached = getCachedStageStructure( plan , planElements , stageActivities );
+		if ( cached == null ) return getActivities( planElements , stageActivities );
+		if ( cached.activities == null ) {
+			cached.activities = getActivities( planElements , stageActivities );
+		}
+		return cached.activities;
 	}
 
 	public static List<Activity> getActivities(
@@ -97,9 +115,13 @@ public class TripStructureUtils {
 	public static List<Trip> getTrips(
 			final Plan plan,
 			final StageActivityTypes stageActivities) {
-		return getTrips(
-				plan.getPlanElements(),
-				stageActivities);
+		final List<PlanElement> planElements = plan.getPlanElements();
+		final CachedStageStructure cached = getCachedStageStructure( plan , planElements , stageActivities );
+		if ( cached == null ) return getTrips( planElements , stageActivities );
+		if ( cached.trips == null ) {
+			cached.trips = getTrips( planElements , stageActivities );
+		}
+		return cached.trips;
 	}
 
 	public static List<Trip> getTrips(
@@ -144,8 +166,9 @@ public class TripStructureUtils {
 			final Plan plan,
 			final StageActivityTypes stageActivityTypes) {
 		return getSubtours(
-				plan.getPlanElements(),
-				stageActivityTypes);
+				plan,
+				stageActivityTypes,
+				false );
 	}
 
 	public static Collection<Subtour> getSubtours(
@@ -161,10 +184,20 @@ public class TripStructureUtils {
 			final Plan plan,
 			final StageActivityTypes stageActivityTypes,
 			final boolean useFacilitiesInsteadOfLinks) {
-		return getSubtours(
-				plan.getPlanElements(),
-				stageActivityTypes,
-				useFacilitiesInsteadOfLinks );
+		final List<PlanElement> planElements = plan.getPlanElements();
+		final CachedStageStructure cached = getCachedStageStructure( plan , planElements , stageActivityTypes );
+		if ( cached == null ) return getSubtours( planElements , stageActivityTypes , useFacilitiesInsteadOfLinks );
+
+		final int i = useFacilitiesInsteadOfLinks ? 1 : 0;
+		if ( cached.subtours[ i ] == null ||
+				!hasSameLocations( planElements , cached.locationIds[ i ] , useFacilitiesInsteadOfLinks ) ) {
+			if ( cached.trips == null ) {
+				cached.trips = getTrips( planElements , stageActivityTypes );
+			}
+			cached.subtours[ i ] = getSubtours( cached.trips , useFacilitiesInsteadOfLinks );
+			cached.locationIds[ i ] = getLocations( planElements , useFacilitiesInsteadOfLinks );
+		}
+		return cached.subtours[ i ];
 	}
 
 	/**
@@ -199,11 +232,18 @@ public class TripStructureUtils {
 			final List<? extends PlanElement> planElements,
 			final StageActivityTypes stageActivityTypes,
 			final boolean useFacilitiesInsteadOfLinks) {
+		return getSubtours(
+				getTrips( planElements , stageActivityTypes ),
+				useFacilitiesInsteadOfLinks );
+	}
+
+	private static Collection<Subtour> getSubtours(
+			final List<Trip> trips,
+			final boolean useFacilitiesInsteadOfLinks) {
 		final List<Subtour> subtours = new ArrayList<>();
 
 		Id<?> destinationId = null;
 		final List<Id<?>> originIds = new ArrayList<>();
-		final List<Trip> trips = getTrips( planElements , stageActivityTypes );
 		final List<Trip> nonAllocatedTrips = new ArrayList<>( trips );
 		for (Trip trip : trips) {
 			final Id<?> originId = useFacilitiesInsteadOfLinks ?
@@ -294,6 +334,134 @@ public class TripStructureUtils {
 		subtours.add( newSubtour );
 	}
 
+	// caching of the structure with the plan:
+
+	/**
+	 * The structure of a plan, valid as long as the list of plan elements did not change.  Kept with the plan, see
+	 * {@link PopulationUtils#getCachedTripStructure(Plan)}; its contents are only accessible here.
+	 */
+	public static final class CachedStructure {
+		private final int modificationCount;
+		private List<Leg> legs = null;
+		private CachedStageStructure stageStructure = null;
+
+		private CachedStructure(final int modificationCount) {
+			this.modificationCount = modificationCount;
+		}
+	}
+
+	/**
+	 * The parts of the structure depending on the stage activities, valid as long as additionally the stage
+	 * activity types are the same and the types of the activities did not change.  The subtours (by links and by
+	 * facilities) are additionally only valid as long as the locations of the activities did not change.
+	 */
+	private static final class CachedStageStructure {
+		final StageActivityTypes stageActivityTypes;
+		final String[] activityTypes;
+		List<Activity> activities = null;
+		List<Trip> trips = null;
+		@SuppressWarnings("unchecked")
+		final Collection<Subtour>[] subtours = new Collection[ 2 ];
+		final Id<?>[][] locationIds = new Id<?>[ 2 ][];
+
+		CachedStageStructure(
+				final StageActivityTypes stageActivityTypes,
+				final String[] activityTypes) {
+			this.stageActivityTypes = stageActivityTypes;
+			this.activityTypes = activityTypes;
+		}
+	}
+
+	private static CachedStructure getCachedStructure(final Plan plan) {
+		// the plan elements need to be got before, as getting them may change the modification count
+		final int modificationCount = PopulationUtils.getModificationCount( plan );
+		if ( modificationCount < 0 ) return null;
+
+		final CachedStructure cached = PopulationUtils.getCachedTripStructure( plan );
+		if ( cached != null && cached.modificationCount == modificationCount ) {
+			return cached;
+		}
+		final CachedStructure structure = new CachedStructure( modificationCount );
+		PopulationUtils.setCachedTripStructure( plan , structure );
+		return structure;
+	}
+
+	private static CachedStageStructure getCachedStageStructure(
+			final Plan plan,
+			final List<PlanElement> planElements,
+			final StageActivityTypes stageActivityTypes) {
+		final CachedStructure cached = getCachedStructure( plan );
+		if ( cached == null ) return null;
+
+		final CachedStageStructure stageStructure = cached.stageStructure;
+		if ( stageStructure != null &&
+				Objects.equals( stageStructure.stageActivityTypes , stageActivityTypes ) &&
+				hasSameActivityTypes( planElements , stageStructure.activityTypes ) ) {
+			return stageStructure;
+		}
+		cached.stageStructure = new CachedStageStructure( stageActivityTypes , getActivityTypes( planElements ) );
+		return cached.stageStructure;
+	}
+
+	private static String[] getActivityTypes(final List<PlanElement> planElements) {
+		int count = 0;
+		for (int i = 0; i < planElements.size(); i++) {
+			if ( planElements.get( i ) instanceof Activity ) count++;
+		}
+		final String[] types = new String[ count ];
+		count = 0;
+		for (int i = 0; i < planElements.size(); i++) {
+			final PlanElement pe = planElements.get( i );
+			if ( pe instanceof Activity ) types[ count++ ] = ((Activity) pe).getType();
+		}
+		return types;
+	}
+
+	private static boolean hasSameActivityTypes(
+			final List<PlanElement> planElements,
+			final String[] types) {
+		// the list did not change, so the number of activities is the same
+		int count = 0;
+		for (int i = 0; i < planElements.size(); i++) {
+			final PlanElement pe = planElements.get( i );
+			if ( !(pe instanceof Activity) ) continue;
+			final String type = ((Activity) pe).getType();
+			final String cachedType = types[ count++ ];
+			// types are usually interned, see ActivityImpl
+			if ( type != cachedType && (type == null || !type.equals( cachedType )) ) return false;
+		}
+		return true;
+	}
+
+	private static Id<?>[] getLocations(
+			final List<PlanElement> planElements,
+			final boolean useFacilitiesInsteadOfLinks) {
+		final List<Id<?>> ids = new ArrayList<>();
+		for (int i = 0; i < planElements.size(); i++) {
+			final PlanElement pe = planElements.get( i );
+			if ( !(pe instanceof Activity) ) continue;
+			final Activity act = (Activity) pe;
+			ids.add( useFacilitiesInsteadOfLinks ? act.getFacilityId() : act.getLinkId() );
+		}
+		return ids.toArray( new Id<?>[ ids.size() ] );
+	}
+
+	private static boolean hasSameLocations(
+			final List<PlanElement> planElements,
+			final Id<?>[] ids,
+			final boolean useFacilitiesInsteadOfLinks) {
+		int count = 0;
+		for (int i = 0; i < planElements.size(); i++) {
+			final PlanElement pe = planElements.get( i );
+			if ( !(pe instanceof Activity) ) continue;
+			final Activity act = (Activity) pe;
+			final Id<?> id = useFacilitiesInsteadOfLinks ? act.getFacilityId() : act.getLinkId();
+			// ids are unique, so they can be compared by identity
+			if ( id != ids[ count++ ] ) return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Represents a trip, that is, the longest sequence of
 	 * {@link PlanElement}s consisting only of legs and "dummy"
@@ -472,7 +640,7 @@ public class TripStructureUtils {
 		if ( currentPlanElement instanceof Activity ) {
 			Gbl.assertIf( stageActivities.isStageActivity( ((Activity)currentPlanElement).getType() ) ) ;
 		}
-		List<Trip> trips = getTrips(plan.getPlanElements(), stageActivities ) ;
+		List<Trip> trips = getTrips( plan, stageActivities ) ;
 		for ( Trip trip : trips ) {
 			int index = trip.getTripElements().indexOf( currentPlanElement ) ;
 			if ( index != -1 ) {
@@ -483,7 +651,7 @@ public class TripStructureUtils {
 	}
 	public static Trip findTripEndingAtActivity(Activity activity, Plan plan, StageActivityTypes stageActivities ) {
 		Gbl.assertIf( ! stageActivities.isStageActivity( activity.getType()) ) ;
-		List<Trip> trips = getTrips(plan.getPlanElements(), stageActivities ) ;
+		List<Trip> trips = getTrips( plan, stageActivities ) ;
 		for ( Trip trip : trips ) {
 			if ( activity.equals( trip.getDestinationActivity() ) ) {
 				return trip;
@@ -20,6 +20,7 @@
 package org.matsim.core.scenario;
 
 import java.io.File;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -106,9 +107,25 @@ class ScenarioLoaderImpl {
 		String currentDir = new File("tmp").getAbsolutePath();
 		currentDir = currentDir.substring(0, currentDir.length() - 3);
 		log.info("loading scenario from base directory: " + currentDir);
-		this.loadNetwork();
+		File snapshotFile = getScenarioSnapshotFile();
+		byte[] snapshotHash = null;
+		boolean loadedFromSnapshot = false;
+		if (snapshotFile != null) {
+			snapshotHash = computeScenarioSnapshotHash();
+			loadedFromSnapshot = ScenarioSnapshot.read(this.scenario, snapshotFile, snapshotHash);
+		}
+		if (!loadedFromSnapshot) {
+			this.loadNetwork();
+		}
+		this.loadNetworkChangeEvents();
 		this.loadActivityFacilities();
-		this.loadPopulation();
+		if (!loadedFromSnapshot) {
+			this.loadPopulation();
+		}
+		this.loadPersonAttributes();
+		if (snapshotFile != null && !loadedFromSnapshot) {
+			ScenarioSnapshot.write(this.scenario, snapshotFile, snapshotHash);
+		}
 		this.loadHouseholds(); // tests internally if the file is there
 		this.loadTransit(); // tests internally if the file is there
 		this.loadTransitVehicles(); // tests internally if the file is there
@@ -128,9 +145,21 @@ class ScenarioLoaderImpl {
 		if ((this.config.network() != null) && (this.config.network().getInputFile() != null)) {
 			URL networkUrl = this.config.network().getInputFileURL(this.config.getContext());
 			log.info("loading network from " + networkUrl);
-			if ( config.network().getInputCRS() == null ) {
+			if ( this.config.network().getInputFile().endsWith(NetworkUtils.MAPPED_NETWORK_FILE_EXTENSION) ) {
+				// mapped networks are read-only, so they cannot be re-projected
+				if ( config.network().getInputCRS() != null ) {
+					throw new RuntimeException("a mapped network cannot be re-projected; write it in the coordinate system " + config.global().getCoordinateSystem());
+				}
+				try {
+					this.scenario.setNetwork(NetworkUtils.readMappedNetwork(new File(networkUrl.toURI()).getPath()));
+				} catch (URISyntaxException e) {
+					throw new RuntimeException(e);
+				}
+			}
+			else if ( config.network().getInputCRS() == null ) {
 				MatsimNetworkReader reader = new MatsimNetworkReader(this.scenario.getNetwork());
 				reader.putAttributeConverters( attributeConverters );
+				reader.setValidating(this.config.global().isValidateXml());
 				reader.parse(networkUrl);
 			}
 			else {
@@ -141,9 +170,14 @@ class ScenarioLoaderImpl {
 								config.global().getCoordinateSystem() );
 				MatsimNetworkReader reader = new MatsimNetworkReader( transformation , this.scenario.getNetwork());
 				reader.putAttributeConverters( attributeConverters );
+				reader.setValidating(this.config.global().isValidateXml());
 				reader.parse(networkUrl);
 			}
+		}
+	}
 
+	private void loadNetworkChangeEvents() {
+		if ((this.config.network() != null) && (this.config.network().getInputFile() != null)) {
 			if ((this.config.network().getChangeEventsInputFile()!= null) && this.config.network().isTimeVariantNetwork()) {
 				log.info("loading network change events from " + this.config.network().getChangeEventsInputFileUrl(this.config.getContext()).getFile());
 				Network network = this.scenario.getNetwork();
@@ -164,7 +198,9 @@ class ScenarioLoaderImpl {
 			final String internalCRS = config.global().getCoordinateSystem();
 
 			if ( inputCRS == null ) {
-				new MatsimFacilitiesReader(this.scenario).parse(facilitiesFileName);
+				MatsimFacilitiesReader reader = new MatsimFacilitiesReader(this.scenario);
+				reader.setValidating(this.config.global().isValidateXml());
+				reader.parse(facilitiesFileName);
 			}
 			else {
 				log.info( "re-projecting facilities from "+inputCRS+" to "+internalCRS+" for import" );
@@ -174,7 +210,9 @@ class ScenarioLoaderImpl {
 								inputCRS,
 								internalCRS );
 
-				new MatsimFacilitiesReader(transformation , this.scenario).parse(facilitiesFileName);
+				MatsimFacilitiesReader reader = new MatsimFacilitiesReader(transformation , this.scenario);
+				reader.setValidating(this.config.global().isValidateXml());
+				reader.parse(facilitiesFileName);
 			}
 			log.info("loaded " + this.scenario.getActivityFacilities().getFacilities().size() + " facilities from " + facilitiesFileName);
 		}
@@ -201,6 +239,7 @@ class ScenarioLoaderImpl {
 			if ( config.plans().getInputCRS() == null ) {
 				final PopulationReader reader = new PopulationReader(this.scenario);
 				reader.putAttributeConverters( attributeConverters );
+				reader.setValidating(this.config.global().isValidateXml());
 				reader.parse( populationFileName );
 			}
 			else {
@@ -216,6 +255,7 @@ class ScenarioLoaderImpl {
 
 				final PopulationReader reader = new PopulationReader(transformation , this.scenario);
 				reader.putAttributeConverters( attributeConverters );
+				reader.setValidating(this.config.global().isValidateXml());
 				reader.parse( populationFileName );
 			}
 
@@ -224,6 +264,9 @@ class ScenarioLoaderImpl {
 		else {
 			log.info("no population file set in config, not able to load population");
 		}
+	}
+
+	private void loadPersonAttributes() {
 		if ((this.config.plans() != null) && (this.config.plans().getInputPersonAttributeFile() != null)) {
 			URL personAttributesURL = this.config.plans().getInputPersonAttributeFileURL(this.config.getContext());
 			log.info("loading person attributes from " + personAttributesURL);
@@ -236,6 +279,38 @@ class ScenarioLoaderImpl {
 		}
 	}
 
+	/**
+	 * @return the file of the scenario snapshot, or <code>null</code> if no snapshot should be used
+	 */
+	private File getScenarioSnapshotFile() {
+		String filename = this.config.global().getScenarioSnapshotFile();
+		if (filename == null) {
+			return null;
+		}
+		URL url = ConfigGroup.getInputFileURL(this.config.getContext(), filename);
+		if (!"file".equals(url.getProtocol())) {
+			log.warn("scenario snapshot " + url + " is not a local file, not using it.");
+			return null;
+		}
+		try {
+			return new File(url.toURI());
+		} catch (URISyntaxException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private byte[] computeScenarioSnapshotHash() {
+		List<URL> sources = new ArrayList<>();
+		sources.add(this.config.network().getInputFile() == null ? null : this.config.network().getInputFileURL(this.config.getContext()));
+		sources.add(this.config.plans().getInputFile() == null ? null : this.config.plans().getInputFileURL(this.config.getContext()));
+		List<String> settings = new ArrayList<>();
+		settings.add(this.config.global().getCoordinateSystem());
+		settings.add(this.config.network().getInputCRS());
+		settings.add(this.config.plans().getInputCRS());
+		settings.add(this.config.plans().getNetworkRouteType());
+		return ScenarioSnapshot.computeHash(sources, settings);
+	}
+
 	private void loadHouseholds() {
 		if ( (this.config.households() != null) && (this.config.households().getInputFile() != null) ) {
 			URL householdsFile = this.config.households().getInputFileURL(this.config.getContext());
@@ -267,7 +342,9 @@ class ScenarioLoaderImpl {
 			final String internalCRS = config.global().getCoordinateSystem();
 
 			if ( inputCRS == null ) {
-				new TransitScheduleReader(this.scenario).readURL(this.config.transit().getTransitScheduleFileURL(this.config.getContext()));
+				TransitScheduleReader reader = new TransitScheduleReader(this.scenario);
+				reader.setValidating(this.config.global().isValidateXml());
+				reader.readURL(transitScheduleFile);
 			}
 			else {
 				log.info( "re-projecting transit schedule from "+inputCRS+" to "+internalCRS+" for import" );
@@ -277,7 +354,9 @@ class ScenarioLoaderImpl {
 								inputCRS,
 								internalCRS );
 
-				new TransitScheduleReader( transformation , this.scenario).readURL(transitScheduleFile);
+				TransitScheduleReader reader = new TransitScheduleReader( transformation , this.scenario);
+				reader.setValidating(this.config.global().isValidateXml());
+				reader.readURL(transitScheduleFile);
 			}
 		}
 		else {
@@ -0,0 +1,702 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshot.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.NetworkFactory;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteFactories;
+import org.matsim.core.utils.io.UncheckedIOException;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.utils.objectattributes.attributable.Attributes;
+import org.matsim.vehicles.Vehicle;
+
+/**
+ * A binary snapshot of the network and the population of a scenario, which can be read much faster than the xml files
+ * they were loaded from.  See {@link org.matsim.core.config.groups.GlobalConfigGroup#getScenarioSnapshotFile()}.
+ * <p></p>
+ * The snapshot starts with a hash of the content of the source files and of the settings that influence how they are
+ * read, so an outdated snapshot is detected and ignored.  Ids are written as string the first time they occur, and
+ * as index afterwards.  The snapshot is read through a memory mapping of the file.
+ * <p></p>
+ * Only what the xml formats contain is stored, and only attributes of type String, Integer, Long, Double and Boolean.
+ * If the scenario contains anything else, no snapshot is written.  All other elements of the scenario (facilities,
+ * transit, vehicles, households, ObjectAttributes, network change events) are still read from their files.
+ */
+final class ScenarioSnapshot {
+
+	private static final Logger log = Logger.getLogger(ScenarioSnapshot.class);
+
+	private static final int MAGIC = 0x4d53534e; // "MSSN"
+	private static final int VERSION = 1;
+
+	private static final byte ATTR_STRING = 0;
+	private static final byte ATTR_INTEGER = 1;
+	private static final byte ATTR_LONG = 2;
+	private static final byte ATTR_DOUBLE = 3;
+	private static final byte ATTR_BOOLEAN = 4;
+
+	private static final byte ACTIVITY = 0;
+	private static final byte LEG = 1;
+
+	private ScenarioSnapshot() {
+	}
+
+	/**
+	 * @param sources the files the network and the population were read from; <code>null</code> entries are allowed
+	 * @param settings all settings that influence the result of reading the files, e.g. coordinate systems
+	 */
+	static byte[] computeHash(final List<URL> sources, final List<String> settings) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(Integer.toString(VERSION).getBytes(StandardCharsets.UTF_8));
+			for (String setting : settings) {
+				digest.update((String.valueOf(setting) + '\n').getBytes(StandardCharsets.UTF_8));
+			}
+			byte[] buffer = new byte[1 << 16];
+			for (URL source : sources) {
+				digest.update((String.valueOf(source) + '\n').getBytes(StandardCharsets.UTF_8));
+				if (source == null) {
+					continue;
+				}
+				try (InputStream in = source.openStream()) {
+					int read;
+					while ((read = in.read(buffer)) >= 0) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			}
+			return digest.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads network and population from the snapshot into the (empty) scenario.
+	 *
+	 * @return <code>false</code> if the snapshot does not exist or was created from other sources, in which case the
+	 * scenario is not modified.
+	 */
+	static boolean read(final Scenario scenario, final File file, final byte[] hash) {
+		if (!file.isFile()) {
+			log.info("scenario snapshot " + file + " does not exist yet.");
+			return false;
+		}
+		try (MappedInput in = new MappedInput(file)) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				log.warn("scenario snapshot " + file + " has an unknown format, ignoring it.");
+				return false;
+			}
+			byte[] snapshotHash = new byte[in.readInt()];
+			in.readFully(snapshotHash);
+			if (!Arrays.equals(hash, snapshotHash)) {
+				log.info("scenario snapshot " + file + " was created from other input files, ignoring it.");
+				return false;
+			}
+			log.info("reading network and population from scenario snapshot " + file);
+			new SnapshotReader(in).read(scenario);
+			return true;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes network and population of the scenario into the snapshot file, replacing an existing one.
+	 *
+	 * @return <code>false</code> if the scenario contains data that cannot be stored in a snapshot.
+	 */
+	static boolean write(final Scenario scenario, final File file, final byte[] hash) {
+		File tmpFile = new File(file.getPath() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 1 << 16))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(hash.length);
+				out.write(hash);
+				new SnapshotWriter(out).write(scenario);
+			}
+			Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			log.info("wrote scenario snapshot " + file);
+			return true;
+		} catch (UnsupportedContentException e) {
+			log.warn("cannot write scenario snapshot: " + e.getMessage());
+			if (!tmpFile.delete()) {
+				log.warn("could not delete " + tmpFile);
+			}
+			return false;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes only the population, in the same format but without a hash.  Used for iteration checkpoints, where the
+	 * population cannot just be left out if it contains data that is not supported.
+	 */
+	static void writePopulation(final Population population, final File file) {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(0);
+			new SnapshotWriter(out).writePopulation(population);
+		} catch (UnsupportedContentException e) {
+			throw new RuntimeException("cannot write population to " + file + ": " + e.getMessage(), e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads a population written by {@link #writePopulation(Population, File)} into the (empty) population.
+	 */
+	static void readPopulation(final Population population, final File file) {
+		try (MappedInput in = new MappedInput(file)) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new RuntimeException(file + " is not a population written by this version of MATSim.");
+			}
+			in.readFully(new byte[in.readInt()]);
+			new SnapshotReader(in).readPopulation(population);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static final class UnsupportedContentException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		UnsupportedContentException(final String message) {
+			super(message);
+		}
+	}
+
+	private static final class SnapshotWriter {
+		private final DataOutputStream out;
+		private final Map<Class<?>, Map<Id<?>, Integer>> idIndices = new HashMap<>();
+
+		SnapshotWriter(final DataOutputStream out) {
+			this.out = out;
+		}
+
+		void write(final Scenario scenario) throws IOException {
+			writeNetwork(scenario.getNetwork());
+			writePopulation(scenario.getPopulation());
+		}
+
+		private void writeNetwork(final Network network) throws IOException {
+			writeString(network.getName());
+			this.out.writeDouble(network.getCapacityPeriod());
+			this.out.writeDouble(network.getEffectiveLaneWidth());
+			this.out.writeDouble(network.getEffectiveCellSize());
+			writeAttributes(network.getAttributes());
+
+			this.out.writeInt(network.getNodes().size());
+			for (Node node : network.getNodes().values()) {
+				writeId(node.getId(), Node.class);
+				writeCoord(node.getCoord());
+				writeString(NetworkUtils.getType(node));
+				writeString(NetworkUtils.getOrigId(node));
+				writeAttributes(node.getAttributes());
+			}
+			this.out.writeInt(network.getLinks().size());
+			for (Link link : network.getLinks().values()) {
+				writeId(link.getId(), Link.class);
+				writeId(link.getFromNode().getId(), Node.class);
+				writeId(link.getToNode().getId(), Node.class);
+				this.out.writeDouble(link.getLength());
+				this.out.writeDouble(link.getFreespeed());
+				this.out.writeDouble(link.getCapacity());
+				this.out.writeDouble(link.getNumberOfLanes());
+				this.out.writeInt(link.getAllowedModes().size());
+				for (String mode : link.getAllowedModes()) {
+					writeString(mode);
+				}
+				writeAttributes(link.getAttributes());
+			}
+		}
+
+		private void writePopulation(final Population population) throws IOException {
+			writeString(population.getName());
+			writeAttributes(population.getAttributes());
+			this.out.writeInt(population.getPersons().size());
+			for (Person person : population.getPersons().values()) {
+				writeId(person.getId(), Person.class);
+				writeAttributes(person.getAttributes());
+				this.out.writeInt(person.getPlans().size());
+				this.out.writeInt(person.getPlans().indexOf(person.getSelectedPlan()));
+				for (Plan plan : person.getPlans()) {
+					writePlan(plan);
+				}
+			}
+		}
+
+		private void writePlan(final Plan plan) throws IOException {
+			this.out.writeBoolean(plan.getScore() != null);
+			if (plan.getScore() != null) {
+				this.out.writeDouble(plan.getScore());
+			}
+			writeString(plan.getType());
+			writeAttributes(plan.getAttributes());
+			this.out.writeInt(plan.getPlanElements().size());
+			for (PlanElement pe : plan.getPlanElements()) {
+				if (pe instanceof Activity) {
+					Activity act = (Activity) pe;
+					this.out.writeByte(ACTIVITY);
+					writeString(act.getType());
+					writeCoord(act.getCoord());
+					writeId(act.getLinkId(), Link.class);
+					writeId(act.getFacilityId(), ActivityFacility.class);
+					this.out.writeDouble(act.getStartTime());
+					this.out.writeDouble(act.getEndTime());
+					this.out.writeDouble(act.getMaximumDuration());
+					writeAttributes(act.getAttributes());
+				} else if (pe instanceof Leg) {
+					Leg leg = (Leg) pe;
+					this.out.writeByte(LEG);
+					writeString(leg.getMode());
+					this.out.writeDouble(leg.getDepartureTime());
+					this.out.writeDouble(leg.getTravelTime());
+					writeAttributes(leg.getAttributes());
+					writeRoute(leg.getRoute());
+				} else {
+					throw new UnsupportedContentException("unknown plan element " + pe.getClass().getName());
+				}
+			}
+		}
+
+		private void writeRoute(final Route route) throws IOException {
+			if (route == null) {
+				writeString(null);
+				return;
+			}
+			writeString(route.getRouteType());
+			writeId(route.getStartLinkId(), Link.class);
+			writeId(route.getEndLinkId(), Link.class);
+			this.out.writeDouble(route.getTravelTime());
+			this.out.writeDouble(route.getDistance());
+			if (route instanceof NetworkRoute) {
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				this.out.writeInt(networkRoute.getLinkIds().size());
+				for (Id<Link> linkId : networkRoute.getLinkIds()) {
+					writeId(linkId, Link.class);
+				}
+				writeId(networkRoute.getVehicleId(), Vehicle.class);
+				this.out.writeDouble(networkRoute.getTravelCost());
+			} else {
+				writeString(route.getRouteDescription());
+			}
+		}
+
+		private void writeCoord(final Coord coord) throws IOException {
+			this.out.writeByte(coord == null ? 0 : (coord.hasZ() ? 3 : 2));
+			if (coord != null) {
+				this.out.writeDouble(coord.getX());
+				this.out.writeDouble(coord.getY());
+				if (coord.hasZ()) {
+					this.out.writeDouble(coord.getZ());
+				}
+			}
+		}
+
+		private void writeAttributes(final Attributes attributes) throws IOException {
+			this.out.writeInt(attributes.size());
+			for (Map.Entry<String, Object> e : attributes.getAsMap().entrySet()) {
+				writeString(e.getKey());
+				Object value = e.getValue();
+				if (value instanceof String) {
+					this.out.writeByte(ATTR_STRING);
+					writeString((String) value);
+				} else if (value instanceof Integer) {
+					this.out.writeByte(ATTR_INTEGER);
+					this.out.writeInt((Integer) value);
+				} else if (value instanceof Long) {
+					this.out.writeByte(ATTR_LONG);
+					this.out.writeLong((Long) value);
+				} else if (value instanceof Double) {
+					this.out.writeByte(ATTR_DOUBLE);
+					this.out.writeDouble((Double) value);
+				} else if (value instanceof Boolean) {
+					this.out.writeByte(ATTR_BOOLEAN);
+					this.out.writeBoolean((Boolean) value);
+				} else {
+					throw new UnsupportedContentException("attribute " + e.getKey() + " is of unsupported type "
+							+ (value == null ? "null" : value.getClass().getName()));
+				}
+			}
+		}
+
+		/**
+		 * Writes <code>-1</code> for <code>null</code>, the index of the id if it was written before, or
+		 * <code>-2</code> followed by the id as string otherwise.
+		 */
+		private void writeId(final Id<?> id, final Class<?> type) throws IOException {
+			if (id == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			Map<Id<?>, Integer> indices = this.idIndices.get(type);
+			if (indices == null) {
+				indices = new HashMap<>();
+				this.idIndices.put(type, indices);
+			}
+			Integer index = indices.get(id);
+			if (index != null) {
+				this.out.writeInt(index);
+			} else {
+				indices.put(id, indices.size());
+				this.out.writeInt(-2);
+				writeString(id.toString());
+			}
+		}
+
+		private void writeString(final String s) throws IOException {
+			if (s == null) {
+				this.out.writeInt(-1);
+				return;
+			}
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			this.out.writeInt(bytes.length);
+			this.out.write(bytes);
+		}
+	}
+
+	private static final class SnapshotReader {
+		private final MappedInput in;
+		private final Map<Class<?>, List<Id<?>>> ids = new HashMap<>();
+
+		SnapshotReader(final MappedInput in) {
+			this.in = in;
+		}
+
+		void read(final Scenario scenario) throws IOException {
+			readNetwork(scenario.getNetwork());
+			readPopulation(scenario.getPopulation());
+		}
+
+		private void readNetwork(final Network network) throws IOException {
+			network.setName(readString());
+			network.setCapacityPeriod(this.in.readDouble());
+			network.setEffectiveLaneWidth(this.in.readDouble());
+			network.setEffectiveCellSize(this.in.readDouble());
+			readAttributes(network.getAttributes());
+
+			NetworkFactory factory = network.getFactory();
+			int numberOfNodes = this.in.readInt();
+			for (int i = 0; i < numberOfNodes; i++) {
+				Node node = factory.createNode(readId(Node.class), readCoord());
+				String type = readString();
+				if (type != null) {
+					NetworkUtils.setType(node, type);
+				}
+				String origId = readString();
+				if (origId != null) {
+					NetworkUtils.setOrigId(node, origId);
+				}
+				readAttributes(node.getAttributes());
+				network.addNode(node);
+			}
+			int numberOfLinks = this.in.readInt();
+			for (int i = 0; i < numberOfLinks; i++) {
+				Id<Link> id = readId(Link.class);
+				Node fromNode = network.getNodes().get(readId(Node.class));
+				Node toNode = network.getNodes().get(readId(Node.class));
+				Link link = factory.createLink(id, fromNode, toNode);
+				link.setLength(this.in.readDouble());
+				link.setFreespeed(this.in.readDouble());
+				link.setCapacity(this.in.readDouble());
+				link.setNumberOfLanes(this.in.readDouble());
+				int numberOfModes = this.in.readInt();
+				Set<String> modes = new HashSet<>();
+				for (int m = 0; m < numberOfModes; m++) {
+					modes.add(readString().intern());
+				}
+				link.setAllowedModes(modes);
+				readAttributes(link.getAttributes());
+				network.addLink(link);
+			}
+		}
+
+		private void readPopulation(final Population population) throws IOException {
+			population.setName(readString());
+			readAttributes(population.getAttributes());
+			PopulationFactory factory = population.getFactory();
+			int numberOfPersons = this.in.readInt();
+			for (int i = 0; i < numberOfPersons; i++) {
+				Person person = factory.createPerson(readId(Person.class));
+				readAttributes(person.getAttributes());
+				int numberOfPlans = this.in.readInt();
+				int selectedIndex = this.in.readInt();
+				for (int p = 0; p < numberOfPlans; p++) {
+					Plan plan = readPlan(factory);
+					person.addPlan(plan);
+					if (p == selectedIndex) {
+						person.setSelectedPlan(plan);
+					}
+				}
+				population.addPerson(person);
+			}
+		}
+
+		private Plan readPlan(final PopulationFactory factory) throws IOException {
+			Plan plan = factory.createPlan();
+			if (this.in.readBoolean()) {
+				plan.setScore(this.in.readDouble());
+			}
+			String type = readString();
+			if (type != null) {
+				plan.setType(type);
+			}
+			readAttributes(plan.getAttributes());
+			int numberOfElements = this.in.readInt();
+			for (int i = 0; i < numberOfElements; i++) {
+				if (this.in.readByte() == ACTIVITY) {
+					String actType = readString();
+					Coord coord = readCoord();
+					Id<Link> linkId = readId(Link.class);
+					Activity act = linkId != null ? factory.createActivityFromLinkId(actType, linkId) : factory.createActivityFromCoord(actType, coord);
+					act.setCoord(coord);
+					act.setFacilityId(readId(ActivityFacility.class));
+					act.setStartTime(this.in.readDouble());
+					act.setEndTime(this.in.readDouble());
+					act.setMaximumDuration(this.in.readDouble());
+					readAttributes(act.getAttributes());
+					plan.addActivity(act);
+				} else {
+					String mode = readString();
+					Leg leg = factory.createLeg(mode == null ? null : mode.intern());
+					leg.setDepartureTime(this.in.readDouble());
+					leg.setTravelTime(this.in.readDouble());
+					readAttributes(leg.getAttributes());
+					leg.setRoute(readRoute(factory.getRouteFactories()));
+					plan.addLeg(leg);
+				}
+			}
+			return plan;
+		}
+
+		private Route readRoute(final RouteFactories routeFactories) throws IOException {
+			String routeType = readString();
+			if (routeType == null) {
+				return null;
+			}
+			Id<Link> startLinkId = readId(Link.class);
+			Id<Link> endLinkId = readId(Link.class);
+			Route route = routeFactories.createRoute(routeFactories.getRouteClassForType(routeType), startLinkId, endLinkId);
+			route.setTravelTime(this.in.readDouble());
+			route.setDistance(this.in.readDouble());
+			if (route instanceof NetworkRoute) {
+				NetworkRoute networkRoute = (NetworkRoute) route;
+				int numberOfLinks = this.in.readInt();
+				List<Id<Link>> linkIds = new ArrayList<>(numberOfLinks);
+				for (int i = 0; i < numberOfLinks; i++) {
+					linkIds.add(readId(Link.class));
+				}
+				networkRoute.setLinkIds(startLinkId, linkIds, endLinkId);
+				networkRoute.setVehicleId(readId(Vehicle.class));
+				networkRoute.setTravelCost(this.in.readDouble());
+			} else {
+				route.setRouteDescription(readString());
+			}
+			return route;
+		}
+
+		private Coord readCoord() throws IOException {
+			byte dimensions = this.in.readByte();
+			if (dimensions == 0) {
+				return null;
+			}
+			double x = this.in.readDouble();
+			double y = this.in.readDouble();
+			return dimensions == 3 ? new Coord(x, y, this.in.readDouble()) : new Coord(x, y);
+		}
+
+		private void readAttributes(final Attributes attributes) throws IOException {
+			int size = this.in.readInt();
+			for (int i = 0; i < size; i++) {
+				String name = readString();
+				byte type = this.in.readByte();
+				Object value;
+				switch (type) {
+				case ATTR_STRING:
+					value = readString();
+					break;
+				case ATTR_INTEGER:
+					value = this.in.readInt();
+					break;
+				case ATTR_LONG:
+					value = this.in.readLong();
+					break;
+				case ATTR_DOUBLE:
+					value = this.in.readDouble();
+					break;
+				case ATTR_BOOLEAN:
+					value = this.in.readBoolean();
+					break;
+				default:
+					throw new RuntimeException("unknown attribute type " + type + " in scenario snapshot");
+				}
+				attributes.putAttribute(name, value);
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private <T> Id<T> readId(final Class<T> type) throws IOException {
+			int index = this.in.readInt();
+			if (index == -1) {
+				return null;
+			}
+			List<Id<?>> list = this.ids.get(type);
+			if (list == null) {
+				list = new ArrayList<>();
+				this.ids.put(type, list);
+			}
+			if (index == -2) {
+				Id<T> id = Id.create(readString(), type);
+				list.add(id);
+				return id;
+			}
+			return (Id<T>) list.get(index);
+		}
+
+		private String readString() throws IOException {
+			int length = this.in.readInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			this.in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Reads a file through memory mappings.  Files larger than {@link #REGION_SIZE} are mapped in several, overlapping
+	 * regions, as a single mapping is limited to 2GB.
+	 */
+	private static final class MappedInput implements Closeable {
+		private static final long REGION_SIZE = 1L << 30;
+
+		private final FileChannel channel;
+		private final long size;
+		private long regionStart = 0;
+		private ByteBuffer buffer;
+
+		MappedInput(final File file) throws IOException {
+			this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+			this.size = this.channel.size();
+			map(0);
+		}
+
+		private void map(final long start) throws IOException {
+			this.regionStart = start;
+			this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, this.size - start));
+		}
+
+		private ByteBuffer require(final int bytes) throws IOException {
+			if (this.buffer.remaining() < bytes) {
+				long position = this.regionStart + this.buffer.position();
+				if (position + bytes > this.size) {
+					throw new EOFException();
+				}
+				map(position);
+			}
+			return this.buffer;
+		}
+
+		byte readByte() throws IOException {
+			return require(1).get();
+		}
+
+		boolean readBoolean() throws IOException {
+			return readByte() != 0;
+		}
+
+		int readInt() throws IOException {
+			return require(4).getInt();
+		}
+
+		long readLong() throws IOException {
+			return require(8).getLong();
+		}
+
+		double readDouble() throws IOException {
+			return require(8).getDouble();
+		}
+
+		void readFully(final byte[] bytes) throws IOException {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int length = Math.min(require(1).remaining(), bytes.length - offset);
+				this.buffer.get(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.channel.close();
+		}
+	}
+
+}
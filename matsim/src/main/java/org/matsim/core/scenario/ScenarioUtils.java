@@ -1,5 +1,7 @@
 package org.matsim.core.scenario;
 
+import java.io.File;
+
 import org.matsim.api.core.v01.Scenario;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Population;
@@ -69,7 +71,25 @@ public final class ScenarioUtils {
 		ScenarioLoaderImpl scenarioLoader = new ScenarioLoaderImpl(scenario);
 		scenarioLoader.loadScenario();
 	}
-	
+
+	/**
+	 * Writes the population in the binary format of the scenario snapshots, which is much faster to write and to read
+	 * than xml.  Only attributes of type String, Integer, Long, Double and Boolean are supported.  Not meant for
+	 * exchanging populations, the format may change between versions of MATSim.
+	 *
+	 * @see org.matsim.core.config.groups.GlobalConfigGroup#getScenarioSnapshotFile()
+	 */
+	public static void writeBinaryPopulation(final Population population, final String filename) {
+		ScenarioSnapshot.writePopulation(population, new File(filename));
+	}
+
+	/**
+	 * Reads a population written by {@link #writeBinaryPopulation(Population, String)} into the (empty) population.
+	 */
+	public static void readBinaryPopulation(final Population population, final String filename) {
+		ScenarioSnapshot.readPopulation(population, new File(filename));
+	}
+
 	public final static class ScenarioBuilder {
 		private MutableScenario scenario;
 		public ScenarioBuilder( Config config ) {
@@ -20,6 +20,7 @@
 package org.matsim.core.scoring;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -58,6 +59,7 @@ import org.matsim.core.gbl.Gbl;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.utils.misc.Time;
 import org.matsim.pt.routes.ExperimentalTransitRoute;
 import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitRoute;
@@ -78,6 +80,10 @@ import com.google.inject.Inject;
  * Note that the instances of Leg passed to the LegHandler will never be identical to those in the Scenario! Even
  * in a "no-op" simulation which only reproduces the Plan, new instances will be created. So if you attach your own data
  * to the Legs in the Scenario, that's your own lookout.
+ * <p></p>
+ * Consumers which do not need full Legs, like most scoring functions, should register as {@link LegRecordHandler}.
+ * They get an {@link ExperiencedLegRecord} which is reused for all legs of a person, and no Leg or route is created
+ * for them. Legs are only created when a {@link LegHandler} is registered or a record handler asks for one.
  * 
  * @author michaz
  *
@@ -127,6 +133,112 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 		void handleLeg(PersonExperiencedLeg leg);
 	}
 
+	public interface LegRecordHandler {
+		/**
+		 * @param leg only valid during this call, see {@link ExperiencedLegRecord}
+		 */
+		void handleLegRecord(ExperiencedLegRecord leg);
+	}
+
+	/**
+	 * The leg a person currently travels on, reused for all legs of the person.
+	 */
+	private static final class LegRecord implements ExperiencedLegRecord {
+		private final Id<Person> personId;
+		private String mode = null;
+		private double departureTime = Time.UNDEFINED_TIME;
+		private double travelTime = Time.UNDEFINED_TIME;
+		private double distance = Double.NaN;
+		@SuppressWarnings("unchecked")
+		private Id<Link>[] linkIds = new Id[8];
+		private int numberOfLinks = 0;
+		private Id<Link> endLinkId = null;
+		private double relPosOnDepartureLink = Double.NaN;
+		private double relPosOnArrivalLink = Double.NaN;
+		private Route transitRoute = null;
+		private Leg leg = null;
+
+		LegRecord(Id<Person> personId) {
+			this.personId = personId;
+		}
+
+		void depart(String mode, double time, Id<Link> linkId) {
+			this.mode = mode;
+			this.departureTime = time;
+			this.travelTime = Time.UNDEFINED_TIME;
+			this.distance = Double.NaN;
+			this.numberOfLinks = 0;
+			this.endLinkId = null;
+			this.transitRoute = null;
+			this.leg = null;
+			addLink(linkId);
+		}
+
+		void addLink(Id<Link> linkId) {
+			if (this.numberOfLinks == this.linkIds.length) {
+				this.linkIds = Arrays.copyOf(this.linkIds, 2 * this.numberOfLinks);
+			}
+			this.linkIds[this.numberOfLinks++] = linkId;
+		}
+
+		@Override
+		public Id<Person> getPersonId() {
+			return this.personId;
+		}
+
+		@Override
+		public String getMode() {
+			return this.mode;
+		}
+
+		@Override
+		public double getDepartureTime() {
+			return this.departureTime;
+		}
+
+		@Override
+		public double getTravelTime() {
+			return this.travelTime;
+		}
+
+		@Override
+		public double getDistance() {
+			return this.distance;
+		}
+
+		@Override
+		public Id<Link> getStartLinkId() {
+			return this.linkIds[0];
+		}
+
+		@Override
+		public Id<Link> getEndLinkId() {
+			return this.endLinkId;
+		}
+
+		@Override
+		public Leg toLeg() {
+			if (this.leg == null) {
+				Leg leg = PopulationUtils.createLeg(this.mode);
+				leg.setDepartureTime(this.departureTime);
+				leg.setTravelTime(this.travelTime);
+				Route route = this.transitRoute;
+				if (route == null) {
+					if (this.numberOfLinks > 1) {
+						route = RouteUtils.createNetworkRoute(Arrays.asList(Arrays.copyOf(this.linkIds, this.numberOfLinks)), null);
+					} else {
+						route = RouteUtils.createGenericRouteImpl(this.linkIds[0], this.endLinkId);
+					}
+					route.setTravelTime(this.travelTime);
+					route.setDistance(this.distance);
+				}
+				leg.setRoute(route);
+				this.leg = leg;
+			}
+			return this.leg;
+		}
+	}
+
 	private Network network;
 	private TransitSchedule transitSchedule = null;
 
@@ -134,14 +246,12 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 	public void setTransitSchedule(TransitSchedule transitSchedule) {
 		this.transitSchedule = transitSchedule;
 	}
-	private Map<Id<Person>, Leg> legs = new HashMap<>();
-	private Map<Id<Person>, List<Id<Link>>> experiencedRoutes = new HashMap<>();
-	private Map<Id<Person>, Double> relPosOnDepartureLinkPerPerson = new HashMap<>();
-	private Map<Id<Person>, Double> relPosOnArrivalLinkPerPerson = new HashMap<>();
+	private Map<Id<Person>, LegRecord> legRecords = new HashMap<>();
 	private Map<Id<Person>, TeleportationArrivalEvent> routelessTravels = new HashMap<>();
 	private Map<Id<Person>, PendingTransitTravel> transitTravels = new HashMap<>();
 	private Map<Id<Vehicle>, LineAndRoute> transitVehicle2currentRoute = new HashMap<>();
 	private List<LegHandler> legHandlers = new ArrayList<>();
+	private List<LegRecordHandler> legRecordHandlers = new ArrayList<>();
 
 
 	@Inject
@@ -161,8 +271,7 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 
 	@Override
 	public void reset(int iteration) {
-		legs.clear();
-		experiencedRoutes.clear();
+		// the leg records are kept for the next iteration, they are reset by the next departure
 		transitTravels.clear();
 		routelessTravels.clear();
 		transitVehicle2currentRoute.clear();
@@ -174,13 +283,16 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 
 	@Override
 	public void handleEvent(PersonDepartureEvent event) {
-		Leg leg = PopulationUtils.createLeg(event.getLegMode());
-		leg.setDepartureTime(event.getTime());
-		legs.put(event.getPersonId(), leg);
+		getLegRecord(event.getPersonId()).depart(event.getLegMode(), event.getTime(), event.getLinkId());
+	}
 
-		List<Id<Link>> route = new ArrayList<>();
-		route.add(event.getLinkId());
-		experiencedRoutes.put(event.getPersonId(), route);
+	private LegRecord getLegRecord(Id<Person> personId) {
+		LegRecord legRecord = legRecords.get(personId);
+		if (legRecord == null) {
+			legRecord = new LegRecord(personId);
+			legRecords.put(personId, legRecord);
+		}
+		return legRecord;
 	}
 
 	@Override
@@ -200,8 +312,7 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 	@Override
 	public void handleEvent(LinkEnterEvent event) {
 		Id<Person> driverOfVehicle = delegate.getDriverOfVehicle(event.getVehicleId());
-		List<Id<Link>> route = experiencedRoutes.get(driverOfVehicle);
-		route.add(event.getLinkId());
+		legRecords.get(driverOfVehicle).addLink(event.getLinkId());
 	}
 
 	@Override
@@ -219,28 +330,21 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 
 	@Override
 	public void handleEvent(PersonArrivalEvent event) {
-		Leg leg = legs.get(event.getPersonId());
-		leg.setTravelTime( event.getTime() - leg.getDepartureTime() );
-		double travelTime = leg.getDepartureTime() + leg.getTravelTime() - leg.getDepartureTime();
-		leg.setTravelTime(travelTime);
-		List<Id<Link>> experiencedRoute = experiencedRoutes.get(event.getPersonId());
-		assert experiencedRoute.size() >= 1  ;
+		LegRecord legRecord = legRecords.get(event.getPersonId());
+		double legTravelTime = event.getTime() - legRecord.departureTime;
+		double travelTime = legRecord.departureTime + legTravelTime - legRecord.departureTime;
+		legRecord.travelTime = travelTime;
+		legRecord.endLinkId = event.getLinkId();
+		assert legRecord.numberOfLinks >= 1  ;
 		PendingTransitTravel pendingTransitTravel;
-		if (experiencedRoute.size() > 1) { // different links processed
-			NetworkRoute networkRoute = RouteUtils.createNetworkRoute(experiencedRoute, null);
-			networkRoute.setTravelTime(travelTime);
-
+		if (legRecord.numberOfLinks > 1) { // different links processed
 			/* use the relative position of vehicle enter/leave traffic events on first/last links
 			 * to calculate the correct route distance including the first/last link. 
 			 * (see MATSIM-227) tt feb'16
 			 */
-			double relPosOnDepartureLink = relPosOnDepartureLinkPerPerson.get(event.getPersonId());
-			Double relPosOnArrivalLink = relPosOnArrivalLinkPerPerson.get(event.getPersonId());
-			Gbl.assertNotNull( relPosOnArrivalLink );
-			networkRoute.setDistance(RouteUtils.calcDistance(networkRoute, relPosOnDepartureLink, 
-					relPosOnArrivalLink, network));
-
-			leg.setRoute(networkRoute);
+			Gbl.assertIf( !Double.isNaN(legRecord.relPosOnDepartureLink) );
+			Gbl.assertIf( !Double.isNaN(legRecord.relPosOnArrivalLink) );
+			legRecord.distance = calcDistance(legRecord);
 		} else if ((pendingTransitTravel = transitTravels.remove(event.getPersonId())) != null) {
 			// i.e. experiencedRoute.size()==1 && pending transit travel (= person has entered a vehicle)
 
@@ -272,41 +376,76 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 					egressFacility);
 			experimentalTransitRoute.setTravelTime(travelTime);
 			experimentalTransitRoute.setDistance(RouteUtils.calcDistance(experimentalTransitRoute, transitSchedule, network));
-			leg.setRoute(experimentalTransitRoute);
+			legRecord.transitRoute = experimentalTransitRoute;
+			legRecord.distance = experimentalTransitRoute.getDistance();
 		} else {
 			// i.e. experiencedRoute.size()==1 and no pendingTransitTravel
 
 			TeleportationArrivalEvent travelEvent = routelessTravels.remove(event.getPersonId());
-			Route genericRoute = RouteUtils.createGenericRouteImpl(experiencedRoute.get(0), event.getLinkId());
-			genericRoute.setTravelTime(travelTime);
 			if (travelEvent != null) {
-				genericRoute.setDistance(travelEvent.getDistance());
+				legRecord.distance = travelEvent.getDistance();
 			} else {
-				genericRoute.setDistance(0.0);
+				legRecord.distance = 0.0;
 			}
-			leg.setRoute(genericRoute);
 		}
-		for (LegHandler legHandler : legHandlers) {
-			legHandler.handleLeg(new PersonExperiencedLeg(event.getPersonId(), leg));
+		if (!legHandlers.isEmpty()) {
+			PersonExperiencedLeg experiencedLeg = new PersonExperiencedLeg(event.getPersonId(), legRecord.toLeg());
+			for (LegHandler legHandler : legHandlers) {
+				legHandler.handleLeg(experiencedLeg);
+			}
+		}
+		for (LegRecordHandler legRecordHandler : legRecordHandlers) {
+			legRecordHandler.handleLegRecord(legRecord);
 		}
 	}
 
+	/**
+	 * Same as {@link RouteUtils#calcDistance(NetworkRoute, double, double, Network)}, without creating the route.
+	 */
+	private double calcDistance(LegRecord legRecord) {
+		Map<Id<Link>, ? extends Link> links = network.getLinks();
+		Id<Link> startLinkId = legRecord.linkIds[0];
+		Id<Link> endLinkId = legRecord.linkIds[legRecord.numberOfLinks - 1];
+		// sum distance of all link besides departure and arrival link
+		double routeDistance = 0;
+		for (int i = 1; i < legRecord.numberOfLinks - 1; i++) {
+			routeDistance += links.get(legRecord.linkIds[i]).getLength();
+		}
+		// add relative distance of departure link
+		routeDistance += links.get(startLinkId).getLength() * (1.0 - legRecord.relPosOnDepartureLink);
+		if (!startLinkId.equals(endLinkId)) {
+			// add relative distance of arrival link
+			routeDistance += links.get(endLinkId).getLength() * legRecord.relPosOnArrivalLink;
+		} else { // i.e. departure = arrival link
+			// subtract relative distance of arrival link that is not traveled
+			routeDistance -= links.get(endLinkId).getLength() * (1.0 - legRecord.relPosOnArrivalLink);
+		}
+		return routeDistance;
+	}
+
 	@Override
 	public void handleEvent(TransitDriverStartsEvent event) {
 		LineAndRoute lineAndRoute = new LineAndRoute(event.getTransitLineId(), event.getTransitRouteId(), event.getDriverId());
 		transitVehicle2currentRoute.put(event.getVehicleId(), lineAndRoute);
 	}
 
+	/**
+	 * Legs are created for every leg handler; prefer {@link #addLegRecordHandler(LegRecordHandler)} if you do not need them.
+	 */
 	public void addLegHandler(LegHandler legHandler) {
 		this.legHandlers.add(legHandler);
 	}
 
+	public void addLegRecordHandler(LegRecordHandler legRecordHandler) {
+		this.legRecordHandlers.add(legRecordHandler);
+	}
+
 	@Override
 	public void handleEvent(VehicleEntersTrafficEvent event) {
 		delegate.handleEvent(event);
 
 		// remember the relative position on the link
-		relPosOnDepartureLinkPerPerson.put(event.getPersonId(), event.getRelativePositionOnLink());
+		getLegRecord(event.getPersonId()).relPosOnDepartureLink = event.getRelativePositionOnLink();
 	}
 
 	@Override
@@ -314,7 +453,7 @@ TeleportationArrivalEventHandler, TransitDriverStartsEventHandler, PersonEntersV
 		delegate.handleEvent(event);
 
 		// remember the relative position on the link
-		relPosOnArrivalLinkPerPerson.put(event.getPersonId(), event.getRelativePositionOnLink());
+		getLegRecord(event.getPersonId()).relPosOnArrivalLink = event.getRelativePositionOnLink();
 	}
 
 }
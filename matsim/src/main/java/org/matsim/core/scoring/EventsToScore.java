@@ -71,7 +71,7 @@ public final class EventsToScore implements BasicEventHandler {
 	public static EventsToScore createWithScoreUpdating(final Scenario scenario, final ScoringFunctionFactory scoringFunctionFactory, final EventsManager eventsManager) {
 		com.google.inject.Injector injector = Injector.createInjector(scenario.getConfig(),
 				new ScenarioByInstanceModule(scenario),
-				new ExperiencedPlansModule(),
+				new ExperiencedPlanElementsModule(),
 				new AbstractModule() {
 					@Override
 					public void install() {
@@ -90,7 +90,7 @@ public final class EventsToScore implements BasicEventHandler {
 	public static EventsToScore createWithoutScoreUpdating(Scenario scenario, final ScoringFunctionFactory scoringFunctionFactory, final EventsManager eventsManager) {
 		com.google.inject.Injector injector = Injector.createInjector(scenario.getConfig(),
 				new ScenarioByInstanceModule(scenario),
-				new ExperiencedPlansModule(),
+				new ExperiencedPlanElementsModule(),
 				new AbstractModule() {
 					@Override
 					public void install() {
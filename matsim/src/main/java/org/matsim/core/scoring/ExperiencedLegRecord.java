@@ -0,0 +1,60 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ExperiencedLegRecord.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring;
+
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+
+/**
+ * The data of a leg as experienced in the mobsim, for consumers like scoring functions that do not need a
+ * full {@link Leg}, see {@link EventsToLegs.LegRecordHandler}.
+ * <p></p>
+ * An instance is only valid while it is passed to the handlers: {@link EventsToLegs} reuses it for the next leg
+ * of the same person. Copy what you need, or keep the result of {@link #toLeg()}.
+ */
+public interface ExperiencedLegRecord {
+
+	Id<Person> getPersonId();
+
+	String getMode();
+
+	double getDepartureTime();
+
+	double getTravelTime();
+
+	/**
+	 * @return the distance of the leg in meters, as in the route of {@link #toLeg()}
+	 */
+	double getDistance();
+
+	Id<Link> getStartLinkId();
+
+	Id<Link> getEndLinkId();
+
+	/**
+	 * @return a full leg with its route, created on the first call and the same instance for further calls
+	 * while this record describes the same leg
+	 */
+	Leg toLeg();
+
+}
@@ -7,8 +7,19 @@ import org.matsim.api.core.v01.population.Plan;
 
 import java.util.Map;
 
+/**
+ * The plans as executed in the mobsim, one per person.  The activities and legs are only recorded once a consumer has
+ * called {@link #requireElements()}; until then the plans only carry the scores.  Analyses that only need some data of
+ * the legs should rather register an {@link EventsToLegs.LegRecordHandler}.
+ */
 public interface ExperiencedPlansService {
 
+	/**
+	 * Records the activities and legs of the experienced plans from the next events on.  This is expensive, so
+	 * consumers that read the plan elements call it before the mobsim of the first iteration they need them in.
+	 */
+	void requireElements();
+
 	void writeExperiencedPlans(String filename);
 
 	Map<Id<Person>, Plan> getExperiencedPlans();
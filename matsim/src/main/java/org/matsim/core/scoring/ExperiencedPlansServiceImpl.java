@@ -23,8 +23,14 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 
 	private final Map<Id<Person>, Plan> agentRecords = new HashMap<>();
 
+	private final EventsToActivities eventsToActivities;
+	private final EventsToLegs eventsToLegs;
+	private boolean recordingElements = false;
+
 	@Inject
 	ExperiencedPlansServiceImpl(ControlerListenerManager controlerListenerManager, EventsToActivities eventsToActivities, EventsToLegs eventsToLegs) {
+		this.eventsToActivities = eventsToActivities;
+		this.eventsToLegs = eventsToLegs;
 		controlerListenerManager.addControlerListener(new IterationStartsListener() {
 			@Override
 			public void notifyIterationStarts(IterationStartsEvent event) {
@@ -33,8 +39,16 @@ class ExperiencedPlansServiceImpl implements ExperiencedPlansService, EventsToLe
 				}
 			}
 		});
-		eventsToActivities.addActivityHandler(this);
-		eventsToLegs.addLegHandler(this);
+	}
+
+	@Override
+	synchronized public void requireElements() {
+		// creating the legs with their routes is expensive, so they are only recorded once someone asks for them
+		if (!this.recordingElements) {
+			this.eventsToActivities.addActivityHandler(this);
+			this.eventsToLegs.addLegHandler(this);
+			this.recordingElements = true;
+		}
 	}
 
 	@Override
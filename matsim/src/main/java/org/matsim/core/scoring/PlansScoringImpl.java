@@ -30,8 +30,10 @@ import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.controler.OutputDirectoryHierarchy;
 import org.matsim.core.controler.corelisteners.PlansScoring;
 import org.matsim.core.controler.events.IterationEndsEvent;
+import org.matsim.core.controler.events.IterationStartsEvent;
 import org.matsim.core.controler.events.ScoringEvent;
 import org.matsim.core.controler.listener.IterationEndsListener;
+import org.matsim.core.controler.listener.IterationStartsListener;
 import org.matsim.core.controler.listener.ScoringListener;
 
 
@@ -44,7 +46,7 @@ import org.matsim.core.controler.listener.ScoringListener;
  * @author mrieser, michaz
  */
 @Singleton
-final class PlansScoringImpl implements PlansScoring, ScoringListener, IterationEndsListener {
+final class PlansScoringImpl implements PlansScoring, IterationStartsListener, ScoringListener, IterationEndsListener {
 
 	@Inject private PlanCalcScoreConfigGroup planCalcScoreConfigGroup;
 	@Inject private ControlerConfigGroup controlerConfigGroup;
@@ -53,6 +55,13 @@ final class PlansScoringImpl implements PlansScoring, ScoringListener, Iteration
 	@Inject private ScoringFunctionsForPopulation scoringFunctionsForPopulation;
 	@Inject private ExperiencedPlansService experiencedPlansService;
 
+	@Override
+	public void notifyIterationStarts(final IterationStartsEvent event) {
+		if (planCalcScoreConfigGroup.isWriteExperiencedPlans() || planCalcScoreConfigGroup.isMemorizingExperiencedPlans()) {
+			this.experiencedPlansService.requireElements();
+		}
+	}
+
 	@Override
 	public void notifyScoring(final ScoringEvent event) {
 		scoringFunctionsForPopulation.finishScoringFunctions();
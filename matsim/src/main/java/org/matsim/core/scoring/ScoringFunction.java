@@ -57,6 +57,15 @@ public interface ScoringFunction {
      */
     public void handleLeg(Leg leg);
 
+    /**
+     * Tells the scoring function about a Leg as experienced in the mobsim. Scoring functions which can do with
+     * the data of the record avoid creating the Leg; the default passes {@link ExperiencedLegRecord#toLeg()}
+     * to {@link #handleLeg(Leg)}.
+     */
+    default void handleLegRecord(ExperiencedLegRecord leg) {
+        handleLeg(leg.toLeg());
+    }
+
 	/**
 	 * Tells the scoring function that the agent got stuck in the simulation and
 	 * is removed from the simulation. This should usually lead to a high penalty
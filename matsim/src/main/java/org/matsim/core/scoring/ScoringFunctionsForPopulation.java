@@ -37,7 +37,6 @@ import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
 import org.matsim.api.core.v01.population.Activity;
-import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.api.core.v01.population.Population;
 import org.matsim.core.api.experimental.events.EventsManager;
@@ -64,7 +63,7 @@ import gnu.trove.list.array.TDoubleArrayList;
  * @author michaz
  *
  */
- final class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.LegHandler, EventsToActivities.ActivityHandler {
+ final class ScoringFunctionsForPopulation implements BasicEventHandler, EventsToLegs.LegRecordHandler, EventsToActivities.ActivityHandler {
 	// yyyyyy there is currently only one place outside package where this is used, and I think it
 	// can be changed there.  kai, sep'17
 	// I just removed that.  kai, apr'18
@@ -109,7 +108,7 @@ import gnu.trove.list.array.TDoubleArrayList;
 		this.scoringFunctionFactory = scoringFunctionFactory;
 		eventsManager.addHandler(this);
 		eventsToActivities.addActivityHandler(this);
-		eventsToLegs.addLegHandler(this);
+		eventsToLegs.addLegRecordHandler(this);
 //		if ( passLinkEventsToPerson ) {
 			eventsManager.addHandler(vehicles2Drivers);
 //		}
@@ -175,12 +174,11 @@ import gnu.trove.list.array.TDoubleArrayList;
 	}
 
 	@Override
-	synchronized public void handleLeg(PersonExperiencedLeg o) {
-		Id<Person> agentId = o.getAgentId();
-		Leg leg = o.getLeg();
+	synchronized public void handleLegRecord(ExperiencedLegRecord leg) {
+		Id<Person> agentId = leg.getPersonId();
 		ScoringFunction scoringFunction = ScoringFunctionsForPopulation.this.getScoringFunctionForAgent(agentId);
 		if (scoringFunction != null) {
-			scoringFunction.handleLeg(leg);
+			scoringFunction.handleLegRecord(leg);
 			TDoubleCollection partialScoresForAgent = partialScores.get(agentId);
 			partialScoresForAgent.add(scoringFunction.getScore());
 		}
@@ -25,6 +25,13 @@ public final class SumScoringFunction implements ScoringFunction {
 		void handleLeg(final Leg leg);
 	}
 
+	/**
+	 * A leg scoring which can score the legs from their {@link ExperiencedLegRecord}s, so no Leg needs to be created for it.
+	 */
+	public interface LegRecordScoring extends LegScoring {
+		void handleLegRecord(final ExperiencedLegRecord leg);
+	}
+
 	public interface MoneyScoring extends BasicScoring {
 		void addMoney(final double amount);
 	}
@@ -85,6 +92,21 @@ public final class SumScoringFunction implements ScoringFunction {
 		}
 	}
 
+	@Override
+	public final void handleLegRecord(ExperiencedLegRecord legRecord) {
+		Leg leg = null;
+		for (LegScoring legScoringFunction : legScoringFunctions) {
+			if (legScoringFunction instanceof LegRecordScoring) {
+				((LegRecordScoring) legScoringFunction).handleLegRecord(legRecord);
+			} else {
+				if (leg == null) {
+					leg = legRecord.toLeg();
+				}
+				legScoringFunction.handleLeg(leg);
+			}
+		}
+	}
+
 	@Override
 	public void addMoney(double amount) {
 		for (MoneyScoring moneyScoringFunction : moneyScoringFunctions) {
@@ -0,0 +1,45 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CharyparNagelLegRecordScoring.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scoring.functions;
+
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.core.scoring.ExperiencedLegRecord;
+import org.matsim.core.scoring.SumScoringFunction;
+
+/**
+ * The {@link CharyparNagelLegScoring}, scoring the legs from their {@link ExperiencedLegRecord}s, so no Leg with its
+ * route needs to be created for it.
+ * <p></p>
+ * This class is final: subclasses of {@link CharyparNagelLegScoring} may override the scoring of Legs, and so have to
+ * get the Legs.  The default scoring function factories use this class.
+ */
+public final class CharyparNagelLegRecordScoring extends CharyparNagelLegScoring implements SumScoringFunction.LegRecordScoring {
+
+	public CharyparNagelLegRecordScoring(final ScoringParameters params, Network network) {
+		super(params, network);
+	}
+
+	@Override
+	public void handleLegRecord(ExperiencedLegRecord leg) {
+		this.score += calcLegScore(leg);
+	}
+
+}
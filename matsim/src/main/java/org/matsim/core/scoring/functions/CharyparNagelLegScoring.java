@@ -30,6 +30,8 @@ import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Route;
 import org.matsim.core.gbl.Gbl;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.scoring.ExperiencedLegRecord;
 import org.matsim.core.utils.misc.Time;
 import org.matsim.pt.PtConstants;
 
@@ -70,26 +72,48 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 		return this.score;
 	}
 
+	private static final int PT_MODE_CODE = PopulationUtils.getLegModeCode(TransportMode.pt);
+
 	private static int ccc=0 ;
 	
 	protected double calcLegScore(final double departureTime, final double arrivalTime, final Leg leg) {
+		return calcLegScore(departureTime, arrivalTime, leg.getMode(), this.params.getModeParameters(leg), leg, null);
+	}
+
+	/**
+	 * Scores a leg from its record, without creating the Leg; see {@link CharyparNagelLegRecordScoring}.
+	 */
+	/* package */ final double calcLegScore(final ExperiencedLegRecord legRecord) {
+		return calcLegScore(legRecord.getDepartureTime(), legRecord.getDepartureTime() + legRecord.getTravelTime(), legRecord.getMode(),
+				this.params.getModeParameters(PopulationUtils.getLegModeCode(legRecord.getMode())), null, legRecord);
+	}
+
+	/**
+	 * @param leg the leg to score, or <code>null</code> to score the <code>legRecord</code>
+	 */
+	private double calcLegScore(final double departureTime, final double arrivalTime, final String mode, ModeUtilityParameters modeParams,
+			final Leg leg, final ExperiencedLegRecord legRecord) {
 		double tmpScore = 0.0;
 		double travelTime = arrivalTime - departureTime; // travel time in seconds	
-		ModeUtilityParameters modeParams = this.params.modeParams.get(leg.getMode());
 		if (modeParams == null) {
-			if (leg.getMode().equals(TransportMode.transit_walk) || leg.getMode().equals(TransportMode.access_walk) 
-					|| leg.getMode().equals(TransportMode.egress_walk) ) {
+			if (mode.equals(TransportMode.transit_walk) || mode.equals(TransportMode.access_walk) 
+					|| mode.equals(TransportMode.egress_walk) ) {
 				modeParams = this.params.modeParams.get(TransportMode.walk);
 			} else {
 //				modeParams = this.params.modeParams.get(TransportMode.other);
-				throw new RuntimeException("just encountered mode for which no scoring parameters are defined: " + leg.getMode().toString() ) ;
+				throw new RuntimeException("just encountered mode for which no scoring parameters are defined: " + mode.toString() ) ;
 			}
 		}
 		tmpScore += travelTime * modeParams.marginalUtilityOfTraveling_s;
 		if (modeParams.marginalUtilityOfDistance_m != 0.0
 				|| modeParams.monetaryDistanceCostRate != 0.0) {
-			Route route = leg.getRoute();
-			double dist = route.getDistance(); // distance in meters
+			double dist; // distance in meters
+			if (leg != null) {
+				Route route = leg.getRoute();
+				dist = route.getDistance();
+			} else {
+				dist = legRecord.getDistance();
+			}
 			if ( Double.isNaN(dist) ) {
 				if ( ccc<10 ) {
 					ccc++ ;
@@ -128,14 +152,14 @@ public class CharyparNagelLegScoring implements org.matsim.core.scoring.SumScori
 			}
 			this.nextEnterVehicleIsFirstOfTrip = false ;
 			// add score of waiting, _minus_ score of travelling (since it is added in the legscoring above):
-			this.score += (event.getTime() - this.lastActivityEndTime) * (this.params.marginalUtilityOfWaitingPt_s - this.params.modeParams.get(TransportMode.pt).marginalUtilityOfTraveling_s) ;
+			this.score += (event.getTime() - this.lastActivityEndTime) * (this.params.marginalUtilityOfWaitingPt_s - this.params.getModeParameters(PT_MODE_CODE).marginalUtilityOfTraveling_s) ;
 		}
 
 		if ( event instanceof PersonDepartureEvent ) {
 			this.currentLegIsPtLeg = TransportMode.pt.equals( ((PersonDepartureEvent)event).getLegMode() );
 			if ( currentLegIsPtLeg ) {
 				if ( !this.nextStartPtLegIsFirstOfTrip ) {
-					this.score -= params.modeParams.get(TransportMode.pt).constant ;
+					this.score -= params.getModeParameters(PT_MODE_CODE).constant ;
 					// (yyyy deducting this again, since is it wrongly added above.  should be consolidated; this is so the code
 					// modification is minimally invasive.  kai, dec'12)
 				}
@@ -81,7 +81,7 @@ public final class CharyparNagelScoringFunctionFactory implements ScoringFunctio
 
 		SumScoringFunction sumScoringFunction = new SumScoringFunction();
 		sumScoringFunction.addScoringFunction(new CharyparNagelActivityScoring( parameters ));
-		sumScoringFunction.addScoringFunction(new CharyparNagelLegScoring( parameters , this.network));
+		sumScoringFunction.addScoringFunction(new CharyparNagelLegRecordScoring( parameters , this.network));
 		sumScoringFunction.addScoringFunction(new CharyparNagelMoneyScoring( parameters ));
 		sumScoringFunction.addScoringFunction(new CharyparNagelAgentStuckScoring( parameters ));
 		return sumScoringFunction;
@@ -20,17 +20,21 @@
 
 package org.matsim.core.scoring.functions;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.internal.MatsimParameters;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ActivityParams;
 import org.matsim.core.config.groups.PlanCalcScoreConfigGroup.ModeParams;
 import org.matsim.core.config.groups.ScenarioConfigGroup;
+import org.matsim.core.population.PopulationUtils;
 
 public class ScoringParameters implements MatsimParameters {
 
@@ -50,6 +54,11 @@ public class ScoringParameters implements MatsimParameters {
 	
 	public final double simulationPeriodInDays;
 
+	// the same parameters as in the maps, by the codes of the activity types and modes (see PopulationUtils),
+	// so the scoring does not need to look up strings:
+	private final ActivityUtilityParameters[] utilParamsByCode;
+	private final ModeUtilityParameters[] modeParamsByCode;
+
 	private ScoringParameters(
 			final Map<String, ActivityUtilityParameters> utilParams,
 			final Map<String, ModeUtilityParameters> modeParams,
@@ -64,8 +73,8 @@ public class ScoringParameters implements MatsimParameters {
 			final boolean scoreActs,
 			final boolean usingOldScoringBelowZeroUtilityDuration,
 			final double simulationPeriodInDays) {
-		this.utilParams = utilParams;
-		this.modeParams = modeParams;
+		this.utilParams = Collections.unmodifiableMap(utilParams);
+		this.modeParams = Collections.unmodifiableMap(modeParams);
 		this.marginalUtilityOfWaiting_s = marginalUtilityOfWaiting_s;
 		this.marginalUtilityOfLateArrival_s = marginalUtilityOfLateArrival_s;
 		this.marginalUtilityOfEarlyDeparture_s = marginalUtilityOfEarlyDeparture_s;
@@ -77,6 +86,50 @@ public class ScoringParameters implements MatsimParameters {
 		this.scoreActs = scoreActs;
 		this.usingOldScoringBelowZeroUtilityDuration = usingOldScoringBelowZeroUtilityDuration;
 		this.simulationPeriodInDays = simulationPeriodInDays;
+
+		int maxCode = 0;
+		for (String type : utilParams.keySet()) {
+			maxCode = Math.max(maxCode, PopulationUtils.getActivityTypeCode(type));
+		}
+		this.utilParamsByCode = new ActivityUtilityParameters[maxCode + 1];
+		for (Map.Entry<String, ActivityUtilityParameters> e : utilParams.entrySet()) {
+			this.utilParamsByCode[PopulationUtils.getActivityTypeCode(e.getKey())] = e.getValue();
+		}
+		maxCode = 0;
+		for (String mode : modeParams.keySet()) {
+			maxCode = Math.max(maxCode, PopulationUtils.getLegModeCode(mode));
+		}
+		this.modeParamsByCode = new ModeUtilityParameters[maxCode + 1];
+		for (Map.Entry<String, ModeUtilityParameters> e : modeParams.entrySet()) {
+			this.modeParamsByCode[PopulationUtils.getLegModeCode(e.getKey())] = e.getValue();
+		}
+	}
+
+	/**
+	 * Same as <code>utilParams.get(act.getType())</code>, but without looking up the type.
+	 *
+	 * @return the parameters of the type of the activity, or <code>null</code> if there are none
+	 */
+	public ActivityUtilityParameters getActivityParameters(final Activity act) {
+		int code = PopulationUtils.getActivityTypeCode(act);
+		return code < this.utilParamsByCode.length ? this.utilParamsByCode[code] : null;
+	}
+
+	/**
+	 * Same as <code>modeParams.get(leg.getMode())</code>, but without looking up the mode.
+	 *
+	 * @return the parameters of the mode of the leg, or <code>null</code> if there are none
+	 */
+	public ModeUtilityParameters getModeParameters(final Leg leg) {
+		return getModeParameters(PopulationUtils.getLegModeCode(leg));
+	}
+
+	/**
+	 * @param modeCode see {@link PopulationUtils#getLegModeCode(String)}
+	 * @return the parameters of the mode, or <code>null</code> if there are none
+	 */
+	public ModeUtilityParameters getModeParameters(final int modeCode) {
+		return modeCode < this.modeParamsByCode.length ? this.modeParamsByCode[modeCode] : null;
 	}
 
 	public static final class Builder {
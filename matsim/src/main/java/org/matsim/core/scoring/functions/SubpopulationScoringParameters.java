@@ -26,6 +26,7 @@ import org.matsim.core.config.groups.PlansConfigGroup;
 import org.matsim.core.config.groups.ScenarioConfigGroup;
 import org.matsim.pt.PtConstants;
 import org.matsim.pt.config.TransitConfigGroup;
+import org.matsim.utils.objectattributes.ColumnarObjectAttributes;
 import org.matsim.utils.objectattributes.ObjectAttributes;
 
 import javax.inject.Inject;
@@ -58,9 +59,7 @@ public class SubpopulationScoringParameters implements ScoringParametersForPerso
 
 	@Override
 	public ScoringParameters getScoringParameters(Person person) {
-		final String subpopulation = (String) personAttributes.getAttribute(
-				person.getId().toString(),
-				subpopulationAttributeName);
+		final String subpopulation = getSubpopulation(person);
 
 		if (!this.params.containsKey(subpopulation)) {
 			/* lazy initialization of params. not strictly thread safe, as different threads could
@@ -90,4 +89,19 @@ public class SubpopulationScoringParameters implements ScoringParametersForPerso
 
 		return this.params.get(subpopulation);
 	}
+
+	private String getSubpopulation(Person person) {
+		if (personAttributes instanceof ColumnarObjectAttributes) {
+			// one lookup of the person's index, then an array access
+			ColumnarObjectAttributes columnarAttributes = (ColumnarObjectAttributes) personAttributes;
+			ColumnarObjectAttributes.Column column = columnarAttributes.getColumn(subpopulationAttributeName);
+			if (column == null) {
+				return null;
+			}
+			return column.getString(columnarAttributes.getObjectIndex(person.getId().toString()));
+		}
+		return (String) personAttributes.getAttribute(
+				person.getId().toString(),
+				subpopulationAttributeName);
+	}
 }
@@ -19,6 +19,9 @@
  * *********************************************************************** */
 package org.matsim.core.trafficmonitoring;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -44,6 +47,7 @@ import org.matsim.core.api.experimental.events.VehicleArrivesAtFacilityEvent;
 import org.matsim.core.api.experimental.events.handler.VehicleArrivesAtFacilityEventHandler;
 import org.matsim.core.config.groups.QSimConfigGroup;
 import org.matsim.core.config.groups.TravelTimeCalculatorConfigGroup;
+import org.matsim.core.controler.Checkpointable;
 import org.matsim.core.router.util.LinkToLinkTravelTime;
 import org.matsim.core.router.util.TravelTime;
 import org.matsim.core.utils.collections.CollectionUtils;
@@ -69,7 +73,7 @@ import com.google.inject.Inject;
  */
 public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEventHandler, 
 	VehicleEntersTrafficEventHandler, VehicleLeavesTrafficEventHandler, VehicleArrivesAtFacilityEventHandler, 
-	VehicleAbortsEventHandler {
+	VehicleAbortsEventHandler, Checkpointable {
 
 	private static final String ERROR_STUCK_AND_LINKTOLINK = "Using the stuck feature with turning move travel times is not available. As the next link of a stucked" +
 			"agent is not known the turning move travel time cannot be calculated!";
@@ -368,6 +372,64 @@ public class TravelTimeCalculator implements LinkEnterEventHandler, LinkLeaveEve
 		this.vehiclesToIgnore.clear();
 	}
 
+	/**
+	 * Writes the travel times collected in the last iteration, which are used by the replanning of the next one.  The
+	 * events of vehicles that are still on a link are not included, as they are discarded at the start of the next
+	 * mobsim anyway.
+	 */
+	@Override
+	public void writeCheckpoint(final DataOutput out) throws IOException {
+		if (this.calculateLinkTravelTimes) {
+			out.writeInt(this.linkData.size());
+			for (Map.Entry<Id<Link>, DataContainer> e : this.linkData.entrySet()) {
+				out.writeUTF(e.getKey().toString());
+				writeDataContainer(e.getValue(), out);
+			}
+		}
+		if (this.calculateLinkToLinkTravelTimes) {
+			out.writeInt(this.linkToLinkData.size());
+			for (Map.Entry<Tuple<Id<Link>, Id<Link>>, DataContainer> e : this.linkToLinkData.entrySet()) {
+				out.writeUTF(e.getKey().getFirst().toString());
+				out.writeUTF(e.getKey().getSecond().toString());
+				writeDataContainer(e.getValue(), out);
+			}
+		}
+	}
+
+	@Override
+	public void readCheckpoint(final DataInput in) throws IOException {
+		this.reset(0);
+		if (this.calculateLinkTravelTimes) {
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				DataContainer data = this.dataContainerProvider.getTravelTimeData(Id.createLinkId(in.readUTF()), true);
+				readDataContainer(data, in);
+			}
+		}
+		if (this.calculateLinkToLinkTravelTimes) {
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				Id<Link> fromLinkId = Id.createLinkId(in.readUTF());
+				Id<Link> toLinkId = Id.createLinkId(in.readUTF());
+				readDataContainer(getLinkToLinkTravelTimeData(new Tuple<>(fromLinkId, toLinkId), true), in);
+			}
+		}
+	}
+
+	private static void writeDataContainer(final DataContainer data, final DataOutput out) throws IOException {
+		synchronized (data) {
+			out.writeBoolean(data.needsConsolidation);
+			data.ttData.writeState(out);
+		}
+	}
+
+	private static void readDataContainer(final DataContainer data, final DataInput in) throws IOException {
+		synchronized (data) {
+			data.needsConsolidation = in.readBoolean();
+			data.ttData.readState(in);
+		}
+	}
+
 	public void setTravelTimeDataFactory(final TravelTimeDataFactory factory) {
 		this.ttDataFactory = factory;
 	}
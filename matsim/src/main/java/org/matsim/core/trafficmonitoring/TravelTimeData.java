@@ -20,6 +20,10 @@
 
 package org.matsim.core.trafficmonitoring;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 public interface TravelTimeData {
 
 	public abstract void resetTravelTimes();
@@ -55,4 +59,14 @@ public interface TravelTimeData {
 	 */
 	abstract double getTravelTime(final int timeSlot, final double now);
 
-}
\ No newline at end of file
+	/**
+	 * Writes the complete state, including the data that is not yet aggregated, for the iteration checkpoints.
+	 */
+	abstract void writeState(final DataOutput out) throws IOException;
+
+	/**
+	 * Replaces the state by one written with {@link #writeState(DataOutput)}.
+	 */
+	abstract void readState(final DataInput in) throws IOException;
+
+}
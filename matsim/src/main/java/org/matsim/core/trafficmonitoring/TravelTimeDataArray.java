@@ -20,6 +20,10 @@
 
 package org.matsim.core.trafficmonitoring;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import org.matsim.api.core.v01.network.Link;
 
 /**
@@ -93,6 +97,28 @@ public class TravelTimeDataArray implements TravelTimeData {
 		this.travelTimes[timeSlot] = sum / cnt;
 		return this.travelTimes[timeSlot];
 	}
-	
+
+	@Override
+	public void writeState(final DataOutput out) throws IOException {
+		out.writeInt(this.timeSum.length);
+		for (int i = 0; i < this.timeSum.length; i++) {
+			out.writeDouble(this.timeSum[i]);
+			out.writeInt(this.timeCnt[i]);
+			out.writeDouble(this.travelTimes[i]);
+		}
+	}
+
+	@Override
+	public void readState(final DataInput in) throws IOException {
+		int numSlots = in.readInt();
+		if (numSlots != this.timeSum.length) {
+			throw new IllegalStateException("expected " + this.timeSum.length + " time slots, but got " + numSlots);
+		}
+		for (int i = 0; i < numSlots; i++) {
+			this.timeSum[i] = in.readDouble();
+			this.timeCnt[i] = in.readInt();
+			this.travelTimes[i] = in.readDouble();
+		}
+	}
 
 }
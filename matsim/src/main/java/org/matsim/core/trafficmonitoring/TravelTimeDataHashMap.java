@@ -20,6 +20,9 @@
 
 package org.matsim.core.trafficmonitoring;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -85,6 +88,27 @@ public class TravelTimeDataHashMap implements TravelTimeData {
 		return ts.timeSum / ts.cnt;
 	}
 
+	@Override
+	public void writeState(final DataOutput out) throws IOException {
+		out.writeInt(this.travelTimes.size());
+		for (Map.Entry<Integer, TimeStruct> e : this.travelTimes.entrySet()) {
+			out.writeInt(e.getKey());
+			out.writeDouble(e.getValue().timeSum);
+			out.writeInt(e.getValue().cnt);
+		}
+	}
+
+	@Override
+	public void readState(final DataInput in) throws IOException {
+		this.travelTimes.clear();
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			int timeSlice = in.readInt();
+			double timeSum = in.readDouble();
+			this.travelTimes.put(IntegerCache.getInteger(timeSlice), new TimeStruct(timeSum, in.readInt()));
+		}
+	}
+
 	private static class TimeStruct {
 		public double timeSum;
 		public int cnt;
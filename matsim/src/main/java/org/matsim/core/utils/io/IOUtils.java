@@ -41,7 +41,6 @@ import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Locale;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import org.apache.log4j.Logger;
 
@@ -115,23 +114,14 @@ public class IOUtils {
 		}
 		try {
 			if (new File(filename).exists()) {
-				if (filename.endsWith(GZ)) {
-					infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(new GZIPInputStream(new FileInputStream(filename))), charset));
-				} else {
-					infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(new FileInputStream(filename)), charset));
-				}
+				infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(getDecompressingInputStream(filename, new FileInputStream(filename))), charset));
 			} else if (new File(filename + GZ).exists()) {
 				infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(new GZIPInputStream(new FileInputStream(filename  + GZ))), charset));
 			} else {
 				InputStream stream = IOUtils.class.getClassLoader().getResourceAsStream(filename);
 				if (stream != null) {
-					if (filename.endsWith(GZ)) {
-						infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(new GZIPInputStream(stream)), charset));
-						log.info("loading file from classpath: " + filename);
-					} else {
-						infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(stream), charset));
-						log.info("loading file from classpath: " + filename);
-					}
+					infile = new BufferedReader(new InputStreamReader(new UnicodeInputStream(getDecompressingInputStream(filename, stream)), charset));
+					log.info("loading file from classpath: " + filename);
 				} else {
 					stream = IOUtils.class.getClassLoader().getResourceAsStream(filename + GZ);
 					if (stream != null) {
@@ -259,9 +249,8 @@ public class IOUtils {
 				if (append && f.exists() && (f.length() > 0)) {
 					throw new IllegalArgumentException("Appending to an existing gzip-compressed file is not supported.");
 				}
-				return new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(filename, append)), charset));
 			}
-			return new BufferedWriter(new OutputStreamWriter(new FileOutputStream (filename, append), charset));
+			return new BufferedWriter(new OutputStreamWriter(getCompressingOutputStream(filename, new FileOutputStream(filename, append)), charset));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -331,23 +320,14 @@ public class IOUtils {
 		try {
 			// search in file system
 			if (new File(filename).exists()) {
-				if (filename.endsWith(GZ)) {
-					inputStream = new GZIPInputStream(new FileInputStream(filename));
-				} else {
-					inputStream = new FileInputStream(filename);
-				}
+				inputStream = getDecompressingInputStream(filename, new FileInputStream(filename));
 			} else if (new File(filename + GZ).exists()) {
-				inputStream = new GZIPInputStream(new FileInputStream(filename));
+				inputStream = new GZIPInputStream(new FileInputStream(filename + GZ));
 			} else {
 				// search in classpath
 				InputStream stream = IOUtils.class.getClassLoader().getResourceAsStream(filename);
 				if (stream != null) {
-					if (filename.endsWith(GZ)) {
-						inputStream = new GZIPInputStream(stream);
-					}
-					else {
-						inputStream = stream;
-					}
+					inputStream = getDecompressingInputStream(filename, stream);
 				} else {
 					stream = IOUtils.class.getClassLoader().getResourceAsStream(filename + GZ);
 					if (stream != null) {
@@ -369,11 +349,7 @@ public class IOUtils {
 
 	public static InputStream getInputStream(URL url) throws UncheckedIOException {
 		try {
-			if (url.getFile().endsWith(".gz")) {
-				return new GZIPInputStream(url.openStream());
-			} else {
-				return url.openStream();
-			}
+			return getDecompressingInputStream(url.getFile(), url.openStream());
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -393,11 +369,7 @@ public class IOUtils {
 			throw new UncheckedIOException(new FileNotFoundException("No filename given (filename == null)"));
 		}
 		try {
-			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename)));
-			} else {
-				return new BufferedOutputStream(new FileOutputStream (filename));
-			}
+			return new BufferedOutputStream(getCompressingOutputStream(filename, new FileOutputStream(filename)));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
@@ -414,16 +386,29 @@ public class IOUtils {
 			throw new UncheckedIOException(new FileNotFoundException("No filename given (filename == null)"));
 		}
 		try {
-			if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
-				return new PrintStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(filename))));
-			} else {
-				return new PrintStream(new BufferedOutputStream(new FileOutputStream (filename))) ;
-			}
+			return new PrintStream(new BufferedOutputStream(getCompressingOutputStream(filename, new FileOutputStream(filename))));
 		} catch (IOException e) {
 			throw new UncheckedIOException(e);
 		}
 	}
 
+	/**
+	 * Compresses the data written to <code>stream</code> with gzip, in parallel, if the filename ends with ".gz".
+	 */
+	private static OutputStream getCompressingOutputStream(final String filename, final OutputStream stream) throws IOException {
+		if (filename.toLowerCase(Locale.ROOT).endsWith(GZ)) {
+			return new ParallelGZIPOutputStream(stream);
+		}
+		return stream;
+	}
+
+	private static InputStream getDecompressingInputStream(final String filename, final InputStream stream) throws IOException {
+		if (filename.endsWith(GZ)) {
+			return new GZIPInputStream(stream);
+		}
+		return stream;
+	}
+
 	// Compares two InputStreams.
 	// Interestingly, StackOverflow claims that this naive way would be slow,
 	// but for me, it is OK and the fast alternative which is proposed there is 
@@ -34,8 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.util.Arrays;
 import java.util.Stack;
-import java.util.zip.GZIPInputStream;
 
 /**
  * An abstract XML-Parser which can be easily extended for reading custom XML-formats. This class handles all the low level
@@ -53,8 +53,10 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 	private static final Logger log = Logger.getLogger(MatsimXmlParser.class);
 
-	private final Stack<StringBuffer> buffers = new Stack<>();
 	private final Stack<String> theContext = new Stack<>();
+	/** the character content of all open elements, the content of an element starts at its entry in contentStarts */
+	private final StringBuilder content = new StringBuilder();
+	private int[] contentStarts = new int[16];
 
 	private boolean isValidating = true;
 	private boolean isNamespaceAware = true;
@@ -155,11 +157,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		log.info("starting to parse xml from url " + this.theSource + " ...");
 		System.out.flush();
 		if (url.getFile().endsWith(".gz")) {
-			try {
-				parse(new InputSource(new GZIPInputStream(url.openStream())));
-			} catch (IOException e) {
-				throw new RuntimeException(e);
-			}
+			parse(new InputSource(IOUtils.getInputStream(url)));
 		} else {
 			parse(new InputSource(url.toExternalForm()));
 		}
@@ -171,6 +169,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	}
 
 	public final void parse(final InputSource input) throws UncheckedIOException {
+		boolean completed = false;
 		try {
 			SAXParserFactory factory = SAXParserFactory.newInstance();
 			factory.setValidating(this.isValidating);
@@ -190,11 +189,23 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 				SAXParser parser = factory.newSAXParser();
 				parser.parse(input, this);
 			}
+			completed = true;
 		} catch (SAXException | ParserConfigurationException | IOException e) {
 			throw new UncheckedIOException(e);
+		} finally {
+			if (!completed) {
+				parsingAborted();
+			}
 		}
 	}
 
+	/**
+	 * Called if parsing ends with an exception, before the exception is passed on, so parsers can release what they
+	 * hold for the rest of the document, e.g. threads.  Must not throw.  The default implementation does nothing.
+	 */
+	protected void parsingAborted() {
+	}
+
 	// the following may be useful.  But it is nowhere used, so I am not sure if we fully understand its longterm maintenance implications, 
 	// so I rather comment it out. If it is needed somewhere, just comment it back in (and probably (**) above) 
 	// and leave a comment.  kai, jul'16
@@ -234,9 +245,9 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 
 		InputSource source;
 		if (this.preferLocalDtds) {
-			source = findDtdInLocalFilesystem(shortSystemId);
+			source = findDtdInLocalFilesystem(this.localDtdBase, shortSystemId);
 			if (source == null) {
-				source = findDtdInClasspath(shortSystemId);
+				source = findDtdInClasspath(getClass(), shortSystemId);
 			}
 			if (source == null) {
 				source = findDtdInDefaultLocation(shortSystemId);
@@ -247,10 +258,10 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		} else {
 			source = findDtdInRemoteLocation(systemId);
 			if (source == null) {
-				source = findDtdInLocalFilesystem(shortSystemId);
+				source = findDtdInLocalFilesystem(this.localDtdBase, shortSystemId);
 			}
 			if (source == null) {
-				source = findDtdInClasspath(shortSystemId);
+				source = findDtdInClasspath(getClass(), shortSystemId);
 			}
 			if (source == null) {
 				source = findDtdInDefaultLocation(shortSystemId);
@@ -266,7 +277,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		return source;
     }
 
-	private static InputSource findDtdInRemoteLocation(final String fullSystemId) {
+	/*package*/ static InputSource findDtdInRemoteLocation(final String fullSystemId) {
 		log.info("Trying to load " + fullSystemId + ". In some cases (e.g. network interface up but no connection), this may take a bit.");
 		try {
 			URL url = new URL(fullSystemId);
@@ -287,9 +298,9 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		return null;
 	}
 	
-	private InputSource findDtdInLocalFilesystem(final String shortSystemId) {
-		if (this.localDtdBase != null) {
-			String localFileName = this.localDtdBase + "/" + shortSystemId;
+	/*package*/ static InputSource findDtdInLocalFilesystem(final String localDtdBase, final String shortSystemId) {
+		if (localDtdBase != null) {
+			String localFileName = localDtdBase + "/" + shortSystemId;
 			File dtdFile = new File(localFileName);
 //			log.debug("dtdfile: " + dtdFile.getAbsolutePath());
 			if (dtdFile.exists() && dtdFile.isFile() && dtdFile.canRead()) {
@@ -300,9 +311,9 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		return null;
 	}
 	
-	private InputSource findDtdInClasspath(final String shortSystemId) {
+	/*package*/ static InputSource findDtdInClasspath(final Class<?> clazz, final String shortSystemId) {
 		// still no success, try to load it with the ClassLoader, in case we're stuck in a jar...
-		InputStream stream = this.getClass().getResourceAsStream("/dtd/" + shortSystemId);
+		InputStream stream = clazz.getResourceAsStream("/dtd/" + shortSystemId);
 		if (stream != null) {
 			log.info("Using local DTD from classpath:dtd/" + shortSystemId);
 			return new InputSource(stream);
@@ -310,7 +321,7 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		return null;
 	}
 	
-	private static InputSource findDtdInDefaultLocation(final String shortSystemId) {
+	/*package*/ static InputSource findDtdInDefaultLocation(final String shortSystemId) {
 		log.info("Trying to access local dtd folder at standard location ./dtd...");
 		File dtdFile = new File("./dtd/" + shortSystemId);
 		if (dtdFile.exists() && dtdFile.isFile() && dtdFile.canRead()) {
@@ -326,9 +337,8 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 	public void characters(final char[] ch, final int start, final int length) throws SAXException {
 		// has to be non-final since otherwise the events parser does not work.  Probably ok (this here is just a default implementation). kai, jul'16
 		
-		StringBuffer buffer = this.buffers.peek();
-		if (buffer != null) {
-			buffer.append(ch, start, length);
+		if (!this.theContext.isEmpty()) {
+			this.content.append(ch, start, length);
 		}
 	}
 
@@ -337,7 +347,11 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		// I have not good intuition if making this one non-final might be ok.  kai, jul'16
 
 		String tag = (uri.length() == 0) ? qName : localName;
-		this.buffers.push(new StringBuffer());
+		int depth = this.theContext.size();
+		if (depth == this.contentStarts.length) {
+			this.contentStarts = Arrays.copyOf(this.contentStarts, 2 * depth);
+		}
+		this.contentStarts[depth] = this.content.length();
 		this.startTag(tag, atts, this.theContext);
 		this.theContext.push(tag);
 	}
@@ -348,8 +362,13 @@ public abstract class MatsimXmlParser extends DefaultHandler implements MatsimRe
 		
 		String tag = (uri.length() == 0) ? qName : localName;
 		this.theContext.pop();
-		StringBuffer buffer = this.buffers.pop();
-		this.endTag(tag, buffer.toString(), this.theContext);
+		int start = this.contentStarts[this.theContext.size()];
+		String text = "";
+		if (this.content.length() > start) {
+			text = this.content.substring(start);
+			this.content.setLength(start);
+		}
+		this.endTag(tag, text, this.theContext);
 	}
 
 	/* implement ErrorHandler */
@@ -0,0 +1,481 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MatsimXmlStreamParser.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Stack;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.log4j.Logger;
+import org.matsim.core.api.internal.MatsimReader;
+import org.matsim.core.gbl.Gbl;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+
+/**
+ * An abstract XML-Parser with the same contract as {@link MatsimXmlParser}: extending classes implement
+ * {@link #startTag} and {@link #endTag}, and may react to the doctype in {@link #setDoctype(String)}.
+ * <p></p>
+ * If validation is switched off with {@link #setValidating(boolean)}, the files are read with a StAX pull parser, which is
+ * considerably faster: the character content is collected in one reusable buffer, elements without content get the empty
+ * string, and the DTDs are looked up locally before trying to fetch them from the web.  The DTDs are still read, so the
+ * default values of attributes are set as with validation.  For files described by an XML schema, the doctype is taken from
+ * the <code>schemaLocation</code> of the root element, as the schema itself is not read.
+ * <p></p>
+ * If validation is switched on, which is the default, the files are read by a {@link MatsimXmlParser}, exactly as before.
+ * <p></p>
+ * In both cases, the {@link Attributes} passed to {@link #startTag} are only valid until the next call of <code>startTag</code>.
+ */
+public abstract class MatsimXmlStreamParser implements MatsimReader {
+
+	private static final Logger log = Logger.getLogger(MatsimXmlStreamParser.class);
+
+	private static final String XML_SCHEMA_INSTANCE = "http://www.w3.org/2001/XMLSchema-instance";
+
+	private final Stack<String> theContext = new Stack<>();
+	private final StringBuilder content = new StringBuilder();
+	private int[] contentStarts = new int[16];
+	private boolean[] hasChildElements = new boolean[16];
+
+	private boolean isValidating = true;
+	private boolean isNamespaceAware = true;
+	private String localDtdBase = null;
+
+	private String doctype = null;
+	private String theSource;
+
+	/**
+	 * Called for each opening xml-tag.
+	 *
+	 * @param name the name of the xml-tag
+	 * @param atts the list of attributes and their values
+	 * @param context a stack containing the path/hierarchy to the current tag
+	 */
+	public abstract void startTag(String name, Attributes atts, Stack<String> context);
+
+	/**
+	 * Called for each closing xml-tag.
+	 *
+	 * @param name the name of the xml-tag.
+	 * @param content the character-content of the tag; any characters between <code>&lt;tag&gt;</code> and
+	 * 		<code>&lt;/tag&gt;></code>, excluding other tags and their content.
+	 * @param context a stack containing the path/hierarchy to the current tag
+	 */
+	public abstract void endTag(String name, String content, Stack<String> context);
+
+	/**
+	 * Sets, if this parser should validate the read XML or not.  Not validating is much faster, but it is
+	 * <b>discouraged</b> for files that were not written by MATSim itself.
+	 *
+	 * @param validateXml Whether the parsed XML should be validated or not.
+	 */
+	public final void setValidating(final boolean validateXml) {
+		this.isValidating = validateXml;
+	}
+
+	/**
+	 * @see MatsimXmlParser#setNamespaceAware(boolean)
+	 */
+	public final void setNamespaceAware(final boolean awareness) {
+		this.isNamespaceAware = awareness;
+	}
+
+	/**
+	 * @see MatsimXmlParser#setLocalDtdDirectory(String)
+	 */
+	public final void setLocalDtdDirectory(final String localDtdDirectory) {
+		this.localDtdBase = localDtdDirectory;
+	}
+
+	public final String getDoctype() {
+		return this.doctype;
+	}
+
+	protected void setDoctype(final String doctype) {
+		this.doctype = doctype;
+	}
+
+	/**
+	 * Parses the specified file, see {@link MatsimXmlParser#readFile(String)}.
+	 */
+	@Override
+	public final void readFile(final String filename) throws UncheckedIOException {
+		if (this.isValidating) {
+			createValidatingParser().readFile(filename);
+			return;
+		}
+		log.info("starting to parse xml from file " + filename + " ...");
+		this.theSource = filename;
+		try (Reader reader = IOUtils.getBufferedReader(filename)) {
+			parse(createFactory().createXMLStreamReader(filename, reader));
+		} catch (XMLStreamException e) {
+			throw toUncheckedIOException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public final void parse(final URL url) throws UncheckedIOException {
+		Gbl.assertNotNull(url);
+		if (this.isValidating) {
+			createValidatingParser().parse(url);
+			return;
+		}
+		this.theSource = url.toString();
+		log.info("starting to parse xml from url " + this.theSource + " ...");
+		try (InputStream stream = IOUtils.getInputStream(url)) {
+			parse(createFactory().createXMLStreamReader(this.theSource, stream));
+		} catch (XMLStreamException e) {
+			throw toUncheckedIOException(e);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	public final void parse(final InputStream stream) throws UncheckedIOException {
+		if (this.isValidating) {
+			createValidatingParser().parse(stream);
+			return;
+		}
+		this.theSource = "stream";
+		try {
+			parse(createFactory().createXMLStreamReader(stream));
+		} catch (XMLStreamException e) {
+			throw toUncheckedIOException(e);
+		}
+	}
+
+	private void parse(final XMLStreamReader reader) throws XMLStreamException {
+		StreamAttributes atts = new StreamAttributes();
+		this.theContext.clear();
+		this.content.setLength(0);
+		try {
+			while (reader.hasNext()) {
+				switch (reader.next()) {
+					case XMLStreamConstants.START_ELEMENT:
+						atts.read(reader, this.isNamespaceAware);
+						if (this.theContext.isEmpty() && this.doctype == null) {
+							setDoctypeFromSchemaLocation(atts);
+						}
+						String tag = getTagName(reader);
+						int depth = this.theContext.size();
+						if (depth == this.contentStarts.length) {
+							this.contentStarts = Arrays.copyOf(this.contentStarts, 2 * depth);
+							this.hasChildElements = Arrays.copyOf(this.hasChildElements, 2 * depth);
+						}
+						this.contentStarts[depth] = this.content.length();
+						this.hasChildElements[depth] = false;
+						if (depth > 0) {
+							this.hasChildElements[depth - 1] = true;
+						}
+						this.startTag(tag, atts, this.theContext);
+						this.theContext.push(tag);
+						break;
+					case XMLStreamConstants.END_ELEMENT:
+						String endTag = this.theContext.pop();
+						int endDepth = this.theContext.size();
+						int start = this.contentStarts[endDepth];
+						String text = "";
+						if (this.content.length() > start) {
+							if (!this.hasChildElements[endDepth] || !isWhitespace(this.content, start)) {
+								text = this.content.substring(start);
+							}
+							this.content.setLength(start);
+						}
+						this.endTag(endTag, text, this.theContext);
+						break;
+					case XMLStreamConstants.CHARACTERS:
+					case XMLStreamConstants.CDATA:
+						// whitespace between elements is ignored, as with validation.  With a DTD, it is reported as SPACE,
+						// otherwise it is removed at the end of elements with child elements.
+						if (!this.theContext.isEmpty()) {
+							this.content.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+						}
+						break;
+					default:
+						break;
+				}
+			}
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static boolean isWhitespace(final CharSequence text, final int start) {
+		for (int i = start; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String getTagName(final XMLStreamReader reader) {
+		// same as in MatsimXmlParser: the local name for elements in a namespace, the qualified name otherwise
+		String uri = reader.getNamespaceURI();
+		if (uri != null && uri.length() > 0) {
+			return reader.getLocalName();
+		}
+		String prefix = reader.getPrefix();
+		return (prefix == null || prefix.isEmpty()) ? reader.getLocalName() : prefix + ":" + reader.getLocalName();
+	}
+
+	/**
+	 * With validation, the first external entity that is resolved is the xml schema, from which the doctype is taken.
+	 * As the schema is not read here, take it from the root element.
+	 */
+	private void setDoctypeFromSchemaLocation(final StreamAttributes atts) {
+		for (int i = 0; i < atts.getLength(); i++) {
+			String name = atts.getLocalName(i);
+			if (name.endsWith("noNamespaceSchemaLocation") || name.endsWith("schemaLocation")) {
+				if (!this.isNamespaceAware || XML_SCHEMA_INSTANCE.equals(atts.getURI(i))) {
+					String[] parts = atts.getValue(i).trim().split("\\s+");
+					setDoctype(getShortSystemId(parts[parts.length - 1]));
+					return;
+				}
+			}
+		}
+	}
+
+	private XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, this.isNamespaceAware);
+		factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, true); // needed for the default values of attributes
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, true);
+		factory.setXMLResolver(new XMLResolver() {
+			@Override
+			public Object resolveEntity(final String publicID, final String systemID, final String baseURI, final String namespace) {
+				return resolveDtd(systemID);
+			}
+		});
+		return factory;
+	}
+
+	private InputStream resolveDtd(final String systemId) {
+		String shortSystemId = getShortSystemId(systemId);
+		if (this.doctype == null) {
+			// this is the first systemId we have to resolve, assume it's the doctype
+			setDoctype(shortSystemId);
+		}
+
+		InputSource source = MatsimXmlParser.findDtdInLocalFilesystem(this.localDtdBase, shortSystemId);
+		if (source == null) {
+			source = MatsimXmlParser.findDtdInClasspath(getClass(), shortSystemId);
+		}
+		if (source == null) {
+			source = MatsimXmlParser.findDtdInDefaultLocation(shortSystemId);
+		}
+		if (source == null) {
+			source = MatsimXmlParser.findDtdInRemoteLocation(systemId);
+		}
+		try {
+			if (source != null && source.getByteStream() != null) {
+				return source.getByteStream();
+			} else if (source != null) {
+				return new FileInputStream(source.getSystemId());
+			}
+		} catch (FileNotFoundException e) {
+			log.warn(e.toString());
+		}
+		log.warn("Could neither get the DTD from the web nor a local one, default values of attributes will be missing. " + systemId);
+		return new ByteArrayInputStream(new byte[0]);
+	}
+
+	private static String getShortSystemId(final String systemId) {
+		int index = systemId.replace('\\', '/').lastIndexOf('/');
+		return systemId.substring(index + 1);
+	}
+
+	private UncheckedIOException toUncheckedIOException(final XMLStreamException e) {
+		Location location = e.getLocation();
+		if (location == null) {
+			return new UncheckedIOException("XML-ERROR: " + this.theSource, e);
+		}
+		return new UncheckedIOException("XML-ERROR: " + this.theSource + ", line " + location.getLineNumber() + ", column "
+				+ location.getColumnNumber(), e);
+	}
+
+	private MatsimXmlParser createValidatingParser() {
+		MatsimXmlParser parser = new MatsimXmlParser() {
+			@Override
+			public void startTag(final String name, final Attributes atts, final Stack<String> context) {
+				MatsimXmlStreamParser.this.startTag(name, atts, context);
+			}
+
+			@Override
+			public void endTag(final String name, final String content, final Stack<String> context) {
+				MatsimXmlStreamParser.this.endTag(name, content, context);
+			}
+
+			@Override
+			protected void setDoctype(final String doctype) {
+				super.setDoctype(doctype);
+				MatsimXmlStreamParser.this.setDoctype(doctype);
+			}
+		};
+		parser.setValidating(true);
+		parser.setNamespaceAware(this.isNamespaceAware);
+		parser.setLocalDtdDirectory(this.localDtdBase);
+		return parser;
+	}
+
+	/**
+	 * The attributes of the current start tag.  They are copied from the stream reader, so they stay valid after the
+	 * reader has moved on, until the next start tag.
+	 */
+	private static final class StreamAttributes implements Attributes {
+
+		private int length = 0;
+		private String[] uris = new String[8];
+		private String[] localNames = new String[8];
+		private String[] prefixes = new String[8];
+		private String[] types = new String[8];
+		private String[] values = new String[8];
+
+		void read(final XMLStreamReader reader, final boolean isNamespaceAware) {
+			this.length = reader.getAttributeCount();
+			if (this.length > this.values.length) {
+				int size = Math.max(this.length, 2 * this.values.length);
+				this.uris = new String[size];
+				this.localNames = new String[size];
+				this.prefixes = new String[size];
+				this.types = new String[size];
+				this.values = new String[size];
+			}
+			for (int i = 0; i < this.length; i++) {
+				String uri = reader.getAttributeNamespace(i);
+				String localName = reader.getAttributeLocalName(i);
+				String prefix = reader.getAttributePrefix(i);
+				int colon = localName.indexOf(':');
+				if ((prefix == null || prefix.isEmpty()) && colon > 0 && isNamespaceAware) {
+					// attributes set from the defaults in the DTD, e.g. xml:lang, are not split into prefix and name
+					prefix = localName.substring(0, colon);
+					localName = localName.substring(colon + 1);
+					uri = reader.getNamespaceContext().getNamespaceURI(prefix);
+				}
+				this.uris[i] = uri == null ? "" : uri;
+				this.localNames[i] = localName;
+				this.prefixes[i] = prefix;
+				this.types[i] = reader.getAttributeType(i);
+				this.values[i] = reader.getAttributeValue(i);
+			}
+		}
+
+		@Override
+		public int getLength() {
+			return this.length;
+		}
+
+		@Override
+		public String getURI(final int index) {
+			return index >= 0 && index < this.length ? this.uris[index] : null;
+		}
+
+		@Override
+		public String getLocalName(final int index) {
+			return index >= 0 && index < this.length ? this.localNames[index] : null;
+		}
+
+		@Override
+		public String getQName(final int index) {
+			if (index < 0 || index >= this.length) {
+				return null;
+			}
+			String prefix = this.prefixes[index];
+			return (prefix == null || prefix.isEmpty()) ? this.localNames[index] : prefix + ":" + this.localNames[index];
+		}
+
+		@Override
+		public String getType(final int index) {
+			return index >= 0 && index < this.length ? this.types[index] : null;
+		}
+
+		@Override
+		public String getValue(final int index) {
+			return index >= 0 && index < this.length ? this.values[index] : null;
+		}
+
+		@Override
+		public int getIndex(final String uri, final String localName) {
+			for (int i = 0; i < this.length; i++) {
+				if (this.localNames[i].equals(localName) && this.uris[i].equals(uri)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public int getIndex(final String qName) {
+			for (int i = 0; i < this.length; i++) {
+				String prefix = this.prefixes[i];
+				String localName = this.localNames[i];
+				if (prefix == null || prefix.isEmpty()) {
+					if (localName.equals(qName)) {
+						return i;
+					}
+				} else if (qName.length() == prefix.length() + 1 + localName.length() && qName.startsWith(prefix)
+						&& qName.charAt(prefix.length()) == ':' && qName.endsWith(localName)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(final String uri, final String localName) {
+			return getType(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getType(final String qName) {
+			return getType(getIndex(qName));
+		}
+
+		@Override
+		public String getValue(final String uri, final String localName) {
+			return getValue(getIndex(uri, localName));
+		}
+
+		@Override
+		public String getValue(final String qName) {
+			return getValue(getIndex(qName));
+		}
+	}
+
+}
@@ -0,0 +1,224 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelGZIPOutputStream.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.matsim.core.utils.misc.DaemonThreadFactory;
+
+/**
+ * Writes gzip files, deflating blocks of 1 MB in parallel on a thread pool shared by all streams.
+ * <p></p>
+ * The file consists of a single gzip member (RFC 1952), just like the files of {@link java.util.zip.GZIPOutputStream},
+ * so every gzip reader can read it.  Every block is deflated on its own, primed with the last 32 kB of the previous
+ * block as dictionary, and ends with a sync flush, so the deflated blocks can simply be appended to each other.  The
+ * checksum is computed while the data is written, the compressed blocks are written in their original order.  The
+ * number of blocks that are deflated but not yet written is limited, so a fast producer waits instead of using up
+ * the memory.
+ * <p></p>
+ * Like {@link java.util.zip.GZIPOutputStream}, {@link #flush()} does not compress the data of a block that is not full
+ * yet, it only writes the blocks that were completed before.  This class is not thread-safe.
+ */
+/*package*/ final class ParallelGZIPOutputStream extends OutputStream {
+
+	private static final int BLOCK_SIZE = 1 << 20;
+	private static final int DICTIONARY_SIZE = 1 << 15;
+	private static final int NUMBER_OF_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+	private static ExecutorService pool = null;
+
+	private static final byte[] HEADER = {
+			0x1f, (byte) 0x8b, // magic
+			Deflater.DEFLATED, // compression method
+			0, // flags
+			0, 0, 0, 0, // modification time
+			0, // extra flags
+			(byte) 0xff // operating system: unknown
+	};
+
+	/** an empty block with fixed Huffman codes, marked as the final block of the deflate stream */
+	private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+	private static final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+		@Override
+		protected Deflater initialValue() {
+			return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+	};
+
+	private final OutputStream out;
+	private final int maxPendingBlocks;
+	private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+	private final CRC32 crc = new CRC32();
+
+	private byte[] buffer = new byte[BLOCK_SIZE];
+	private int count = 0;
+	private byte[] previousBuffer = null;
+	private int previousCount = 0;
+	private long totalLength = 0;
+	private boolean closed = false;
+
+	ParallelGZIPOutputStream(final OutputStream out) throws IOException {
+		this.out = out;
+		this.maxPendingBlocks = 2 * NUMBER_OF_THREADS;
+		out.write(HEADER);
+	}
+
+	private static synchronized ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(NUMBER_OF_THREADS, new DaemonThreadFactory(ParallelGZIPOutputStream.class.getSimpleName()));
+		}
+		return pool;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		if (this.count == BLOCK_SIZE) {
+			submitBlock();
+		}
+		this.buffer[this.count++] = (byte) b;
+	}
+
+	@Override
+	public void write(final byte[] b, int off, int len) throws IOException {
+		while (len > 0) {
+			if (this.count == BLOCK_SIZE) {
+				submitBlock();
+			}
+			int length = Math.min(len, BLOCK_SIZE - this.count);
+			System.arraycopy(b, off, this.buffer, this.count, length);
+			this.count += length;
+			off += length;
+			len -= length;
+		}
+	}
+
+	private void submitBlock() throws IOException {
+		final byte[] data = this.buffer;
+		final int length = this.count;
+		// every block gets a new buffer, so the previous one can safely be read as dictionary
+		final byte[] dictionary = this.previousBuffer;
+		final int dictionaryLength = this.previousCount;
+		this.crc.update(data, 0, length);
+		this.totalLength += length;
+		this.pendingBlocks.add(getPool().submit(new Callable<byte[]>() {
+			@Override
+			public byte[] call() {
+				return deflateBlock(data, length, dictionary, dictionaryLength);
+			}
+		}));
+		this.previousBuffer = data;
+		this.previousCount = length;
+		this.buffer = new byte[BLOCK_SIZE];
+		this.count = 0;
+		while (this.pendingBlocks.size() > this.maxPendingBlocks) {
+			writeNextBlock();
+		}
+	}
+
+	/**
+	 * Deflates one block without finishing the deflate stream.  Called concurrently from the threads of the pool.
+	 */
+	private static byte[] deflateBlock(final byte[] data, final int length, final byte[] dictionary, final int dictionaryLength) {
+		Deflater deflater = deflaters.get();
+		deflater.reset();
+		if (dictionary != null) {
+			int dictionarySize = Math.min(DICTIONARY_SIZE, dictionaryLength);
+			deflater.setDictionary(dictionary, dictionaryLength - dictionarySize, dictionarySize);
+		}
+		deflater.setInput(data, 0, length);
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 4 + 64);
+		byte[] chunk = new byte[1 << 16];
+		int n;
+		// the sync flush aligns the output to a byte, it is complete once the output buffer is not filled anymore
+		do {
+			n = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+			compressed.write(chunk, 0, n);
+		} while (n == chunk.length);
+		return compressed.toByteArray();
+	}
+
+	private void writeNextBlock() throws IOException {
+		byte[] compressed;
+		try {
+			compressed = this.pendingBlocks.poll().get();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+		this.out.write(compressed);
+	}
+
+	@Override
+	public void flush() throws IOException {
+		while (!this.pendingBlocks.isEmpty()) {
+			writeNextBlock();
+		}
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		try {
+			if (this.count > 0) {
+				submitBlock();
+			}
+			while (!this.pendingBlocks.isEmpty()) {
+				writeNextBlock();
+			}
+			this.out.write(FINAL_BLOCK);
+			writeIntLE((int) this.crc.getValue());
+			writeIntLE((int) this.totalLength); // the length modulo 2^32
+			this.buffer = null;
+			this.previousBuffer = null;
+		} finally {
+			for (Future<byte[]> block : this.pendingBlocks) {
+				block.cancel(false);
+			}
+			this.out.close();
+		}
+	}
+
+	private void writeIntLE(final int value) throws IOException {
+		this.out.write(value);
+		this.out.write(value >>> 8);
+		this.out.write(value >>> 16);
+		this.out.write(value >>> 24);
+	}
+
+}
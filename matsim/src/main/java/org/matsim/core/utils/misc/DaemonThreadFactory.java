@@ -0,0 +1,46 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * DaemonThreadFactory.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.misc;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads named after their pool and numbered, e.g. <code>EventsReader.0</code>, so helper pools do not
+ * keep the JVM alive if their owner is not shut down.
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+
+	private final String name;
+	private final AtomicInteger count = new AtomicInteger(0);
+
+	public DaemonThreadFactory(final String name) {
+		this.name = name;
+	}
+
+	@Override
+	public Thread newThread(final Runnable r) {
+		Thread thread = new Thread(r, this.name + "." + this.count.getAndIncrement());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
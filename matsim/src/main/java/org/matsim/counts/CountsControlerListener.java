@@ -189,6 +189,8 @@ class CountsControlerListener implements StartupListener, IterationEndsListener
 
 	private void addVolumes(final VolumesAnalyzer volumes) {
 		this.iterationsUsed++;
+		// every link is asked for once (once per mode when filtering modes); the volumes analyzer copies the volumes of
+		// the link on each such call, so do not ask it again per hour
 		for (Map.Entry<Id<Link>, double[]> e : this.linkStats.entrySet()) {
 			Id<Link> linkId = e.getKey();
 			double[] volumesPerHour = e.getValue(); 
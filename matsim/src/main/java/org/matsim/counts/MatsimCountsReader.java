@@ -26,6 +26,7 @@ import org.apache.log4j.Logger;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlStreamParser;
 import org.xml.sax.Attributes;
 
 /**
@@ -34,7 +35,7 @@ import org.xml.sax.Attributes;
  *
  * @author mrieser
  */
-public class MatsimCountsReader extends MatsimXmlParser {
+public class MatsimCountsReader extends MatsimXmlStreamParser {
 
 	private final static Logger log = Logger.getLogger(MatsimCountsReader.class);
 	private final static String COUNTS_V1 = "counts_v1.xsd";
@@ -30,6 +30,7 @@ import org.matsim.core.api.internal.MatsimSomeReader;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlStreamParser;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.utils.objectattributes.AttributeConverter;
 import org.xml.sax.Attributes;
@@ -40,7 +41,7 @@ import org.xml.sax.Attributes;
  *
  * @author mrieser
  */
-public class MatsimFacilitiesReader extends MatsimXmlParser {
+public class MatsimFacilitiesReader extends MatsimXmlStreamParser {
     /* Why is this suddenly a "Matsim"FacilitiesReader and not just a Facilities reader to be consistent with all other
 	 * naming conventions?  kai, jan09
 	 * because all other readers in Matsim are also called Matsim*Reader,
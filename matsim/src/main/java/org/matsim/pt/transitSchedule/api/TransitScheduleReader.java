@@ -29,6 +29,7 @@ import org.matsim.core.api.internal.MatsimReader;
 import org.matsim.core.utils.geometry.CoordinateTransformation;
 import org.matsim.core.utils.geometry.transformations.IdentityTransformation;
 import org.matsim.core.utils.io.MatsimXmlParser;
+import org.matsim.core.utils.io.MatsimXmlStreamParser;
 import org.matsim.core.utils.io.UncheckedIOException;
 import org.matsim.pt.transitSchedule.TransitScheduleReaderV1;
 import org.matsim.pt.transitSchedule.TransitScheduleReaderV2;
@@ -44,6 +45,7 @@ public class TransitScheduleReader implements MatsimReader {
 
 	private final Scenario scenario;
 	private final CoordinateTransformation transformation;
+	private boolean validating = true;
 
 	public TransitScheduleReader(
 			final CoordinateTransformation transformation,
@@ -56,20 +58,33 @@ public class TransitScheduleReader implements MatsimReader {
 		this(new IdentityTransformation(), scenario);
 	}
 
+	/**
+	 * @see MatsimXmlStreamParser#setValidating(boolean)
+	 */
+	public void setValidating(final boolean validating) {
+		this.validating = validating;
+	}
+
 	@Override
 	public void readFile(final String filename) throws UncheckedIOException {
-		new XmlScheduleReader(this.transformation, this.scenario).readFile(filename);
+		createReader().readFile(filename);
 	}
 
 	public void readURL(final URL url) throws UncheckedIOException {
-		new XmlScheduleReader(this.transformation, this.scenario).parse(url);
+		createReader().parse(url);
 	}
 
 	public void readStream(final InputStream stream) throws UncheckedIOException {
-		new XmlScheduleReader(this.transformation, this.scenario).parse(stream);
+		createReader().parse(stream);
+	}
+
+	private XmlScheduleReader createReader() {
+		XmlScheduleReader reader = new XmlScheduleReader(this.transformation, this.scenario);
+		reader.setValidating(this.validating);
+		return reader;
 	}
 
-	private static class XmlScheduleReader extends MatsimXmlParser {
+	private static class XmlScheduleReader extends MatsimXmlStreamParser {
 
 		private MatsimXmlParser delegate = null;
 		private final CoordinateTransformation transformation;
@@ -0,0 +1,405 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * BlockComparator.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.eventsfilecomparison;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.MatsimEventsReader;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.utils.misc.DaemonThreadFactory;
+import org.matsim.utils.eventsfilecomparison.EventsFileComparator.Result;
+
+/**
+ * Compares two events files time step by time step. Each file is read on its own thread and cut into
+ * blocks of the events of one time step. The blocks of a time step are compared on a pool of threads:
+ * every event is reduced to a 64 bit hash of its attributes, independent of their order, and the
+ * events of both blocks are sorted by their hashes. Events with equal hashes are then checked to have
+ * equal attributes, so a hash collision cannot hide a difference. Only if the blocks do not match
+ * this way, the events are counted by their attribute strings to report the difference. The first
+ * differing time step decides the result, further blocks are not compared.
+ * <p></p>
+ * The results are the same as of the former comparison with a barrier after every time step: the
+ * time of the step is checked first, then whether both files end after it, then its events.
+ */
+/*package*/ final class BlockComparator {
+
+	private static final Logger log = Logger.getLogger(BlockComparator.class);
+
+	private static final int QUEUED_BLOCKS = 256;
+	private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 4;
+
+	private final String filename1;
+	private final String filename2;
+	private final int numberOfThreads;
+
+	/*package*/ BlockComparator(final String filename1, final String filename2, final int numberOfThreads) {
+		this.filename1 = filename1;
+		this.filename2 = filename2;
+		this.numberOfThreads = Math.max(1, numberOfThreads);
+	}
+
+	/*package*/ Result compare() {
+		BlockReader reader1 = new BlockReader(this.filename1);
+		BlockReader reader2 = new BlockReader(this.filename2);
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads, new DaemonThreadFactory(BlockComparator.class.getSimpleName()));
+		Deque<Future<Result>> pending = new ArrayDeque<>();
+		reader1.thread.start();
+		reader2.thread.start();
+		try {
+			Block block1 = reader1.next();
+			Block block2 = reader2.next();
+			if ((block1 == Block.END) != (block2 == Block.END)) {
+				log.warn("Events files have different number of time steps!");
+				return Result.DIFFERENT_NUMBER_OF_TIMESTEPS;
+			}
+			while (block1 != Block.END) {
+				Block next1 = reader1.next();
+				Block next2 = reader2.next();
+				if (block1.time != block2.time) {
+					Result result = awaitAll(pending);
+					if (result != Result.FILES_ARE_EQUAL) {
+						return result;
+					}
+					log.warn("Different time steps in event files: " + block1.time + " in file: " + this.filename1
+							+ ", " + block2.time + " in file: " + this.filename2);
+					return Result.DIFFERENT_TIMESTEPS;
+				}
+				if ((next1 == Block.END) != (next2 == Block.END)) {
+					Result result = awaitAll(pending);
+					if (result != Result.FILES_ARE_EQUAL) {
+						return result;
+					}
+					log.warn("Events files have different number of time steps! The last common time step is " + block1.time + ".");
+					return Result.DIFFERENT_NUMBER_OF_TIMESTEPS;
+				}
+				pending.add(executor.submit(new BlockComparison(block1, block2)));
+				while (!pending.isEmpty() && (pending.peek().isDone() || pending.size() >= BLOCKS_IN_FLIGHT_PER_THREAD * this.numberOfThreads)) {
+					Result result = await(pending.poll());
+					if (result != Result.FILES_ARE_EQUAL) {
+						return result;
+					}
+				}
+				block1 = next1;
+				block2 = next2;
+			}
+			return awaitAll(pending);
+		} finally {
+			executor.shutdownNow();
+			reader1.thread.interrupt();
+			reader2.thread.interrupt();
+		}
+	}
+
+	private static Result awaitAll(final Deque<Future<Result>> pending) {
+		while (!pending.isEmpty()) {
+			Result result = await(pending.poll());
+			if (result != Result.FILES_ARE_EQUAL) {
+				return result;
+			}
+		}
+		return Result.FILES_ARE_EQUAL;
+	}
+
+	private static Result await(final Future<Result> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+	}
+
+	/**
+	 * @return a hash of the event's attributes which does not depend on their order
+	 */
+	/*package*/ static long hash(final Event event) {
+		long hash = 0;
+		for (Entry<String, String> e : event.getAttributes().entrySet()) {
+			hash += mix(hash(e.getKey()) * 0x9E3779B97F4A7C15L + hash(e.getValue()));
+		}
+		return hash;
+	}
+
+	private static long hash(final String s) {
+		if (s == null) {
+			return 0;
+		}
+		long hash = 0xcbf29ce484222325L; // 64 bit FNV-1a
+		for (int i = 0, n = s.length(); i < n; i++) {
+			hash ^= s.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/*package*/ static String toLexicographicSortedString(final Event event) {
+		List<String> strings = new ArrayList<String>();
+		for (Entry<String, String> e : event.getAttributes().entrySet()) {
+			strings.add(e.getKey() + "=" + e.getValue());
+		}
+		Collections.sort(strings);
+		StringBuilder eventStr = new StringBuilder();
+		for (String str : strings) {
+			eventStr.append("|");
+			eventStr.append(str);
+		}
+		return eventStr.toString();
+	}
+
+	private static final class Block {
+		static final Block END = new Block(Double.NaN);
+
+		final double time;
+		final List<Event> events = new ArrayList<>();
+
+		Block(final double time) {
+			this.time = time;
+		}
+	}
+
+	private static final class HashedEvent implements Comparable<HashedEvent> {
+		final long hash;
+		final Event event;
+
+		HashedEvent(final long hash, final Event event) {
+			this.hash = hash;
+			this.event = event;
+		}
+
+		@Override
+		public int compareTo(final HashedEvent o) {
+			return Long.compare(this.hash, o.hash);
+		}
+	}
+
+	private final class BlockComparison implements Callable<Result> {
+		private final Block block1;
+		private final Block block2;
+
+		BlockComparison(final Block block1, final Block block2) {
+			this.block1 = block1;
+			this.block2 = block2;
+		}
+
+		@Override
+		public Result call() {
+			if (this.block1.events.size() == this.block2.events.size()
+					&& matches(sortedByHash(this.block1), sortedByHash(this.block2))) {
+				return Result.FILES_ARE_EQUAL;
+			}
+			return compareEvents();
+		}
+
+		private HashedEvent[] sortedByHash(final Block block) {
+			HashedEvent[] events = new HashedEvent[block.events.size()];
+			for (int i = 0; i < events.length; i++) {
+				Event event = block.events.get(i);
+				events[i] = new HashedEvent(hash(event), event);
+			}
+			Arrays.sort(events);
+			return events;
+		}
+
+		/**
+		 * @return <code>true</code> if the events at the same position have equal hashes and equal attributes. If
+		 * several different events share a hash, they may be paired wrongly, which {@link #compareEvents()} sorts out.
+		 */
+		private boolean matches(final HashedEvent[] events1, final HashedEvent[] events2) {
+			for (int i = 0; i < events1.length; i++) {
+				if (events1[i].hash != events2[i].hash
+						|| !events1[i].event.getAttributes().equals(events2[i].event.getAttributes())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private Result compareEvents() {
+			Map<String, Counter> map1 = count(this.block1);
+			Map<String, Counter> map2 = count(this.block2);
+			double time = this.block1.time;
+
+			// check that map2 contains all keys of map1, with the same values
+			for (Entry<String, Counter> e : map1.entrySet()) {
+				Counter c = map2.get(e.getKey());
+				if (c == null) {
+					log.warn("Missing event at time " + time + ":");
+					log.warn(e.getKey());
+					log.warn("in events file:" + BlockComparator.this.filename2);
+					return Result.MISSING_EVENT;
+				}
+				if (c.getCount() != e.getValue().getCount()) {
+					log.warn("Wrong event count at time " + time + " for: " + e.getKey()
+							+ "\n" + e.getValue().getCount() + " times in file:" + BlockComparator.this.filename1
+							+ "\n" + c.getCount() + " times in file:" + BlockComparator.this.filename2);
+					return Result.WRONG_EVENT_COUNT;
+				}
+			}
+
+			// also check that map1 contains all keys of map2
+			for (Entry<String, Counter> e : map2.entrySet()) {
+				if (!map1.containsKey(e.getKey())) {
+					log.warn("Missing event at time " + time + ":");
+					log.warn(e.getKey());
+					log.warn("in events file:" + BlockComparator.this.filename1);
+					return Result.MISSING_EVENT;
+				}
+			}
+
+			// events with equal hashes were paired wrongly, but the events are the same
+			return Result.FILES_ARE_EQUAL;
+		}
+
+		private Map<String, Counter> count(final Block block) {
+			Map<String, Counter> map = new LinkedHashMap<>();
+			for (Event event : block.events) {
+				String key = toLexicographicSortedString(event);
+				Counter counter = map.get(key);
+				if (counter == null) {
+					counter = new Counter();
+					map.put(key, counter);
+				}
+				counter.increment();
+			}
+			return map;
+		}
+	}
+
+	/**
+	 * Reads an events file on its own thread and hands over the events of every time step as a
+	 * block, followed by {@link Block#END}.
+	 */
+	private static final class BlockReader implements BasicEventHandler, Runnable {
+		private final String filename;
+		private final BlockingQueue<Block> queue = new ArrayBlockingQueue<>(QUEUED_BLOCKS);
+		private final Thread thread;
+		private Block block = null;
+		private volatile Throwable failure = null;
+
+		BlockReader(final String filename) {
+			this.filename = filename;
+			this.thread = new Thread(this, "BlockComparator.reader " + filename);
+			this.thread.setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			try {
+				EventsManager eventsManager = EventsUtils.createEventsManager();
+				eventsManager.addHandler(this);
+				new MatsimEventsReader(eventsManager).readFile(this.filename);
+				if (this.block != null) {
+					this.queue.put(this.block);
+				}
+			} catch (InterruptedException e) {
+				return;
+			} catch (Throwable e) {
+				if (isInterrupted(e)) {
+					return;
+				}
+				log.error("reading " + this.filename + " failed.", e);
+				this.failure = e;
+			}
+			try {
+				this.queue.put(Block.END);
+			} catch (InterruptedException e) {
+				// the comparison is over
+			}
+		}
+
+		private static boolean isInterrupted(Throwable e) {
+			while (e != null) {
+				if (e instanceof InterruptedException) {
+					return true;
+				}
+				e = e.getCause();
+			}
+			return false;
+		}
+
+		@Override
+		public void handleEvent(final Event event) {
+			if (this.block == null || this.block.time != event.getTime()) {
+				if (this.block != null) {
+					try {
+						this.queue.put(this.block);
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				}
+				this.block = new Block(event.getTime());
+			}
+			this.block.events.add(event);
+		}
+
+		Block next() {
+			Block block;
+			try {
+				block = this.queue.take();
+			} catch (InterruptedException e) {
+				throw new RuntimeException(e);
+			}
+			if (block == Block.END) {
+				// stay at the end for further calls
+				this.queue.offer(Block.END);
+				Throwable e = this.failure;
+				if (e != null) {
+					throw new RuntimeException("reading " + this.filename + " failed.", e);
+				}
+			}
+			return block;
+		}
+	}
+
+}
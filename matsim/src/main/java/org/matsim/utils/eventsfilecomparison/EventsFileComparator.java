@@ -19,16 +19,12 @@
 
 package org.matsim.utils.eventsfilecomparison;
 
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.CyclicBarrier;
-
 import org.apache.log4j.Logger;
-import org.matsim.utils.eventsfilecomparison.EventsFileComparator.Result;
 
 /**
  * This class checks if two events files are semantic equivalent. The order of the events does not matter as long as
- * they are chronologically sorted.
+ * they are chronologically sorted. Events are matched by a hash of their attributes, and every match is confirmed by
+ * comparing the attributes themselves, so hash collisions do not affect the result.
  *
  * @author mrieser
  * @author laemmel
@@ -89,27 +85,20 @@ public final class EventsFileComparator {
 			throw new RuntimeException("unknown Result code") ; 
 		}
 	}
+	/**
+	 * Compares two events files on as many threads as there are processors, see {@link #compare(String, String, int)}.
+	 */
 	public static Result compare(final String filename1, final String filename2) {
-		EventsComparator comparator = new EventsComparator();
-		CyclicBarrier doComparison = new CyclicBarrier(2, comparator);
-		Worker w1 = new Worker(filename1, doComparison);
-		Worker w2 = new Worker(filename2, doComparison);
-		comparator.setWorkers(w1, w2);
-		w1.start();
-		w2.start();
-
-		try {
-			w1.join();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		try {
-			w2.join();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
+		return compare(filename1, filename2, Runtime.getRuntime().availableProcessors());
+	}
 
-		Result retCode = comparator.retCode;
+	/**
+	 * Compares two events files. Both files are read on a thread of their own, the events of their time steps are
+	 * compared on <code>numberOfThreads</code> further threads. The first difference is logged with its time step.
+	 * This method is thread-safe.
+	 */
+	public static Result compare(final String filename1, final String filename2, final int numberOfThreads) {
+		Result retCode = new BlockComparator(filename1, filename2, numberOfThreads).compare();
 		if (retCode == Result.FILES_ARE_EQUAL) {
 			log.info("Event files are semantic equivalent.");
 		} else {
@@ -118,74 +107,4 @@ public final class EventsFileComparator {
 		return retCode;
 	}
 
-	/*package*/ static class EventsComparator implements Runnable {
-
-		private Worker worker1 = null;
-		private Worker worker2 = null;
-		/*package*/ volatile Result retCode = null ;
-
-		/*package*/ void setWorkers(final Worker w1, final Worker w2) {
-			this.worker1 = w1;
-			this.worker2 = w2;
-		}
-
-		@Override
-		public void run() {
-			if (this.worker1.getCurrentTime() != this.worker2.getCurrentTime()) {
-				log.warn("Differnt time steps in event files!");
-				setExitCode(Result.DIFFERENT_TIMESTEPS);
-				return;
-			}
-
-			if (this.worker1.isFinished() != this.worker2.isFinished()) {
-				log.warn("Events files have different number of time steps!");
-				setExitCode(Result.DIFFERENT_NUMBER_OF_TIMESTEPS);
-				return;
-			}
-
-			Map<String, Counter> map1 = this.worker1.getEventsMap();
-			Map<String, Counter> map2 = this.worker2.getEventsMap();
-
-			// check that map2 contains all keys of map1, with the same values
-			for (Entry<String, Counter> e : map1.entrySet()) {
-				Counter c = map2.get(e.getKey());
-				if (c == null) {
-					log.warn("Missing event:" ) ;
-					log.warn( e.getKey() );
-					log.warn("in events file:" + worker2.getEventsFile());
-					setExitCode(Result.MISSING_EVENT);
-					return;
-				}
-				if (c.getCount() != e.getValue().getCount()) {
-					log.warn("Wrong event count for: " + e.getKey() + "\n" + e.getValue().getCount() + " times in file:" + worker1.getEventsFile()
-							+ "\n" + c.getCount() + " times in file:" + worker2.getEventsFile());
-					setExitCode(Result.WRONG_EVENT_COUNT);
-					return;
-				}
-			}
-
-			// also check that map1 contains all keys of map2
-			for (Entry<String, Counter> e : map2.entrySet()) {
-				Counter c = map1.get(e.getKey());
-				if (c == null) {
-					log.warn("Missing event:" + e.getKey() + "\nin events file:" + worker1.getEventsFile());
-					setExitCode(Result.MISSING_EVENT);
-					return;
-				}
-			}
-
-			if (this.worker1.isFinished()) {
-				setExitCode(Result.FILES_ARE_EQUAL);
-			}
-		}
-
-		private void setExitCode(final Result errCode) {
-			this.retCode= errCode;
-			if (errCode != Result.FILES_ARE_EQUAL) {
-				this.worker1.interrupt();
-				this.worker2.interrupt();
-			}
-		}
-	}
-
 }
@@ -0,0 +1,378 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarObjectAttributes.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.utils.objectattributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ObjectAttributes} that store the values of each attribute in a column, i.e. an array indexed by the
+ * object. Doubles, integers and booleans are stored as primitives, strings as index into a table of the distinct
+ * values of the attribute.  All other values, and attributes with values of several types, are stored as objects.
+ * This needs a fraction of the memory of {@link ObjectAttributes} for many objects with the same attributes,
+ * e.g. persons.
+ * <p></p>
+ * Besides the usual methods, the objects can be addressed by an index, see {@link #getObjectIndex(String)}, and the
+ * values of an attribute read from its {@link Column} without boxing them, see {@link #getColumn(String)}.
+ * <p></p>
+ * <em>This class is not thread-safe.</em>
+ */
+public final class ColumnarObjectAttributes extends ObjectAttributes {
+
+	private final Map<String, Integer> objectIndices = new HashMap<>();
+	private final List<String> objectIds = new ArrayList<>();
+	private final Map<String, Column> columns = new LinkedHashMap<>();
+
+	@Override
+	public Object putAttribute(final String objectId, final String attribute, final Object value) {
+		return putAttribute(createObjectIndex(objectId), attribute, value);
+	}
+
+	/**
+	 * Sets the attribute of the object with the given index, see {@link #createObjectIndex(String)}.
+	 *
+	 * @return the previous value of the attribute, or <code>null</code> if there was none.
+	 */
+	public Object putAttribute(final int objectIndex, final String attribute, final Object value) {
+		Column column = this.columns.get(attribute);
+		if (column == null) {
+			if (value == null) {
+				return null;
+			}
+			column = new Column(value);
+			this.columns.put(attribute, column);
+		}
+		return column.put(objectIndex, value);
+	}
+
+	@Override
+	public Object getAttribute(final String objectId, final String attribute) {
+		Integer index = this.objectIndices.get(objectId);
+		Column column = this.columns.get(attribute);
+		if (index == null || column == null) {
+			return null;
+		}
+		return column.get(index);
+	}
+
+	@Override
+	public Object removeAttribute(final String objectId, final String attribute) {
+		Integer index = this.objectIndices.get(objectId);
+		Column column = this.columns.get(attribute);
+		if (index == null || column == null) {
+			return null;
+		}
+		return column.put(index, null);
+	}
+
+	@Override
+	public void removeAllAttributes(final String objectId) {
+		Integer index = this.objectIndices.remove(objectId);
+		if (index != null) {
+			for (Column column : this.columns.values()) {
+				column.put(index, null);
+			}
+			this.objectIds.set(index, null);
+		}
+	}
+
+	@Override
+	public void clear() {
+		this.objectIndices.clear();
+		this.objectIds.clear();
+		this.columns.clear();
+	}
+
+	/**
+	 * @return the index of the object, or <code>-1</code> if the object has no attributes.
+	 */
+	public int getObjectIndex(final String objectId) {
+		Integer index = this.objectIndices.get(objectId);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * @return the index of the object, which is added if it has no attributes yet.  The index does not change until
+	 * all attributes of the object are removed with {@link #removeAllAttributes(String)}.
+	 */
+	public int createObjectIndex(final String objectId) {
+		Integer index = this.objectIndices.get(objectId);
+		if (index == null) {
+			index = this.objectIds.size();
+			this.objectIds.add(objectId);
+			this.objectIndices.put(objectId, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the values of the attribute for all objects, or <code>null</code> if no object has this attribute.
+	 * The column stays valid when further values are set.
+	 */
+	public Column getColumn(final String attribute) {
+		return this.columns.get(attribute);
+	}
+
+	@Override
+	/*package*/ Collection<String> getObjectIds() {
+		List<String> ids = new ArrayList<>(this.objectIndices.size());
+		for (String id : this.objectIds) {
+			if (id != null) { // removed objects leave a gap
+				ids.add(id);
+			}
+		}
+		return ids;
+	}
+
+	@Override
+	/*package*/ Map<String, Object> getAllAttributes(final String objectId) {
+		Integer index = this.objectIndices.get(objectId);
+		if (index == null) {
+			return null;
+		}
+		Map<String, Object> attributes = new LinkedHashMap<>();
+		for (Map.Entry<String, Column> e : this.columns.entrySet()) {
+			Object value = e.getValue().get(index);
+			if (value != null) {
+				attributes.put(e.getKey(), value);
+			}
+		}
+		return attributes;
+	}
+
+	/**
+	 * The values of one attribute, indexed by the object index.
+	 */
+	public static final class Column {
+
+		private enum Type { DOUBLE, INT, BOOLEAN, STRING, OBJECT }
+
+		/** strings are only stored in a table if there are much less distinct values than objects */
+		private static final int MIN_STRINGS_FOR_OBJECTS = 1024;
+
+		private Type type;
+		private final BitSet isSet = new BitSet();
+		private int size = 0;
+		private double[] doubles;
+		private int[] ints; // the integers, or the index of the string in the string table
+		private BitSet booleans;
+		private List<String> strings;
+		private Map<String, Integer> stringIndices;
+		private Object[] objects;
+
+		Column(final Object firstValue) {
+			if (firstValue instanceof Double) {
+				this.type = Type.DOUBLE;
+				this.doubles = new double[16];
+			} else if (firstValue instanceof Integer) {
+				this.type = Type.INT;
+				this.ints = new int[16];
+			} else if (firstValue instanceof Boolean) {
+				this.type = Type.BOOLEAN;
+				this.booleans = new BitSet();
+			} else if (firstValue instanceof String) {
+				this.type = Type.STRING;
+				this.ints = new int[16];
+				this.strings = new ArrayList<>();
+				this.stringIndices = new HashMap<>();
+			} else {
+				this.type = Type.OBJECT;
+				this.objects = new Object[16];
+			}
+		}
+
+		public boolean isSet(final int objectIndex) {
+			return objectIndex >= 0 && this.isSet.get(objectIndex);
+		}
+
+		/**
+		 * @return the value for the object, or <code>null</code> if it is not set.
+		 */
+		public Object get(final int objectIndex) {
+			if (!isSet(objectIndex)) {
+				return null;
+			}
+			switch (this.type) {
+				case DOUBLE: return this.doubles[objectIndex];
+				case INT: return this.ints[objectIndex];
+				case BOOLEAN: return this.booleans.get(objectIndex);
+				case STRING: return this.strings.get(this.ints[objectIndex]);
+				default: return this.objects[objectIndex];
+			}
+		}
+
+		/**
+		 * @return the value for the object, or <code>null</code> if it is not set.
+		 * @throws ClassCastException if the value is not a String
+		 */
+		public String getString(final int objectIndex) {
+			if (this.type == Type.STRING) {
+				return isSet(objectIndex) ? this.strings.get(this.ints[objectIndex]) : null;
+			}
+			return (String) get(objectIndex);
+		}
+
+		/**
+		 * @return the value for the object, or <code>defaultValue</code> if it is not set.
+		 * @throws ClassCastException if the value is not a number
+		 */
+		public double getDouble(final int objectIndex, final double defaultValue) {
+			if (!isSet(objectIndex)) {
+				return defaultValue;
+			}
+			switch (this.type) {
+				case DOUBLE: return this.doubles[objectIndex];
+				case INT: return this.ints[objectIndex];
+				default: return ((Number) get(objectIndex)).doubleValue();
+			}
+		}
+
+		/**
+		 * @return the value for the object, or <code>defaultValue</code> if it is not set.
+		 * @throws ClassCastException if the value is not a number
+		 */
+		public int getInt(final int objectIndex, final int defaultValue) {
+			if (!isSet(objectIndex)) {
+				return defaultValue;
+			}
+			if (this.type == Type.INT) {
+				return this.ints[objectIndex];
+			}
+			return ((Number) get(objectIndex)).intValue();
+		}
+
+		/**
+		 * @return the value for the object, or <code>defaultValue</code> if it is not set.
+		 * @throws ClassCastException if the value is not a Boolean
+		 */
+		public boolean getBoolean(final int objectIndex, final boolean defaultValue) {
+			if (!isSet(objectIndex)) {
+				return defaultValue;
+			}
+			if (this.type == Type.BOOLEAN) {
+				return this.booleans.get(objectIndex);
+			}
+			return (Boolean) get(objectIndex);
+		}
+
+		/**
+		 * @param value the new value, or <code>null</code> to remove it
+		 * @return the previous value
+		 */
+		Object put(final int objectIndex, final Object value) {
+			Object previous = get(objectIndex);
+			if (value == null) {
+				if (previous != null) {
+					this.isSet.clear(objectIndex);
+					this.size--;
+					if (this.type == Type.OBJECT) {
+						this.objects[objectIndex] = null;
+					}
+				}
+				return previous;
+			}
+			if (!fits(value)) {
+				convertToObjects();
+			}
+			switch (this.type) {
+				case DOUBLE:
+					this.doubles = ensureCapacity(this.doubles, objectIndex);
+					this.doubles[objectIndex] = (Double) value;
+					break;
+				case INT:
+					this.ints = ensureCapacity(this.ints, objectIndex);
+					this.ints[objectIndex] = (Integer) value;
+					break;
+				case BOOLEAN:
+					this.booleans.set(objectIndex, (Boolean) value);
+					break;
+				case STRING:
+					this.ints = ensureCapacity(this.ints, objectIndex);
+					this.ints[objectIndex] = getStringIndex((String) value);
+					break;
+				default:
+					if (objectIndex >= this.objects.length) {
+						this.objects = Arrays.copyOf(this.objects, Math.max(objectIndex + 1, 2 * this.objects.length));
+					}
+					this.objects[objectIndex] = value;
+			}
+			if (previous == null) {
+				this.isSet.set(objectIndex);
+				this.size++;
+			}
+			if (this.type == Type.STRING && this.strings.size() > MIN_STRINGS_FOR_OBJECTS
+					&& 2 * this.strings.size() > this.size) {
+				// (almost) every object has its own value, the table does not help
+				convertToObjects();
+			}
+			return previous;
+		}
+
+		private boolean fits(final Object value) {
+			switch (this.type) {
+				case DOUBLE: return value instanceof Double;
+				case INT: return value instanceof Integer;
+				case BOOLEAN: return value instanceof Boolean;
+				case STRING: return value instanceof String;
+				default: return true;
+			}
+		}
+
+		private int getStringIndex(final String value) {
+			Integer index = this.stringIndices.get(value);
+			if (index == null) {
+				index = this.strings.size();
+				this.strings.add(value);
+				this.stringIndices.put(value, index);
+			}
+			return index;
+		}
+
+		private void convertToObjects() {
+			Object[] values = new Object[Math.max(16, this.isSet.length())];
+			for (int i = this.isSet.nextSetBit(0); i >= 0; i = this.isSet.nextSetBit(i + 1)) {
+				values[i] = get(i);
+			}
+			this.type = Type.OBJECT;
+			this.objects = values;
+			this.doubles = null;
+			this.ints = null;
+			this.booleans = null;
+			this.strings = null;
+			this.stringIndices = null;
+		}
+
+		private static double[] ensureCapacity(final double[] array, final int index) {
+			return index < array.length ? array : Arrays.copyOf(array, Math.max(index + 1, 2 * array.length));
+		}
+
+		private static int[] ensureCapacity(final int[] array, final int index) {
+			return index < array.length ? array : Arrays.copyOf(array, Math.max(index + 1, 2 * array.length));
+		}
+	}
+
+}
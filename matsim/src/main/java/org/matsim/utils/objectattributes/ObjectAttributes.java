@@ -19,6 +19,7 @@
 
 package org.matsim.utils.objectattributes;
 
+import java.util.Collection;
 import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -48,10 +49,9 @@ public class ObjectAttributes implements MatsimExtensionPoint {
 	@Override
 	public String toString() {
 		StringBuilder stb = new StringBuilder() ;
-		for ( Entry<String, Map<String,Object>> entry : attributes.entrySet() ) {
-			String key = entry.getKey() ;
+		for ( String key : getObjectIds() ) {
 			stb.append("key=").append(key);
-			Map<String,Object> map = entry.getValue() ;
+			Map<String,Object> map = getAllAttributes(key) ;
 			for ( Entry<String,Object> ee : map.entrySet() ) {
 				String subkey = ee.getKey();
 				stb.append("; subkey=").append(subkey);
@@ -98,4 +98,15 @@ public class ObjectAttributes implements MatsimExtensionPoint {
 		this.attributes.clear();
 	}
 
+	/*package*/ Collection<String> getObjectIds() {
+		return this.attributes.keySet();
+	}
+
+	/**
+	 * @return the attributes of the object, or <code>null</code> if the object is not known.
+	 */
+	/*package*/ Map<String, Object> getAllAttributes(final String objectId) {
+		return this.attributes.get(objectId);
+	}
+
 }
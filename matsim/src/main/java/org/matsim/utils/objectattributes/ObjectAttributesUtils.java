@@ -21,7 +21,6 @@ package org.matsim.utils.objectattributes;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.IdentityHashMap;
 import java.util.Map;
 
 /**
@@ -34,19 +33,16 @@ public final class ObjectAttributesUtils {
 	}
 	
 	public static void copyAllAttributes(ObjectAttributes source, ObjectAttributes destination, String objectId) {
-		Map<String, Object> sAttrs = source.attributes.get(objectId);
+		Map<String, Object> sAttrs = source.getAllAttributes(objectId);
 		if (sAttrs != null) {
-			Map<String, Object> dAttrs = destination.attributes.get(objectId);
-			if (dAttrs == null) {
-				dAttrs = new IdentityHashMap<String, Object>();
-				destination.attributes.put(objectId, dAttrs);
+			for (Map.Entry<String, Object> e : sAttrs.entrySet()) {
+				destination.putAttribute(objectId, e.getKey(), e.getValue());
 			}
-			dAttrs.putAll(sAttrs);
 		}
 	}
 	
 	public static Collection<String> getAllAttributeNames(ObjectAttributes attributes, final String objectId) {
-		Map<String, Object> map = attributes.attributes.get(objectId);
+		Map<String, Object> map = attributes.getAllAttributes(objectId);
 		if (map == null) {
 			return Collections.emptyList();
 		}
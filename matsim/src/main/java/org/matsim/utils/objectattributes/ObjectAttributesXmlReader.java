@@ -55,8 +55,10 @@ public class ObjectAttributesXmlReader extends MatsimXmlParser {
 	private final static Logger log = Logger.getLogger(ObjectAttributesXmlReader.class);
 	private final ObjectAttributesConverter converter = new ObjectAttributesConverter();
 	private final ObjectAttributes attributes;
+	private final ColumnarObjectAttributes columnarAttributes;
 	private boolean readCharacters = false;
 	private String currentObject = null;
+	private int currentObjectIndex = -1;
 	private String currentAttribute = null;
 	private String currentAttributeClass = null;
 	private long count = 0;
@@ -64,6 +66,7 @@ public class ObjectAttributesXmlReader extends MatsimXmlParser {
 
 	public ObjectAttributesXmlReader(final ObjectAttributes attributes) {
 		this.attributes = attributes;
+		this.columnarAttributes = attributes instanceof ColumnarObjectAttributes ? (ColumnarObjectAttributes) attributes : null;
 		super.setValidating(false);
 	}
 
@@ -84,13 +87,22 @@ public class ObjectAttributesXmlReader extends MatsimXmlParser {
 			this.readCharacters = false;
 
 			Object o = converter.convert(this.currentAttributeClass, content);
-			this.attributes.putAttribute(this.currentObject, this.currentAttribute, o);
+			if (this.columnarAttributes != null) {
+				if (this.currentObjectIndex < 0) {
+					// look up the object only once for all its attributes
+					this.currentObjectIndex = this.columnarAttributes.createObjectIndex(this.currentObject);
+				}
+				this.columnarAttributes.putAttribute(this.currentObjectIndex, this.currentAttribute, o);
+			} else {
+				this.attributes.putAttribute(this.currentObject, this.currentAttribute, o);
+			}
 		} else if (TAG_OBJECT.equals(name)) {
 			if (this.count % 100000 == 0) {
 				log.info("reading object #" + this.count);
 			}
 			this.count++;
 			this.currentObject = null;
+			this.currentObjectIndex = -1;
 		}
 	}
 
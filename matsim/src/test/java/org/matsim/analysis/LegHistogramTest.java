@@ -20,6 +20,7 @@
 
 package org.matsim.analysis;
 
+import java.util.Arrays;
 import java.util.Set;
 
 import org.matsim.api.core.v01.Coord;
@@ -27,11 +28,15 @@ import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.TransportMode;
 import org.matsim.api.core.v01.events.PersonArrivalEvent;
 import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
 import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.events.ShardedEventsProcessor;
 import org.matsim.core.network.NetworkUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.utils.misc.Time;
@@ -177,4 +182,45 @@ public class LegHistogramTest extends MatsimTestCase {
 		assertEquals("After reset, there should be 0 known leg-modes", 0, modes.size());
 		assertFalse(modes.contains(TransportMode.car));
 	}
+	/**
+	 * Tests that the histogram gives the same counts when the events are processed
+	 * on several threads, partitioned by person.
+	 */
+	public void testSharded() {
+		LegHistogram sequential = new LegHistogram(5*60, 10);
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(sequential);
+		processLegEvents(events);
+
+		LegHistogram combined = new LegHistogram(5*60, 10);
+		ShardedEventsProcessor sharded = new ShardedEventsProcessor(3);
+		sharded.addHandler(combined);
+		events = EventsUtils.createEventsManager();
+		events.addHandler(sharded);
+		processLegEvents(events);
+		sharded.finish();
+
+		assertEquals(sequential.getLegModes(), combined.getLegModes());
+		for (String legMode : sequential.getLegModes()) {
+			assertTrue(Arrays.equals(sequential.getDepartures(legMode), combined.getDepartures(legMode)));
+			assertTrue(Arrays.equals(sequential.getArrivals(legMode), combined.getArrivals(legMode)));
+			assertTrue(Arrays.equals(sequential.getStuck(legMode), combined.getStuck(legMode)));
+		}
+		assertEquals(100, combined.getDepartures()[3]);
+	}
+
+	private static void processLegEvents(final EventsManager events) {
+		Id<Link> linkId = Id.create(1, Link.class);
+		for (int i = 0; i < 100; i++) {
+			Id<Person> personId = Id.create("lh" + i, Person.class);
+			String mode = i % 3 == 0 ? TransportMode.walk : TransportMode.car;
+			events.processEvent(new PersonDepartureEvent(1000 + i, personId, linkId, mode));
+			if (i % 10 == 0) {
+				events.processEvent(new PersonStuckEvent(1500 + 30 * i, personId, linkId, mode));
+			} else {
+				events.processEvent(new PersonArrivalEvent(1500 + 30 * i, personId, linkId, mode));
+			}
+		}
+	}
+
 }
@@ -0,0 +1,109 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * LinkStatsCollectorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
+import org.matsim.api.core.v01.events.VehicleLeavesTrafficEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.EventsUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.vehicles.Vehicle;
+
+public class LinkStatsCollectorTest {
+
+	private final Id<Link> link1 = Id.create("lsc1", Link.class);
+	private final Id<Link> link2 = Id.create("lsc2", Link.class);
+	private final Id<Link> link3 = Id.create("lsc3", Link.class);
+
+	private void drive(final EventsManager events, final String vehicle, final String mode, final double departureTime) {
+		Id<Vehicle> vehicleId = Id.create(vehicle, Vehicle.class);
+		Id<Person> driverId = Id.create(vehicle, Person.class);
+		events.processEvent(new VehicleEntersTrafficEvent(departureTime, driverId, this.link1, vehicleId, mode, 1.0));
+		events.processEvent(new LinkLeaveEvent(departureTime + 1, vehicleId, this.link1));
+		events.processEvent(new LinkEnterEvent(departureTime + 1, vehicleId, this.link2));
+		events.processEvent(new LinkLeaveEvent(departureTime + 101, vehicleId, this.link2));
+		events.processEvent(new LinkEnterEvent(departureTime + 101, vehicleId, this.link3));
+		events.processEvent(new VehicleLeavesTrafficEvent(departureTime + 150, driverId, this.link3, vehicleId, mode, 1.0));
+	}
+
+	@Test
+	public void testVolumes() {
+		LinkStatsCollector collector = new LinkStatsCollector(3600, 24 * 3600 - 1);
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(collector);
+		drive(events, "1", TransportMode.car, 7 * 3600);
+		drive(events, "2", TransportMode.car, 7 * 3600 + 10);
+		drive(events, "3", TransportMode.bike, 8 * 3600 - 50);
+
+		Assert.assertEquals(25, collector.getNumberOfTimeBins());
+		Assert.assertEquals(2, collector.getVolume(this.link2, 7, TransportMode.car));
+		Assert.assertEquals(0, collector.getVolume(this.link2, 7, TransportMode.bike));
+		Assert.assertEquals(1, collector.getVolume(this.link2, 8, TransportMode.bike));
+		Assert.assertEquals(2, collector.getVolume(this.link2, 7));
+		Assert.assertEquals(1, collector.getVolume(this.link2, 8));
+		Assert.assertEquals(0, collector.getVolume(this.link3, 7));
+
+		Assert.assertEquals(Arrays.asList(TransportMode.bike, TransportMode.car), new ArrayList<>(collector.getModes()));
+		Assert.assertEquals(Arrays.asList(this.link1, this.link2), new ArrayList<>(collector.getLinkIds()));
+		Assert.assertNull(collector.getVolumes(this.link3));
+
+		collector.reset(1);
+		Assert.assertEquals(0, collector.getVolume(this.link2, 7));
+		Assert.assertTrue(collector.getModes().isEmpty());
+		Assert.assertTrue(collector.getLinkIds().isEmpty());
+	}
+
+	@Test
+	public void testVolumesAnalyzerView() {
+		LinkStatsCollector collector = new LinkStatsCollector(3600, 24 * 3600 - 1);
+		VolumesAnalyzer view = new VolumesAnalyzer(collector);
+		VolumesAnalyzer analyzer = new VolumesAnalyzer(3600, 24 * 3600 - 1, NetworkUtils.createNetwork());
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(collector);
+		events.addHandler(analyzer);
+		drive(events, "1", TransportMode.car, 7 * 3600);
+		drive(events, "2", TransportMode.car, 30 * 3600);
+		drive(events, "3", TransportMode.walk, 8 * 3600);
+
+		Assert.assertEquals(analyzer.getVolumesArraySize(), view.getVolumesArraySize());
+		Assert.assertEquals(analyzer.getModes(), view.getModes());
+		Assert.assertEquals(analyzer.getLinkIds(), view.getLinkIds());
+		for (Id<Link> linkId : Arrays.asList(this.link1, this.link2, this.link3)) {
+			Assert.assertArrayEquals(analyzer.getVolumesForLink(linkId), view.getVolumesForLink(linkId));
+			Assert.assertArrayEquals(analyzer.getVolumesPerHourForLink(linkId), view.getVolumesPerHourForLink(linkId), 0.0);
+			for (String mode : Arrays.asList(TransportMode.car, TransportMode.walk, TransportMode.pt)) {
+				Assert.assertArrayEquals(analyzer.getVolumesForLink(linkId, mode), view.getVolumesForLink(linkId, mode));
+			}
+		}
+	}
+
+}
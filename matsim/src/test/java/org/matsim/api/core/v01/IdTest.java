@@ -67,7 +67,25 @@ public class IdTest {
 //		} // FIXME temporarily deactivated
 	}
 	
+	@Test
+	public void testIndex() {
+		int numberOfIds = Id.getNumberOfIds(TIndexed.class);
+		Id<TIndexed> id1 = Id.create("1", TIndexed.class);
+		Id<TIndexed> id2 = Id.create("2", TIndexed.class);
+		Id<TIndexed> id1again = Id.create("1", TIndexed.class);
+
+		Assert.assertEquals(numberOfIds, id1.index());
+		Assert.assertEquals(numberOfIds + 1, id2.index());
+		Assert.assertEquals(id1.index(), id1again.index());
+		Assert.assertEquals(numberOfIds + 2, Id.getNumberOfIds(TIndexed.class));
+		Assert.assertSame(id1, Id.get(id1.index(), TIndexed.class));
+		Assert.assertSame(id2, Id.get(id2.index(), TIndexed.class));
+		Assert.assertNull(Id.get(numberOfIds + 2, TIndexed.class));
+		Assert.assertNull(Id.get(-1, TIndexed.class));
+	}
+
 	private static class TLink {}
+	private static class TIndexed {}
 	private static class TNode {}
 	
 }
@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * AsyncOutputWriterTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AsyncOutputWriterTest {
+
+	@Test
+	public void testSynchronous() {
+		AsyncOutputWriter writer = new AsyncOutputWriter(0);
+		Assert.assertFalse(writer.isAsync());
+		final Thread caller = Thread.currentThread();
+		final AtomicInteger runs = new AtomicInteger(0);
+		writer.submit("test", new Runnable() {
+			@Override
+			public void run() {
+				Assert.assertSame(caller, Thread.currentThread());
+				runs.incrementAndGet();
+			}
+		});
+		Assert.assertEquals(1, runs.get());
+	}
+
+	@Test
+	public void testAwaitCompletion() {
+		AsyncOutputWriter writer = new AsyncOutputWriter(2);
+		Assert.assertTrue(writer.isAsync());
+		final AtomicInteger runs = new AtomicInteger(0);
+		for (int i = 0; i < 20; i++) {
+			writer.submit("test " + i, new Runnable() {
+				@Override
+				public void run() {
+					try {
+						Thread.sleep(5);
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+					runs.incrementAndGet();
+				}
+			});
+		}
+		writer.awaitCompletion();
+		Assert.assertEquals(20, runs.get());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	public void testSubmitBlocksWhenQueueIsFull() throws InterruptedException {
+		final AsyncOutputWriter writer = new AsyncOutputWriter(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Runnable blocked = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		// one thread, so at most two tasks are pending
+		writer.submit("1", blocked);
+		writer.submit("2", blocked);
+
+		final CountDownLatch submitted = new CountDownLatch(1);
+		Thread submitter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writer.submit("3", new Runnable() {
+					@Override
+					public void run() {
+					}
+				});
+				submitted.countDown();
+			}
+		});
+		submitter.start();
+		Thread.sleep(50);
+		Assert.assertEquals("third task should wait for a free slot", 1, submitted.getCount());
+
+		release.countDown();
+		submitter.join(10000);
+		Assert.assertEquals(0, submitted.getCount());
+		writer.notifyShutdown(null);
+	}
+
+	@Test
+	public void testFailureIsRethrown() {
+		AsyncOutputWriter writer = new AsyncOutputWriter(2);
+		writer.submit("failing", new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException("expected");
+			}
+		});
+		try {
+			writer.awaitCompletion();
+			Assert.fail("the failure of the task should be rethrown");
+		} catch (IllegalStateException e) {
+			Assert.assertEquals("expected", e.getMessage());
+		}
+		// reported only once
+		writer.awaitCompletion();
+		writer.notifyShutdown(null);
+	}
+
+}
@@ -0,0 +1,94 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IterationCheckpointsIT.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import java.io.File;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.analysis.ScoreStatsControlerListener.ScoreItem;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.core.config.Config;
+import org.matsim.core.controler.OutputDirectoryHierarchy.OverwriteFileSetting;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.examples.ExamplesUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class IterationCheckpointsIT {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private Controler createControler(final String outputDirectory) {
+		Config config = this.utils.loadConfig(IOUtils.newUrl(ExamplesUtils.getTestScenarioURL("equil"), "config.xml"));
+		config.controler().setOutputDirectory(outputDirectory);
+		config.controler().setOverwriteFileSetting(OverwriteFileSetting.deleteDirectoryIfExists);
+		config.controler().setLastIteration(4);
+		config.controler().setWriteEventsInterval(0);
+		config.controler().setWritePlansInterval(0);
+		config.controler().setCreateGraphs(false);
+		// with one thread, the replanning of the persons does not depend on the scheduling of the threads
+		config.global().setNumberOfThreads(1);
+		return new Controler(config);
+	}
+
+	@Test
+	public void testRestartGivesSameResultAsUninterruptedRun() {
+		String fullOutput = this.utils.getOutputDirectory() + "full/";
+		Controler full = createControler(fullOutput);
+		full.getConfig().controler().setWriteCheckpointsInterval(2);
+		full.run();
+		File checkpoint = new File(full.getControlerIO().getIterationFilename(2, "checkpoint.bin"));
+		Assert.assertTrue(checkpoint.exists());
+
+		Controler restarted = createControler(this.utils.getOutputDirectory() + "restarted/");
+		restarted.getConfig().controler().setRestartFromCheckpoint(checkpoint.getPath());
+		restarted.run();
+
+		// iterations 0 to 2 are not run again
+		Assert.assertFalse(new File(restarted.getControlerIO().getIterationFilename(2, "tripdurations.txt")).exists());
+		Assert.assertTrue(new File(restarted.getControlerIO().getIterationFilename(3, "tripdurations.txt")).exists());
+
+		// the restored history of the score stats, and the history of the iterations after the restart
+		Map<ScoreItem, Map<Integer, Double>> expectedStats = full.getScoreStats().getScoreHistory();
+		Map<ScoreItem, Map<Integer, Double>> actualStats = restarted.getScoreStats().getScoreHistory();
+		for (ScoreItem item : ScoreItem.values()) {
+			Assert.assertEquals(item.toString(), expectedStats.get(item), actualStats.get(item));
+		}
+
+		Assert.assertEquals(full.getScenario().getPopulation().getPersons().size(), restarted.getScenario().getPopulation().getPersons().size());
+		for (Person expected : full.getScenario().getPopulation().getPersons().values()) {
+			Id<Person> personId = expected.getId();
+			Person actual = restarted.getScenario().getPopulation().getPersons().get(personId);
+			Assert.assertEquals(personId.toString(), expected.getPlans().size(), actual.getPlans().size());
+			Assert.assertEquals(personId.toString(), expected.getPlans().indexOf(expected.getSelectedPlan()), actual.getPlans().indexOf(actual.getSelectedPlan()));
+			for (int i = 0; i < expected.getPlans().size(); i++) {
+				Plan expectedPlan = expected.getPlans().get(i);
+				Plan actualPlan = actual.getPlans().get(i);
+				Assert.assertEquals(personId.toString(), expectedPlan.getScore(), actualPlan.getScore());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,120 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ReplayEventsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.controler;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.analysis.LegHistogram;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonArrivalEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsManagerModule;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.scenario.ScenarioByInstanceModule;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.testcases.MatsimTestUtils;
+import org.matsim.vehicles.Vehicle;
+
+import com.google.inject.Singleton;
+
+public class ReplayEventsTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testShardedReplayGivesSameResults() {
+		String eventsFile = this.utils.getOutputDirectory() + "events.xml";
+		writeEvents(eventsFile);
+		Config config = ConfigUtils.createConfig();
+
+		LegHistogram sequential = ReplayEvents.run(config, eventsFile, 1, createModules(config)).get(LegHistogram.class);
+		LegHistogram sharded = ReplayEvents.run(config, eventsFile, 4, createModules(config)).get(LegHistogram.class);
+
+		Assert.assertEquals(2000, sum(sequential.getDepartures()));
+		Assert.assertArrayEquals(sequential.getDepartures(), sharded.getDepartures());
+		Assert.assertArrayEquals(sequential.getArrivals(), sharded.getArrivals());
+		Assert.assertArrayEquals(sequential.getStuck(), sharded.getStuck());
+		Assert.assertEquals(sequential.getLegModes(), sharded.getLegModes());
+		for (String mode : sequential.getLegModes()) {
+			Assert.assertArrayEquals(sequential.getDepartures(mode), sharded.getDepartures(mode));
+			Assert.assertArrayEquals(sequential.getArrivals(mode), sharded.getArrivals(mode));
+			Assert.assertArrayEquals(sequential.getStuck(mode), sharded.getStuck(mode));
+		}
+	}
+
+	private static AbstractModule[] createModules(final Config config) {
+		return new AbstractModule[] {
+				new EventsManagerModule(),
+				new ScenarioByInstanceModule(ScenarioUtils.createScenario(config)),
+				new AbstractModule() {
+					@Override
+					public void install() {
+						bind(LegHistogram.class).in(Singleton.class);
+						addEventHandlerBinding().to(LegHistogram.class);
+					}
+				}
+		};
+	}
+
+	/**
+	 * Legs of 1000 persons with two modes, some of them stuck, and link events that no handler of the test handles.
+	 */
+	private static void writeEvents(final String filename) {
+		EventWriterXML writer = new EventWriterXML(filename);
+		for (int i = 0; i < 1000; i++) {
+			Id<Person> personId = Id.create(i, Person.class);
+			Id<Vehicle> vehicleId = Id.create(i, Vehicle.class);
+			Id<Link> linkId = Id.create(i % 13, Link.class);
+			String mode = i % 3 == 0 ? TransportMode.pt : TransportMode.car;
+			for (int leg = 0; leg < 2; leg++) {
+				double departure = 6 * 3600 + i * 17 + leg * 5 * 3600;
+				writer.handleEvent(new PersonDepartureEvent(departure, personId, linkId, mode));
+				writer.handleEvent(new LinkLeaveEvent(departure + 1, vehicleId, linkId));
+				writer.handleEvent(new LinkEnterEvent(departure + 1, vehicleId, linkId));
+				if (leg == 1 && i % 10 == 0) {
+					writer.handleEvent(new PersonStuckEvent(departure + 600, personId, linkId, mode));
+				} else {
+					writer.handleEvent(new PersonArrivalEvent(departure + 300 + i % 700, personId, linkId, mode));
+				}
+			}
+		}
+		writer.closeFile();
+	}
+
+	private static int sum(final int[] values) {
+		int sum = 0;
+		for (int value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+
+}
@@ -20,13 +20,22 @@
 
 package org.matsim.core.events;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.matsim.api.core.v01.Id;
 import org.matsim.api.core.v01.events.ActivityEndEvent;
 import org.matsim.api.core.v01.events.ActivityStartEvent;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.events.GenericEvent;
 import org.matsim.api.core.v01.events.LinkEnterEvent;
 import org.matsim.api.core.v01.events.LinkLeaveEvent;
 import org.matsim.api.core.v01.events.PersonArrivalEvent;
@@ -42,7 +51,11 @@ import org.matsim.api.core.v01.events.handler.PersonDepartureEventHandler;
 import org.matsim.api.core.v01.events.handler.PersonStuckEventHandler;
 import org.matsim.api.core.v01.events.handler.VehicleEntersTrafficEventHandler;
 import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.algorithms.EventWriterXML;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.vehicles.Vehicle;
 import org.matsim.testcases.MatsimTestCase;
 import org.xml.sax.SAXException;
 
@@ -151,4 +164,95 @@ public class EventsReadersTest extends MatsimTestCase {
 		reader.readFile(getClassInputDirectory() + "events.xml");
 		assertEquals("number of read events", 8, handler.eventCounter);
 	}
-}
\ No newline at end of file
+
+	public final void testAutoFormatReaderXmlParallel() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TestHandler handler = new TestHandler();
+		events.addHandler(handler);
+		MatsimEventsReader reader = new MatsimEventsReader(events);
+		reader.setNumberOfThreads(2);
+		reader.readFile(getClassInputDirectory() + "events.xml");
+		assertEquals("number of read events", 8, handler.eventCounter);
+	}
+
+	public final void testParallelReaderKeepsOrder() {
+		byte[] file = createEventsFile(3 * EventsReaderXMLv1.EVENTS_PER_CHUNK + 17);
+		List<String> expected = readEvents(file, 1, true);
+		assertEquals(3 * EventsReaderXMLv1.EVENTS_PER_CHUNK + 17, expected.size());
+
+		assertEquals(expected, readEvents(file, 4, true));
+
+		List<String> unordered = readEvents(file, 4, false);
+		Collections.sort(expected);
+		Collections.sort(unordered);
+		assertEquals(expected, unordered);
+	}
+
+	public final void testParallelReaderStopsThreadsOnFailure() throws InterruptedException {
+		byte[] file = createEventsFile(3 * EventsReaderXMLv1.EVENTS_PER_CHUNK + 17);
+		// cut the file in the middle of an event, after some chunks were handed to the threads
+		byte[] truncated = Arrays.copyOf(file, file.length / 2);
+		try {
+			readEvents(truncated, 4, true);
+			fail("expected an exception for the truncated file");
+		} catch (RuntimeException expected) {
+		}
+		long deadline = System.currentTimeMillis() + 10000;
+		while (hasReaderThreads() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertFalse("the threads of the reader are still running", hasReaderThreads());
+	}
+
+	private static boolean hasReaderThreads() {
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && (thread.getName().startsWith("EventsReader.") || thread.getName().startsWith("EventsDelivery."))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static byte[] createEventsFile(final int numberOfEvents) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		EventWriterXML writer = new EventWriterXML(new PrintStream(out));
+		for (int i = 0; i < numberOfEvents; i++) {
+			if (i % 3 == 0) {
+				writer.handleEvent(new CustomEventTest.RainOnPersonEvent(i, Id.create(i, Person.class)));
+			} else {
+				writer.handleEvent(new LinkEnterEvent(i, Id.create(i % 100, Vehicle.class), Id.create(i % 7, Link.class)));
+			}
+		}
+		writer.closeFile();
+		return out.toByteArray();
+	}
+
+	/**
+	 * @return the events as strings, with the custom events mapped
+	 */
+	private static List<String> readEvents(final byte[] file, final int numberOfThreads, final boolean ordered) {
+		final List<String> read = new ArrayList<>();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(new BasicEventHandler() {
+			@Override
+			public void handleEvent(final Event event) {
+				read.add(event.getClass().getSimpleName() + event.getAttributes());
+			}
+
+			@Override
+			public void reset(final int iteration) {
+			}
+		});
+		EventsReaderXMLv1 reader = new EventsReaderXMLv1(events);
+		reader.addCustomEventMapper("rain", new EventsReaderXMLv1.CustomEventMapper() {
+			@Override
+			public Event apply(final GenericEvent event) {
+				return new CustomEventTest.RainOnPersonEvent(event.getTime(), Id.createPersonId(event.getAttributes().get("person")));
+			}
+		});
+		reader.setNumberOfThreads(numberOfThreads);
+		reader.setOrdered(ordered);
+		reader.parse(new ByteArrayInputStream(file));
+		return read;
+	}
+}
@@ -0,0 +1,235 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ShardedEventsProcessorTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.events;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.LinkEnterEvent;
+import org.matsim.api.core.v01.events.LinkLeaveEvent;
+import org.matsim.api.core.v01.events.PersonDepartureEvent;
+import org.matsim.api.core.v01.events.PersonEntersVehicleEvent;
+import org.matsim.api.core.v01.events.handler.LinkEnterEventHandler;
+import org.matsim.api.core.v01.events.handler.LinkLeaveEventHandler;
+import org.matsim.api.core.v01.events.handler.PersonEntersVehicleEventHandler;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.api.experimental.events.EventsManager;
+import org.matsim.core.events.handler.PartitionableEventHandler;
+import org.matsim.vehicles.Vehicle;
+
+public class ShardedEventsProcessorTest {
+
+	/**
+	 * Counts the links entered per driver, which needs the drivers of the vehicles.
+	 */
+	private static final class LinksPerPerson implements PartitionableEventHandler<LinksPerPerson>, PersonEntersVehicleEventHandler, LinkEnterEventHandler {
+		final Map<Id<Vehicle>, Id<Person>> drivers = new HashMap<>();
+		final Map<Id<Person>, Integer> counts = new HashMap<>();
+
+		@Override
+		public Partitioning getPartitioning() {
+			return Partitioning.PERSON;
+		}
+
+		@Override
+		public LinksPerPerson createShard() {
+			return new LinksPerPerson();
+		}
+
+		@Override
+		public void combine(final LinksPerPerson shard) {
+			for (Map.Entry<Id<Person>, Integer> e : shard.counts.entrySet()) {
+				Assert.assertNull("persons must only be in one shard", this.counts.put(e.getKey(), e.getValue()));
+			}
+		}
+
+		@Override
+		public void handleEvent(final PersonEntersVehicleEvent event) {
+			this.drivers.put(event.getVehicleId(), event.getPersonId());
+			this.counts.put(event.getPersonId(), 0);
+		}
+
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			// link events carry no person and reach every shard; only count the own drivers
+			Id<Person> driver = this.drivers.get(event.getVehicleId());
+			if (driver != null) {
+				this.counts.put(driver, this.counts.get(driver) + 1);
+			}
+		}
+	}
+
+	/**
+	 * Sums up the time between entering and leaving the links.
+	 */
+	private static class TimeOnLinks implements PartitionableEventHandler<TimeOnLinks>, LinkEnterEventHandler, LinkLeaveEventHandler {
+		final Map<Id<Vehicle>, Double> enterTimes = new HashMap<>();
+		double sum = 0;
+		int events = 0;
+
+		@Override
+		public Partitioning getPartitioning() {
+			return Partitioning.VEHICLE;
+		}
+
+		@Override
+		public TimeOnLinks createShard() {
+			return new TimeOnLinks();
+		}
+
+		@Override
+		public void combine(final TimeOnLinks shard) {
+			this.sum += shard.sum;
+			this.events += shard.events;
+		}
+
+		@Override
+		public void handleEvent(final LinkEnterEvent event) {
+			this.enterTimes.put(event.getVehicleId(), event.getTime());
+			this.events++;
+		}
+
+		@Override
+		public void handleEvent(final LinkLeaveEvent event) {
+			Double enterTime = this.enterTimes.remove(event.getVehicleId());
+			if (enterTime != null) {
+				this.sum += event.getTime() - enterTime;
+			}
+			this.events++;
+		}
+	}
+
+	private static void processEvents(final EventsManager events) {
+		for (int i = 0; i < 200; i++) {
+			Id<Vehicle> vehicleId = Id.create("sep" + i, Vehicle.class);
+			events.processEvent(new PersonEntersVehicleEvent(i, Id.create("sep" + i, Person.class), vehicleId));
+			for (int l = 0; l < 20; l++) {
+				Id<Link> linkId = Id.create("sep" + l, Link.class);
+				events.processEvent(new LinkEnterEvent(i + 10 * l, vehicleId, linkId));
+				events.processEvent(new LinkLeaveEvent(i + 10 * l + (i % 7) + 1, vehicleId, linkId));
+			}
+		}
+	}
+
+	@Test
+	public void testSameResultsAsSequential() {
+		LinksPerPerson linksSequential = new LinksPerPerson();
+		TimeOnLinks timeSequential = new TimeOnLinks();
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(linksSequential);
+		events.addHandler(timeSequential);
+		processEvents(events);
+
+		LinksPerPerson linksSharded = new LinksPerPerson();
+		TimeOnLinks timeSharded = new TimeOnLinks();
+		ShardedEventsProcessor sharded = new ShardedEventsProcessor(3);
+		sharded.addHandler(linksSharded);
+		sharded.addHandler(timeSharded);
+		events = EventsUtils.createEventsManager();
+		events.addHandler(sharded);
+		processEvents(events);
+		sharded.finish();
+
+		Assert.assertEquals(200, linksSharded.counts.size());
+		Assert.assertEquals(linksSequential.counts, linksSharded.counts);
+		Assert.assertEquals(8000, timeSharded.events);
+		Assert.assertEquals(timeSequential.sum, timeSharded.sum, 0.0);
+		// the original handlers only get the combined results
+		Assert.assertTrue(linksSharded.drivers.isEmpty());
+	}
+
+	@Test
+	public void testOnlyHandledEventTypesAreRouted() {
+		ShardedEventsProcessor sharded = new ShardedEventsProcessor(2);
+		sharded.addHandler(new LinksPerPerson());
+		sharded.addHandler(new TimeOnLinks());
+		int person = 1 << PartitionableEventHandler.Partitioning.PERSON.ordinal();
+		int vehicle = 1 << PartitionableEventHandler.Partitioning.VEHICLE.ordinal();
+		Assert.assertEquals(person, sharded.getHandledPartitionings(PersonEntersVehicleEvent.class));
+		Assert.assertEquals(person | vehicle, sharded.getHandledPartitionings(LinkEnterEvent.class));
+		Assert.assertEquals(vehicle, sharded.getHandledPartitionings(LinkLeaveEvent.class));
+		Assert.assertEquals(0, sharded.getHandledPartitionings(PersonDepartureEvent.class));
+	}
+
+	@Test
+	public void testFailureIsRethrown() {
+		int threadsBefore = countShardThreads();
+		ShardedEventsProcessor sharded = new ShardedEventsProcessor(2);
+		sharded.addHandler(new TimeOnLinks() {
+			@Override
+			public TimeOnLinks createShard() {
+				return new TimeOnLinks() {
+					@Override
+					public void handleEvent(final LinkEnterEvent event) {
+						throw new IllegalStateException("expected failure");
+					}
+				};
+			}
+		});
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(sharded);
+		try {
+			processEvents(events);
+			sharded.finish();
+			Assert.fail("the failure of a shard should be rethrown");
+		} catch (RuntimeException e) {
+			// expected
+		} finally {
+			sharded.abort();
+		}
+		Assert.assertEquals(threadsBefore, countShardThreads());
+	}
+
+	@Test
+	public void testAbortStopsThreads() {
+		int threadsBefore = countShardThreads();
+		TimeOnLinks time = new TimeOnLinks();
+		ShardedEventsProcessor sharded = new ShardedEventsProcessor(2);
+		sharded.addHandler(time);
+		EventsManager events = EventsUtils.createEventsManager();
+		events.addHandler(sharded);
+		processEvents(events);
+		// as if reading the rest of the events failed
+		sharded.abort();
+		Assert.assertEquals(threadsBefore, countShardThreads());
+		Assert.assertEquals(0, time.events);
+
+		// the processor can still be used afterwards
+		processEvents(events);
+		sharded.finish();
+		Assert.assertEquals(8000, time.events);
+	}
+
+	private static int countShardThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith("ShardedEventsProcessor.") && thread.isAlive()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
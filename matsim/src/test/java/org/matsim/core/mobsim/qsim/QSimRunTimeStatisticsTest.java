@@ -0,0 +1,93 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.events.PersonStuckEvent;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.core.utils.io.IOUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class QSimRunTimeStatisticsTest {
+
+	@Rule
+	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testAggregationPerHour() {
+		QSimRunTimeStatistics stats = new QSimRunTimeStatistics();
+		String name1 = stats.registerEngine("Engine");
+		String name2 = stats.registerEngine("Engine");
+		Assert.assertEquals("Engine", name1);
+		Assert.assertEquals("Engine_2", name2);
+
+		stats.addEngineTime(name1, 0.0, 100);
+		stats.addEngineTime(name1, 3599.0, 50);
+		stats.addEngineTime(name1, 3600.0, 7);
+		stats.addEngineTime(name2, 7300.0, 3);
+
+		Assert.assertEquals(150, stats.getEngineTime(name1, 0));
+		Assert.assertEquals(7, stats.getEngineTime(name1, 1));
+		Assert.assertEquals(0, stats.getEngineTime(name2, 0));
+		Assert.assertEquals(3, stats.getEngineTime(name2, 2));
+		Assert.assertEquals(0, stats.getEngineTime(name2, 5));
+		Assert.assertEquals(3, stats.getNumberOfHours());
+
+		Id<Person> personId = Id.create("1", Person.class);
+		Id<Link> linkId = Id.create("1", Link.class);
+		stats.getEventCounter().handleEvent(new PersonStuckEvent(10.0, personId, linkId, "car"));
+		stats.getEventCounter().handleEvent(new PersonStuckEvent(20.0, personId, linkId, "car"));
+		stats.getEventCounter().handleEvent(new PersonStuckEvent(4 * 3600.0, personId, linkId, "car"));
+		Assert.assertEquals(2, stats.getEventCount(0));
+		Assert.assertEquals(0, stats.getEventCount(1));
+		Assert.assertEquals(1, stats.getEventCount(4));
+		Assert.assertEquals(5, stats.getNumberOfHours());
+	}
+
+	@Test
+	public void testWriteCsv() throws IOException {
+		QSimRunTimeStatistics stats = new QSimRunTimeStatistics();
+		String engine = stats.registerEngine("Engine");
+		stats.addEngineTime(engine, 0.0, 2000000);
+		stats.addInternalTime(0.0, 1000000);
+		stats.setLivingAgents(0.0, 5);
+		stats.setLivingAgents(10.0, 4);
+		stats.addNetsimRunnerStatistics(0, 0.0, 10, 20, 3000000);
+		stats.addNetsimRunnerStatistics(1, 3600.0, 11, 21, 0);
+
+		String filename = this.utils.getOutputDirectory() + "qsimRunTimes.csv";
+		stats.writeCsv(filename);
+
+		try (BufferedReader reader = IOUtils.getBufferedReader(filename)) {
+			Assert.assertEquals("hour;qsim_ms;Engine_ms;events;livingAgents;runner0_nodes;runner0_links;runner0_wait_ms;runner1_nodes;runner1_links;runner1_wait_ms", reader.readLine());
+			Assert.assertEquals("0;1;2;0;4;10;20;3;0;0;0", reader.readLine());
+			Assert.assertEquals("1;0;0;0;0;0;0;0;11;21;0", reader.readLine());
+			Assert.assertNull(reader.readLine());
+		}
+	}
+
+}
@@ -307,6 +307,61 @@ public class QSimTest {
 		Assert.assertEquals("wrong time in event.", 6.0*3600 + 15, allEvents.get(3).getTime(), MatsimTestCase.EPSILON);
 	}
 
+	/**
+	 * Tests that creating the agents and vehicles in parallel results in the same simulation as creating them sequentially.
+	 * Uses enough agents so that several chunks are created.
+	 */
+	@Test
+	public void testParallelAgentCreation() {
+		List<String> sequentialEvents = runWithManyAgents(false);
+		List<String> parallelEvents = runWithManyAgents(true);
+		Assert.assertFalse(sequentialEvents.isEmpty());
+		Assert.assertEquals(sequentialEvents, parallelEvents);
+	}
+
+	private List<String> runWithManyAgents(boolean usingParallelAgentCreation) {
+		Fixture f = new Fixture(isUsingFastCapacityUpdate);
+		f.config.qsim().setNumberOfThreads(2);
+		f.config.qsim().setUsingParallelAgentCreation(usingParallelAgentCreation);
+		for (int i = 0; i < 2500; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			Plan plan = PersonUtils.createAndAddPlan(person, true);
+			Activity a1 = PopulationUtils.createAndAddActivityFromLinkId(plan, "h", f.link1.getId());
+			a1.setEndTime(6*3600 + (i % 100) * 60);
+			Leg leg = PopulationUtils.createAndAddLeg( plan, TransportMode.car );
+			NetworkRoute route = f.scenario.getPopulation().getFactory().getRouteFactories().createRoute(NetworkRoute.class, f.link1.getId(), f.link3.getId());
+			route.setLinkIds(f.link1.getId(), f.linkIds2, f.link3.getId());
+			leg.setRoute(route);
+			PopulationUtils.createAndAddActivityFromLinkId(plan, "w", f.link3.getId());
+			f.plans.addPerson(person);
+		}
+
+		EventsManager events = EventsUtils.createEventsManager();
+		EventsCollector collector = new EventsCollector();
+		events.addHandler(collector);
+
+		QSim sim = createQSim(f, events);
+		sim.run();
+
+		// the network engine runs with two threads, which handle the links of one time step in no fixed order.
+		// So only the events within one time step are sorted, the order of the time steps is kept.
+		List<String> result = new ArrayList<>();
+		List<String> timeStep = new ArrayList<>();
+		double time = Double.NEGATIVE_INFINITY;
+		for (Event event : collector.getEvents()) {
+			if (event.getTime() != time) {
+				Collections.sort(timeStep);
+				result.addAll(timeStep);
+				timeStep.clear();
+				time = event.getTime();
+			}
+			timeStep.add(event.toString());
+		}
+		Collections.sort(timeStep);
+		result.addAll(timeStep);
+		return result;
+	}
+
 	/**
 	 * This test is mostly useful for manual debugging, because only a single agent is simulated
 	 * on a very simple network.
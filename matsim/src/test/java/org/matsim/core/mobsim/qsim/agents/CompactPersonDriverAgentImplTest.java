@@ -0,0 +1,216 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPersonDriverAgentImplTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.mobsim.qsim.agents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.events.Event;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.events.EventsManagerImpl;
+import org.matsim.core.events.handler.BasicEventHandler;
+import org.matsim.core.mobsim.framework.MobsimDriverAgent;
+import org.matsim.core.mobsim.framework.MobsimTimer;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+
+public class CompactPersonDriverAgentImplTest {
+
+	@Test
+	public void testSameBehaviorAsPersonDriverAgent() {
+		Fixture f = new Fixture();
+		Assert.assertEquals(f.runReference(), f.runCompact(false));
+	}
+
+	@Test
+	public void testSameBehaviorAfterMaterialization() {
+		Fixture f = new Fixture();
+		List<String> reference = f.runReference();
+		Assert.assertEquals(reference, f.runCompact(true));
+		Plan modifiedPlan = f.compactAgent.getModifiablePlan();
+		Assert.assertNotSame(f.person.getSelectedPlan(), modifiedPlan);
+		Assert.assertEquals(8.0 * 3600 + 300, ((Activity) modifiedPlan.getPlanElements().get(2)).getStartTime(), 0.0);
+	}
+
+	@Test
+	public void testPlanIsNotCopied() {
+		Fixture f = new Fixture();
+		f.runCompact(false);
+		Assert.assertEquals(1, f.person.getPlans().size());
+		Assert.assertTrue(f.compactAgent.getCurrentPlan().getPlanElements().get(0) == f.person.getSelectedPlan().getPlanElements().get(0));
+	}
+
+	private static class Fixture {
+		final Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		final Person person;
+		final EventsManagerImpl events = new EventsManagerImpl();
+		final MobsimTimer timer = new MobsimTimer();
+		final List<String> log = new ArrayList<>();
+		CompactPersonDriverAgentImpl compactAgent = null;
+
+		Fixture() {
+			Network network = this.scenario.getNetwork();
+			Node n1 = network.getFactory().createNode(Id.create("1", Node.class), new Coord(0, 0));
+			Node n2 = network.getFactory().createNode(Id.create("2", Node.class), new Coord(1000, 0));
+			Node n3 = network.getFactory().createNode(Id.create("3", Node.class), new Coord(2000, 0));
+			Node n4 = network.getFactory().createNode(Id.create("4", Node.class), new Coord(3000, 0));
+			network.addNode(n1);
+			network.addNode(n2);
+			network.addNode(n3);
+			network.addNode(n4);
+			Id<Link> l1 = Id.create("1", Link.class);
+			Id<Link> l2 = Id.create("2", Link.class);
+			Id<Link> l3 = Id.create("3", Link.class);
+			network.addLink(network.getFactory().createLink(l1, n1, n2));
+			network.addLink(network.getFactory().createLink(l2, n2, n3));
+			network.addLink(network.getFactory().createLink(l3, n3, n4));
+
+			PopulationFactory pf = this.scenario.getPopulation().getFactory();
+			this.person = pf.createPerson(Id.create("1", Person.class));
+			Plan plan = pf.createPlan();
+			Activity home = pf.createActivityFromLinkId("h", l1);
+			home.setEndTime(8.0 * 3600);
+			plan.addActivity(home);
+			Leg carLeg = pf.createLeg(TransportMode.car);
+			carLeg.setRoute(RouteUtils.createLinkNetworkRouteImpl(l1, Arrays.asList(l2), l3));
+			plan.addLeg(carLeg);
+			Activity work = pf.createActivityFromLinkId("w", l3);
+			work.setMaximumDuration(8.0 * 3600);
+			plan.addActivity(work);
+			Leg walkLeg = pf.createLeg(TransportMode.walk);
+			Route walkRoute = RouteUtils.createGenericRouteImpl(l3, l1);
+			walkRoute.setTravelTime(600);
+			walkLeg.setRoute(walkRoute);
+			plan.addLeg(walkLeg);
+			plan.addActivity(pf.createActivityFromLinkId("h", l1));
+			this.person.addPlan(plan);
+			this.scenario.getPopulation().addPerson(this.person);
+
+			this.events.addHandler(new BasicEventHandler() {
+				@Override
+				public void handleEvent(Event event) {
+					Fixture.this.log.add(event.getTime() + " " + event.getEventType() + " " + event.getAttributes());
+				}
+			});
+		}
+
+		List<String> runReference() {
+			this.log.clear();
+			this.timer.setTime(0);
+			BasicPlanAgentImpl basicAgent = new BasicPlanAgentImpl(this.person.getSelectedPlan(), this.scenario, this.events, this.timer);
+			return run(new DriverAgent(basicAgent, new PlanBasedDriverAgentImpl(basicAgent)), false);
+		}
+
+		List<String> runCompact(boolean materialize) {
+			this.log.clear();
+			this.timer.setTime(0);
+			FlatPlanStore store = new FlatPlanStore(Collections.singleton(this.person), 1, this.scenario, this.events, this.timer);
+			this.compactAgent = new CompactPersonDriverAgentImpl(store, store.getAgentIndex(this.person));
+			return run(this.compactAgent, materialize);
+		}
+
+		private List<String> run(MobsimDriverAgent agent, boolean materializeDuringLeg) {
+			this.log.add("state=" + agent.getState() + " end=" + agent.getActivityEndTime() + " link=" + agent.getCurrentLinkId());
+
+			double now = agent.getActivityEndTime();
+			this.timer.setTime(now);
+			agent.endActivityAndComputeNextState(now);
+			this.log.add("state=" + agent.getState() + " mode=" + agent.getMode() + " dest=" + agent.getDestinationLinkId());
+			Id<Link> next;
+			while ((next = agent.chooseNextLinkId()) != null && !agent.isWantingToArriveOnCurrentLink()) {
+				now += 100;
+				agent.notifyMoveOverNode(next);
+				this.log.add(now + " moved to " + agent.getCurrentLinkId());
+				if (materializeDuringLeg) {
+					((HasModifiablePlan) agent).getModifiablePlan();
+					materializeDuringLeg = false;
+				}
+			}
+			now += 100;
+			this.timer.setTime(now);
+			agent.endLegAndComputeNextState(now);
+			this.log.add("state=" + agent.getState() + " end=" + agent.getActivityEndTime() + " link=" + agent.getCurrentLinkId());
+
+			now = agent.getActivityEndTime();
+			this.timer.setTime(now);
+			agent.endActivityAndComputeNextState(now);
+			this.log.add("state=" + agent.getState() + " mode=" + agent.getMode() + " tt=" + agent.getExpectedTravelTime());
+			now += agent.getExpectedTravelTime();
+			this.timer.setTime(now);
+			agent.notifyArrivalOnLinkByNonNetworkMode(agent.getDestinationLinkId());
+			agent.endLegAndComputeNextState(now);
+			this.log.add("state=" + agent.getState() + " end=" + agent.getActivityEndTime() + " link=" + agent.getCurrentLinkId());
+			return new ArrayList<>(this.log);
+		}
+	}
+
+	/**
+	 * Combines the two delegates in the same way as {@link PersonDriverAgentImpl} does, without requiring a netsim.
+	 */
+	private static class DriverAgent implements MobsimDriverAgent {
+		private final BasicPlanAgentImpl basic;
+		private final PlanBasedDriverAgentImpl driver;
+
+		DriverAgent(BasicPlanAgentImpl basic, PlanBasedDriverAgentImpl driver) {
+			this.basic = basic;
+			this.driver = driver;
+		}
+
+		@Override public Id<Link> getCurrentLinkId() { return this.basic.getCurrentLinkId(); }
+		@Override public Id<Link> getDestinationLinkId() { return this.basic.getDestinationLinkId(); }
+		@Override public String getMode() { return this.basic.getMode(); }
+		@Override public Id<Person> getId() { return this.basic.getId(); }
+		@Override public State getState() { return this.basic.getState(); }
+		@Override public double getActivityEndTime() { return this.basic.getActivityEndTime(); }
+		@Override public void endActivityAndComputeNextState(double now) { this.basic.endActivityAndComputeNextState(now); }
+		@Override public void endLegAndComputeNextState(double now) { this.basic.endLegAndComputeNextState(now); }
+		@Override public void setStateToAbort(double now) { this.basic.setStateToAbort(now); }
+		@Override public Double getExpectedTravelTime() { return this.basic.getExpectedTravelTime(); }
+		@Override public Double getExpectedTravelDistance() { return this.basic.getExpectedTravelDistance(); }
+		@Override public void notifyArrivalOnLinkByNonNetworkMode(Id<Link> linkId) { this.basic.notifyArrivalOnLinkByNonNetworkMode(linkId); }
+		@Override public Id<Link> chooseNextLinkId() { return this.driver.chooseNextLinkId(); }
+		@Override public void notifyMoveOverNode(Id<Link> newLinkId) { this.driver.notifyMoveOverNode(newLinkId); }
+		@Override public boolean isWantingToArriveOnCurrentLink() { return this.driver.isWantingToArriveOnCurrentLink(); }
+		@Override public void setVehicle(org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle veh) { this.basic.setVehicle(veh); }
+		@Override public org.matsim.core.mobsim.qsim.interfaces.MobsimVehicle getVehicle() { return this.basic.getVehicle(); }
+		@Override public Id<org.matsim.vehicles.Vehicle> getPlannedVehicleId() { return this.basic.getPlannedVehicleId(); }
+		@Override public org.matsim.facilities.Facility<? extends org.matsim.facilities.Facility<?>> getCurrentFacility() { return this.basic.getCurrentFacility(); }
+		@Override public org.matsim.facilities.Facility<? extends org.matsim.facilities.Facility<?>> getDestinationFacility() { return this.basic.getDestinationFacility(); }
+	}
+
+}
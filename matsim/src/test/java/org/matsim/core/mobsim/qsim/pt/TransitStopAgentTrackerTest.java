@@ -20,6 +20,8 @@
 
 package org.matsim.core.mobsim.qsim.pt;
 
+import java.util.List;
+
 import junit.framework.TestCase;
 
 import org.apache.log4j.Logger;
@@ -29,6 +31,7 @@ import org.matsim.core.api.experimental.events.EventsManager;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.pt.fakes.FakeAgent;
 import org.matsim.pt.transitSchedule.TransitScheduleFactoryImpl;
+import org.matsim.pt.transitSchedule.api.TransitLine;
 import org.matsim.pt.transitSchedule.api.TransitScheduleFactory;
 import org.matsim.pt.transitSchedule.api.TransitStopFacility;
 
@@ -114,4 +117,129 @@ public class TransitStopAgentTrackerTest extends TestCase {
 			log.info("catched expected exception.", e);
 		}
 	}
+
+	public void testGetAgentsAtFacilityForLine() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		Id<TransitLine> line1 = Id.create("L1", TransitLine.class);
+		Id<TransitLine> line2 = Id.create("L2", TransitLine.class);
+		PTPassengerAgent agent1 = new LineAgent(line1);
+		PTPassengerAgent agent2 = new FakeAgent(null, null);
+		PTPassengerAgent agent3 = new LineAgent(line2);
+		PTPassengerAgent agent4 = new LineAgent(line1);
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+		tracker.addAgentToStop(10, agent4, stop1.getId());
+
+		List<PTPassengerAgent> forLine1 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line1);
+		assertEquals(3, forLine1.size());
+		assertSame(agent1, forLine1.get(0));
+		assertSame(agent2, forLine1.get(1));
+		assertSame(agent4, forLine1.get(2));
+
+		List<PTPassengerAgent> forLine2 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line2);
+		assertEquals(2, forLine2.size());
+		assertSame(agent2, forLine2.get(0));
+		assertSame(agent3, forLine2.get(1));
+
+		assertEquals(1, tracker.getAgentsAtFacilityForLine(stop1.getId(), Id.create("L3", TransitLine.class)).size());
+		assertEquals(4, tracker.getAgentsAtFacility(stop1.getId()).size());
+
+		tracker.removeAgentFromStop(agent1, stop1.getId());
+		tracker.removeAgentFromStop(agent2, stop1.getId());
+		forLine1 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line1);
+		assertEquals(1, forLine1.size());
+		assertSame(agent4, forLine1.get(0));
+		assertEquals(2, tracker.getAgentsAtFacility(stop1.getId()).size());
+	}
+
+	public void testGetAgentsAtFacilityForChangedLine() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		Id<TransitLine> line1 = Id.create("L1", TransitLine.class);
+		Id<TransitLine> line2 = Id.create("L2", TransitLine.class);
+		LineAgent agent1 = new LineAgent(line1);
+		LineAgent agent2 = new LineAgent(line2);
+		LineAgent agent3 = new LineAgent(line1);
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+
+		// e.g. within-day replanning while waiting
+		agent1.lineId = line2;
+		assertEquals("the line is only looked up again when the tracker is told", 2, tracker.getAgentsAtFacilityForLine(stop1.getId(), line1).size());
+		tracker.updateDesiredTransitLine(agent1, stop1.getId());
+		List<PTPassengerAgent> forLine1 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line1);
+		assertEquals(1, forLine1.size());
+		assertSame(agent3, forLine1.get(0));
+		List<PTPassengerAgent> forLine2 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line2);
+		assertEquals(2, forLine2.size());
+		assertSame(agent1, forLine2.get(0));
+		assertSame(agent2, forLine2.get(1));
+
+		agent3.lineId = null;
+		tracker.updateDesiredTransitLine(agent3, stop1.getId());
+		forLine2 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line2);
+		assertEquals(3, forLine2.size());
+		assertSame(agent1, forLine2.get(0));
+		assertSame(agent2, forLine2.get(1));
+		assertSame(agent3, forLine2.get(2));
+		assertEquals(1, tracker.getAgentsAtFacilityForLine(stop1.getId(), line1).size());
+
+		tracker.removeAgentFromStop(agent1, stop1.getId());
+		assertEquals(2, tracker.getAgentsAtFacilityForLine(stop1.getId(), line2).size());
+	}
+
+	public void testGetAgentsAtFacilityForLineReusesUnchangedList() {
+		EventsManager events = EventsUtils.createEventsManager();
+		TransitStopAgentTracker tracker = new TransitStopAgentTracker(events);
+		TransitScheduleFactory builder = new TransitScheduleFactoryImpl();
+		Id<TransitLine> line1 = Id.create("L1", TransitLine.class);
+		Id<TransitLine> line2 = Id.create("L2", TransitLine.class);
+		PTPassengerAgent agent1 = new LineAgent(line1);
+		PTPassengerAgent agent2 = new LineAgent(line2);
+		PTPassengerAgent agent3 = new FakeAgent(null, null);
+		TransitStopFacility stop1 = builder.createTransitStopFacility(Id.create(1, TransitStopFacility.class), new Coord((double) 2, (double) 3), false);
+
+		tracker.addAgentToStop(10, agent1, stop1.getId());
+		tracker.addAgentToStop(10, agent2, stop1.getId());
+		List<PTPassengerAgent> forLine1 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line1);
+		List<PTPassengerAgent> forLine2 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line2);
+		List<PTPassengerAgent> all = tracker.getAgentsAtFacility(stop1.getId());
+		assertSame(forLine1, tracker.getAgentsAtFacilityForLine(stop1.getId(), line1));
+		assertSame(all, tracker.getAgentsAtFacility(stop1.getId()));
+
+		tracker.removeAgentFromStop(agent2, stop1.getId());
+		assertSame(forLine1, tracker.getAgentsAtFacilityForLine(stop1.getId(), line1));
+		assertEquals(1, forLine2.size()); // the old snapshot is not changed
+		assertEquals(0, tracker.getAgentsAtFacilityForLine(stop1.getId(), line2).size());
+		assertEquals(1, tracker.getAgentsAtFacility(stop1.getId()).size());
+
+		tracker.addAgentToStop(10, agent3, stop1.getId());
+		forLine1 = tracker.getAgentsAtFacilityForLine(stop1.getId(), line1);
+		assertEquals(2, forLine1.size());
+		assertSame(agent1, forLine1.get(0));
+		assertSame(agent3, forLine1.get(1));
+	}
+
+	private static class LineAgent extends FakeAgent {
+		/*package*/ Id<TransitLine> lineId;
+
+		LineAgent(final Id<TransitLine> lineId) {
+			super(null, null);
+			this.lineId = lineId;
+		}
+
+		@Override
+		public Id<TransitLine> getDesiredTransitLineId() {
+			return this.lineId;
+		}
+	}
 }
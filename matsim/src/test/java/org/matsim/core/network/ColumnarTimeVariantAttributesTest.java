@@ -0,0 +1,191 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ColumnarTimeVariantAttributesTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.NetworkChangeEvent.ChangeType;
+import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
+import org.matsim.core.utils.misc.Time;
+
+public class ColumnarTimeVariantAttributesTest {
+
+	private static final double[] QUERY_TIMES = {Time.UNDEFINED_TIME, 0., 3599., 3600., 3600.5, 5400., 7199., 7200., 9000., 36000.};
+
+	/**
+	 * Applies the same change events to a network with columnar links and one with regular time-variant links, and
+	 * compares the values.
+	 */
+	@Test
+	public void testSameValuesAsTimeVariantLinkImpl() {
+		Network columnar = createNetwork(new ColumnarTimeVariantLinkFactory());
+		Network variable = createNetwork(new VariableIntervalTimeVariantLinkFactory());
+		NetworkUtils.setNetworkChangeEvents(columnar, createChangeEvents(columnar));
+		NetworkUtils.setNetworkChangeEvents(variable, createChangeEvents(variable));
+
+		for (Link link : columnar.getLinks().values()) {
+			Assert.assertTrue(link instanceof ColumnarTimeVariantLinkImpl);
+			Link other = variable.getLinks().get(link.getId());
+			for (double time : QUERY_TIMES) {
+				Assert.assertEquals(other.getFreespeed(time), link.getFreespeed(time), 1e-10);
+				Assert.assertEquals(other.getFlowCapacityPerSec(time), link.getFlowCapacityPerSec(time), 1e-10);
+				Assert.assertEquals(other.getCapacity(time), link.getCapacity(time), 1e-10);
+				Assert.assertEquals(other.getNumberOfLanes(time), link.getNumberOfLanes(time), 1e-10);
+			}
+		}
+	}
+
+	/**
+	 * Adds the change events one by one after the attributes are built, in an order that appends, inserts before and
+	 * merges changes, and checks that the attributes are updated instead of being built again.
+	 */
+	@Test
+	public void testChangesAreAddedInPlace() {
+		Network columnar = createNetwork(new ColumnarTimeVariantLinkFactory());
+		Network variable = createNetwork(new VariableIntervalTimeVariantLinkFactory());
+		ColumnarTimeVariantAttributes attributes = ((NetworkImpl) columnar).getColumnarTimeVariantAttributes();
+		List<NetworkChangeEvent> columnarEvents = createChangeEvents(columnar);
+		List<NetworkChangeEvent> variableEvents = createChangeEvents(variable);
+		columnarEvents.add(createSameTimeEvent(columnar));
+		variableEvents.add(createSameTimeEvent(variable));
+		for (int i = 0; i < columnarEvents.size(); i++) {
+			NetworkUtils.addNetworkChangeEvent(columnar, columnarEvents.get(i));
+			NetworkUtils.addNetworkChangeEvent(variable, variableEvents.get(i));
+			Assert.assertSame(attributes, ((NetworkImpl) columnar).getColumnarTimeVariantAttributes());
+			assertSameValues(variable, columnar);
+		}
+		Assert.assertEquals(3, attributes.getNumberOfChanges(Id.create("1", Link.class)));
+
+		for (Link link : columnar.getLinks().values()) {
+			link.setCapacity(link.getCapacity() * 2);
+			variable.getLinks().get(link.getId()).setCapacity(link.getCapacity());
+		}
+		Assert.assertSame(attributes, ((NetworkImpl) columnar).getColumnarTimeVariantAttributes());
+		assertSameValues(variable, columnar);
+	}
+
+	@Test
+	public void testChangesAtSameTimeAreMerged() {
+		Network network = createNetwork(new ColumnarTimeVariantLinkFactory());
+		Link link = network.getLinks().get(Id.create("1", Link.class));
+		List<NetworkChangeEvent> events = new ArrayList<>();
+		NetworkChangeEvent event = new NetworkChangeEvent(3600);
+		event.addLink(link);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 2));
+		events.add(event);
+		event = new NetworkChangeEvent(3600);
+		event.addLink(link);
+		event.setLanesChange(new ChangeValue(ChangeType.OFFSET_IN_SI_UNITS, 1));
+		events.add(event);
+		NetworkUtils.setNetworkChangeEvents(network, events);
+
+		Assert.assertEquals(1, ((NetworkImpl) network).getColumnarTimeVariantAttributes().getNumberOfChanges(link.getId()));
+		Assert.assertEquals(20.0, link.getFreespeed(3600), 1e-10);
+		Assert.assertEquals(3.0, link.getNumberOfLanes(3600), 1e-10);
+	}
+
+	@Test
+	public void testBaseValueChangesAndReset() {
+		Network network = createNetwork(new ColumnarTimeVariantLinkFactory());
+		Link link = network.getLinks().get(Id.create("1", Link.class));
+		NetworkChangeEvent event = new NetworkChangeEvent(3600);
+		event.addLink(link);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 2));
+		NetworkUtils.addNetworkChangeEvent(network, event);
+		Assert.assertEquals(10.0, link.getFreespeed(0), 1e-10);
+		Assert.assertEquals(20.0, link.getFreespeed(3600), 1e-10);
+
+		link.setFreespeed(15);
+		Assert.assertEquals(15.0, link.getFreespeed(0), 1e-10);
+		Assert.assertEquals(30.0, link.getFreespeed(3600), 1e-10);
+
+		NetworkUtils.setNetworkChangeEvents(network, Collections.<NetworkChangeEvent>emptyList());
+		Assert.assertEquals(15.0, link.getFreespeed(3600), 1e-10);
+	}
+
+	private static void assertSameValues(Network expected, Network actual) {
+		for (Link link : actual.getLinks().values()) {
+			Link other = expected.getLinks().get(link.getId());
+			for (double time : QUERY_TIMES) {
+				Assert.assertEquals(other.getFreespeed(time), link.getFreespeed(time), 1e-10);
+				Assert.assertEquals(other.getFlowCapacityPerSec(time), link.getFlowCapacityPerSec(time), 1e-10);
+				Assert.assertEquals(other.getNumberOfLanes(time), link.getNumberOfLanes(time), 1e-10);
+			}
+		}
+	}
+
+	private static Network createNetwork(LinkFactory linkFactory) {
+		Network network = NetworkUtils.createNetwork();
+		network.getFactory().setLinkFactory(linkFactory);
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(2000, 0));
+		NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), node1, node2, 1000, 10, 3600, 2);
+		NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), node2, node3, 1000, 20, 1800, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("3", Link.class), node3, node1, 2000, 30, 7200, 3);
+		return network;
+	}
+
+	private static List<NetworkChangeEvent> createChangeEvents(Network network) {
+		Link link1 = network.getLinks().get(Id.create("1", Link.class));
+		Link link2 = network.getLinks().get(Id.create("2", Link.class));
+		List<NetworkChangeEvent> events = new ArrayList<>();
+
+		NetworkChangeEvent event = new NetworkChangeEvent(7200);
+		event.addLink(link1);
+		event.addLink(link2);
+		event.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 5));
+		event.setFlowCapacityChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		events.add(event);
+
+		event = new NetworkChangeEvent(3600);
+		event.addLink(link1);
+		event.setFreespeedChange(new ChangeValue(ChangeType.FACTOR, 0.5));
+		event.setLanesChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 1));
+		events.add(event);
+
+		event = new NetworkChangeEvent(9000);
+		event.addLink(link1);
+		event.setFreespeedChange(new ChangeValue(ChangeType.OFFSET_IN_SI_UNITS, 2.5));
+		event.setFlowCapacityChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 2));
+		events.add(event);
+
+		return events;
+	}
+
+	private static NetworkChangeEvent createSameTimeEvent(Network network) {
+		NetworkChangeEvent event = new NetworkChangeEvent(7200);
+		event.addLink(network.getLinks().get(Id.create("2", Link.class)));
+		event.addLink(network.getLinks().get(Id.create("3", Link.class)));
+		event.setLanesChange(new ChangeValue(ChangeType.OFFSET_IN_SI_UNITS, 1));
+		return event;
+	}
+
+}
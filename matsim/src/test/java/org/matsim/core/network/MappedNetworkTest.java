@@ -0,0 +1,186 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MappedNetworkTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.core.network.io.MatsimNetworkReader;
+import org.matsim.core.network.io.NetworkWriter;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class MappedNetworkTest {
+
+	@Rule public MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static Network createNetwork() {
+		Network network = NetworkUtils.createNetwork();
+		network.setName("test network");
+		network.setCapacityPeriod(7200.0);
+		Node n1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node n2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Node n3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(1000, 1000, 50));
+		Link l1 = NetworkUtils.createAndAddLink(network, Id.create("a", Link.class), n1, n2, 1000, 13.9, 1800, 2);
+		Link l2 = NetworkUtils.createAndAddLink(network, Id.create("b", Link.class), n2, n3, 1200, 8.3, 600, 1);
+		NetworkUtils.createAndAddLink(network, Id.create("c", Link.class), n3, n1, 1500, 27.8, 3600, 3);
+		NetworkUtils.createAndAddLink(network, Id.create("d", Link.class), n2, n1, 1000, 13.9, 1800, 2);
+		l1.setAllowedModes(new HashSet<>(Arrays.asList(TransportMode.car, TransportMode.pt)));
+		l2.setAllowedModes(new HashSet<>(Arrays.asList(TransportMode.bike)));
+		NetworkUtils.setType(l2, "residential");
+		return network;
+	}
+
+	private Network writeAndMap(final Network network) {
+		String filename = this.utils.getOutputDirectory() + "network" + NetworkUtils.MAPPED_NETWORK_FILE_EXTENSION;
+		NetworkUtils.writeMappedNetwork(network, filename);
+		return NetworkUtils.readMappedNetwork(filename);
+	}
+
+	@Test
+	public void testWriteRead() {
+		Network network = createNetwork();
+		Network mapped = writeAndMap(network);
+
+		Assert.assertEquals("test network", mapped.getName());
+		Assert.assertEquals(7200.0, mapped.getCapacityPeriod(), 0.0);
+		Assert.assertEquals(network.getEffectiveLaneWidth(), mapped.getEffectiveLaneWidth(), 0.0);
+		Assert.assertEquals(network.getEffectiveCellSize(), mapped.getEffectiveCellSize(), 0.0);
+		Assert.assertEquals(new ArrayList<>(network.getNodes().keySet()), new ArrayList<>(mapped.getNodes().keySet()));
+		Assert.assertEquals(new ArrayList<>(network.getLinks().keySet()), new ArrayList<>(mapped.getLinks().keySet()));
+
+		for (Node node : network.getNodes().values()) {
+			Node mappedNode = mapped.getNodes().get(node.getId());
+			Assert.assertEquals(node.getCoord(), mappedNode.getCoord());
+			Assert.assertEquals(node.getCoord().hasZ(), mappedNode.getCoord().hasZ());
+			Assert.assertEquals(new ArrayList<>(node.getOutLinks().keySet()), new ArrayList<>(mappedNode.getOutLinks().keySet()));
+			Assert.assertEquals(new ArrayList<>(node.getInLinks().keySet()), new ArrayList<>(mappedNode.getInLinks().keySet()));
+		}
+		for (Link link : network.getLinks().values()) {
+			Link mappedLink = mapped.getLinks().get(link.getId());
+			Assert.assertEquals(link.getFromNode().getId(), mappedLink.getFromNode().getId());
+			Assert.assertEquals(link.getToNode().getId(), mappedLink.getToNode().getId());
+			Assert.assertEquals(link.getLength(), mappedLink.getLength(), 0.0);
+			Assert.assertEquals(link.getFreespeed(), mappedLink.getFreespeed(), 0.0);
+			Assert.assertEquals(link.getCapacity(), mappedLink.getCapacity(), 0.0);
+			Assert.assertEquals(link.getNumberOfLanes(), mappedLink.getNumberOfLanes(), 0.0);
+			Assert.assertEquals(link.getFlowCapacityPerSec(), mappedLink.getFlowCapacityPerSec(), 1e-10);
+			Assert.assertEquals(link.getAllowedModes(), mappedLink.getAllowedModes());
+			Assert.assertEquals(link.getCoord(), mappedLink.getCoord());
+			Assert.assertEquals(NetworkUtils.getType(link), NetworkUtils.getType(mappedLink));
+		}
+	}
+
+	@Test
+	public void testLookups() {
+		Network mapped = writeAndMap(createNetwork());
+		Node n2 = mapped.getNodes().get(Id.create("2", Node.class));
+		Link a = mapped.getLinks().get(Id.create("a", Link.class));
+
+		// the same objects every time, so they can be compared by identity
+		Assert.assertSame(n2, a.getToNode());
+		Assert.assertSame(a, n2.getInLinks().get(Id.create("a", Link.class)));
+		Assert.assertSame(a, mapped.getLinks().values().iterator().next());
+
+		Assert.assertNull(mapped.getLinks().get(Id.create("unknown", Link.class)));
+		Assert.assertNull(n2.getOutLinks().get(Id.create("a", Link.class)));
+		// an id of another type, possibly with the index of a link
+		Assert.assertNull(mapped.getLinks().get(n2.getId()));
+		Assert.assertEquals(2, n2.getOutLinks().size());
+
+		Assert.assertSame(n2, NetworkUtils.getNearestNode(mapped, new Coord(900, 100)));
+		Assert.assertEquals(Id.create("a", Link.class), NetworkUtils.getNearestLinkExactly(mapped, new Coord(500, -10)).getId());
+	}
+
+	@Test
+	public void testWriteWithNetworkWriter() {
+		Network network = createNetwork();
+		Network mapped = writeAndMap(network);
+		Assert.assertNull(NetworkUtils.getType(mapped.getNodes().get(Id.create("1", Node.class))));
+		Assert.assertNull(NetworkUtils.getOrigId(mapped.getNodes().get(Id.create("1", Node.class))));
+
+		for (String version : Arrays.asList("v1", "v2")) {
+			String filename = this.utils.getOutputDirectory() + "network_" + version + ".xml";
+			if (version.equals("v1")) {
+				new NetworkWriter(mapped).writeFileV1(filename);
+			} else {
+				new NetworkWriter(mapped).write(filename);
+			}
+			Network read = NetworkUtils.createNetwork();
+			new MatsimNetworkReader(read).readFile(filename);
+
+			Assert.assertEquals(new ArrayList<>(network.getNodes().keySet()), new ArrayList<>(read.getNodes().keySet()));
+			Assert.assertEquals(new ArrayList<>(network.getLinks().keySet()), new ArrayList<>(read.getLinks().keySet()));
+			for (Node node : network.getNodes().values()) {
+				Assert.assertEquals(node.getCoord(), read.getNodes().get(node.getId()).getCoord());
+			}
+			for (Link link : network.getLinks().values()) {
+				Link readLink = read.getLinks().get(link.getId());
+				Assert.assertEquals(link.getFromNode().getId(), readLink.getFromNode().getId());
+				Assert.assertEquals(link.getToNode().getId(), readLink.getToNode().getId());
+				Assert.assertEquals(link.getLength(), readLink.getLength(), 0.0);
+				Assert.assertEquals(link.getCapacity(), readLink.getCapacity(), 0.0);
+				Assert.assertEquals(link.getAllowedModes(), readLink.getAllowedModes());
+			}
+		}
+	}
+
+	@Test
+	public void testReadOnly() {
+		Network mapped = writeAndMap(createNetwork());
+		Link a = mapped.getLinks().get(Id.create("a", Link.class));
+		try {
+			a.setCapacity(100);
+			Assert.fail("mapped links should be read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		try {
+			mapped.removeLink(a.getId());
+			Assert.fail("mapped networks should be read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		List<Link> links = new ArrayList<>(mapped.getLinks().values());
+		try {
+			mapped.getLinks().values().remove(links.get(0));
+			Assert.fail("the links of mapped networks should be read-only");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		Assert.assertEquals(4, mapped.getLinks().size());
+
+		// attributes live on the heap only
+		a.getAttributes().putAttribute("test", "value");
+		Assert.assertEquals("value", a.getAttributes().getAttribute("test"));
+	}
+
+}
@@ -0,0 +1,240 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CompactPlanElementsTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.PlanElement;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.facilities.ActivityFacility;
+import org.matsim.vehicles.Vehicle;
+
+public class CompactPlanElementsTest {
+
+	@Test
+	public void testRoundTrip() {
+		Plan plan = createPlan();
+		Plan copy = createPlan();
+		Assert.assertTrue(((PlanImpl) plan).compact());
+		Assert.assertTrue(((PlanImpl) plan).isCompact());
+
+		List<PlanElement> decoded = plan.getPlanElements();
+		Assert.assertFalse(((PlanImpl) plan).isCompact());
+		Assert.assertEquals(copy.getPlanElements().size(), decoded.size());
+		for (int i = 0; i < decoded.size(); i++) {
+			PlanElement expected = copy.getPlanElements().get(i);
+			PlanElement actual = decoded.get(i);
+			if (expected instanceof Activity) {
+				assertSameActivity((Activity) expected, (Activity) actual);
+			} else {
+				assertSameLeg((Leg) expected, (Leg) actual);
+			}
+		}
+	}
+
+	@Test
+	public void testRoundTripWithIndexedNetworkRoutes() {
+		PlansConfigGroup plansConfigGroup = new PlansConfigGroup();
+		plansConfigGroup.setNetworkRouteType(PlansConfigGroup.NetworkRouteType.IndexedNetworkRoute);
+		Population population = PopulationUtils.createPopulation(plansConfigGroup, null);
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		Id<Link> link3 = Id.create("3", Link.class);
+
+		Plan plan = PopulationUtils.createPlan();
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "home", link1).setEndTime(7 * 3600);
+		Leg leg = PopulationUtils.createAndAddLeg(plan, TransportMode.car);
+		NetworkRoute route = population.getFactory().getRouteFactories().createRoute(NetworkRoute.class, link1, link3);
+		route.setLinkIds(link1, Arrays.asList(link2, link3, link2), link3);
+		route.setTravelTime(1200);
+		route.setDistance(4321.5);
+		route.setTravelCost(-17.25);
+		route.setVehicleId(Id.create("car1", Vehicle.class));
+		leg.setRoute(route);
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "work", link3);
+
+		Assert.assertTrue(((PlanImpl) plan).compact());
+		Leg decoded = (Leg) plan.getPlanElements().get(1);
+		Assert.assertNotSame(route, decoded.getRoute());
+		assertSameLeg(leg, decoded);
+	}
+
+	@Test
+	public void testPlanIsModifiableAfterDecoding() {
+		Plan plan = createPlan();
+		((PlanImpl) plan).compact();
+		PopulationUtils.createAndAddLeg(plan, TransportMode.walk);
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "shop", Id.create("4", Link.class));
+		Assert.assertEquals(7, plan.getPlanElements().size());
+		Assert.assertEquals("shop", ((Activity) plan.getPlanElements().get(6)).getType());
+	}
+
+	@Test
+	public void testConcurrentDecoding() throws InterruptedException {
+		for (int round = 0; round < 100; round++) {
+			final Plan plan = createPlan();
+			((PlanImpl) plan).compact();
+			final List<?>[] lists = new List<?>[4];
+			Thread[] threads = new Thread[lists.length];
+			for (int i = 0; i < threads.length; i++) {
+				final int index = i;
+				threads[i] = new Thread(new Runnable() {
+					@Override
+					public void run() {
+						lists[index] = plan.getPlanElements();
+					}
+				});
+			}
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			// all threads see the same list, so changes made through any of them are not lost
+			for (List<?> list : lists) {
+				Assert.assertSame(plan.getPlanElements(), list);
+			}
+			Assert.assertEquals(5, plan.getPlanElements().size());
+		}
+	}
+
+	@Test
+	public void testElementsWithAttributesAreNotEncoded() {
+		Plan plan = createPlan();
+		List<PlanElement> elements = plan.getPlanElements();
+		elements.get(1).getAttributes().putAttribute("foo", "bar");
+		Assert.assertFalse(((PlanImpl) plan).compact());
+		Assert.assertFalse(((PlanImpl) plan).isCompact());
+		Assert.assertSame(elements, plan.getPlanElements());
+	}
+
+	@Test
+	public void testCompactNonSelectedPlans() {
+		Person person = PopulationUtils.getFactory().createPerson(Id.create("1", Person.class));
+		Plan selected = createPlan();
+		Plan other1 = createPlan();
+		Plan other2 = createPlan();
+		other1.setScore(12.5);
+		for (Plan plan : Arrays.asList(selected, other1, other2)) {
+			person.addPlan(plan);
+		}
+		person.setSelectedPlan(selected);
+
+		Assert.assertEquals(2, PopulationUtils.compactNonSelectedPlans(person));
+		Assert.assertFalse(((PlanImpl) selected).isCompact());
+		Assert.assertTrue(((PlanImpl) other1).isCompact());
+		Assert.assertTrue(((PlanImpl) other2).isCompact());
+
+		// reading the score does not decode the plan
+		Assert.assertEquals(12.5, other1.getScore(), 0.0);
+		Assert.assertSame(person, other1.getPerson());
+		Assert.assertTrue(((PlanImpl) other1).isCompact());
+	}
+
+	private static Plan createPlan() {
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		Id<Link> link3 = Id.create("3", Link.class);
+
+		Plan plan = PopulationUtils.createPlan();
+		Activity home = PopulationUtils.createAndAddActivityFromCoord(plan, "home", new Coord(100.25, -200.5));
+		home.setLinkId(link1);
+		home.setEndTime(7 * 3600 + 0.5);
+		home.setFacilityId(Id.create("home", ActivityFacility.class));
+
+		Leg car = PopulationUtils.createAndAddLeg(plan, TransportMode.car);
+		car.setDepartureTime(7 * 3600);
+		car.setTravelTime(1234);
+		NetworkRoute networkRoute = RouteUtils.createLinkNetworkRouteImpl(link1, Arrays.asList(link2, link3, link2), link3);
+		networkRoute.setTravelTime(1200);
+		networkRoute.setDistance(4321.5);
+		networkRoute.setTravelCost(-17.25);
+		networkRoute.setVehicleId(Id.create("car1", Vehicle.class));
+		car.setRoute(networkRoute);
+
+		Activity work = PopulationUtils.createAndAddActivityFromCoord(plan, "work", new Coord(1, 2, 3));
+		work.setLinkId(link3);
+		work.setStartTime(6 * 3600); // earlier than the departure, to have negative deltas
+		work.setEndTime(17 * 3600);
+		work.setMaximumDuration(8.5 * 3600);
+
+		Leg pt = PopulationUtils.createAndAddLeg(plan, TransportMode.pt);
+		Route genericRoute = RouteUtils.createGenericRouteImpl(link3, link1);
+		genericRoute.setRouteDescription("some description");
+		genericRoute.setTravelTime(600.125);
+		pt.setRoute(genericRoute);
+
+		PopulationUtils.createAndAddActivityFromLinkId(plan, "home", link1);
+		return plan;
+	}
+
+	private static void assertSameActivity(Activity expected, Activity actual) {
+		Assert.assertEquals(expected.getType(), actual.getType());
+		Assert.assertEquals(expected.getCoord(), actual.getCoord());
+		Assert.assertEquals(expected.getLinkId(), actual.getLinkId());
+		Assert.assertEquals(expected.getFacilityId(), actual.getFacilityId());
+		Assert.assertEquals(expected.getStartTime(), actual.getStartTime(), 0.0);
+		Assert.assertEquals(expected.getEndTime(), actual.getEndTime(), 0.0);
+		Assert.assertEquals(expected.getMaximumDuration(), actual.getMaximumDuration(), 0.0);
+	}
+
+	private static void assertSameLeg(Leg expected, Leg actual) {
+		Assert.assertEquals(expected.getMode(), actual.getMode());
+		Assert.assertEquals(expected.getDepartureTime(), actual.getDepartureTime(), 0.0);
+		Assert.assertEquals(expected.getTravelTime(), actual.getTravelTime(), 0.0);
+		Route expectedRoute = expected.getRoute();
+		Route actualRoute = actual.getRoute();
+		if (expectedRoute == null) {
+			Assert.assertNull(actualRoute);
+			return;
+		}
+		Assert.assertEquals(expectedRoute.getClass(), actualRoute.getClass());
+		Assert.assertEquals(expectedRoute.getStartLinkId(), actualRoute.getStartLinkId());
+		Assert.assertEquals(expectedRoute.getEndLinkId(), actualRoute.getEndLinkId());
+		Assert.assertEquals(expectedRoute.getTravelTime(), actualRoute.getTravelTime(), 0.0);
+		Assert.assertEquals(expectedRoute.getDistance(), actualRoute.getDistance(), 0.0);
+		Assert.assertEquals(expectedRoute.getRouteDescription(), actualRoute.getRouteDescription());
+		if (expectedRoute instanceof NetworkRoute) {
+			NetworkRoute expectedNetworkRoute = (NetworkRoute) expectedRoute;
+			NetworkRoute actualNetworkRoute = (NetworkRoute) actualRoute;
+			Assert.assertEquals(expectedNetworkRoute.getLinkIds(), actualNetworkRoute.getLinkIds());
+			Assert.assertEquals(expectedNetworkRoute.getTravelCost(), actualNetworkRoute.getTravelCost(), 0.0);
+			Assert.assertEquals(expectedNetworkRoute.getVehicleId(), actualNetworkRoute.getVehicleId());
+		}
+	}
+
+}
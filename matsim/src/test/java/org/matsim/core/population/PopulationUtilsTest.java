@@ -61,4 +61,85 @@ public class PopulationUtilsTest {
 				legCopy.getAttributes().getAttribute( "mpg" ) );
 	}
 
+	@Test
+	public void testCreateSnapshot() {
+		final Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig() );
+		final PopulationFactory factory = population.getFactory();
+
+		final Person person = factory.createPerson(Id.createPersonId( "1" ));
+		person.getAttributes().putAttribute( "age" , 42 );
+		population.addPerson( person );
+
+		final Plan compactPlan = factory.createPlan();
+		compactPlan.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) ) );
+		compactPlan.addLeg( factory.createLeg( "car" ) );
+		compactPlan.addActivity( factory.createActivityFromLinkId( "work" , Id.createLinkId( 2 ) ) );
+		compactPlan.setScore( 12.5 );
+		person.addPlan( compactPlan );
+		Assert.assertTrue( ((PlanImpl) compactPlan).compact() );
+
+		final Plan plan = factory.createPlan();
+		plan.addActivity( factory.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) ) );
+		final Leg leg = factory.createLeg( "walk" );
+		leg.getAttributes().putAttribute( "reason" , "cannot be encoded" );
+		plan.addLeg( leg );
+		plan.addActivity( factory.createActivityFromLinkId( "shop" , Id.createLinkId( 3 ) ) );
+		person.addPlan( plan );
+		person.setSelectedPlan( plan );
+
+		final Population snapshot = PopulationUtils.createSnapshot( population );
+
+		// modify the population after the snapshot was taken
+		leg.setMode( "bike" );
+		((Leg) compactPlan.getPlanElements().get( 1 )).setMode( "pt" );
+		compactPlan.setScore( 0.0 );
+		person.removePlan( compactPlan );
+
+		final Person personSnapshot = snapshot.getPersons().get( person.getId() );
+		Assert.assertEquals( 42 , personSnapshot.getAttributes().getAttribute( "age" ) );
+		Assert.assertEquals( 2 , personSnapshot.getPlans().size() );
+
+		final Plan compactSnapshot = personSnapshot.getPlans().get( 0 );
+		Assert.assertEquals( 12.5 , compactSnapshot.getScore() , 0.0 );
+		Assert.assertEquals( 3 , compactSnapshot.getPlanElements().size() );
+		Assert.assertEquals( "car" , ((Leg) compactSnapshot.getPlanElements().get( 1 )).getMode() );
+		Assert.assertSame( personSnapshot , compactSnapshot.getPerson() );
+
+		final Plan planSnapshot = personSnapshot.getPlans().get( 1 );
+		Assert.assertSame( planSnapshot , personSnapshot.getSelectedPlan() );
+		final Leg legSnapshot = (Leg) planSnapshot.getPlanElements().get( 1 );
+		Assert.assertEquals( "walk" , legSnapshot.getMode() );
+		Assert.assertEquals( "cannot be encoded" , legSnapshot.getAttributes().getAttribute( "reason" ) );
+
+		try {
+			planSnapshot.getPlanElements().clear();
+			Assert.fail( "snapshot should be read-only" );
+		} catch ( UnsupportedOperationException e ) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testActivityTypeAndModeCodes() {
+		final Activity home = PopulationUtils.createActivityFromLinkId( "home" , Id.createLinkId( 1 ) );
+		final Activity work = PopulationUtils.createActivityFromLinkId( "work" , Id.createLinkId( 2 ) );
+		final Activity home2 = PopulationUtils.createActivityFromCoord( new String( "home" ) , new Coord( 0 , 0 ) );
+
+		Assert.assertTrue( PopulationUtils.getActivityTypeCode( home ) > 0 );
+		Assert.assertEquals( PopulationUtils.getActivityTypeCode( home ) , PopulationUtils.getActivityTypeCode( home2 ) );
+		Assert.assertEquals( PopulationUtils.getActivityTypeCode( "home" ) , PopulationUtils.getActivityTypeCode( home ) );
+		Assert.assertNotEquals( PopulationUtils.getActivityTypeCode( home ) , PopulationUtils.getActivityTypeCode( work ) );
+		Assert.assertEquals( PopulationUtils.getActivityTypeCode( home ) , PopulationUtils.getActivityTypeCode( PopulationUtils.unmodifiableActivity( home ) ) );
+
+		// the cached code follows the type
+		home2.setType( "work" );
+		Assert.assertEquals( PopulationUtils.getActivityTypeCode( work ) , PopulationUtils.getActivityTypeCode( home2 ) );
+
+		final Leg leg = PopulationUtils.createLeg( "car" );
+		Assert.assertEquals( PopulationUtils.getLegModeCode( "car" ) , PopulationUtils.getLegModeCode( leg ) );
+		leg.setMode( "bike" );
+		Assert.assertEquals( PopulationUtils.getLegModeCode( "bike" ) , PopulationUtils.getLegModeCode( leg ) );
+		Assert.assertNotEquals( PopulationUtils.getLegModeCode( "car" ) , PopulationUtils.getLegModeCode( leg ) );
+	}
+
 }
@@ -0,0 +1,147 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ParallelPopulationReaderTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.core.config.Config;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scenario.ScenarioUtils;
+import org.matsim.core.utils.geometry.CoordinateTransformation;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ParallelPopulationReaderTest {
+
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static final int NUMBER_OF_PERSONS = 2 * ParallelPopulationReader.PERSONS_PER_CHUNK + 17;
+
+	@Test
+	public void testV6() {
+		final String file = utils.getOutputDirectory() + "/population.xml";
+		new PopulationWriter(createPopulation()).writeV6(file);
+		compareSequentialAndParallel(file);
+	}
+
+	@Test
+	public void testV5() {
+		final String file = utils.getOutputDirectory() + "/population.xml";
+		new PopulationWriter(createPopulation()).writeV5(file);
+		compareSequentialAndParallel(file);
+	}
+
+	@Test
+	public void testCoordinateTransformation() {
+		final String file = utils.getOutputDirectory() + "/population.xml";
+		new PopulationWriter(createPopulation()).writeV6(file);
+
+		Scenario scenario = ScenarioUtils.createScenario(createConfig(4));
+		new PopulationReader(new CoordinateTransformation() {
+			@Override
+			public Coord transform(Coord coord) {
+				return new Coord(coord.getX() + 1000, coord.getY());
+			}
+		}, scenario).readFile(file);
+
+		Assert.assertEquals(NUMBER_OF_PERSONS, scenario.getPopulation().getPersons().size());
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			Activity home = (Activity) person.getSelectedPlan().getPlanElements().get(0);
+			Assert.assertEquals(1000 + Integer.parseInt(person.getId().toString()), home.getCoord().getX(), MatsimTestUtils.EPSILON);
+		}
+	}
+
+	private void compareSequentialAndParallel(final String file) {
+		Scenario sequential = ScenarioUtils.createScenario(createConfig(1));
+		new PopulationReader(sequential).readFile(file);
+		Scenario parallel = ScenarioUtils.createScenario(createConfig(4));
+		new PopulationReader(parallel).readFile(file);
+
+		Assert.assertEquals(NUMBER_OF_PERSONS, parallel.getPopulation().getPersons().size());
+		Assert.assertEquals(getPersonIds(sequential.getPopulation()), getPersonIds(parallel.getPopulation()));
+		Assert.assertTrue(PopulationUtils.equalPopulation(sequential.getPopulation(), parallel.getPopulation()));
+		for (Person person : sequential.getPopulation().getPersons().values()) {
+			Person other = parallel.getPopulation().getPersons().get(person.getId());
+			Assert.assertEquals(person.getAttributes().toString(), other.getAttributes().toString());
+			Assert.assertEquals(person.getPlans().size(), other.getPlans().size());
+			Assert.assertEquals(person.getPlans().indexOf(person.getSelectedPlan()), other.getPlans().indexOf(other.getSelectedPlan()));
+		}
+	}
+
+	private static Config createConfig(final int numberOfThreads) {
+		Config config = ConfigUtils.createConfig();
+		config.global().setNumberOfThreads(numberOfThreads);
+		return config;
+	}
+
+	private static List<Id<Person>> getPersonIds(final Population population) {
+		return new ArrayList<>(population.getPersons().keySet());
+	}
+
+	private static Population createPopulation() {
+		Population population = PopulationUtils.createPopulation(ConfigUtils.createConfig());
+		PopulationFactory factory = population.getFactory();
+		Id<Link> link1 = Id.create("1", Link.class);
+		Id<Link> link2 = Id.create("2", Link.class);
+		for (int i = 0; i < NUMBER_OF_PERSONS; i++) {
+			Person person = factory.createPerson(Id.create(i, Person.class));
+			person.getAttributes().putAttribute("index", i);
+			for (int j = 0; j < 1 + i % 3; j++) {
+				Plan plan = factory.createPlan();
+				plan.setScore(i + 0.5 * j);
+				Activity home = factory.createActivityFromCoord("home", new Coord(i, j));
+				home.setLinkId(link1);
+				home.setEndTime(6 * 3600 + i);
+				plan.addActivity(home);
+				Leg leg = factory.createLeg(TransportMode.car);
+				leg.setRoute(RouteUtils.createLinkNetworkRouteImpl(link1, link2));
+				plan.addLeg(leg);
+				Activity work = factory.createActivityFromLinkId("work", link2);
+				work.setCoord(new Coord(100, 200));
+				plan.addActivity(work);
+				person.addPlan(plan);
+				if (j == i % 2) {
+					person.setSelectedPlan(plan);
+				}
+			}
+			population.addPerson(person);
+		}
+		return population;
+	}
+
+}
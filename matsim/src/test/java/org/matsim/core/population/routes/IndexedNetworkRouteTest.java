@@ -0,0 +1,104 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * IndexedNetworkRouteTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.population.routes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.config.groups.PlansConfigGroup;
+import org.matsim.core.population.PopulationUtils;
+
+public class IndexedNetworkRouteTest extends AbstractNetworkRouteTest {
+
+	@Override
+	public NetworkRoute getNetworkRouteInstance(final Id<Link> fromLinkId, final Id<Link> toLinkId, final Network network) {
+		return (NetworkRoute) new IndexedNetworkRouteFactory(network).createRoute(fromLinkId, toLinkId);
+	}
+
+	@Test
+	public void testClone() {
+		Network network = createTestNetwork();
+		Id<Link> id1 = Id.create("1", Link.class);
+		Id<Link> id4 = Id.create("4", Link.class);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(Id.create("22", Link.class));
+		srcRoute.add(Id.create("12", Link.class));
+
+		NetworkRoute route1 = getNetworkRouteInstance(id1, id4, network);
+		route1.setLinkIds(id1, srcRoute, id4);
+		NetworkRoute route2 = (NetworkRoute) route1.clone();
+		Assert.assertEquals(srcRoute, route2.getLinkIds());
+
+		srcRoute.add(Id.create("13", Link.class));
+		route1.setLinkIds(id1, srcRoute, id4);
+
+		Assert.assertEquals(3, route1.getLinkIds().size());
+		Assert.assertEquals(2, route2.getLinkIds().size());
+		Assert.assertEquals(srcRoute, route1.getLinkIds());
+	}
+
+	@Test
+	public void testGetLinkIds_unknownLinks() {
+		Network network = createTestNetwork();
+		Id<Link> id1 = Id.create("1", Link.class);
+		Id<Link> id4 = Id.create("4", Link.class);
+		List<Id<Link>> srcRoute = new ArrayList<>();
+		srcRoute.add(Id.create("notInNetwork", Link.class));
+		srcRoute.add(Id.create("22", Link.class));
+
+		NetworkRoute route = getNetworkRouteInstance(id1, id4, network);
+		route.setLinkIds(id1, srcRoute, id4);
+		Assert.assertEquals(srcRoute, route.getLinkIds());
+		Assert.assertEquals("1 notInNetwork 22 4", route.getRouteDescription());
+	}
+
+	@Test
+	public void testLinkIds_areReadOnly() {
+		Network network = createTestNetwork();
+		Id<Link> id1 = Id.create("1", Link.class);
+		Id<Link> id4 = Id.create("4", Link.class);
+		NetworkRoute route = getNetworkRouteInstance(id1, id4, network);
+		route.setRouteDescription("1 22 12 4");
+		try {
+			route.getLinkIds().add(id1);
+			Assert.fail("expected an exception, the link ids must not be modifiable.");
+		} catch (UnsupportedOperationException expected) {
+		}
+	}
+
+	@Test
+	public void testRouteTypeInConfig() {
+		PlansConfigGroup plansConfig = ConfigUtils.createConfig().plans();
+		plansConfig.setNetworkRouteType(PlansConfigGroup.NetworkRouteType.IndexedNetworkRoute);
+		Network network = createTestNetwork();
+		Route route = PopulationUtils.createPopulation(plansConfig, network).getFactory().getRouteFactories()
+				.createRoute(NetworkRoute.class, Id.create("1", Link.class), Id.create("4", Link.class));
+		Assert.assertEquals(IndexedNetworkRouteImpl.class, route.getClass());
+	}
+
+}
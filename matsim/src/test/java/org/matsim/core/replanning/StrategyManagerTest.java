@@ -34,10 +34,12 @@ import org.matsim.core.gbl.MatsimRandom;
 import org.matsim.core.population.PersonUtils;
 import org.matsim.core.population.PopulationUtils;
 import org.matsim.core.replanning.selectors.BestPlanSelector;
+import org.matsim.core.replanning.selectors.ExpBetaPlanSelector;
 import org.matsim.core.replanning.selectors.PlanSelector;
 import org.matsim.core.replanning.selectors.RandomPlanSelector;
 import org.matsim.core.scenario.ScenarioUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -288,6 +290,69 @@ public class StrategyManagerTest {
 		assertTrue("plan should not have been removed.", p.getPlans().contains(plans[plans.length - 3]));
 	}
 
+	@Test
+	public void testParallelRun() {
+		List<String> serial = runParallel(1);
+		List<String> parallel = runParallel(4);
+		Assert.assertEquals(2501, serial.size());
+		Assert.assertEquals("the results should not depend on the number of threads", serial, parallel);
+	}
+
+	/**
+	 * @return for each person the number of plans and the score of the selected plan, followed by the ids of the
+	 * persons whose plans were handed to the module
+	 */
+	private static List<String> runParallel(final int numberOfThreads) {
+		MatsimRandom.reset(4711);
+		Population population = ScenarioUtils.createScenario(ConfigUtils.createConfig()).getPopulation();
+		for (int i = 0; i < 2500; i++) {
+			Person person = PopulationUtils.getFactory().createPerson(Id.create(i, Person.class));
+			for (int j = 0; j < 6; j++) {
+				Plan plan = PersonUtils.createAndAddPlan(person, j == 0);
+				plan.setScore((double) j);
+			}
+			population.addPerson(person);
+		}
+
+		final List<Id<Person>> handled = new ArrayList<>();
+		PlanStrategyImpl innovative = new PlanStrategyImpl(new RandomPlanSelector<Plan, Person>());
+		innovative.addStrategyModule(new PlanStrategyModule() {
+			@Override
+			public void prepareReplanning(ReplanningContext replanningContext) {
+			}
+			@Override
+			public void handlePlan(Plan plan) {
+				handled.add(plan.getPerson().getId());
+			}
+			@Override
+			public void finishReplanning() {
+			}
+		});
+		StrategyManager manager = new StrategyManager();
+		manager.setMaxPlansPerAgent(4);
+		manager.setPlanSelectorForRemoval(new RandomPlanSelector<Plan, Person>());
+		manager.addStrategy(innovative, null, 0.3);
+		manager.addStrategy(new PlanStrategyImpl(new ExpBetaPlanSelector<Plan, Person>(1.0)), null, 0.7);
+		manager.setNumberOfThreads(numberOfThreads);
+		manager.run(population, 0, null);
+
+		List<String> result = new ArrayList<>();
+		List<Id<Person>> order = new ArrayList<>();
+		for (Person person : population.getPersons().values()) {
+			Plan selected = person.getSelectedPlan();
+			Assert.assertTrue(person.getPlans().contains(selected));
+			result.add(person.getPlans().size() + ":" + selected.getScore());
+			order.add(person.getId());
+		}
+		// the module gets the plans in the order of the persons
+		Assert.assertFalse(handled.isEmpty());
+		List<Id<Person>> expected = new ArrayList<>(order);
+		expected.retainAll(handled);
+		Assert.assertEquals(expected, handled);
+		result.add(handled.toString());
+		return result;
+	}
+
 	@Test
 	public void testGetStrategies() {
 		// init StrategyManager
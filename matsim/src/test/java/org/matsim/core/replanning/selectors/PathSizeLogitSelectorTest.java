@@ -21,6 +21,8 @@
 package org.matsim.core.replanning.selectors;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.matsim.api.core.v01.Coord;
@@ -308,6 +310,55 @@ public class PathSizeLogitSelectorTest extends AbstractPlanSelectorTest {
 		assertEquals(2132, cnt3);
 	}
 
+	public void testCalcWeights_overlapWindow() {
+		this.network = createNetwork();
+		PathSizeLogitSelector selector = new PathSizeLogitSelector(1.0, 2.0, network);
+		Person person = PopulationUtils.getFactory().createPerson(Id.create(1, Person.class));
+
+		// the same route, departing exactly one hour apart: the links are shared
+		Plan p1 = createPlanWithRoute(person, 0.0, "2", "3");
+		Plan p2 = createPlanWithRoute(person, 3600.0, "2", "3");
+		Map<Plan, Double> weights = selector.calcWeights(Arrays.asList(p1, p2));
+		assertEquals(0.5, weights.get(p1), 1e-10);
+		assertEquals(0.5, weights.get(p2), 1e-10);
+
+		// a second more, and the routes no longer overlap
+		Plan p3 = createPlanWithRoute(person, 3601.0, "2", "3");
+		weights = selector.calcWeights(Arrays.asList(p1, p3));
+		assertEquals(1.0, weights.get(p1), 1e-10);
+		assertEquals(1.0, weights.get(p3), 1e-10);
+
+		// partial overlap: link 2 is shared by three plans, link 4 and 5 only used by one of them
+		Plan p4 = createPlanWithRoute(person, 1800.0, "2", "4", "5");
+		weights = selector.calcWeights(Arrays.asList(p1, p2, p4));
+		double length2 = network.getLinks().get(Id.create("2", Link.class)).getLength();
+		double length3 = network.getLinks().get(Id.create("3", Link.class)).getLength();
+		double length4 = network.getLinks().get(Id.create("4", Link.class)).getLength();
+		double length5 = network.getLinks().get(Id.create("5", Link.class)).getLength();
+		assertEquals((length2 / 3 + length3 / 2) / (length2 + length3), weights.get(p1), 1e-10);
+		assertEquals((length2 / 3 + length4 + length5) / (length2 + length4 + length5), weights.get(p4), 1e-10);
+	}
+
+	private Plan createPlanWithRoute(final Person person, final double departureTime, final String... linkIds) {
+		Id<Link> startLinkId = Id.create("6", Link.class);
+		Id<Link> endLinkId = Id.create("7", Link.class);
+		Plan plan = PopulationUtils.createPlan(person);
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("h", startLinkId));
+		Leg leg = PopulationUtils.createLeg(TransportMode.car);
+		leg.setDepartureTime(departureTime);
+		NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(startLinkId, endLinkId);
+		ArrayList<Id<Link>> routeLinkIds = new ArrayList<Id<Link>>();
+		for (String linkId : linkIds) {
+			routeLinkIds.add(Id.create(linkId, Link.class));
+		}
+		route.setLinkIds(startLinkId, routeLinkIds, endLinkId);
+		leg.setRoute(route);
+		plan.addLeg(leg);
+		plan.addActivity(PopulationUtils.createActivityFromLinkId("w", endLinkId));
+		plan.setScore(-10.0);
+		return plan;
+	}
+
 	private Network createNetwork() {
 		//we use a simple "red bus / blue bus paradox" network
 		// Sketch of the network
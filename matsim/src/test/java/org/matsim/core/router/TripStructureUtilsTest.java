@@ -21,9 +21,12 @@ package org.matsim.core.router;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.junit.After;
@@ -38,6 +41,7 @@ import org.matsim.api.core.v01.population.Plan;
 import org.matsim.api.core.v01.population.PlanElement;
 import org.matsim.api.core.v01.population.PopulationFactory;
 import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.router.TripStructureUtils.Subtour;
 import org.matsim.core.router.TripStructureUtils.Trip;
 import org.matsim.core.scenario.ScenarioUtils;
 
@@ -408,6 +412,63 @@ public class TripStructureUtilsTest {
 		}
 	}
 
+	@Test
+	public void testCachedStructure() {
+		final Plan plan = populationFactory.createPlan();
+		final Id<Link> homeLinkId = Id.create( 1, Link.class );
+		final Id<Link> workLinkId = Id.create( 2, Link.class );
+		final Activity home = populationFactory.createActivityFromLinkId( "home", homeLinkId );
+		plan.addActivity( home );
+		plan.addLeg( populationFactory.createLeg( "walk" ) );
+		final Activity stage = populationFactory.createActivityFromLinkId( dummyType, workLinkId );
+		plan.addActivity( stage );
+		plan.addLeg( populationFactory.createLeg( "pt" ) );
+		final Activity work = populationFactory.createActivityFromLinkId( "work", workLinkId );
+		plan.addActivity( work );
+		plan.addLeg( populationFactory.createLeg( "car" ) );
+		plan.addActivity( populationFactory.createActivityFromLinkId( "home", homeLinkId ) );
+
+		final List<Trip> trips = TripStructureUtils.getTrips( plan, stageActivities );
+		final List<Leg> legs = TripStructureUtils.getLegs( plan );
+		final Collection<Subtour> subtours = TripStructureUtils.getSubtours( plan, stageActivities );
+		assertEquals( 2, trips.size() );
+		assertEquals( 1, subtours.size() );
+
+		// unchanged plan
+		assertSame( trips, TripStructureUtils.getTrips( plan, stageActivities ) );
+		assertSame( trips, TripStructureUtils.getTrips( plan, new StageActivityTypesImpl( dummyType ) ) );
+		assertSame( legs, TripStructureUtils.getLegs( plan ) );
+		assertSame( subtours, TripStructureUtils.getSubtours( plan, stageActivities ) );
+
+		// other stage activities
+		assertEquals( 3, TripStructureUtils.getTrips( plan, EmptyStageActivityTypes.INSTANCE ).size() );
+		assertEquals( 2, TripStructureUtils.getTrips( plan, stageActivities ).size() );
+
+		// type of an activity changed in place
+		stage.setType( "shop" );
+		assertEquals( 3, TripStructureUtils.getTrips( plan, stageActivities ).size() );
+		assertSame( legs, TripStructureUtils.getLegs( plan ) );
+		stage.setType( dummyType );
+
+		// location of an activity changed in place
+		final Collection<Subtour> subtours2 = TripStructureUtils.getSubtours( plan, stageActivities );
+		work.setLinkId( homeLinkId );
+		final Collection<Subtour> subtours3 = TripStructureUtils.getSubtours( plan, stageActivities );
+		assertNotSame( subtours2, subtours3 );
+		assertEquals( 2, subtours3.size() );
+		work.setLinkId( workLinkId );
+
+		// plan element replaced through a sub list
+		final List<Trip> trips2 = TripStructureUtils.getTrips( plan, stageActivities );
+		plan.getPlanElements().subList( 2, 5 ).set( 0, populationFactory.createActivityFromLinkId( "shop", workLinkId ) );
+		assertNotSame( trips2, TripStructureUtils.getTrips( plan, stageActivities ) );
+		assertEquals( 3, TripStructureUtils.getTrips( plan, stageActivities ).size() );
+
+		// plan element added
+		plan.addLeg( populationFactory.createLeg( "bike" ) );
+		assertEquals( 4, TripStructureUtils.getLegs( plan ).size() );
+	}
+
 	@Test( expected=NullPointerException.class )
 	public void testNPEWhenLocationNullInSubtourAnalysis() {
 		// this may sound surprising, but for a long time the algorithm
@@ -0,0 +1,211 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * ScenarioSnapshotTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.scenario;
+
+import java.io.File;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.api.core.v01.Coord;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.Scenario;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.network.Network;
+import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Activity;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Plan;
+import org.matsim.api.core.v01.population.Population;
+import org.matsim.api.core.v01.population.PopulationFactory;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.ConfigUtils;
+import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.NetworkRoute;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ScenarioSnapshotTest {
+
+	@Rule
+	public final MatsimTestUtils utils = new MatsimTestUtils();
+
+	private static final List<String> SETTINGS = Collections.singletonList("Atlantis");
+
+	@Test
+	public void testWriteAndRead() {
+		Scenario scenario = createScenario();
+		File file = new File(utils.getOutputDirectory() + "/scenario.snapshot");
+		byte[] hash = ScenarioSnapshot.computeHash(Collections.<URL>emptyList(), SETTINGS);
+		Assert.assertTrue(ScenarioSnapshot.write(scenario, file, hash));
+
+		Scenario read = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Assert.assertTrue(ScenarioSnapshot.read(read, file, hash));
+
+		assertSameNetwork(scenario.getNetwork(), read.getNetwork());
+		Assert.assertEquals(scenario.getPopulation().getName(), read.getPopulation().getName());
+		Assert.assertEquals(scenario.getPopulation().getAttributes().toString(), read.getPopulation().getAttributes().toString());
+		Assert.assertTrue(PopulationUtils.equalPopulation(scenario.getPopulation(), read.getPopulation()));
+		for (Person person : scenario.getPopulation().getPersons().values()) {
+			Person other = read.getPopulation().getPersons().get(person.getId());
+			Assert.assertEquals(person.getAttributes().toString(), other.getAttributes().toString());
+			Assert.assertEquals(person.getPlans().indexOf(person.getSelectedPlan()), other.getPlans().indexOf(other.getSelectedPlan()));
+			for (int i = 0; i < person.getPlans().size(); i++) {
+				Plan plan = person.getPlans().get(i);
+				Plan otherPlan = other.getPlans().get(i);
+				Assert.assertEquals(plan.getScore(), otherPlan.getScore());
+				Assert.assertEquals(plan.getType(), otherPlan.getType());
+				Leg leg = (Leg) plan.getPlanElements().get(1);
+				Leg otherLeg = (Leg) otherPlan.getPlanElements().get(1);
+				Route route = leg.getRoute();
+				Route otherRoute = otherLeg.getRoute();
+				Assert.assertEquals(route.getClass(), otherRoute.getClass());
+				Assert.assertEquals(route.getRouteDescription(), otherRoute.getRouteDescription());
+				Assert.assertEquals(route.getDistance(), otherRoute.getDistance(), 0.0);
+				Assert.assertEquals(route.getTravelTime(), otherRoute.getTravelTime(), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testWriteAndReadMappedNetwork() {
+		Scenario scenario = createScenario();
+		String networkFile = utils.getOutputDirectory() + "/network" + NetworkUtils.MAPPED_NETWORK_FILE_EXTENSION;
+		NetworkUtils.writeMappedNetwork(scenario.getNetwork(), networkFile);
+		Network mapped = NetworkUtils.readMappedNetwork(networkFile);
+		((MutableScenario) scenario).setNetwork(mapped);
+		File file = new File(utils.getOutputDirectory() + "/scenario.snapshot");
+		byte[] hash = ScenarioSnapshot.computeHash(Collections.<URL>emptyList(), SETTINGS);
+		Assert.assertTrue(ScenarioSnapshot.write(scenario, file, hash));
+
+		Scenario read = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Assert.assertTrue(ScenarioSnapshot.read(read, file, hash));
+		assertSameNetwork(mapped, read.getNetwork());
+	}
+
+	@Test
+	public void testOtherHashIsIgnored() {
+		Scenario scenario = createScenario();
+		File file = new File(utils.getOutputDirectory() + "/scenario.snapshot");
+		Assert.assertTrue(ScenarioSnapshot.write(scenario, file, ScenarioSnapshot.computeHash(Collections.<URL>emptyList(), SETTINGS)));
+
+		Scenario read = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		byte[] otherHash = ScenarioSnapshot.computeHash(Collections.<URL>emptyList(), Collections.singletonList("WGS84"));
+		Assert.assertFalse(ScenarioSnapshot.read(read, file, otherHash));
+		Assert.assertTrue(read.getNetwork().getNodes().isEmpty());
+		Assert.assertTrue(read.getPopulation().getPersons().isEmpty());
+	}
+
+	@Test
+	public void testUnsupportedAttributesAreNotWritten() {
+		Scenario scenario = createScenario();
+		scenario.getNetwork().getLinks().values().iterator().next().getAttributes().putAttribute("coord", new Coord(1, 2));
+		File file = new File(utils.getOutputDirectory() + "/scenario.snapshot");
+		Assert.assertFalse(ScenarioSnapshot.write(scenario, file, ScenarioSnapshot.computeHash(Collections.<URL>emptyList(), SETTINGS)));
+		Assert.assertFalse(file.exists());
+	}
+
+	private static void assertSameNetwork(final Network expected, final Network actual) {
+		Assert.assertEquals(expected.getCapacityPeriod(), actual.getCapacityPeriod(), 0.0);
+		Assert.assertEquals(expected.getEffectiveLaneWidth(), actual.getEffectiveLaneWidth(), 0.0);
+		Assert.assertEquals(expected.getNodes().keySet(), actual.getNodes().keySet());
+		for (Node node : expected.getNodes().values()) {
+			Assert.assertEquals(node.getCoord(), actual.getNodes().get(node.getId()).getCoord());
+		}
+		Assert.assertEquals(expected.getLinks().keySet(), actual.getLinks().keySet());
+		for (Link link : expected.getLinks().values()) {
+			Link other = actual.getLinks().get(link.getId());
+			Assert.assertEquals(link.getFromNode().getId(), other.getFromNode().getId());
+			Assert.assertEquals(link.getToNode().getId(), other.getToNode().getId());
+			Assert.assertEquals(link.getLength(), other.getLength(), 0.0);
+			Assert.assertEquals(link.getFreespeed(), other.getFreespeed(), 0.0);
+			Assert.assertEquals(link.getCapacity(), other.getCapacity(), 0.0);
+			Assert.assertEquals(link.getNumberOfLanes(), other.getNumberOfLanes(), 0.0);
+			Assert.assertEquals(link.getAllowedModes(), other.getAllowedModes());
+			Assert.assertEquals(link.getAttributes().toString(), other.getAttributes().toString());
+		}
+	}
+
+	private static Scenario createScenario() {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		network.setCapacityPeriod(7200);
+		Node node1 = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		Node node2 = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0, 12.5));
+		Node node3 = NetworkUtils.createAndAddNode(network, Id.create("3", Node.class), new Coord(1000, 1000));
+		Link link1 = NetworkUtils.createAndAddLink(network, Id.create("1", Link.class), node1, node2, 1000, 10, 3600, 1);
+		Link link2 = NetworkUtils.createAndAddLink(network, Id.create("2", Link.class), node2, node3, 1000, 20, 1800, 2);
+		Link link3 = NetworkUtils.createAndAddLink(network, Id.create("3", Link.class), node3, node1, 1500, 30, 7200, 3);
+		link2.setAllowedModes(new HashSet<>(Arrays.asList(TransportMode.car, TransportMode.bike)));
+		NetworkUtils.setType(link3, "motorway");
+
+		Population population = scenario.getPopulation();
+		population.setName("test population");
+		population.getAttributes().putAttribute("version", 3);
+		PopulationFactory factory = population.getFactory();
+		for (int i = 0; i < 10; i++) {
+			Person person = factory.createPerson(Id.create(i, Person.class));
+			person.getAttributes().putAttribute("age", 20 + i);
+			person.getAttributes().putAttribute("employed", i % 2 == 0);
+			for (int j = 0; j < 2; j++) {
+				Plan plan = factory.createPlan();
+				if (j == 0) {
+					plan.setScore(i * 1.5);
+				}
+				Activity home = factory.createActivityFromLinkId("home", link1.getId());
+				home.setCoord(new Coord(10 * i, 0));
+				home.setEndTime(6 * 3600 + 60 * i);
+				home.getAttributes().putAttribute("note", "first");
+				plan.addActivity(home);
+				Leg leg = factory.createLeg(j == 0 ? TransportMode.car : TransportMode.walk);
+				leg.setDepartureTime(6 * 3600 + 60 * i);
+				if (j == 0) {
+					NetworkRoute route = RouteUtils.createLinkNetworkRouteImpl(link1.getId(), Collections.singletonList(link2.getId()), link3.getId());
+					route.setDistance(1000);
+					route.setTravelTime(120);
+					leg.setRoute(route);
+				} else {
+					Route route = RouteUtils.createGenericRouteImpl(link1.getId(), link3.getId());
+					route.setDistance(1234.5);
+					route.setTravelTime(1800);
+					leg.setRoute(route);
+				}
+				plan.addLeg(leg);
+				Activity work = factory.createActivityFromLinkId("work", link3.getId());
+				work.setMaximumDuration(8 * 3600);
+				plan.addActivity(work);
+				person.addPlan(plan);
+			}
+			person.setSelectedPlan(person.getPlans().get(i % 2));
+			population.addPerson(person);
+		}
+		return scenario;
+	}
+
+}
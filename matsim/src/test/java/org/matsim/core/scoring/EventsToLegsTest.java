@@ -19,6 +19,10 @@
 
 package org.matsim.core.scoring;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.Assert;
 import org.junit.Test;
 import org.matsim.api.core.v01.Coord;
@@ -34,13 +38,16 @@ import org.matsim.api.core.v01.events.VehicleEntersTrafficEvent;
 import org.matsim.api.core.v01.network.Link;
 import org.matsim.api.core.v01.network.Network;
 import org.matsim.api.core.v01.network.Node;
+import org.matsim.api.core.v01.population.Leg;
 import org.matsim.api.core.v01.population.Person;
 import org.matsim.core.api.experimental.events.TeleportationArrivalEvent;
 import org.matsim.core.config.ConfigUtils;
 import org.matsim.core.network.NetworkUtils;
+import org.matsim.core.population.routes.NetworkRoute;
 import org.matsim.core.scenario.MutableScenario;
 import org.matsim.core.scenario.ScenarioUtils;
 import org.matsim.core.scoring.EventsToLegs.LegHandler;
+import org.matsim.core.scoring.EventsToLegs.LegRecordHandler;
 import org.matsim.vehicles.Vehicle;
 
 public class EventsToLegsTest {
@@ -84,6 +91,57 @@ public class EventsToLegsTest {
 		Assert.assertEquals(550.0,lh.handledLeg.getLeg().getRoute().getDistance(), 1e-9);
 	}
 	
+	@Test
+	public void testCreatesLegRecords() {
+		Scenario scenario = createTriangularNetwork();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		RememberingLegRecordHandler lrh = new RememberingLegRecordHandler();
+		eventsToLegs.addLegRecordHandler(lrh);
+		Id<Person> agentId = Id.create("1", Person.class);
+		Id<Vehicle> vehId = Id.create("veh1", Vehicle.class);
+		for (int i = 0; i < 2; i++) {
+			double offset = i * 100.0;
+			eventsToLegs.handleEvent(new PersonDepartureEvent(offset + 10.0, agentId, Id.createLinkId("l1"), "car"));
+			eventsToLegs.handleEvent(new PersonEntersVehicleEvent(offset + 10.0, agentId, vehId));
+			eventsToLegs.handleEvent(new VehicleEntersTrafficEvent(offset + 10.0, agentId, Id.createLinkId("l1"), vehId, "car", 1.0));
+			eventsToLegs.handleEvent(new LinkLeaveEvent(offset + 10.0, vehId, Id.createLinkId("l1")));
+			eventsToLegs.handleEvent(new LinkEnterEvent(offset + 11.0, vehId, Id.createLinkId("l2")));
+			eventsToLegs.handleEvent(new LinkLeaveEvent(offset + 15.0, vehId, Id.createLinkId("l2")));
+			eventsToLegs.handleEvent(new LinkEnterEvent(offset + 16.0, vehId, Id.createLinkId("l3")));
+			eventsToLegs.handleEvent(new VehicleLeavesTrafficEvent(offset + 30.0, agentId, Id.createLinkId("l3"), vehId, "car", 1.0));
+			eventsToLegs.handleEvent(new PersonArrivalEvent(offset + 30.0, agentId, Id.createLinkId("l3"), "car"));
+		}
+		eventsToLegs.handleEvent(new PersonDepartureEvent(300.0, agentId, Id.createLinkId("l3"), "walk"));
+		eventsToLegs.handleEvent(new TeleportationArrivalEvent(350.0, agentId, 70.0));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(350.0, agentId, Id.createLinkId("l1"), "walk"));
+
+		Assert.assertEquals(3, lrh.legs.size());
+		Assert.assertEquals(110.0, lrh.legs.get(1).getDepartureTime(), 1e-9);
+		Assert.assertEquals(20.0, lrh.legs.get(1).getTravelTime(), 1e-9);
+		Assert.assertEquals(550.0, lrh.legs.get(1).getRoute().getDistance(), 1e-9);
+		Assert.assertEquals(Arrays.asList(Id.createLinkId("l2")), ((NetworkRoute) lrh.legs.get(1).getRoute()).getLinkIds());
+		Assert.assertEquals(Id.createLinkId("l3"), lrh.legs.get(1).getRoute().getEndLinkId());
+		Assert.assertEquals("walk", lrh.legs.get(2).getMode());
+		Assert.assertEquals(50.0, lrh.legs.get(2).getTravelTime(), 1e-9);
+		Assert.assertEquals(70.0, lrh.legs.get(2).getRoute().getDistance(), 1e-9);
+		Assert.assertEquals(Id.createLinkId("l3"), lrh.legs.get(2).getRoute().getStartLinkId());
+		Assert.assertEquals(Id.createLinkId("l1"), lrh.legs.get(2).getRoute().getEndLinkId());
+	}
+
+	@Test
+	public void testLegHandlersAndLegRecordHandlersShareLegs() {
+		Scenario scenario = createTriangularNetwork();
+		EventsToLegs eventsToLegs = new EventsToLegs(scenario);
+		RememberingLegHandler lh = new RememberingLegHandler();
+		RememberingLegRecordHandler lrh = new RememberingLegRecordHandler();
+		eventsToLegs.addLegHandler(lh);
+		eventsToLegs.addLegRecordHandler(lrh);
+		eventsToLegs.handleEvent(new PersonDepartureEvent(10.0, Id.create("1", Person.class), Id.create("l1", Link.class), "walk"));
+		eventsToLegs.handleEvent(new PersonArrivalEvent(30.0, Id.create("1", Person.class), Id.create("l2", Link.class), "walk"));
+		Assert.assertSame(lh.handledLeg.getLeg(), lrh.legs.get(0));
+		Assert.assertEquals(0.0, lrh.legs.get(0).getRoute().getDistance(), 1e-9);
+	}
+
 	private static Scenario createTriangularNetwork() {
 		MutableScenario scenario = (MutableScenario) ScenarioUtils.createScenario(ConfigUtils.createConfig());
 
@@ -112,6 +170,26 @@ public class EventsToLegsTest {
 		return scenario;
 	}
 	
+	private static class RememberingLegRecordHandler implements LegRecordHandler {
+
+		/*package*/ final List<Leg> legs = new ArrayList<>();
+
+		@Override
+		public void handleLegRecord(ExperiencedLegRecord leg) {
+			// the records are reused, check their data against the leg created from them
+			Leg materialized = leg.toLeg();
+			Assert.assertSame(materialized, leg.toLeg());
+			Assert.assertEquals(Id.create("1", Person.class), leg.getPersonId());
+			Assert.assertEquals(leg.getMode(), materialized.getMode());
+			Assert.assertEquals(leg.getDepartureTime(), materialized.getDepartureTime(), 0.0);
+			Assert.assertEquals(leg.getTravelTime(), materialized.getTravelTime(), 0.0);
+			Assert.assertEquals(leg.getDistance(), materialized.getRoute().getDistance(), 0.0);
+			Assert.assertEquals(leg.getStartLinkId(), materialized.getRoute().getStartLinkId());
+			Assert.assertEquals(leg.getEndLinkId(), materialized.getRoute().getEndLinkId());
+			this.legs.add(materialized);
+		}
+	}
+
 	private static class RememberingLegHandler implements LegHandler {
 
 		/*package*/ PersonExperiencedLeg handledLeg = null;
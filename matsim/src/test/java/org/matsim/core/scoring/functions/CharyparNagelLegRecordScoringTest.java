@@ -0,0 +1,143 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * CharyparNagelLegRecordScoringTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+package org.matsim.core.scoring.functions;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.matsim.api.core.v01.Id;
+import org.matsim.api.core.v01.TransportMode;
+import org.matsim.api.core.v01.network.Link;
+import org.matsim.api.core.v01.population.Leg;
+import org.matsim.api.core.v01.population.Person;
+import org.matsim.api.core.v01.population.Route;
+import org.matsim.core.config.groups.PlanCalcScoreConfigGroup;
+import org.matsim.core.config.groups.ScenarioConfigGroup;
+import org.matsim.core.population.PopulationUtils;
+import org.matsim.core.population.routes.RouteUtils;
+import org.matsim.core.scoring.ExperiencedLegRecord;
+import org.matsim.core.scoring.SumScoringFunction;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class CharyparNagelLegRecordScoringTest {
+
+	@Test
+	public void testRecordIsScoredLikeLeg() {
+		ScoringParameters params = createParams();
+		Leg leg = createLeg();
+
+		CharyparNagelLegScoring legScoring = new CharyparNagelLegScoring(params, null);
+		legScoring.handleLeg(leg);
+		legScoring.finish();
+
+		CharyparNagelLegRecordScoring recordScoring = new CharyparNagelLegRecordScoring(params, null);
+		recordScoring.handleLegRecord(new Record(leg));
+		recordScoring.finish();
+
+		Assert.assertEquals(legScoring.getScore(), recordScoring.getScore(), MatsimTestUtils.EPSILON);
+		Assert.assertTrue(legScoring.getScore() < 0.0);
+	}
+
+	@Test
+	public void testSubclassesGetLegs() {
+		final double[] scoredDistance = new double[] { Double.NaN };
+		CharyparNagelLegScoring subclass = new CharyparNagelLegScoring(createParams(), null) {
+			@Override
+			protected double calcLegScore(double departureTime, double arrivalTime, Leg leg) {
+				scoredDistance[0] = leg.getRoute().getDistance();
+				return 0.0;
+			}
+		};
+		Assert.assertFalse(subclass instanceof SumScoringFunction.LegRecordScoring);
+
+		SumScoringFunction sum = new SumScoringFunction();
+		sum.addScoringFunction(subclass);
+		Leg leg = createLeg();
+		sum.handleLegRecord(new Record(leg));
+		Assert.assertEquals(leg.getRoute().getDistance(), scoredDistance[0], 0.0);
+	}
+
+	private static ScoringParameters createParams() {
+		PlanCalcScoreConfigGroup conf = new PlanCalcScoreConfigGroup();
+		conf.getModes().get(TransportMode.car).setMarginalUtilityOfTraveling(-6.0);
+		conf.getModes().get(TransportMode.car).setMonetaryDistanceRate(-0.0002);
+		conf.getModes().get(TransportMode.car).setConstant(-1.0);
+		return new ScoringParameters.Builder(conf, conf.getScoringParameters(null), new ScenarioConfigGroup()).build();
+	}
+
+	private static Leg createLeg() {
+		Leg leg = PopulationUtils.createLeg(TransportMode.car);
+		leg.setDepartureTime(7 * 3600);
+		leg.setTravelTime(900);
+		Route route = RouteUtils.createLinkNetworkRouteImpl(Id.create(1, Link.class), Id.create(2, Link.class));
+		route.setDistance(12000);
+		route.setTravelTime(900);
+		leg.setRoute(route);
+		return leg;
+	}
+
+	private static final class Record implements ExperiencedLegRecord {
+		private final Leg leg;
+
+		Record(final Leg leg) {
+			this.leg = leg;
+		}
+
+		@Override
+		public Id<Person> getPersonId() {
+			return Id.create(1, Person.class);
+		}
+
+		@Override
+		public String getMode() {
+			return this.leg.getMode();
+		}
+
+		@Override
+		public double getDepartureTime() {
+			return this.leg.getDepartureTime();
+		}
+
+		@Override
+		public double getTravelTime() {
+			return this.leg.getTravelTime();
+		}
+
+		@Override
+		public double getDistance() {
+			return this.leg.getRoute().getDistance();
+		}
+
+		@Override
+		public Id<Link> getStartLinkId() {
+			return this.leg.getRoute().getStartLinkId();
+		}
+
+		@Override
+		public Id<Link> getEndLinkId() {
+			return this.leg.getRoute().getEndLinkId();
+		}
+
+		@Override
+		public Leg toLeg() {
+			return this.leg;
+		}
+	}
+
+}
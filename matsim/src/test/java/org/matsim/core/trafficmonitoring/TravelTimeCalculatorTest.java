@@ -22,6 +22,10 @@ package org.matsim.core.trafficmonitoring;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 
@@ -284,6 +288,47 @@ public class TravelTimeCalculatorTest extends MatsimTestCase {
 		assertEquals(freeSpeedTT, ttcalc.getLinkTravelTimes().getLinkTravelTime(link1, firstTimeBinStart + 5*timeBinSize + offset, null, null), EPSILON);
 	}
 	
+	public void testCheckpoint() throws IOException {
+		Scenario scenario = ScenarioUtils.createScenario(ConfigUtils.createConfig());
+		Network network = scenario.getNetwork();
+		final Node fromNode = NetworkUtils.createAndAddNode(network, Id.create("1", Node.class), new Coord(0, 0));
+		final Node toNode = NetworkUtils.createAndAddNode(network, Id.create("2", Node.class), new Coord(1000, 0));
+		Link link1 = NetworkUtils.createAndAddLink(network,Id.create("1", Link.class), fromNode, toNode, 1000.0, 100.0, 3600.0, 1.0 );
+		Link link2 = NetworkUtils.createAndAddLink(network,Id.create("2", Link.class), toNode, fromNode, 1000.0, 100.0, 3600.0, 1.0 );
+		Id<Vehicle> vehId = Id.create("1", Vehicle.class);
+
+		int timeBinSize = 15*60;
+		for (boolean hashMap : new boolean[] { false, true }) {
+			TravelTimeCalculator ttcalc = new TravelTimeCalculator(network, timeBinSize, 12*3600, scenario.getConfig().travelTimeCalculator());
+			TravelTimeCalculator restored = new TravelTimeCalculator(network, timeBinSize, 12*3600, scenario.getConfig().travelTimeCalculator());
+			if (hashMap) {
+				ttcalc.setTravelTimeDataFactory(new TravelTimeDataHashMapFactory(network));
+				restored.setTravelTimeDataFactory(new TravelTimeDataHashMapFactory(network));
+			}
+			ttcalc.handleEvent(new LinkEnterEvent(7*3600, vehId, link1.getId()));
+			ttcalc.handleEvent(new LinkLeaveEvent(7*3600 + 50*60, vehId, link1.getId()));
+			ttcalc.handleEvent(new LinkEnterEvent(7*3600 + 50*60, vehId, link2.getId()));
+			ttcalc.handleEvent(new LinkLeaveEvent(7*3600 + 55*60, vehId, link2.getId()));
+			ttcalc.handleEvent(new LinkEnterEvent(8*3600, vehId, link1.getId()));
+			ttcalc.handleEvent(new LinkLeaveEvent(8*3600 + 100, vehId, link1.getId()));
+
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bytes)) {
+				ttcalc.writeCheckpoint(out);
+			}
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				restored.readCheckpoint(in);
+				assertEquals(-1, in.read());
+			}
+
+			for (double time = 6*3600; time < 10*3600; time += 300) {
+				for (Link link : new Link[] { link1, link2 }) {
+					assertEquals(ttcalc.getLinkTravelTime(link, time), restored.getLinkTravelTime(link, time), 0.0);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Test linear interpolation of aggregated travel times at different positions of a time bin. (Previous tests only test the midpoint of each time bin.)
 	 * 
@@ -21,7 +21,10 @@ package org.matsim.core.utils.io;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -30,6 +33,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.log4j.Logger;
 import org.junit.Assert;
@@ -218,6 +223,66 @@ public class IOUtilsTest {
 		Assert.assertTrue("compressed file should be less than 50 bytes, but is " + file.length(), file.length() < 50);
 	}
 
+	@Test
+	public void testGetOutputStream_gzippedMultipleBlocks() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.bin.gz";
+		byte[] data = createSampleData(3500000);
+		OutputStream out = IOUtils.getOutputStream(filename);
+		out.write(data, 0, 1000);
+		out.write(data, 1000, data.length - 1000);
+		out.close();
+
+		InputStream in = new GZIPInputStream(new FileInputStream(filename));
+		Assert.assertArrayEquals(data, readFully(in));
+		in.close();
+		Assert.assertTrue("file should be compressed, but has " + new File(filename).length() + " bytes", new File(filename).length() < data.length / 2);
+	}
+
+	@Test
+	public void testGetOutputStream_gzippedReadWithoutAvailableData() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.bin.gz";
+		byte[] data = createSampleData(3500000);
+		OutputStream out = IOUtils.getOutputStream(filename);
+		out.write(data);
+		out.close();
+
+		// GZIPInputStream stops after the first gzip member if the underlying stream reports no available data,
+		// as network streams often do, so the file must consist of a single member
+		InputStream in = new GZIPInputStream(new FilterInputStream(new FileInputStream(filename)) {
+			@Override
+			public int available() {
+				return 0;
+			}
+		});
+		Assert.assertArrayEquals(data, readFully(in));
+		in.close();
+	}
+
+	@Test
+	public void testGetOutputStream_gzippedEmpty() throws IOException {
+		String filename = this.utils.getOutputDirectory() + "test.bin.gz";
+		IOUtils.getOutputStream(filename).close();
+		InputStream in = IOUtils.getInputStream(filename);
+		Assert.assertEquals(-1, in.read());
+		in.close();
+	}
+
+	private static byte[] createSampleData(final int length) {
+		// compressible, but not trivially so
+		Random random = new Random(4711);
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) ('a' + random.nextInt(8));
+		}
+		return data;
+	}
+
+	private static byte[] readFully(final InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		IOUtils.copyStream(in, out);
+		return out.toByteArray();
+	}
+
 	@Test
 	public void testGetInputStream_UTFwithoutBOM() throws IOException {
 		String filename = utils.getOutputDirectory() + "test.txt";
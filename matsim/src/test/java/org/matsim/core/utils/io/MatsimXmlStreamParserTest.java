@@ -0,0 +1,137 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ * MatsimXmlStreamParserTest.java
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+package org.matsim.core.utils.io;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+
+public class MatsimXmlStreamParserTest {
+
+	@Test
+	public void testParsingReservedEntities() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<dummy someAttribute=\"value&quot;&amp;&lt;&gt;value\">content&quot;&amp;&lt;&gt;content</dummy>";
+
+		TestParser parser = new TestParser();
+		parser.setValidating(false);
+
+		parser.parse(new ByteArrayInputStream(str.getBytes()));
+		Assert.assertEquals("[S dummy, E dummy content\"&<>content]", parser.events.toString());
+		Assert.assertEquals(1, parser.lastAttributes.getLength());
+		Assert.assertEquals("someAttribute", parser.lastAttributes.getLocalName(0));
+		Assert.assertEquals("value\"&<>value", parser.lastAttributes.getValue(0));
+		Assert.assertEquals("value\"&<>value", parser.lastAttributes.getValue("someAttribute"));
+		Assert.assertNull(parser.lastAttributes.getValue("otherAttribute"));
+	}
+
+	@Test
+	public void testParsingNestedElements() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\r\n" +
+				"<root>\r\n" +
+				"\t<dummy someAttribute=\"value1\"> content </dummy>\r\n" +
+				"\t<dummy2><![CDATA[a<b]]></dummy2>\r\n" +
+				"\t<empty/>\r\n" +
+				"</root>";
+
+		TestParser parser = new TestParser();
+		parser.setValidating(false);
+
+		parser.parse(new ByteArrayInputStream(str.getBytes()));
+		Assert.assertEquals("[S root, S dummy [root], E dummy  content  [root], S dummy2 [root], E dummy2 a<b [root], "
+				+ "S empty [root], E empty  [root], E root ]", parser.events.toString());
+		Assert.assertNull(parser.getDoctype());
+	}
+
+	@Test
+	public void testDoctypeFromDtd() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<!DOCTYPE network SYSTEM \"http://www.matsim.org/files/dtd/network_v1.dtd\">\n" +
+				"<network name=\"test\">\n" +
+				"\t<nodes>\n" +
+				"\t\t<node id=\"1\" x=\"0\" y=\"0\"/>\n" +
+				"\t</nodes>\n" +
+				"</network>";
+
+		TestParser parser = new TestParser();
+		parser.setValidating(false);
+
+		parser.parse(new ByteArrayInputStream(str.getBytes()));
+		Assert.assertEquals("network_v1.dtd", parser.getDoctype());
+		Assert.assertEquals("node", parser.lastStartTag);
+		Assert.assertEquals("E nodes  [network]", parser.events.get(4));
+	}
+
+	@Test
+	public void testDoctypeFromSchemaLocation() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<counts xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+				"\txsi:noNamespaceSchemaLocation=\"http://matsim.org/files/dtd/counts_v1.xsd\" name=\"test\">\n" +
+				"</counts>";
+
+		TestParser parser = new TestParser();
+		parser.setValidating(false);
+
+		parser.parse(new ByteArrayInputStream(str.getBytes()));
+		Assert.assertEquals("counts_v1.xsd", parser.getDoctype());
+		Assert.assertEquals("test", parser.lastAttributes.getValue("name"));
+	}
+
+	@Test
+	public void testValidatingParserIsUsedByDefault() {
+		String str = "<?xml version='1.0' encoding='UTF-8'?>\n" +
+				"<!DOCTYPE network SYSTEM \"http://www.matsim.org/files/dtd/network_v1.dtd\">\n" +
+				"<network><unknown/></network>";
+
+		TestParser parser = new TestParser();
+		try {
+			parser.parse(new ByteArrayInputStream(str.getBytes()));
+			Assert.fail("expected an exception, the file is not valid.");
+		} catch (UncheckedIOException expected) {
+		}
+	}
+
+	private static class TestParser extends MatsimXmlStreamParser {
+
+		public final List<String> events = new ArrayList<>();
+		public String lastStartTag = null;
+		public Attributes lastAttributes = null;
+
+		@Override
+		public void startTag(String name, Attributes atts, Stack<String> context) {
+			this.events.add("S " + name + (context.isEmpty() ? "" : " " + context));
+			this.lastStartTag = name;
+			this.lastAttributes = atts;
+		}
+
+		@Override
+		public void endTag(String name, String content, Stack<String> context) {
+			this.events.add("E " + name + " " + content + (context.isEmpty() ? "" : " " + context));
+		}
+
+	}
+
+}
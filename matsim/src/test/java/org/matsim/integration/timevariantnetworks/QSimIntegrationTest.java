@@ -45,7 +45,13 @@ import org.matsim.core.config.Config;
 import org.matsim.core.controler.PrepareForSimUtils;
 import org.matsim.core.events.EventsUtils;
 import org.matsim.core.mobsim.framework.Mobsim;
+import org.matsim.core.mobsim.framework.events.MobsimBeforeSimStepEvent;
+import org.matsim.core.mobsim.framework.listeners.MobsimBeforeSimStepListener;
+import org.matsim.core.mobsim.qsim.QSim;
 import org.matsim.core.mobsim.qsim.QSimUtils;
+import org.matsim.core.mobsim.qsim.changeeventsengine.NetworkChangeEventsEngine;
+import org.matsim.core.network.ColumnarTimeVariantLinkFactory;
+import org.matsim.core.network.LinkFactory;
 import org.matsim.core.network.NetworkChangeEvent;
 import org.matsim.core.network.NetworkChangeEvent.ChangeType;
 import org.matsim.core.network.NetworkChangeEvent.ChangeValue;
@@ -108,6 +114,63 @@ public class QSimIntegrationTest extends MatsimTestCase {
 		assertEquals("Person 2 should travel for 6 seconds.", 5.0 + 1.0, ttcalc.person2leaveTime - ttcalc.person2enterTime, EPSILON);
 	}
 
+	/**
+	 * Tests that a change event that is added during the simulation is taken into account, also by the
+	 * links of a {@link ColumnarTimeVariantLinkFactory}, which store the changes of all links together.
+	 */
+	public void testFreespeedChangedDuringSimulation() {
+		runFreespeedChangedDuringSimulation(new VariableIntervalTimeVariantLinkFactory());
+	}
+
+	public void testFreespeedChangedDuringSimulationColumnar() {
+		runFreespeedChangedDuringSimulation(new ColumnarTimeVariantLinkFactory());
+	}
+
+	private void runFreespeedChangedDuringSimulation(final LinkFactory linkFactory) {
+		// the network change events engine is added below, instead of the default one of a time variant network
+		Config config = loadConfig(null);
+		Scenario scenario = ScenarioUtils.createScenario(config);
+
+		Network network = createNetwork(scenario, linkFactory);
+		Link link1 = network.getLinks().get(Id.create("1", Link.class));
+		Link link2 = network.getLinks().get(Id.create("2", Link.class));
+		Link link3 = network.getLinks().get(Id.create("3", Link.class));
+
+		// a freespeed change to 20 at 8am, only known from 7:30am on.
+		final NetworkChangeEvent change = new NetworkChangeEvent(8*3600.0);
+		change.addLink(link2);
+		change.setFreespeedChange(new ChangeValue(ChangeType.ABSOLUTE_IN_SI_UNITS, 20));
+
+		Population plans = scenario.getPopulation();
+		Person person1 = createPersons(7*3600, link1, link3, network, 1).get(0);
+		Person person2 = createPersons(9*3600, link1, link3, network, 1).get(0);
+		plans.addPerson(person1);
+		plans.addPerson(person2);
+
+		EventsManager events = EventsUtils.createEventsManager();
+		TestTravelTimeCalculator ttcalc = new TestTravelTimeCalculator(person1.getId(), person2.getId(), link2.getId());
+		events.addHandler(ttcalc);
+
+		PrepareForSimUtils.createDefaultPrepareForSim(scenario).run();
+		final QSim qsim = QSimUtils.createDefaultQSim(scenario, events);
+		qsim.addMobsimEngine(NetworkChangeEventsEngine.createNetworkChangeEventsEngine());
+		qsim.addQueueSimulationListeners(new MobsimBeforeSimStepListener() {
+			private boolean added = false;
+			@Override
+			public void notifyMobsimBeforeSimStep(MobsimBeforeSimStepEvent e) {
+				if (!this.added && e.getSimulationTime() >= 7.5*3600) {
+					qsim.addNetworkChangeEvent(change);
+					this.added = true;
+				}
+			}
+		});
+		qsim.run();
+
+		assertTrue(NetworkUtils.getNetworkChangeEvents(network).contains(change));
+		assertEquals("Person 1 should travel for 11 seconds.", 10.0 + 1.0, ttcalc.person1leaveTime - ttcalc.person1enterTime, EPSILON);
+		assertEquals("Person 2 should travel for 6 seconds.", 5.0 + 1.0, ttcalc.person2leaveTime - ttcalc.person2enterTime, EPSILON);
+	}
+
 	/**
 	 * Test the queue simulation for correct behavior if capacity of links is
 	 * reduced during the run.
@@ -266,9 +329,13 @@ public class QSimIntegrationTest extends MatsimTestCase {
 	 * @author illenberger
 	 */
 	private static Network createNetwork(Scenario scenario) {
+		return createNetwork(scenario, new VariableIntervalTimeVariantLinkFactory());
+	}
+
+	private static Network createNetwork(Scenario scenario, LinkFactory linkFactory) {
 		// create a network
 		NetworkFactory nf = (NetworkFactory) scenario.getNetwork().getFactory();
-		nf.setLinkFactory(new VariableIntervalTimeVariantLinkFactory());
+		nf.setLinkFactory(linkFactory);
 		final Network network = (Network) scenario.getNetwork();
 		network.setCapacityPeriod(3600.0);
 
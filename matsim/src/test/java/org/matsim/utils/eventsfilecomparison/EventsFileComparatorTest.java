@@ -20,6 +20,7 @@
 package org.matsim.utils.eventsfilecomparison;
 
 import org.matsim.testcases.MatsimTestCase;
+import org.matsim.utils.eventsfilecomparison.EventsFileComparator.Result;
 
 /**
  * @author mrieser
@@ -76,4 +77,17 @@ public class EventsFileComparatorTest extends MatsimTestCase {
 		i = EventsFileComparator.compareAndReturnInt(f2, f1);
 		assertEquals("return val = -4", EventsFileComparator.CODE_WRONG_EVENT_COUNT, i);
 	}
+
+	public void testNumberOfThreads() {
+		String f0 = getClassInputDirectory() + "/events0.xml.gz";
+		Result[] expected = { Result.FILES_ARE_EQUAL, Result.DIFFERENT_NUMBER_OF_TIMESTEPS, Result.DIFFERENT_TIMESTEPS,
+				Result.MISSING_EVENT, Result.WRONG_EVENT_COUNT, Result.FILES_ARE_EQUAL };
+		for (int numberOfThreads : new int[] { 1, 4 }) {
+			for (int i = 0; i < expected.length; i++) {
+				String f = getClassInputDirectory() + "/events" + i + ".xml.gz";
+				assertEquals("events" + i + ", " + numberOfThreads + " threads", expected[i], EventsFileComparator.compare(f0, f, numberOfThreads));
+				assertEquals("events" + i + ", " + numberOfThreads + " threads", expected[i], EventsFileComparator.compare(f, f0, numberOfThreads));
+			}
+		}
+	}
 }
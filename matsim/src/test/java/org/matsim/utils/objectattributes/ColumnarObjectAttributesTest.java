@@ -0,0 +1,130 @@
+/* *********************************************************************** *
+ * project: org.matsim.*
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ * copyright       : (C) 2018 by the members listed in the COPYING,        *
+ *                   LICENSE and WARRANTY file.                            *
+ * email           : info at matsim dot org                                *
+ *                                                                         *
+ * *********************************************************************** *
+ *                                                                         *
+ *   This program is free software; you can redistribute it and/or modify  *
+ *   it under the terms of the GNU General Public License as published by  *
+ *   the Free Software Foundation; either version 2 of the License, or     *
+ *   (at your option) any later version.                                   *
+ *   See also COPYING, LICENSE and WARRANTY file                           *
+ *                                                                         *
+ * *********************************************************************** */
+
+
+package org.matsim.utils.objectattributes;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.matsim.testcases.MatsimTestUtils;
+
+public class ColumnarObjectAttributesTest {
+
+	@Rule	public MatsimTestUtils utils = new MatsimTestUtils();
+
+	@Test
+	public void testPutGetRemove() {
+		ObjectAttributes oa = new ColumnarObjectAttributes();
+		Assert.assertNull(oa.getAttribute("1", "osm:roadtype"));
+		Assert.assertNull(oa.putAttribute("1", "osm:roadtype", "trunk"));
+		Assert.assertEquals("trunk", oa.getAttribute("1", "osm:roadtype"));
+		Assert.assertEquals("trunk", oa.putAttribute("1", "osm:roadtype", "motorway"));
+		Assert.assertEquals("motorway", oa.getAttribute("1", "osm:roadtype"));
+		Assert.assertNull(oa.getAttribute("2", "osm:roadtype"));
+
+		oa.putAttribute("2", "lanes", 2);
+		oa.putAttribute("2", "osm:roadtype", "primary");
+		Assert.assertEquals("motorway", oa.removeAttribute("1", "osm:roadtype"));
+		Assert.assertNull(oa.getAttribute("1", "osm:roadtype"));
+		Assert.assertEquals("primary", oa.getAttribute("2", "osm:roadtype"));
+
+		oa.removeAllAttributes("2");
+		Assert.assertNull(oa.getAttribute("2", "lanes"));
+		Assert.assertNull(oa.getAttribute("2", "osm:roadtype"));
+		Assert.assertEquals("key=1\n", oa.toString());
+	}
+
+	@Test
+	public void testTypedColumns() {
+		ColumnarObjectAttributes oa = new ColumnarObjectAttributes();
+		oa.putAttribute("1", "income", 4500.0);
+		oa.putAttribute("2", "income", 3000.0);
+		oa.putAttribute("2", "age", 27);
+		oa.putAttribute("1", "carAvail", Boolean.TRUE);
+		oa.putAttribute("1", "subpopulation", "freight");
+
+		int one = oa.getObjectIndex("1");
+		int two = oa.getObjectIndex("2");
+		Assert.assertEquals(-1, oa.getObjectIndex("3"));
+		Assert.assertNull(oa.getColumn("height"));
+
+		ColumnarObjectAttributes.Column income = oa.getColumn("income");
+		Assert.assertEquals(4500.0, income.getDouble(one, Double.NaN), 0.0);
+		Assert.assertEquals(3000.0, income.getDouble(two, Double.NaN), 0.0);
+		Assert.assertEquals(-1.0, income.getDouble(-1, -1.0), 0.0);
+		Assert.assertEquals(27, oa.getColumn("age").getInt(two, 0));
+		Assert.assertEquals(0, oa.getColumn("age").getInt(one, 0));
+		Assert.assertTrue(oa.getColumn("carAvail").getBoolean(one, false));
+		Assert.assertFalse(oa.getColumn("carAvail").getBoolean(two, false));
+		Assert.assertEquals("freight", oa.getColumn("subpopulation").getString(one));
+		Assert.assertNull(oa.getColumn("subpopulation").getString(two));
+	}
+
+	@Test
+	public void testMixedTypes() {
+		ColumnarObjectAttributes oa = new ColumnarObjectAttributes();
+		oa.putAttribute("1", "value", 1.5);
+		oa.putAttribute("2", "value", 2);
+		oa.putAttribute("3", "value", "three");
+
+		Assert.assertEquals(Double.valueOf(1.5), oa.getAttribute("1", "value"));
+		Assert.assertEquals(Integer.valueOf(2), oa.getAttribute("2", "value"));
+		Assert.assertEquals("three", oa.getAttribute("3", "value"));
+		Assert.assertEquals(2.0, oa.getColumn("value").getDouble(oa.getObjectIndex("2"), Double.NaN), 0.0);
+	}
+
+	@Test
+	public void testManyDistinctStrings() {
+		ColumnarObjectAttributes oa = new ColumnarObjectAttributes();
+		for (int i = 0; i < 5000; i++) {
+			oa.putAttribute(Integer.toString(i), "name", "person " + i);
+			oa.putAttribute(Integer.toString(i), "group", i % 2 == 0 ? "even" : "odd");
+		}
+		for (int i = 0; i < 5000; i++) {
+			Assert.assertEquals("person " + i, oa.getAttribute(Integer.toString(i), "name"));
+			Assert.assertEquals(i % 2 == 0 ? "even" : "odd", oa.getAttribute(Integer.toString(i), "group"));
+		}
+	}
+
+	@Test
+	public void testReadWrite() {
+		ObjectAttributes oa1 = new ObjectAttributes();
+		oa1.putAttribute("one", "a", "A");
+		oa1.putAttribute("one", "b", Integer.valueOf(1));
+		oa1.putAttribute("two", "c", Double.valueOf(1.5));
+		oa1.putAttribute("two", "d", Boolean.TRUE);
+		new ObjectAttributesXmlWriter(oa1).writeFile(this.utils.getOutputDirectory() + "oa.xml");
+
+		ColumnarObjectAttributes oa2 = new ColumnarObjectAttributes();
+		new ObjectAttributesXmlReader(oa2).readFile(this.utils.getOutputDirectory() + "oa.xml");
+		Assert.assertEquals("A", oa2.getAttribute("one", "a"));
+		Assert.assertEquals(Integer.valueOf(1), oa2.getAttribute("one", "b"));
+		Assert.assertEquals(Double.valueOf(1.5), oa2.getAttribute("two", "c"));
+		Assert.assertEquals(Boolean.TRUE, oa2.getAttribute("two", "d"));
+		Assert.assertNull(oa2.getAttribute("two", "a"));
+
+		new ObjectAttributesXmlWriter(oa2).writeFile(this.utils.getOutputDirectory() + "oa2.xml");
+		ObjectAttributes oa3 = new ObjectAttributes();
+		new ObjectAttributesXmlReader(oa3).readFile(this.utils.getOutputDirectory() + "oa2.xml");
+		Assert.assertEquals("A", oa3.getAttribute("one", "a"));
+		Assert.assertEquals(Boolean.TRUE, oa3.getAttribute("two", "d"));
+	}
+
+}